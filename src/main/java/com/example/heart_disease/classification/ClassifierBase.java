@@ -2,9 +2,14 @@ package com.example.heart_disease.classification;
 
 import weka.classifiers.Classifier;
 import weka.core.Instances;
+import weka.core.OptionHandler;
 import weka.core.SerializationHelper;
+import weka.core.Utils;
 import weka.filters.Filter;
 import weka.filters.unsupervised.attribute.NumericToNominal;
+import com.example.heart_disease.classification.balancing.BalancingClassifier;
+import com.example.heart_disease.classification.balancing.BalancingStrategy;
+import com.example.heart_disease.classification.tuning.TunedOptions;
 import com.example.heart_disease.utils.Logger;
 
 public abstract class ClassifierBase {
@@ -13,6 +18,8 @@ public abstract class ClassifierBase {
     protected Classifier classifier;
     protected String modelName;
     protected long buildTime;
+    protected String[] options;
+    protected BalancingStrategy balancing = BalancingStrategy.NONE;
 
     public ClassifierBase(Logger logger, String modelName) {
         this.logger = logger;
@@ -21,6 +28,76 @@ public abstract class ClassifierBase {
 
     public abstract Classifier createClassifier() throws Exception;
 
+    /**
+     Weka options applied on top of the defaults by createClassifier (null: defaults only)
+     */
+    public void setOptions(String[] options) {
+        this.options = options;
+    }
+
+    public String[] getOptions() {
+        return options;
+    }
+
+    /**
+     Model family in TUNING.properties, or null if TuningRunner does not tune it
+     */
+    protected String getTuningFamily() {
+        return null;
+    }
+
+    /**
+     Entry of TUNING.properties for the configuration createClassifier builds: the
+     model family plus its balancing, or null if it is not tuned
+     */
+    public String getTuningKey() {
+        String family = getTuningFamily();
+        return family == null ? null : TunedOptions.key(family, balancing);
+    }
+
+    /**
+     Use the options TuningRunner saved for this configuration (see getTuningKey)
+     instead of the defaults. Opt-in: call it after setting up the model; returns
+     false, keeping the current options, when there is no such entry.
+     */
+    public boolean useTunedOptions() {
+        String key = getTuningKey();
+        String[] tuned = key == null ? null : TunedOptions.load(TunedOptions.DEFAULT_PATH, key);
+        if (tuned == null) {
+            logger.log("No tuned options for " + modelName + " in " + TunedOptions.DEFAULT_PATH
+                    + (key == null ? "" : " ('" + key + "')") + ", using the defaults");
+            return false;
+        }
+        options = tuned;
+        return true;
+    }
+
+    protected Classifier applyOptions(Classifier classifier) throws Exception {
+        if (options != null && classifier instanceof OptionHandler) {
+            ((OptionHandler) classifier).setOptions(options.clone());
+        }
+        return classifier;
+    }
+
+    /**
+     Class balancing applied by createClassifier to whatever data the classifier is
+     trained on, i.e. inside each training fold during cross-validation
+     */
+    public void setBalancing(BalancingStrategy balancing) {
+        this.balancing = balancing;
+    }
+
+    public BalancingStrategy getBalancing() {
+        return balancing;
+    }
+
+    protected Classifier applyBalancing(Classifier classifier) {
+        if (balancing == BalancingStrategy.NONE) {
+            return classifier;
+        }
+        return new BalancingClassifier(classifier, balancing);
+    }
+
     public Instances prepareData(Instances data) throws Exception {
         if (data.classIndex() == -1) {
             data.setClassIndex(data.numAttributes() - 1);
@@ -44,9 +121,16 @@ public abstract class ClassifierBase {
 
     public void buildModel(Instances data) throws Exception {
         logger.log("=== Building " + modelName + " ===");
+        if (options != null) {
+            logger.log("✓ Tuned options: " + Utils.joinOptions(options));
+        }
         long startTime = System.currentTimeMillis();
 
         classifier = createClassifier();
+        if (classifier instanceof BalancingClassifier) {
+            logger.log("✓ Class balancing: " + ((BalancingClassifier) classifier).getEffectiveStrategy().getLabel()
+                    + " (training data only)");
+        }
         classifier.buildClassifier(data);
 
         buildTime = System.currentTimeMillis() - startTime;
@@ -55,6 +139,26 @@ public abstract class ClassifierBase {
         logger.log("");
     }
 
+    /**
+     Take over a model already fitted on the same data by ExperimentScheduler (see
+     TotalRunner) instead of building it again; logged like buildModel
+     */
+    public void useModel(Classifier model, long buildTime) {
+        logger.log("=== Building " + modelName + " ===");
+        if (options != null) {
+            logger.log("✓ Tuned options: " + Utils.joinOptions(options));
+        }
+        if (model instanceof BalancingClassifier) {
+            logger.log("✓ Class balancing: " + ((BalancingClassifier) model).getEffectiveStrategy().getLabel()
+                    + " (training data only)");
+        }
+        classifier = model;
+        this.buildTime = buildTime;
+        logger.log("✓ Model built by the experiment scheduler, shared with Step 4");
+        logger.log("✓ Build time: " + buildTime + " ms CPU time");
+        logger.log("");
+    }
+
     public void saveModel(String filepath) throws Exception {
         SerializationHelper.write(filepath, classifier);
         logger.log("✓ Model saved to: " + filepath);
@@ -0,0 +1,17 @@
+package com.example.heart_disease.classification.balancing;
+
+import weka.core.Instances;
+
+/**
+ A classifier that needs the rows it was balanced from, e.g. to evaluate itself on
+ them. BalancingClassifier trains it with buildClassifier(balanced, original, source)
+ instead of buildClassifier(balanced).
+ */
+public interface BalancedRowsHandler {
+
+    /**
+     Train on balanced, whose row i is a copy of original row source[i] (source is
+     null when the rows are the original ones, unbalanced)
+     */
+    void buildClassifier(Instances balanced, Instances original, int[] source) throws Exception;
+}
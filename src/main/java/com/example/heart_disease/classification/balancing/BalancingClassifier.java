@@ -0,0 +1,99 @@
+package com.example.heart_disease.classification.balancing;
+
+import weka.classifiers.Classifier;
+import weka.classifiers.SingleClassifierEnhancer;
+import weka.core.BatchPredictor;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.Randomizable;
+import weka.core.WeightedInstancesHandler;
+import com.example.heart_disease.split.InstancesView;
+
+/**
+ Trains the wrapped classifier on a class-balanced version of whatever data it is
+ given. Since the balancing happens inside buildClassifier, cross-validation balances
+ each training fold only and tests on the untouched rows of the test fold, so no
+ duplicated row ends up on both sides of a split; the full-data fit balances all rows.
+
+ WEIGHTS falls back to BOOTSTRAP for classifiers that ignore instance weights.
+ */
+public class BalancingClassifier extends SingleClassifierEnhancer
+        implements Randomizable, WeightedInstancesHandler {
+
+    private static final long serialVersionUID = 1L;
+
+    private BalancingStrategy strategy = BalancingStrategy.WEIGHTS;
+    private int seed = 1;
+
+    public BalancingClassifier() {
+    }
+
+    public BalancingClassifier(Classifier classifier, BalancingStrategy strategy) {
+        m_Classifier = classifier;
+        this.strategy = strategy;
+    }
+
+    public BalancingStrategy getStrategy() {
+        return strategy;
+    }
+
+    public void setStrategy(BalancingStrategy strategy) {
+        this.strategy = strategy;
+    }
+
+    /**
+     The strategy buildClassifier applies to the wrapped classifier.
+     */
+    public BalancingStrategy getEffectiveStrategy() {
+        if (strategy == BalancingStrategy.WEIGHTS && !(m_Classifier instanceof WeightedInstancesHandler)) {
+            return BalancingStrategy.BOOTSTRAP;
+        }
+        return strategy;
+    }
+
+    @Override
+    public void setSeed(int seed) {
+        this.seed = seed;
+    }
+
+    @Override
+    public int getSeed() {
+        return seed;
+    }
+
+    @Override
+    public void buildClassifier(Instances data) throws Exception {
+        getCapabilities().testWithFail(data);
+        Instances balanced = getEffectiveStrategy().balance(data, seed);
+        if (m_Classifier instanceof BalancedRowsHandler) {
+            int[] source = balanced instanceof InstancesView ? ((InstancesView) balanced).getIndices() : null;
+            ((BalancedRowsHandler) m_Classifier).buildClassifier(balanced, data, source);
+        } else {
+            m_Classifier.buildClassifier(balanced);
+        }
+    }
+
+    @Override
+    public double[] distributionForInstance(Instance instance) throws Exception {
+        return m_Classifier.distributionForInstance(instance);
+    }
+
+    @Override
+    public double[][] distributionsForInstances(Instances instances) throws Exception {
+        if (m_Classifier instanceof BatchPredictor) {
+            return ((BatchPredictor) m_Classifier).distributionsForInstances(instances);
+        }
+        return super.distributionsForInstances(instances);
+    }
+
+    @Override
+    public boolean implementsMoreEfficientBatchPrediction() {
+        return m_Classifier instanceof BatchPredictor
+                && ((BatchPredictor) m_Classifier).implementsMoreEfficientBatchPrediction();
+    }
+
+    @Override
+    public String toString() {
+        return "Class balancing of the training data (" + getEffectiveStrategy().getLabel() + ")\n\n" + m_Classifier;
+    }
+}
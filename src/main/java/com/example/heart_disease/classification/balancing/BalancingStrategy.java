@@ -0,0 +1,114 @@
+package com.example.heart_disease.classification.balancing;
+
+import weka.core.Instances;
+import weka.core.Utils;
+import com.example.heart_disease.split.InstancesView;
+
+import java.util.Random;
+
+/**
+ How a training set is rebalanced to a uniform class distribution. Both strategies
+ return an InstancesView over the training rows, so no attribute values are copied.
+ Data without a nominal class is returned unchanged.
+ */
+public enum BalancingStrategy {
+
+    /**
+     No balancing.
+     */
+    NONE("none"),
+
+    /**
+     Reweight the rows so every class present has the same total weight, keeping the
+     overall weight (as Weka's ClassBalancer filter does). Needs a classifier that uses
+     instance weights; rows with a missing class keep their weight.
+     */
+    WEIGHTS("instance weights"),
+
+    /**
+     Draw numInstances rows with replacement, the same number from every class
+     present (as Resample with bias 1.0 does), as an index view over the training
+     rows. Rows with a missing class are left out.
+     */
+    BOOTSTRAP("class-stratified bootstrap");
+
+    private final String label;
+
+    BalancingStrategy(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public Instances balance(Instances data, long seed) {
+        if (this == NONE || data.classIndex() < 0 || !data.classAttribute().isNominal()) {
+            return data;
+        }
+
+        int numClasses = data.numClasses();
+        int[] counts = new int[numClasses];
+        double[] classWeights = new double[numClasses];
+        double totalWeight = 0;
+        int[][] rowsByClass = new int[numClasses][];
+        for (int row = 0; row < data.numInstances(); row++) {
+            double value = data.instance(row).classValue();
+            if (!Utils.isMissingValue(value)) {
+                counts[(int) value]++;
+                classWeights[(int) value] += data.instance(row).weight();
+                totalWeight += data.instance(row).weight();
+            }
+        }
+        int present = 0;
+        for (int c = 0; c < numClasses; c++) {
+            rowsByClass[c] = new int[counts[c]];
+            if (counts[c] > 0) {
+                present++;
+            }
+        }
+        if (present == 0) {
+            return data;
+        }
+
+        if (this == WEIGHTS) {
+            int[] indices = new int[data.numInstances()];
+            double[] weights = new double[data.numInstances()];
+            for (int row = 0; row < indices.length; row++) {
+                double value = data.instance(row).classValue();
+                indices[row] = row;
+                weights[row] = data.instance(row).weight();
+                if (!Utils.isMissingValue(value) && classWeights[(int) value] > 0) {
+                    weights[row] *= totalWeight / (present * classWeights[(int) value]);
+                }
+            }
+            return new InstancesView(data, indices, weights);
+        }
+
+        int[] filled = new int[numClasses];
+        for (int row = 0; row < data.numInstances(); row++) {
+            double value = data.instance(row).classValue();
+            if (!Utils.isMissingValue(value)) {
+                rowsByClass[(int) value][filled[(int) value]++] = row;
+            }
+        }
+        int sampleSize = 0;
+        for (int count : counts) {
+            sampleSize += count;
+        }
+        Random random = new Random(seed);
+        int[] indices = new int[sampleSize];
+        int size = 0;
+        int quotaIndex = 0;
+        for (int c = 0; c < numClasses; c++) {
+            if (counts[c] == 0) {
+                continue;
+            }
+            int quota = sampleSize / present + (quotaIndex++ < sampleSize % present ? 1 : 0);
+            for (int i = 0; i < quota; i++) {
+                indices[size++] = rowsByClass[c][random.nextInt(counts[c])];
+            }
+        }
+        return new InstancesView(data, indices);
+    }
+}
@@ -0,0 +1,478 @@
+package com.example.heart_disease.classification.boosting;
+
+import weka.classifiers.AbstractClassifier;
+import weka.core.Capabilities;
+import weka.core.Capabilities.Capability;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.Option;
+import weka.core.Randomizable;
+import weka.core.Utils;
+import weka.core.WeightedInstancesHandler;
+import com.example.heart_disease.split.InstancesView;
+import com.example.heart_disease.classification.histogram.BinnedData;
+import com.example.heart_disease.classification.histogram.FeatureBinning;
+import com.example.heart_disease.classification.histogram.HistogramTree;
+import com.example.heart_disease.classification.histogram.HistogramTreeBuilder;
+import com.example.heart_disease.classification.histogram.SplitCriterion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Random;
+import java.util.Vector;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ Gradient boosting of histogram trees with logistic loss, for a binary class.
+
+ Every round fits one HistogramTree to the gradients and hessians of the log loss
+ (SplitCriterion.Gradient) and adds shrinkage times its Newton-step leaves to the
+ log-odds of class 1. Instance weights scale each row's gradient, so class weights
+ (e.g. from BalancingClassifier) rebalance the loss without resampling.
+
+ With a validation fraction above 0 a stratified part of the training data is held
+ out, and training stops once the weighted validation log loss has not improved for
+ -patience rounds; the trees after the best round are dropped. The class prior alone
+ is the starting point, so if no round beats it every tree is dropped. Rounds are
+ sequential, so -num-slots threads build the histograms of each tree by feature and
+ update the gradients and scores by row.
+ */
+public class GradientBoostedTrees extends AbstractClassifier implements Randomizable, WeightedInstancesHandler {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Smallest node or row loop split over threads */
+    private static final int PARALLEL_ROWS = 1 << 13;
+
+    private int maxIterations = 500;
+    private double shrinkage = 0.1;
+    private int maxDepth = 4;
+    private double minLeafWeight = 20;
+    private double lambda = 1.0;
+    private int numFeatures;
+    private int maxBins = FeatureBinning.MAX_BINS;
+    private double validationFraction = 0.1;
+    private int patience = 20;
+    private int seed = 1;
+    private int numThreads = 1;
+
+    private FeatureBinning binning;
+    private double baseScore;
+    private HistogramTree[] trees;
+    private double[] validationLoss;
+    private double priorValidationLoss = Double.NaN;
+    private int bestIteration;
+
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    public void setMaxIterations(int maxIterations) {
+        this.maxIterations = maxIterations;
+    }
+
+    public double getShrinkage() {
+        return shrinkage;
+    }
+
+    public void setShrinkage(double shrinkage) {
+        this.shrinkage = shrinkage;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     Maximum tree depth, 0 for unlimited
+     */
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    public double getMinLeafWeight() {
+        return minLeafWeight;
+    }
+
+    public void setMinLeafWeight(double minLeafWeight) {
+        this.minLeafWeight = minLeafWeight;
+    }
+
+    public double getLambda() {
+        return lambda;
+    }
+
+    /**
+     L2 penalty on the leaf values
+     */
+    public void setLambda(double lambda) {
+        this.lambda = lambda;
+    }
+
+    public int getNumFeatures() {
+        return numFeatures;
+    }
+
+    /**
+     Features tried per split, 0 for all
+     */
+    public void setNumFeatures(int numFeatures) {
+        this.numFeatures = numFeatures;
+    }
+
+    public int getMaxBins() {
+        return maxBins;
+    }
+
+    public void setMaxBins(int maxBins) {
+        this.maxBins = maxBins;
+    }
+
+    public double getValidationFraction() {
+        return validationFraction;
+    }
+
+    /**
+     Fraction of the training data held out for early stopping, 0 to train all rounds
+     */
+    public void setValidationFraction(double validationFraction) {
+        this.validationFraction = validationFraction;
+    }
+
+    public int getPatience() {
+        return patience;
+    }
+
+    public void setPatience(int patience) {
+        this.patience = patience;
+    }
+
+    @Override
+    public int getSeed() {
+        return seed;
+    }
+
+    @Override
+    public void setSeed(int seed) {
+        this.seed = seed;
+    }
+
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    /**
+     Threads used inside each round, 0 for one per core
+     */
+    public void setNumThreads(int numThreads) {
+        this.numThreads = numThreads;
+    }
+
+    @Override
+    public Capabilities getCapabilities() {
+        Capabilities result = super.getCapabilities();
+        result.disableAll();
+        result.enable(Capability.NOMINAL_ATTRIBUTES);
+        result.enable(Capability.NUMERIC_ATTRIBUTES);
+        result.enable(Capability.DATE_ATTRIBUTES);
+        result.enable(Capability.MISSING_VALUES);
+        result.enable(Capability.BINARY_CLASS);
+        result.enable(Capability.MISSING_CLASS_VALUES);
+        return result;
+    }
+
+    @Override
+    public void buildClassifier(Instances data) throws Exception {
+        getCapabilities().testWithFail(data);
+        Instances train = data;
+        Instances validation = null;
+        if (validationFraction > 0) {
+            boolean[] held = validationRows(data);
+            List<Integer> trainRows = new ArrayList<>();
+            List<Integer> validationRows = new ArrayList<>();
+            for (int row = 0; row < held.length; row++) {
+                (held[row] ? validationRows : trainRows).add(row);
+            }
+            train = new InstancesView(data, trainRows.stream().mapToInt(Integer::intValue).toArray());
+            validation = new InstancesView(data, validationRows.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        binning = FeatureBinning.fit(train, maxBins);
+        BinnedData binnedTrain = binning.transform(train);
+        BinnedData binnedValidation = validation != null ? binning.transform(validation) : null;
+
+        ForkJoinPool pool = new ForkJoinPool(numThreads > 0 ? numThreads : Runtime.getRuntime().availableProcessors());
+        try {
+            pool.submit(() -> boost(binnedTrain, binnedValidation)).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : new RuntimeException(cause);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     A random validationFraction of each class, drawn with the seed. Not taken from
+     FoldIndices: an entry per training fold this is built on would push the folds in
+     use out of its cache.
+     */
+    private boolean[] validationRows(Instances data) {
+        int numClasses = data.numClasses();
+        List<List<Integer>> byClass = new ArrayList<>();
+        for (int c = 0; c < numClasses; c++) {
+            byClass.add(new ArrayList<>());
+        }
+        for (int row = 0; row < data.numInstances(); row++) {
+            if (!data.instance(row).classIsMissing()) {
+                byClass.get((int) data.instance(row).classValue()).add(row);
+            }
+        }
+        Random random = new Random(seed);
+        boolean[] held = new boolean[data.numInstances()];
+        for (List<Integer> rows : byClass) {
+            Collections.shuffle(rows, random);
+            int count = (int) Math.round(rows.size() * validationFraction);
+            for (int i = 0; i < count; i++) {
+                held[rows.get(i)] = true;
+            }
+        }
+        return held;
+    }
+
+    private void boost(BinnedData train, BinnedData validation) {
+        int n = train.numRows();
+        float[] weights = new float[n];
+        double positive = 0;
+        double total = 0;
+        for (int row = 0; row < n; row++) {
+            if (!Utils.isMissingValue(train.classValue(row))) {
+                weights[row] = (float) train.weight(row);
+                positive += weights[row] * train.classValue(row);
+                total += weights[row];
+            }
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("No training instances with a class value");
+        }
+        double prior = Math.min(Math.max(positive / total, 1e-6), 1 - 1e-6);
+        baseScore = Math.log(prior / (1 - prior));
+
+        double[] scores = new double[n];
+        double[] validationScores = validation != null ? new double[validation.numRows()] : null;
+        Arrays.fill(scores, baseScore);
+        if (validationScores != null) {
+            Arrays.fill(validationScores, baseScore);
+        }
+
+        float[] rowStats = new float[n * SplitCriterion.Gradient.NUM_STATS];
+        HistogramTreeBuilder builder = new HistogramTreeBuilder(train, new SplitCriterion.Gradient(lambda), rowStats)
+                .setMaxDepth(maxDepth)
+                .setMinLeafWeight(minLeafWeight)
+                .setFeaturesPerSplit(numFeatures)
+                .setParallelRows(PARALLEL_ROWS);
+        Random random = new Random(seed);
+        List<HistogramTree> grown = new ArrayList<>();
+        List<Double> losses = new ArrayList<>();
+        // Round -1 is the class prior alone
+        priorValidationLoss = validation != null ? logLoss(validation, validationScores) : Double.NaN;
+        double bestLoss = validation != null ? priorValidationLoss : Double.POSITIVE_INFINITY;
+        bestIteration = -1;
+
+        for (int iteration = 0; iteration < maxIterations; iteration++) {
+            rows(n).forEach(row -> {
+                double p = sigmoid(scores[row]);
+                double y = weights[row] > 0 ? train.classValue(row) : 0;
+                SplitCriterion.Gradient.setRow(rowStats, row, p - y, Math.max(p * (1 - p), 1e-6));
+            });
+            HistogramTree tree = builder.build(weights, random);
+            grown.add(tree);
+            addTree(tree, train, scores);
+
+            if (validation == null) {
+                bestIteration = iteration;
+                continue;
+            }
+            addTree(tree, validation, validationScores);
+            double loss = logLoss(validation, validationScores);
+            losses.add(loss);
+            if (loss < bestLoss - 1e-9) {
+                bestLoss = loss;
+                bestIteration = iteration;
+            } else if (iteration - bestIteration >= patience) {
+                break;
+            }
+        }
+
+        trees = grown.subList(0, bestIteration + 1).toArray(new HistogramTree[0]);
+        validationLoss = new double[losses.size()];
+        for (int i = 0; i < validationLoss.length; i++) {
+            validationLoss[i] = losses.get(i);
+        }
+    }
+
+    private void addTree(HistogramTree tree, BinnedData data, double[] scores) {
+        double[] leaves = tree.getLeafValues();
+        rows(data.numRows()).forEach(row -> scores[row] += shrinkage * leaves[tree.leafOffset(data, row)]);
+    }
+
+    private static IntStream rows(int n) {
+        IntStream rows = IntStream.range(0, n);
+        return n >= PARALLEL_ROWS ? rows.parallel() : rows;
+    }
+
+    /**
+     Weighted mean log loss of the rows with a class value
+     */
+    private static double logLoss(BinnedData data, double[] scores) {
+        double loss = 0;
+        double total = 0;
+        for (int row = 0; row < data.numRows(); row++) {
+            double y = data.classValue(row);
+            if (Utils.isMissingValue(y)) {
+                continue;
+            }
+            // log(1 + e^F) - y * F, computed without overflow
+            double score = scores[row];
+            double softplus = score > 0 ? score + Math.log1p(Math.exp(-score)) : Math.log1p(Math.exp(score));
+            loss += data.weight(row) * (softplus - y * score);
+            total += data.weight(row);
+        }
+        return total > 0 ? loss / total : 0;
+    }
+
+    private static double sigmoid(double score) {
+        return 1 / (1 + Math.exp(-score));
+    }
+
+    @Override
+    public double[] distributionForInstance(Instance instance) throws Exception {
+        double score = baseScore;
+        for (HistogramTree tree : trees) {
+            score += shrinkage * tree.getLeafValues()[tree.leafOffset(instance)];
+        }
+        double p = sigmoid(score);
+        return new double[]{1 - p, p};
+    }
+
+    public HistogramTree[] getTrees() {
+        return trees;
+    }
+
+    public double getBaseScore() {
+        return baseScore;
+    }
+
+    /**
+     Validation log loss after each round trained, empty without a validation fraction
+     */
+    public double[] getValidationLoss() {
+        return validationLoss;
+    }
+
+    /**
+     Validation log loss of the class prior alone, before any round (NaN without a
+     validation fraction)
+     */
+    public double getPriorValidationLoss() {
+        return priorValidationLoss;
+    }
+
+    /**
+     Number of trees kept, i.e. the best round plus one
+     */
+    public int getNumTrees() {
+        return trees == null ? 0 : trees.length;
+    }
+
+    @Override
+    public Enumeration<Option> listOptions() {
+        Vector<Option> options = new Vector<>();
+        options.addElement(new Option("\tMaximum number of boosting rounds (default 500).", "I", 1, "-I <num>"));
+        options.addElement(new Option("\tShrinkage (learning rate) (default 0.1).", "shrinkage", 1,
+                "-shrinkage <num>"));
+        options.addElement(new Option("\tMaximum depth of the trees, 0 for unlimited (default 4).", "depth", 1,
+                "-depth <num>"));
+        options.addElement(new Option("\tMinimum total weight of a leaf (default 20).", "M", 1, "-M <num>"));
+        options.addElement(new Option("\tL2 penalty on leaf values (default 1).", "lambda", 1, "-lambda <num>"));
+        options.addElement(new Option("\tNumber of features tried per split, 0 for all (default 0).", "K", 1,
+                "-K <num>"));
+        options.addElement(new Option("\tMaximum number of bins per attribute, at most 255 (default 255).", "B", 1,
+                "-B <num>"));
+        options.addElement(new Option("\tFraction held out for early stopping, 0 to disable (default 0.1).",
+                "validation", 1, "-validation <num>"));
+        options.addElement(new Option("\tRounds without improvement before stopping (default 20).", "patience", 1,
+                "-patience <num>"));
+        options.addElement(new Option("\tRandom number seed (default 1).", "S", 1, "-S <num>"));
+        options.addElement(new Option("\tNumber of threads, 0 for one per core (default 1).", "num-slots", 1,
+                "-num-slots <num>"));
+        options.addAll(Collections.list(super.listOptions()));
+        return options.elements();
+    }
+
+    @Override
+    public void setOptions(String[] options) throws Exception {
+        String value = Utils.getOption('I', options);
+        maxIterations = value.isEmpty() ? 500 : Integer.parseInt(value);
+        value = Utils.getOption("shrinkage", options);
+        shrinkage = value.isEmpty() ? 0.1 : Double.parseDouble(value);
+        value = Utils.getOption("depth", options);
+        maxDepth = value.isEmpty() ? 4 : Integer.parseInt(value);
+        value = Utils.getOption('M', options);
+        minLeafWeight = value.isEmpty() ? 20 : Double.parseDouble(value);
+        value = Utils.getOption("lambda", options);
+        lambda = value.isEmpty() ? 1.0 : Double.parseDouble(value);
+        value = Utils.getOption('K', options);
+        numFeatures = value.isEmpty() ? 0 : Integer.parseInt(value);
+        value = Utils.getOption('B', options);
+        maxBins = value.isEmpty() ? FeatureBinning.MAX_BINS : Integer.parseInt(value);
+        value = Utils.getOption("validation", options);
+        validationFraction = value.isEmpty() ? 0.1 : Double.parseDouble(value);
+        value = Utils.getOption("patience", options);
+        patience = value.isEmpty() ? 20 : Integer.parseInt(value);
+        value = Utils.getOption('S', options);
+        seed = value.isEmpty() ? 1 : Integer.parseInt(value);
+        value = Utils.getOption("num-slots", options);
+        numThreads = value.isEmpty() ? 1 : Integer.parseInt(value);
+        super.setOptions(options);
+        Utils.checkForRemainingOptions(options);
+    }
+
+    @Override
+    public String[] getOptions() {
+        Vector<String> options = new Vector<>();
+        Collections.addAll(options, "-I", "" + maxIterations, "-shrinkage", "" + shrinkage, "-depth", "" + maxDepth,
+                "-M", "" + minLeafWeight, "-lambda", "" + lambda, "-K", "" + numFeatures, "-B", "" + maxBins,
+                "-validation", "" + validationFraction, "-patience", "" + patience, "-S", "" + seed,
+                "-num-slots", "" + numThreads);
+        Collections.addAll(options, super.getOptions());
+        return options.toArray(new String[0]);
+    }
+
+    @Override
+    public String toString() {
+        if (trees == null) {
+            return "Gradient boosted trees: no model built yet.";
+        }
+        long nodes = 0;
+        for (HistogramTree tree : trees) {
+            nodes += tree.numNodes();
+        }
+        StringBuilder text = new StringBuilder("Gradient boosted trees (logistic loss), " + trees.length + " trees of depth <= "
+                + maxDepth + ", shrinkage " + shrinkage + "\n");
+        text.append("Average nodes per tree: ").append(nodes / Math.max(1, trees.length)).append("\n");
+        if (validationLoss.length > 0 && bestIteration >= 0) {
+            text.append(String.format("Validation log loss: %.4f (best of %d rounds)%n",
+                    validationLoss[bestIteration], validationLoss.length));
+        } else if (validationLoss.length > 0) {
+            text.append(String.format("Validation log loss: %.4f (class prior; no improvement in %d rounds)%n",
+                    priorValidationLoss, validationLoss.length));
+        }
+        return text.toString();
+    }
+}
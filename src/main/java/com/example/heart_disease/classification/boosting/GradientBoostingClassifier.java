@@ -0,0 +1,58 @@
+package com.example.heart_disease.classification.boosting;
+
+import weka.classifiers.Classifier;
+import weka.core.Instances;
+import com.example.heart_disease.classification.ClassifierBase;
+import com.example.heart_disease.classification.balancing.BalancingClassifier;
+import com.example.heart_disease.classification.balancing.BalancingStrategy;
+import com.example.heart_disease.utils.Logger;
+
+public class GradientBoostingClassifier extends ClassifierBase {
+
+    private int numThreads = 1;
+
+    public GradientBoostingClassifier(Logger logger, boolean useBalancing) {
+        super(logger, "Gradient Boosted Trees");
+        balancing = useBalancing ? BalancingStrategy.WEIGHTS : BalancingStrategy.NONE;
+    }
+
+    /**
+     Threads used inside each boosting round, 0 for one per core
+     */
+    public void setNumThreads(int numThreads) {
+        this.numThreads = numThreads;
+    }
+
+    @Override
+    public Classifier createClassifier() throws Exception {
+        GradientBoostedTrees boosting = new GradientBoostedTrees();
+        boosting.setNumThreads(numThreads);
+        return applyBalancing(applyOptions(boosting));
+    }
+
+    private Classifier boosting() {
+        if (classifier instanceof BalancingClassifier) {
+            return ((BalancingClassifier) classifier).getClassifier();
+        }
+        return classifier;
+    }
+
+    @Override
+    public void buildModel(Instances data) throws Exception {
+        super.buildModel(data);
+
+        GradientBoostedTrees boosting = (GradientBoostedTrees) boosting();
+        double[] losses = boosting.getValidationLoss();
+        if (losses.length > 0 && boosting.getNumTrees() == 0) {
+            // No round lowered the validation loss below that of the prior, so the model is the prior alone
+            logger.log(String.format("✓ Trees: 0 (no improvement on the class prior in %d rounds), "
+                    + "validation log loss: %.4f", losses.length, boosting.getPriorValidationLoss()));
+        } else if (losses.length > 0) {
+            logger.log(String.format("✓ Trees: %d (early stopping after %d rounds), validation log loss: %.4f",
+                    boosting.getNumTrees(), losses.length, losses[boosting.getNumTrees() - 1]));
+        } else {
+            logger.log("✓ Trees: " + boosting.getNumTrees());
+        }
+        logger.log("");
+    }
+}
@@ -1,35 +1,213 @@
 package com.example.heart_disease.classification.crossvalidation;
 
+import weka.classifiers.AbstractClassifier;
 import weka.classifiers.Classifier;
+import weka.classifiers.ConditionalDensityEstimator;
 import weka.classifiers.Evaluation;
+import weka.classifiers.IntervalEstimator;
+import weka.classifiers.misc.InputMappedClassifier;
+import weka.core.BatchPredictor;
+import weka.core.Instance;
 import weka.core.Instances;
+import com.example.heart_disease.split.FoldIndices;
+import com.example.heart_disease.utils.BenchmarkUtils;
 import com.example.heart_disease.utils.Logger;
 
-import java.util.Random;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class CrossValidation {
 
     private Logger logger;
+    private int threads;
 
     public CrossValidation(Logger logger) {
+        this(logger, 1);
+    }
+
+    /**
+     With threads > 1 the folds are evaluated in parallel on that many worker threads.
+     */
+    public CrossValidation(Logger logger, int threads) {
         this.logger = logger;
+        this.threads = threads;
     }
 
     public Evaluation performCrossValidation(Classifier classifier, Instances data, int folds) throws Exception {
         logger.log("=== " + folds + "-Fold Cross-Validation ===");
 
-        Evaluation eval = new Evaluation(data);
+        FoldIndices indices = FoldIndices.crossValidation(data, folds, 1);
+        long[] foldMillis = new long[folds];
         long cvStartTime = System.currentTimeMillis();
-        eval.crossValidateModel(classifier, data, folds, new Random(1));
+        Evaluation eval = threads > 1
+                ? crossValidate(classifier, data, indices, threads, foldMillis)
+                : crossValidate(classifier, data, indices);
         long cvTime = System.currentTimeMillis() - cvStartTime;
 
         logger.log("✓ " + folds + "-fold cross-validation completed!");
         logger.log("✓ Cross-validation time: " + cvTime + " ms");
+        if (threads > 1) {
+            long foldTime = 0;
+            for (long millis : foldMillis) {
+                foldTime += millis;
+            }
+            int workers = Math.min(threads, folds);
+            // Not a measured serial run: CrossValidationBenchmark times one
+            double speedup = foldTime / (double) Math.max(1, cvTime);
+            logger.log("✓ Parallel folds: " + workers + " worker threads, "
+                    + Runtime.getRuntime().availableProcessors() + " cores available");
+            logger.log("✓ Summed fold CPU time (serial estimate): " + foldTime + " ms");
+            logger.log(String.format("✓ Estimated speedup: %.2fx (fold CPU time / wall time, "
+                    + "parallel efficiency %.0f%%)", speedup, 100 * speedup / workers));
+        }
         logger.log("");
 
         return eval;
     }
 
+    /**
+     Cross-validate on precomputed folds. The result is that of
+     Evaluation.crossValidateModel with the seed the folds were made with, but each
+     fold trains and tests on index views of data instead of copies.
+     */
+    public static Evaluation crossValidate(Classifier classifier, Instances data, FoldIndices folds) throws Exception {
+        Evaluation eval = new Evaluation(data);
+        for (int fold = 0; fold < folds.numFolds(); fold++) {
+            Instances train = folds.train(data, fold);
+            eval.setPriors(train);
+            Classifier copy = AbstractClassifier.makeCopy(classifier);
+            copy.buildClassifier(train);
+            eval.evaluateModel(copy, folds.test(data, fold));
+        }
+        return eval;
+    }
+
+    /**
+     Parallel crossValidate: folds are trained and tested concurrently on at most threads
+     worker threads, then merged into one Evaluation in fold order. Every fold only
+     reads its precomputed indices and its own copy of the classifier, so the result is
+     bit-for-bit that of the serial run. foldMillis, when not null, receives each
+     fold's train and test CPU time.
+     */
+    public static Evaluation crossValidate(Classifier classifier, Instances data, FoldIndices folds,
+                                           int threads, long[] foldMillis) throws Exception {
+        int numFolds = folds.numFolds();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, numFolds)));
+        try {
+            return mergeFolds(data, folds, submitFolds(executor, classifier, data, folds), foldMillis, null);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     Start training and testing every fold on the executor.
+     */
+    static List<Future<FoldResult>> submitFolds(ExecutorService executor, Classifier classifier,
+                                                Instances data, FoldIndices folds) {
+        List<Future<FoldResult>> futures = new ArrayList<>(folds.numFolds());
+        for (int fold = 0; fold < folds.numFolds(); fold++) {
+            int index = fold;
+            futures.add(executor.submit(() -> runFold(classifier, data, folds, index)));
+        }
+        return futures;
+    }
+
+    /**
+     Wait for the folds in order and record them in one Evaluation. foldEvaluations,
+     when not null, also receives a separate Evaluation per fold.
+     */
+    static Evaluation mergeFolds(Instances data, FoldIndices folds, List<Future<FoldResult>> futures,
+                                 long[] foldMillis, Evaluation[] foldEvaluations) throws Exception {
+        Evaluation eval = new Evaluation(data);
+        for (int fold = 0; fold < folds.numFolds(); fold++) {
+            FoldResult result = await(futures.get(fold));
+            Instances train = folds.train(data, fold);
+            Instances test = folds.test(data, fold);
+            record(eval, train, test, result);
+            if (foldEvaluations != null) {
+                foldEvaluations[fold] = new Evaluation(data);
+                record(foldEvaluations[fold], train, test, result);
+            }
+            if (foldMillis != null) {
+                foldMillis[fold] = result.millis;
+            }
+        }
+        return eval;
+    }
+
+    private static void record(Evaluation eval, Instances train, Instances test, FoldResult result) throws Exception {
+        eval.setPriors(train);
+        if (result.distributions != null) {
+            for (int i = 0; i < test.numInstances(); i++) {
+                eval.evaluateModelOnceAndRecordPrediction(result.distributions[i], test.instance(i));
+            }
+        } else {
+            eval.evaluateModel(result.model, test);
+        }
+    }
+
+    /**
+     A trained fold model and, when Evaluation needs nothing but the class distribution,
+     its predictions for the test rows. millis is the CPU time the fold took.
+     */
+    static final class FoldResult {
+        Classifier model;
+        double[][] distributions;
+        long millis;
+    }
+
+    static FoldResult runFold(Classifier classifier, Instances data, FoldIndices folds, int fold)
+            throws Exception {
+        long start = BenchmarkUtils.threadCpuNanos();
+        FoldResult result = new FoldResult();
+        Classifier copy = AbstractClassifier.makeCopy(classifier);
+        copy.buildClassifier(folds.train(data, fold));
+
+        // Numeric classes, interval / density estimators and mapped inputs add statistics
+        // beyond the distribution, so those are evaluated from the model while merging
+        if (!data.classAttribute().isNominal() || copy instanceof IntervalEstimator
+                || copy instanceof ConditionalDensityEstimator || copy instanceof InputMappedClassifier) {
+            result.model = copy;
+        } else {
+            Instances test = folds.test(data, fold);
+            if (copy instanceof BatchPredictor && ((BatchPredictor) copy).implementsMoreEfficientBatchPrediction()) {
+                Instances masked = new Instances(test);
+                for (int i = 0; i < masked.numInstances(); i++) {
+                    masked.instance(i).setClassMissing();
+                }
+                result.distributions = ((BatchPredictor) copy).distributionsForInstances(masked);
+            } else {
+                // Same as Evaluation: predict on a copy with the class hidden
+                result.distributions = new double[test.numInstances()][];
+                for (int i = 0; i < test.numInstances(); i++) {
+                    Instance masked = (Instance) test.instance(i).copy();
+                    masked.setDataset(test.instance(i).dataset());
+                    masked.setClassMissing();
+                    result.distributions[i] = copy.distributionForInstance(masked);
+                }
+            }
+        }
+        result.millis = (BenchmarkUtils.threadCpuNanos() - start) / 1_000_000;
+        return result;
+    }
+
+    private static FoldResult await(Future<FoldResult> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
     public void printEvaluationResults(Evaluation eval, Instances data) throws Exception {
         logger.log(eval.toSummaryString());
         logger.log("Confusion Matrix:");
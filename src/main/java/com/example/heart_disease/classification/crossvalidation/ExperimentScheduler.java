@@ -0,0 +1,254 @@
+package com.example.heart_disease.classification.crossvalidation;
+
+import weka.classifiers.AbstractClassifier;
+import weka.classifiers.Classifier;
+import weka.classifiers.Evaluation;
+import weka.core.Instances;
+import com.example.heart_disease.split.FoldIndices;
+import com.example.heart_disease.utils.BenchmarkUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ Runs a grid of experiment cells (classifier x dataset) as one task graph on a
+ work-stealing pool.
+
+ Per cell the graph is: full-data fit, and fold indices -> one task per fold; the
+ cell is finished when its fit and all its folds are. Fold indices come from the
+ FoldIndices cache, so cells on the same data share them. Class balancing is part of
+ the classifier (BalancingClassifier), so it is applied to each training fold. Fits and
+ folds of different cells interleave freely, and the listener is called for each
+ cell as soon as it finishes (one call at a time), so reports fill in while the
+ rest of the grid is still running. Each cell's Evaluation equals the serial
+ cross-validation of that cell.
+ */
+public class ExperimentScheduler {
+
+    /**
+     Receives each finished cell, in completion order.
+     */
+    public interface Listener {
+        void cellFinished(CellResult result) throws Exception;
+    }
+
+    /**
+     One experiment: a classifier configuration (used as a template, never trained
+     itself) evaluated on a dataset.
+     */
+    public static final class Cell {
+        private final String name;
+        private final Classifier classifier;
+        private final String datasetName;
+        private final Instances data;
+
+        Cell(String name, Classifier classifier, String datasetName, Instances data) {
+            this.name = name;
+            this.classifier = classifier;
+            this.datasetName = datasetName;
+            this.data = data;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getDatasetName() {
+            return datasetName;
+        }
+    }
+
+    public static final class CellResult {
+        private final Cell cell;
+        private final Instances data;
+        private final Classifier model;
+        private final Evaluation evaluation;
+        private final long buildMillis;
+        private final long foldMillis;
+        private final long finishedMillis;
+
+        CellResult(Cell cell, Instances data, Classifier model, Evaluation evaluation,
+                   long buildMillis, long foldMillis, long finishedMillis) {
+            this.cell = cell;
+            this.data = data;
+            this.model = model;
+            this.evaluation = evaluation;
+            this.buildMillis = buildMillis;
+            this.foldMillis = foldMillis;
+            this.finishedMillis = finishedMillis;
+        }
+
+        public Cell getCell() {
+            return cell;
+        }
+
+        /**
+         The data the cell was trained and evaluated on.
+         */
+        public Instances getData() {
+            return data;
+        }
+
+        /**
+         The classifier trained on all of getData().
+         */
+        public Classifier getModel() {
+            return model;
+        }
+
+        public Evaluation getEvaluation() {
+            return evaluation;
+        }
+
+        /**
+         CPU time of the full-data fit.
+         */
+        public long getBuildMillis() {
+            return buildMillis;
+        }
+
+        /**
+         Train and test CPU time summed over the folds.
+         */
+        public long getFoldMillis() {
+            return foldMillis;
+        }
+
+        /**
+         Time from the start of the run until this cell finished.
+         */
+        public long getFinishedMillis() {
+            return finishedMillis;
+        }
+    }
+
+    private final int parallelism;
+    private final List<Cell> cells = new ArrayList<>();
+    private int folds = 10;
+    private long seed = 1;
+
+    public ExperimentScheduler(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     Cross-validation used for every cell (default 10 folds, seed 1).
+     */
+    public ExperimentScheduler setFolds(int folds, long seed) {
+        this.folds = folds;
+        this.seed = seed;
+        return this;
+    }
+
+    public ExperimentScheduler add(String name, Classifier classifier, String datasetName, Instances data) {
+        cells.add(new Cell(name, classifier, datasetName, data));
+        return this;
+    }
+
+    public int numCells() {
+        return cells.size();
+    }
+
+    /**
+     Run every cell and return the results in the order the cells were added.
+     */
+    public List<CellResult> run(Listener listener) throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        long start = System.currentTimeMillis();
+        try {
+            List<CompletableFuture<CellResult>> results = new ArrayList<>();
+            Object listenerLock = new Object();
+
+            for (Cell cell : cells) {
+                Instances data = cell.data;
+                long[] buildMillis = new long[1];
+                CompletableFuture<Classifier> model = async(pool, () -> {
+                    long buildStart = BenchmarkUtils.threadCpuNanos();
+                    Classifier copy = AbstractClassifier.makeCopy(cell.classifier);
+                    copy.buildClassifier(data);
+                    buildMillis[0] = (BenchmarkUtils.threadCpuNanos() - buildStart) / 1_000_000;
+                    return copy;
+                });
+
+                CompletableFuture<FoldIndices> indices = CompletableFuture.supplyAsync(
+                        () -> FoldIndices.crossValidation(data, folds, seed), pool);
+                List<Future<CrossValidation.FoldResult>> foldResults = new ArrayList<>(folds);
+                List<CompletableFuture<?>> parts = new ArrayList<>();
+                parts.add(model);
+                for (int fold = 0; fold < folds; fold++) {
+                    int index = fold;
+                    CompletableFuture<CrossValidation.FoldResult> foldResult = indices.thenApplyAsync(
+                            unchecked(f -> CrossValidation.runFold(cell.classifier, data, f, index)), pool);
+                    foldResults.add(foldResult);
+                    parts.add(foldResult);
+                }
+
+                CompletableFuture<CellResult> result = CompletableFuture
+                        .allOf(parts.toArray(new CompletableFuture<?>[0]))
+                        .thenApplyAsync(unchecked(ignored -> {
+                            long[] millis = new long[folds];
+                            Evaluation evaluation = CrossValidation.mergeFolds(data, indices.join(), foldResults, millis, null);
+                            long foldMillis = 0;
+                            for (long fold : millis) {
+                                foldMillis += fold;
+                            }
+                            CellResult cellResult = new CellResult(cell, data, model.join(), evaluation,
+                                    buildMillis[0], foldMillis, System.currentTimeMillis() - start);
+                            if (listener != null) {
+                                synchronized (listenerLock) {
+                                    listener.cellFinished(cellResult);
+                                }
+                            }
+                            return cellResult;
+                        }), pool);
+                results.add(result);
+            }
+
+            List<CellResult> finished = new ArrayList<>(results.size());
+            for (CompletableFuture<CellResult> result : results) {
+                try {
+                    finished.add(result.join());
+                } catch (CompletionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof Exception) {
+                        throw (Exception) cause;
+                    }
+                    throw e;
+                }
+            }
+            return finished;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private interface CheckedFunction<T, R> {
+        R apply(T value) throws Exception;
+    }
+
+    private static <T> CompletableFuture<T> async(ForkJoinPool pool, Callable<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return task.call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, pool);
+    }
+
+    private static <T, R> Function<T, R> unchecked(CheckedFunction<T, R> function) {
+        return value -> {
+            try {
+                return function.apply(value);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        };
+    }
+}
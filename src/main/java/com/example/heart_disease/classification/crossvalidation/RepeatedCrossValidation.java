@@ -0,0 +1,195 @@
+package com.example.heart_disease.classification.crossvalidation;
+
+import weka.classifiers.Classifier;
+import weka.classifiers.Evaluation;
+import weka.core.Instances;
+import weka.experiment.PairedStatsCorrected;
+import weka.experiment.Stats;
+import com.example.heart_disease.split.FoldIndices;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ Repeated stratified k-fold cross-validation: repetition r uses the folds of
+ crossValidateModel with new Random(firstSeed + r), from
+ FoldIndices.repeatedCrossValidation. To compare models, compute those folds once and
+ pass the same list to run for each of them.
+
+ All repetitions x folds are queued on one thread pool at once, so the work spreads
+ over every core instead of one repetition at a time; results are merged per
+ repetition in fold order, each repetition giving the Evaluation of the serial run.
+ Metrics are summarised over the individual folds, and two models evaluated on the
+ same data can be compared with the corrected resampled t-test (Nadeau and Bengio),
+ which is what the Weka Experimenter uses for this setup.
+ */
+public class RepeatedCrossValidation {
+
+    /**
+     Metrics summarised per fold; class-specific ones are for class index 1.
+     */
+    public enum Metric {
+        ACCURACY("Accuracy (%)", true),
+        KAPPA("Kappa", true),
+        PRECISION("Precision (Class 1)", true),
+        RECALL("Recall (Class 1)", true),
+        F_MEASURE("F-Measure (Class 1)", true),
+        ROC_AREA("ROC Area (Class 1)", true),
+        MEAN_ABSOLUTE_ERROR("Mean Absolute Error", false);
+
+        private final String label;
+        private final boolean higherIsBetter;
+
+        Metric(String label, boolean higherIsBetter) {
+            this.label = label;
+            this.higherIsBetter = higherIsBetter;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public boolean isHigherBetter() {
+            return higherIsBetter;
+        }
+
+        public double value(Evaluation eval) {
+            switch (this) {
+                case ACCURACY: return eval.pctCorrect();
+                case KAPPA: return eval.kappa();
+                case PRECISION: return eval.precision(1);
+                case RECALL: return eval.recall(1);
+                case F_MEASURE: return eval.fMeasure(1);
+                case ROC_AREA: return eval.areaUnderROC(1);
+                default: return eval.meanAbsoluteError();
+            }
+        }
+    }
+
+    private final Instances data;
+    private final List<FoldIndices> runs;
+    private final Evaluation[] repetitions;
+    private final Evaluation[][] folds;
+    private final long wallMillis;
+    private final long foldMillis;
+
+    private RepeatedCrossValidation(Instances data, List<FoldIndices> runs, Evaluation[] repetitions,
+                                    Evaluation[][] folds, long wallMillis, long foldMillis) {
+        this.data = data;
+        this.runs = runs;
+        this.repetitions = repetitions;
+        this.folds = folds;
+        this.wallMillis = wallMillis;
+        this.foldMillis = foldMillis;
+    }
+
+    public static RepeatedCrossValidation run(Classifier classifier, Instances data, int numFolds,
+                                              int numRepetitions, long firstSeed, int threads) throws Exception {
+        return run(classifier, data,
+                FoldIndices.repeatedCrossValidation(data, numFolds, numRepetitions, firstSeed), threads);
+    }
+
+    /**
+     Cross-validate on the given repetitions, e.g. the folds shared by all models of a comparison
+     */
+    public static RepeatedCrossValidation run(Classifier classifier, Instances data, List<FoldIndices> runs,
+                                              int threads) throws Exception {
+        if (runs.isEmpty()) {
+            throw new IllegalArgumentException("At least one repetition is needed");
+        }
+        int numRepetitions = runs.size();
+        int numFolds = runs.get(0).numFolds();
+        long start = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(threads, numFolds * numRepetitions)));
+        try {
+            List<List<Future<CrossValidation.FoldResult>>> pending = new ArrayList<>(numRepetitions);
+            for (FoldIndices run : runs) {
+                pending.add(CrossValidation.submitFolds(executor, classifier, data, run));
+            }
+
+            Evaluation[] repetitions = new Evaluation[numRepetitions];
+            Evaluation[][] folds = new Evaluation[numRepetitions][numFolds];
+            long[] millis = new long[numFolds];
+            long foldMillis = 0;
+            for (int r = 0; r < numRepetitions; r++) {
+                repetitions[r] = CrossValidation.mergeFolds(data, runs.get(r), pending.get(r), millis, folds[r]);
+                for (long fold : millis) {
+                    foldMillis += fold;
+                }
+            }
+            return new RepeatedCrossValidation(data, runs, repetitions, folds,
+                    System.currentTimeMillis() - start, foldMillis);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    public int numRepetitions() {
+        return repetitions.length;
+    }
+
+    public int numFolds() {
+        return folds.length == 0 ? 0 : folds[0].length;
+    }
+
+    /**
+     The merged Evaluation of one repetition.
+     */
+    public Evaluation getRepetition(int repetition) {
+        return repetitions[repetition];
+    }
+
+    public Evaluation getFold(int repetition, int fold) {
+        return folds[repetition][fold];
+    }
+
+    /**
+     Mean, standard deviation, min and max of the metric over all folds of all repetitions.
+     */
+    public Stats statistics(Metric metric) {
+        Stats stats = new Stats();
+        for (Evaluation[] repetition : folds) {
+            for (Evaluation fold : repetition) {
+                stats.add(metric.value(fold));
+            }
+        }
+        stats.calculateDerived();
+        return stats;
+    }
+
+    /**
+     Corrected resampled t-test of this model (x) against another (y) on the same folds.
+     differencesStats.mean is the mean of x - y; differencesSignificance is 1 when x is
+     significantly larger, -1 when significantly smaller and 0 otherwise.
+     */
+    public PairedStatsCorrected compare(RepeatedCrossValidation other, Metric metric, double significance) {
+        if (!runs.equals(other.runs) || data.numInstances() != other.data.numInstances()) {
+            throw new IllegalArgumentException("Models were not evaluated on the same folds");
+        }
+        FoldIndices first = runs.get(0);
+        double testTrainRatio = first.getTestIndices(0).length / (double) first.getTrainIndices(0).length;
+        PairedStatsCorrected stats = new PairedStatsCorrected(significance, testTrainRatio);
+        for (int r = 0; r < folds.length; r++) {
+            for (int f = 0; f < folds[r].length; f++) {
+                stats.add(metric.value(folds[r][f]), metric.value(other.folds[r][f]));
+            }
+        }
+        stats.calculateDerived();
+        return stats;
+    }
+
+    public long getWallMillis() {
+        return wallMillis;
+    }
+
+    /**
+     Train and test CPU time summed over all folds, i.e. roughly the serial run time.
+     */
+    public long getFoldMillis() {
+        return foldMillis;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.heart_disease.classification.histogram;
+
+/**
+ Training rows quantised by a FeatureBinning: one byte column per feature (read with
+ & 0xFF), the class value of every row and the row weights (null when all are 1).
+ */
+public class BinnedData {
+
+    private final FeatureBinning binning;
+    private final byte[][] columns;
+    private final double[] classValues;
+    private final double[] weights;
+
+    BinnedData(FeatureBinning binning, byte[][] columns, double[] classValues, double[] weights) {
+        this.binning = binning;
+        this.columns = columns;
+        this.classValues = classValues;
+        this.weights = weights;
+    }
+
+    public FeatureBinning getBinning() {
+        return binning;
+    }
+
+    public int numRows() {
+        return classValues.length;
+    }
+
+    public int numFeatures() {
+        return columns.length;
+    }
+
+    public byte[] column(int feature) {
+        return columns[feature];
+    }
+
+    public int bin(int feature, int row) {
+        return columns[feature][row] & 0xFF;
+    }
+
+    public double classValue(int row) {
+        return classValues[row];
+    }
+
+    public double weight(int row) {
+        return weights == null ? 1.0 : weights[row];
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.heart_disease.classification.histogram;
+
+import weka.core.Attribute;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.Utils;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ Quantisation of every non-class attribute into at most maxBins bins, fitted once on
+ the training data.
+
+ A numeric attribute with at most maxBins distinct values gets one bin per value;
+ otherwise the bin edges are the values at evenly spaced quantiles. Bin b holds the
+ values v with cut[b - 1] < v <= cut[b], values above the last edge fall in the last
+ bin. A nominal attribute uses its value index as the bin. Missing values go to an
+ extra bin numBins(f), so a feature never needs more than maxBins + 1 <= 256 bins
+ and a binned value fits in a byte.
+ */
+public class FeatureBinning implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int MAX_BINS = 255;
+
+    private final int[] attributeIndices;
+    private final boolean[] nominal;
+    private final double[][] cuts;
+    private final int[] numBins;
+
+    private FeatureBinning(int[] attributeIndices, boolean[] nominal, double[][] cuts, int[] numBins) {
+        this.attributeIndices = attributeIndices;
+        this.nominal = nominal;
+        this.cuts = cuts;
+        this.numBins = numBins;
+    }
+
+    public static FeatureBinning fit(Instances data, int maxBins) {
+        if (maxBins < 2 || maxBins > MAX_BINS) {
+            throw new IllegalArgumentException("Number of bins must be between 2 and " + MAX_BINS + ": " + maxBins);
+        }
+        int numFeatures = data.numAttributes() - (data.classIndex() >= 0 ? 1 : 0);
+        int[] attributeIndices = new int[numFeatures];
+        boolean[] nominal = new boolean[numFeatures];
+        double[][] cuts = new double[numFeatures][];
+        int[] numBins = new int[numFeatures];
+
+        int f = 0;
+        for (int a = 0; a < data.numAttributes(); a++) {
+            if (a == data.classIndex()) {
+                continue;
+            }
+            Attribute attribute = data.attribute(a);
+            attributeIndices[f] = a;
+            if (attribute.isNominal()) {
+                nominal[f] = true;
+                numBins[f] = Math.max(1, Math.min(attribute.numValues(), maxBins));
+            } else if (attribute.isNumeric()) {
+                cuts[f] = quantileCuts(data, a, maxBins);
+                numBins[f] = Math.max(1, cuts[f].length);
+            } else {
+                throw new IllegalArgumentException("Cannot bin attribute " + attribute.name());
+            }
+            f++;
+        }
+        return new FeatureBinning(attributeIndices, nominal, cuts, numBins);
+    }
+
+    private static double[] quantileCuts(Instances data, int attribute, int maxBins) {
+        double[] values = new double[data.numInstances()];
+        int count = 0;
+        for (int row = 0; row < data.numInstances(); row++) {
+            double value = data.instance(row).value(attribute);
+            if (!Utils.isMissingValue(value)) {
+                values[count++] = value;
+            }
+        }
+        if (count == 0) {
+            return new double[0];
+        }
+        Arrays.sort(values, 0, count);
+
+        int distinct = 1;
+        for (int i = 1; i < count; i++) {
+            if (values[i] != values[i - 1]) {
+                distinct++;
+            }
+        }
+        double[] cuts = new double[Math.min(distinct, maxBins)];
+        int size = 0;
+        if (distinct <= maxBins) {
+            cuts[size++] = values[0];
+            for (int i = 1; i < count; i++) {
+                if (values[i] != values[i - 1]) {
+                    cuts[size++] = values[i];
+                }
+            }
+        } else {
+            for (int b = 1; b <= maxBins; b++) {
+                double value = values[(int) ((long) b * count / maxBins) - 1];
+                if (size == 0 || value > cuts[size - 1]) {
+                    cuts[size++] = value;
+                }
+            }
+        }
+        return Arrays.copyOf(cuts, size);
+    }
+
+    public int numFeatures() {
+        return attributeIndices.length;
+    }
+
+    /**
+     Bins of feature f without the missing-value bin, which has index numBins(f).
+     */
+    public int numBins(int feature) {
+        return numBins[feature];
+    }
+
+    public int attributeIndex(int feature) {
+        return attributeIndices[feature];
+    }
+
+    public boolean isNominal(int feature) {
+        return nominal[feature];
+    }
+
+    public int bin(int feature, double value) {
+        if (Utils.isMissingValue(value)) {
+            return numBins[feature];
+        }
+        if (nominal[feature]) {
+            return Math.min((int) value, numBins[feature] - 1);
+        }
+        double[] edges = cuts[feature];
+        if (edges.length == 0) {
+            return 0;
+        }
+        int index = Arrays.binarySearch(edges, value);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return Math.min(index, edges.length - 1);
+    }
+
+    /**
+     Largest raw value in bins 0..bin: rows with value <= threshold(f, bin) fall in those bins.
+     */
+    public double threshold(int feature, int bin) {
+        if (nominal[feature]) {
+            return bin;
+        }
+        return bin == numBins[feature] - 1 ? Double.POSITIVE_INFINITY : cuts[feature][bin];
+    }
+
+    public int bin(int feature, Instance instance) {
+        return bin(feature, instance.value(attributeIndices[feature]));
+    }
+
+    public BinnedData transform(Instances data) {
+        int n = data.numInstances();
+        byte[][] columns = new byte[numFeatures()][n];
+        double[] classValues = new double[n];
+        double[] weights = null;
+        for (int row = 0; row < n; row++) {
+            Instance instance = data.instance(row);
+            for (int f = 0; f < columns.length; f++) {
+                columns[f][row] = (byte) bin(f, instance);
+            }
+            classValues[row] = data.classIndex() >= 0 ? instance.classValue() : Utils.missingValue();
+            if (instance.weight() != 1.0) {
+                if (weights == null) {
+                    weights = new double[n];
+                    Arrays.fill(weights, 0, row, 1.0);
+                }
+            }
+            if (weights != null) {
+                weights[row] = instance.weight();
+            }
+        }
+        return new BinnedData(this, columns, classValues, weights);
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.heart_disease.classification.histogram;
+
+import weka.classifiers.AbstractClassifier;
+import weka.core.Capabilities;
+import weka.core.Capabilities.Capability;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.Option;
+import weka.core.Randomizable;
+import weka.core.Utils;
+import weka.core.WeightedInstancesHandler;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Random;
+import java.util.Vector;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ Random forest grown on binned features: every attribute is quantised once into at
+ most 255 bins (FeatureBinning) and each tree is grown from per-node class-count
+ histograms (HistogramTreeBuilder), so no attribute is ever sorted after binning.
+
+ The forest follows Weka's RandomForest: bootstrap samples of the training rows
+ (instance weights multiply the bootstrap counts), log2(attributes) + 1 random
+ features per split by default, unpruned trees with a minimum leaf weight of 1, and
+ the class distributions of the trees averaged. Trees are built in parallel with
+ -num-slots threads, and the histograms of large nodes are split over the same
+ threads by feature. Tree t uses new Random(seed + t), so the forest does not depend
+ on the number of threads.
+ */
+public class HistogramForest extends AbstractClassifier implements Randomizable, WeightedInstancesHandler {
+
+    private static final long serialVersionUID = 1L;
+
+    private int numTrees = 100;
+    private int maxDepth;
+    private int numFeatures;
+    private double minLeafWeight = 1.0;
+    private int maxBins = FeatureBinning.MAX_BINS;
+    private int seed = 1;
+    private int numThreads = 1;
+
+    private FeatureBinning binning;
+    private HistogramTree[] trees;
+    private int numClasses;
+
+    public int getNumTrees() {
+        return numTrees;
+    }
+
+    public void setNumTrees(int numTrees) {
+        this.numTrees = numTrees;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     Maximum tree depth, 0 for unlimited
+     */
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    public int getNumFeatures() {
+        return numFeatures;
+    }
+
+    /**
+     Features tried per split, 0 for log2(features) + 1
+     */
+    public void setNumFeatures(int numFeatures) {
+        this.numFeatures = numFeatures;
+    }
+
+    public double getMinLeafWeight() {
+        return minLeafWeight;
+    }
+
+    public void setMinLeafWeight(double minLeafWeight) {
+        this.minLeafWeight = minLeafWeight;
+    }
+
+    public int getMaxBins() {
+        return maxBins;
+    }
+
+    public void setMaxBins(int maxBins) {
+        this.maxBins = maxBins;
+    }
+
+    @Override
+    public int getSeed() {
+        return seed;
+    }
+
+    @Override
+    public void setSeed(int seed) {
+        this.seed = seed;
+    }
+
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    /**
+     Threads used to build the trees, 0 for one per core
+     */
+    public void setNumThreads(int numThreads) {
+        this.numThreads = numThreads;
+    }
+
+    @Override
+    public Capabilities getCapabilities() {
+        Capabilities result = super.getCapabilities();
+        result.disableAll();
+        result.enable(Capability.NOMINAL_ATTRIBUTES);
+        result.enable(Capability.NUMERIC_ATTRIBUTES);
+        result.enable(Capability.DATE_ATTRIBUTES);
+        result.enable(Capability.MISSING_VALUES);
+        result.enable(Capability.NOMINAL_CLASS);
+        result.enable(Capability.MISSING_CLASS_VALUES);
+        return result;
+    }
+
+    @Override
+    public void buildClassifier(Instances data) throws Exception {
+        getCapabilities().testWithFail(data);
+        FeatureBinning fitted = FeatureBinning.fit(data, maxBins);
+        build(fitted.transform(data), data.numClasses());
+    }
+
+    /**
+     Train on already binned rows whose class values are indices below numClasses.
+     */
+    public void build(BinnedData data, int numClasses) throws Exception {
+        this.binning = data.getBinning();
+        this.numClasses = numClasses;
+        int n = data.numRows();
+        float[] classStats = new float[n * numClasses];
+        boolean[] labelled = new boolean[n];
+        for (int row = 0; row < n; row++) {
+            double value = data.classValue(row);
+            if (!Utils.isMissingValue(value)) {
+                classStats[row * numClasses + (int) value] = 1;
+                labelled[row] = true;
+            }
+        }
+        int features = numFeatures > 0 ? numFeatures : (int) Utils.log2(data.numFeatures()) + 1;
+        HistogramTreeBuilder builder = new HistogramTreeBuilder(data, new SplitCriterion.Entropy(numClasses), classStats)
+                .setMaxDepth(maxDepth)
+                .setMinLeafWeight(minLeafWeight)
+                .setFeaturesPerSplit(features);
+
+        HistogramTree[] grown = new HistogramTree[numTrees];
+        ForkJoinPool pool = new ForkJoinPool(numThreads > 0 ? numThreads : Runtime.getRuntime().availableProcessors());
+        try {
+            pool.submit(() -> IntStream.range(0, numTrees).parallel().forEach(t -> {
+                Random random = new Random(seed + t);
+                grown[t] = builder.build(bootstrap(data, labelled, random), random);
+            })).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : new RuntimeException(cause);
+        } finally {
+            pool.shutdownNow();
+        }
+        trees = grown;
+    }
+
+    private static float[] bootstrap(BinnedData data, boolean[] labelled, Random random) {
+        int n = data.numRows();
+        float[] weights = new float[n];
+        for (int i = 0; i < n; i++) {
+            weights[random.nextInt(n)]++;
+        }
+        for (int row = 0; row < n; row++) {
+            weights[row] = labelled[row] ? (float) (weights[row] * data.weight(row)) : 0;
+        }
+        return weights;
+    }
+
+    @Override
+    public double[] distributionForInstance(Instance instance) throws Exception {
+        double[] distribution = new double[numClasses];
+        for (HistogramTree tree : trees) {
+            double[] leaves = tree.getLeafValues();
+            int offset = tree.leafOffset(instance);
+            for (int c = 0; c < numClasses; c++) {
+                distribution[c] += leaves[offset + c];
+            }
+        }
+        Utils.normalize(distribution);
+        return distribution;
+    }
+
+    public HistogramTree[] getTrees() {
+        return trees;
+    }
+
+    public FeatureBinning getBinning() {
+        return binning;
+    }
+
+    @Override
+    public Enumeration<Option> listOptions() {
+        Vector<Option> options = new Vector<>();
+        options.addElement(new Option("\tNumber of trees (default 100).", "I", 1, "-I <num>"));
+        options.addElement(new Option("\tMaximum depth of the trees, 0 for unlimited (default 0).", "depth", 1,
+                "-depth <num>"));
+        options.addElement(new Option("\tNumber of features tried per split, 0 for log2(features) + 1 (default 0).",
+                "K", 1, "-K <num>"));
+        options.addElement(new Option("\tMinimum total weight of a leaf (default 1).", "M", 1, "-M <num>"));
+        options.addElement(new Option("\tMaximum number of bins per attribute, at most 255 (default 255).", "B", 1,
+                "-B <num>"));
+        options.addElement(new Option("\tRandom number seed (default 1).", "S", 1, "-S <num>"));
+        options.addElement(new Option("\tNumber of threads, 0 for one per core (default 1).", "num-slots", 1,
+                "-num-slots <num>"));
+        options.addAll(Collections.list(super.listOptions()));
+        return options.elements();
+    }
+
+    @Override
+    public void setOptions(String[] options) throws Exception {
+        String value = Utils.getOption('I', options);
+        numTrees = value.isEmpty() ? 100 : Integer.parseInt(value);
+        value = Utils.getOption("depth", options);
+        maxDepth = value.isEmpty() ? 0 : Integer.parseInt(value);
+        value = Utils.getOption('K', options);
+        numFeatures = value.isEmpty() ? 0 : Integer.parseInt(value);
+        value = Utils.getOption('M', options);
+        minLeafWeight = value.isEmpty() ? 1.0 : Double.parseDouble(value);
+        value = Utils.getOption('B', options);
+        maxBins = value.isEmpty() ? FeatureBinning.MAX_BINS : Integer.parseInt(value);
+        value = Utils.getOption('S', options);
+        seed = value.isEmpty() ? 1 : Integer.parseInt(value);
+        value = Utils.getOption("num-slots", options);
+        numThreads = value.isEmpty() ? 1 : Integer.parseInt(value);
+        super.setOptions(options);
+        Utils.checkForRemainingOptions(options);
+    }
+
+    @Override
+    public String[] getOptions() {
+        Vector<String> options = new Vector<>();
+        Collections.addAll(options, "-I", "" + numTrees, "-depth", "" + maxDepth, "-K", "" + numFeatures,
+                "-M", "" + minLeafWeight, "-B", "" + maxBins, "-S", "" + seed, "-num-slots", "" + numThreads);
+        Collections.addAll(options, super.getOptions());
+        return options.toArray(new String[0]);
+    }
+
+    @Override
+    public String toString() {
+        if (trees == null) {
+            return "Histogram forest: no model built yet.";
+        }
+        long nodes = 0;
+        int depth = 0;
+        for (HistogramTree tree : trees) {
+            nodes += tree.numNodes();
+            depth = Math.max(depth, tree.depth());
+        }
+        return "Histogram forest of " + trees.length + " trees, " + binning.numFeatures() + " binned features\n"
+                + "Average nodes per tree: " + (nodes / Math.max(1, trees.length)) + ", maximum depth: " + depth + "\n";
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.heart_disease.classification.histogram;
+
+import weka.classifiers.Classifier;
+import com.example.heart_disease.classification.ClassifierBase;
+import com.example.heart_disease.classification.balancing.BalancingStrategy;
+import com.example.heart_disease.utils.Logger;
+
+/**
+ Drop-in alternative to RandomForestClassifier that trains a HistogramForest.
+ */
+public class HistogramForestClassifier extends ClassifierBase {
+
+    private int numThreads = 1;
+
+    public HistogramForestClassifier(Logger logger, boolean useBalancing) {
+        super(logger, "Histogram Forest");
+        balancing = useBalancing ? BalancingStrategy.WEIGHTS : BalancingStrategy.NONE;
+    }
+
+    /**
+     Threads used to build the trees, 0 for one per core
+     */
+    public void setNumThreads(int numThreads) {
+        this.numThreads = numThreads;
+    }
+
+    @Override
+    public Classifier createClassifier() throws Exception {
+        HistogramForest forest = new HistogramForest();
+        forest.setNumTrees(100);
+        forest.setNumThreads(numThreads);
+        return applyBalancing(applyOptions(forest));
+    }
+}
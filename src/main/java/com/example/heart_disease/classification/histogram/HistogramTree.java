@@ -0,0 +1,182 @@
+package com.example.heart_disease.classification.histogram;
+
+import weka.core.Instance;
+import weka.core.Utils;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ A tree grown by HistogramTreeBuilder, stored as flat arrays indexed by node (node 0
+ is the root). An inner node on a numeric feature sends a row left when its bin is at
+ most binThreshold, i.e. its raw value is at most threshold; one on a nominal feature
+ sends it left when its label is in the node's category set (a bit set over label
+ indices). Missing values go to the side recorded in missingLeft. Leaves have feature
+ -1 and numOutputs values in leafValues.
+ */
+public class HistogramTree implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int numOutputs;
+    private int numNodes;
+    private int[] feature;
+    private int[] attribute;
+    private int[] binThreshold;
+    private double[] threshold;
+    private boolean[] missingLeft;
+    private long[][] categories;
+    private int[] left;
+    private int[] right;
+    private double[] leafValues;
+
+    HistogramTree(int numOutputs) {
+        this.numOutputs = numOutputs;
+        int capacity = 64;
+        feature = new int[capacity];
+        attribute = new int[capacity];
+        binThreshold = new int[capacity];
+        threshold = new double[capacity];
+        missingLeft = new boolean[capacity];
+        categories = new long[capacity][];
+        left = new int[capacity];
+        right = new int[capacity];
+        leafValues = new double[capacity * numOutputs];
+    }
+
+    int addNode() {
+        if (numNodes == feature.length) {
+            int capacity = feature.length * 2;
+            feature = Arrays.copyOf(feature, capacity);
+            attribute = Arrays.copyOf(attribute, capacity);
+            binThreshold = Arrays.copyOf(binThreshold, capacity);
+            threshold = Arrays.copyOf(threshold, capacity);
+            missingLeft = Arrays.copyOf(missingLeft, capacity);
+            categories = Arrays.copyOf(categories, capacity);
+            left = Arrays.copyOf(left, capacity);
+            right = Arrays.copyOf(right, capacity);
+            leafValues = Arrays.copyOf(leafValues, capacity * numOutputs);
+        }
+        feature[numNodes] = -1;
+        return numNodes++;
+    }
+
+    void setSplit(int node, int splitFeature, int splitAttribute, int bin, double value, boolean missingToLeft,
+                  int leftChild, int rightChild) {
+        feature[node] = splitFeature;
+        attribute[node] = splitAttribute;
+        binThreshold[node] = bin;
+        threshold[node] = value;
+        missingLeft[node] = missingToLeft;
+        left[node] = leftChild;
+        right[node] = rightChild;
+    }
+
+    void setCategorySplit(int node, int splitFeature, int splitAttribute, long[] leftCategories,
+                          boolean missingToLeft, int leftChild, int rightChild) {
+        setSplit(node, splitFeature, splitAttribute, -1, Double.NaN, missingToLeft, leftChild, rightChild);
+        categories[node] = leftCategories;
+    }
+
+    static boolean contains(long[] set, int category) {
+        int word = category >>> 6;
+        return word < set.length && (set[word] & (1L << category)) != 0;
+    }
+
+    double[] leafValues() {
+        return leafValues;
+    }
+
+    void trim() {
+        feature = Arrays.copyOf(feature, numNodes);
+        attribute = Arrays.copyOf(attribute, numNodes);
+        binThreshold = Arrays.copyOf(binThreshold, numNodes);
+        threshold = Arrays.copyOf(threshold, numNodes);
+        missingLeft = Arrays.copyOf(missingLeft, numNodes);
+        categories = Arrays.copyOf(categories, numNodes);
+        left = Arrays.copyOf(left, numNodes);
+        right = Arrays.copyOf(right, numNodes);
+        leafValues = Arrays.copyOf(leafValues, numNodes * numOutputs);
+    }
+
+    public int numNodes() {
+        return numNodes;
+    }
+
+    public int numOutputs() {
+        return numOutputs;
+    }
+
+    /**
+     Offset into getLeafValues() of the leaf the instance reaches.
+     */
+    public int leafOffset(Instance instance) {
+        int node = 0;
+        while (feature[node] >= 0) {
+            double value = instance.value(attribute[node]);
+            boolean goLeft = Utils.isMissingValue(value) ? missingLeft[node]
+                    : categories[node] != null ? contains(categories[node], (int) value) : value <= threshold[node];
+            node = goLeft ? left[node] : right[node];
+        }
+        return node * numOutputs;
+    }
+
+    /**
+     Offset of the leaf a binned training row reaches.
+     */
+    public int leafOffset(BinnedData data, int row) {
+        FeatureBinning binning = data.getBinning();
+        int node = 0;
+        while (feature[node] >= 0) {
+            int bin = data.bin(feature[node], row);
+            boolean goLeft = bin == binning.numBins(feature[node]) ? missingLeft[node]
+                    : categories[node] != null ? contains(categories[node], bin) : bin <= binThreshold[node];
+            node = goLeft ? left[node] : right[node];
+        }
+        return node * numOutputs;
+    }
+
+    public double[] getLeafValues() {
+        return leafValues;
+    }
+
+    public int getFeature(int node) {
+        return feature[node];
+    }
+
+    public int getAttribute(int node) {
+        return attribute[node];
+    }
+
+    public double getThreshold(int node) {
+        return threshold[node];
+    }
+
+    /**
+     Label indices sent left by a nominal split as a bit set, null for numeric splits
+     and leaves
+     */
+    public long[] getCategories(int node) {
+        return categories[node];
+    }
+
+    public boolean isMissingLeft(int node) {
+        return missingLeft[node];
+    }
+
+    public int getLeft(int node) {
+        return left[node];
+    }
+
+    public int getRight(int node) {
+        return right[node];
+    }
+
+    public int depth() {
+        return depth(0);
+    }
+
+    private int depth(int node) {
+        return feature[node] < 0 ? 0 : 1 + Math.max(depth(left[node]), depth(right[node]));
+    }
+}
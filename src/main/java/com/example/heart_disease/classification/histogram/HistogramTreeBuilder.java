@@ -0,0 +1,336 @@
+package com.example.heart_disease.classification.histogram;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ Grows a HistogramTree on BinnedData from per-bin statistic histograms.
+
+ A node's rows are a range of one index array, partitioned in place when the node is
+ split. Split search only reads the node's histograms (one per feature, numBins + 1
+ bins of numStats sums), so it costs O(bins) per feature instead of a sort of the
+ node's values. Only the smaller child's histograms are built from its rows; the
+ larger child's are the parent's minus the smaller's, computed in place. The smaller
+ child's arrays come from a per-depth pool, so a tree allocates O(depth) histograms
+ however many nodes it has. Histograms of nodes with at least parallelRows rows are
+ built one feature per task, in the fork/join pool the builder is called from.
+
+ A nominal feature is split into two category subsets: its categories are sorted by
+ SplitCriterion.categoryOrder and every prefix of that order is scored against the
+ rest, as the ordered bins of a numeric feature are.
+
+ As in Weka's RandomTree, a node looks at featuresPerSplit random features (0: all)
+ and keeps drawing more until one gives a positive gain. A builder holds no state
+ between builds, so one instance can grow trees on several threads.
+ */
+public class HistogramTreeBuilder {
+
+    static final int PARALLEL_ROWS = 1 << 16;
+
+    private final BinnedData data;
+    private final SplitCriterion criterion;
+    private final float[] rowStats;
+    private int maxDepth;
+    private double minLeafWeight = 1.0;
+    private int featuresPerSplit;
+    private int parallelRows = PARALLEL_ROWS;
+
+    /**
+     rowStats holds criterion.numStats() values per row, row after row.
+     */
+    public HistogramTreeBuilder(BinnedData data, SplitCriterion criterion, float[] rowStats) {
+        this.data = data;
+        this.criterion = criterion;
+        this.rowStats = rowStats;
+    }
+
+    /**
+     Maximum depth, 0 for unlimited
+     */
+    public HistogramTreeBuilder setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+        return this;
+    }
+
+    public HistogramTreeBuilder setMinLeafWeight(double minLeafWeight) {
+        this.minLeafWeight = minLeafWeight;
+        return this;
+    }
+
+    public HistogramTreeBuilder setFeaturesPerSplit(int featuresPerSplit) {
+        this.featuresPerSplit = featuresPerSplit;
+        return this;
+    }
+
+    /**
+     Smallest node whose histograms are built feature-parallel (default PARALLEL_ROWS)
+     */
+    public HistogramTreeBuilder setParallelRows(int parallelRows) {
+        this.parallelRows = parallelRows;
+        return this;
+    }
+
+    /**
+     Grow a tree on the rows with a positive weight; weights null uses the data's own.
+     */
+    public HistogramTree build(float[] weights, Random random) {
+        float[] rowWeights = weights != null ? weights : dataWeights();
+        int[] rows = new int[data.numRows()];
+        int count = 0;
+        for (int row = 0; row < rowWeights.length; row++) {
+            if (rowWeights[row] > 0) {
+                rows[count++] = row;
+            }
+        }
+
+        List<double[][]> pool = new ArrayList<>();
+        double[][] histograms = histograms(pool, 0);
+        buildHistograms(rows, 0, count, rowWeights, histograms);
+
+        HistogramTree tree = new HistogramTree(criterion.numOutputs());
+        grow(tree, tree.addNode(), rows, 0, count, rowWeights, histograms, 0, random, pool);
+        tree.trim();
+        return tree;
+    }
+
+    /**
+     Histogram arrays for depth: a node at depth d - 1 and all its descendants are done
+     with them before another node at that depth splits.
+     */
+    private double[][] histograms(List<double[][]> pool, int depth) {
+        while (pool.size() <= depth) {
+            double[][] histograms = new double[data.numFeatures()][];
+            for (int f = 0; f < histograms.length; f++) {
+                histograms[f] = new double[(data.getBinning().numBins(f) + 1) * criterion.numStats()];
+            }
+            pool.add(histograms);
+        }
+        return pool.get(depth);
+    }
+
+    private float[] dataWeights() {
+        float[] weights = new float[data.numRows()];
+        for (int row = 0; row < weights.length; row++) {
+            weights[row] = (float) data.weight(row);
+        }
+        return weights;
+    }
+
+    private void grow(HistogramTree tree, int node, int[] rows, int start, int end, float[] weights,
+                      double[][] histograms, int depth, Random random, List<double[][]> pool) {
+        int numStats = criterion.numStats();
+        FeatureBinning binning = data.getBinning();
+        double[] total = new double[numStats];
+        double[] first = histograms[0];
+        for (int i = 0; i < first.length; i++) {
+            total[i % numStats] += first[i];
+        }
+        criterion.leafValue(total, 0, tree.leafValues(), node * criterion.numOutputs());
+
+        double parentImpurity = criterion.impurity(total, 0);
+        if ((maxDepth > 0 && depth >= maxDepth) || criterion.weight(total, 0) < 2 * minLeafWeight
+                || parentImpurity <= 0) {
+            return;
+        }
+
+        Split best = findSplit(histograms, total, parentImpurity, random);
+        if (best == null) {
+            return;
+        }
+
+        // Partition: rows going left first
+        byte[] column = data.column(best.feature);
+        int missingBin = binning.numBins(best.feature);
+        int i = start;
+        int j = end - 1;
+        while (i <= j) {
+            int bin = column[rows[i]] & 0xFF;
+            boolean goLeft = bin == missingBin ? best.missingLeft
+                    : best.categories != null ? HistogramTree.contains(best.categories, bin) : bin <= best.bin;
+            if (goLeft) {
+                i++;
+            } else {
+                int tmp = rows[i];
+                rows[i] = rows[j];
+                rows[j--] = tmp;
+            }
+        }
+        int middle = i;
+
+        boolean leftSmaller = middle - start <= end - middle;
+        double[][] smaller = histograms(pool, depth + 1);
+        if (leftSmaller) {
+            buildHistograms(rows, start, middle, weights, smaller);
+        } else {
+            buildHistograms(rows, middle, end, weights, smaller);
+        }
+        for (int f = 0; f < histograms.length; f++) {
+            double[] larger = histograms[f];
+            double[] small = smaller[f];
+            for (int b = 0; b < larger.length; b++) {
+                larger[b] -= small[b];
+            }
+        }
+
+        int leftChild = tree.addNode();
+        int rightChild = tree.addNode();
+        if (best.categories != null) {
+            tree.setCategorySplit(node, best.feature, binning.attributeIndex(best.feature), best.categories,
+                    best.missingLeft, leftChild, rightChild);
+        } else {
+            tree.setSplit(node, best.feature, binning.attributeIndex(best.feature), best.bin,
+                    binning.threshold(best.feature, best.bin), best.missingLeft, leftChild, rightChild);
+        }
+        grow(tree, leftChild, rows, start, middle, weights, leftSmaller ? smaller : histograms, depth + 1, random, pool);
+        grow(tree, rightChild, rows, middle, end, weights, leftSmaller ? histograms : smaller, depth + 1, random, pool);
+    }
+
+    /**
+     Best split so far: rows with a bin at most bin go left, or, for a nominal feature,
+     the first bin + 1 categories of order
+     */
+    private static final class Split {
+        int feature;
+        int bin;
+        int[] order;
+        long[] categories;
+        boolean missingLeft;
+        double gain;
+    }
+
+    private Split findSplit(double[][] histograms, double[] total, double parentImpurity, Random random) {
+        int numFeatures = histograms.length;
+        int wanted = featuresPerSplit > 0 ? Math.min(featuresPerSplit, numFeatures) : numFeatures;
+        int[] order = new int[numFeatures];
+        for (int f = 0; f < numFeatures; f++) {
+            order[f] = f;
+        }
+
+        int numStats = criterion.numStats();
+        double[] left = new double[numStats];
+        double[] right = new double[numStats];
+        double[] side = new double[numStats];
+        Split best = null;
+        for (int k = 0; k < numFeatures && (k < wanted || best == null); k++) {
+            int pick = k + random.nextInt(numFeatures - k);
+            int feature = order[pick];
+            order[pick] = order[k];
+            order[k] = feature;
+
+            double[] histogram = histograms[feature];
+            int bins = data.getBinning().numBins(feature);
+            int missing = bins * numStats;
+            boolean hasMissing = criterion.weight(histogram, missing) > 0;
+            // Nominal: the non-empty categories in criterion order, scanned like ordered bins
+            int[] categories = data.getBinning().isNominal(feature) ? categoryOrder(histogram, bins) : null;
+            int scanned = categories != null ? categories.length : bins;
+            Arrays.fill(left, 0);
+            for (int position = 0; position < scanned - 1; position++) {
+                int bin = categories != null ? categories[position] : position;
+                int offset = bin * numStats;
+                if (categories == null && bin > 0 && criterion.weight(histogram, offset) <= 0) {
+                    continue;
+                }
+                for (int s = 0; s < numStats; s++) {
+                    left[s] += histogram[offset + s];
+                    right[s] = total[s] - left[s] - histogram[missing + s];
+                }
+                // Skip when the empty bins at the start make this the "all right" split
+                if (criterion.weight(left, 0) <= 0) {
+                    continue;
+                }
+                for (int s = 0; s < numStats; s++) {
+                    side[s] = right[s] + histogram[missing + s];
+                }
+                int split = categories != null ? position : bin;
+                best = consider(best, feature, split, categories, false, parentImpurity, left, side);
+                if (hasMissing) {
+                    for (int s = 0; s < numStats; s++) {
+                        side[s] = left[s] + histogram[missing + s];
+                    }
+                    best = consider(best, feature, split, categories, true, parentImpurity, side, right);
+                }
+            }
+        }
+        if (best != null && best.order != null) {
+            best.categories = new long[(data.getBinning().numBins(best.feature) + 63) >>> 6];
+            for (int position = 0; position <= best.bin; position++) {
+                int category = best.order[position];
+                best.categories[category >>> 6] |= 1L << category;
+            }
+        }
+        return best;
+    }
+
+    /**
+     Bins of a nominal feature with a positive weight, sorted by criterion.categoryOrder
+     */
+    private int[] categoryOrder(double[] histogram, int bins) {
+        int numStats = criterion.numStats();
+        double[] keys = new double[bins];
+        int[] order = new int[bins];
+        int count = 0;
+        for (int bin = 0; bin < bins; bin++) {
+            if (criterion.weight(histogram, bin * numStats) > 0) {
+                // Insertion sort: nominal features have few categories
+                double key = criterion.categoryOrder(histogram, bin * numStats);
+                int k = count++;
+                while (k > 0 && keys[k - 1] > key) {
+                    keys[k] = keys[k - 1];
+                    order[k] = order[k - 1];
+                    k--;
+                }
+                keys[k] = key;
+                order[k] = bin;
+            }
+        }
+        return count == bins ? order : Arrays.copyOf(order, count);
+    }
+
+    private Split consider(Split best, int feature, int bin, int[] order, boolean missingLeft, double parentImpurity,
+                           double[] left, double[] right) {
+        if (criterion.weight(left, 0) < minLeafWeight || criterion.weight(right, 0) < minLeafWeight) {
+            return best;
+        }
+        double gain = parentImpurity - criterion.impurity(left, 0) - criterion.impurity(right, 0);
+        if (gain <= 1e-10 || (best != null && gain <= best.gain)) {
+            return best;
+        }
+        Split split = best != null ? best : new Split();
+        split.feature = feature;
+        split.bin = bin;
+        split.order = order;
+        split.missingLeft = missingLeft;
+        split.gain = gain;
+        return split;
+    }
+
+    private void buildHistograms(int[] rows, int start, int end, float[] weights, double[][] histograms) {
+        if (end - start >= parallelRows) {
+            IntStream.range(0, histograms.length).parallel()
+                    .forEach(f -> buildHistogram(f, rows, start, end, weights, histograms[f]));
+        } else {
+            for (int f = 0; f < histograms.length; f++) {
+                buildHistogram(f, rows, start, end, weights, histograms[f]);
+            }
+        }
+    }
+
+    private void buildHistogram(int feature, int[] rows, int start, int end, float[] weights, double[] histogram) {
+        byte[] column = data.column(feature);
+        int numStats = criterion.numStats();
+        Arrays.fill(histogram, 0);
+        for (int k = start; k < end; k++) {
+            int row = rows[k];
+            int offset = (column[row] & 0xFF) * numStats;
+            float weight = weights[row];
+            int statOffset = row * numStats;
+            for (int s = 0; s < numStats; s++) {
+                histogram[offset + s] += weight * rowStats[statOffset + s];
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.heart_disease.classification.histogram;
+
+/**
+ What a histogram tree accumulates per row and how it scores a node.
+
+ Each row contributes numStats() values (times its weight) to the histogram bin of
+ each feature. A split's gain is impurity(parent) - impurity(left) - impurity(right),
+ so impurity must be additive over rows in the sense of being computed from summed
+ statistics only.
+ */
+public interface SplitCriterion {
+
+    int numStats();
+
+    /**
+     Length of the value stored in each leaf.
+     */
+    int numOutputs();
+
+    /**
+     Impurity of the rows whose statistics are summed in stats[offset .. offset + numStats()).
+     */
+    double impurity(double[] stats, int offset);
+
+    /**
+     Weight of the same rows, compared with the minimum leaf weight.
+     */
+    double weight(double[] stats, int offset);
+
+    void leafValue(double[] stats, int offset, double[] output, int outputOffset);
+
+    /**
+     Sort key of a category for subset splits on a nominal feature: the categories
+     are ordered by it and only splits between a prefix and the rest are scored.
+     */
+    double categoryOrder(double[] stats, int offset);
+
+    /**
+     Class counts scored by entropy (the information gain used by Weka's RandomTree);
+     the leaf value is the class distribution.
+     */
+    final class Entropy implements SplitCriterion {
+
+        private final int numClasses;
+
+        public Entropy(int numClasses) {
+            this.numClasses = numClasses;
+        }
+
+        @Override
+        public int numStats() {
+            return numClasses;
+        }
+
+        @Override
+        public int numOutputs() {
+            return numClasses;
+        }
+
+        @Override
+        public double impurity(double[] stats, int offset) {
+            // Unnormalised entropy: W log W - sum c log c
+            double total = 0;
+            double sum = 0;
+            for (int c = 0; c < numClasses; c++) {
+                double count = stats[offset + c];
+                if (count > 0) {
+                    sum += count * Math.log(count);
+                    total += count;
+                }
+            }
+            return total > 0 ? total * Math.log(total) - sum : 0;
+        }
+
+        @Override
+        public double weight(double[] stats, int offset) {
+            double total = 0;
+            for (int c = 0; c < numClasses; c++) {
+                total += stats[offset + c];
+            }
+            return total;
+        }
+
+        @Override
+        public void leafValue(double[] stats, int offset, double[] output, int outputOffset) {
+            double total = weight(stats, offset);
+            for (int c = 0; c < numClasses; c++) {
+                output[outputOffset + c] = total > 0 ? stats[offset + c] / total : 1.0 / numClasses;
+            }
+        }
+
+        /**
+         Share of the last class: with two classes the best subset split is among the
+         prefixes of this order (Breiman et al.); with more it is a heuristic.
+         */
+        @Override
+        public double categoryOrder(double[] stats, int offset) {
+            double total = weight(stats, offset);
+            return total > 0 ? stats[offset + numClasses - 1] / total : 0;
+        }
+    }
+
+    /**
+     Second-order boosting statistics: per row the gradient g, the hessian h, g * g / h
+     and 1 (so the weight is the summed row weight). The leaf value is the Newton step
+     -G / (H + lambda). The impurity is sum(g * g / h) - G * G / (H + lambda), the
+     weighted squared error of the rows' own Newton steps around the leaf's, so a split
+     gains exactly the usual GL^2/(HL+lambda) + GR^2/(HR+lambda) - G^2/(H+lambda) and a
+     node whose rows all want the same step has impurity 0.
+     */
+    final class Gradient implements SplitCriterion {
+
+        public static final int NUM_STATS = 4;
+
+        private final double lambda;
+
+        public Gradient(double lambda) {
+            this.lambda = lambda;
+        }
+
+        /**
+         Write one row's statistics for gradient g and hessian h into rowStats.
+         */
+        public static void setRow(float[] rowStats, int row, double g, double h) {
+            int offset = row * NUM_STATS;
+            rowStats[offset] = (float) g;
+            rowStats[offset + 1] = (float) h;
+            rowStats[offset + 2] = (float) (g * g / h);
+            rowStats[offset + 3] = 1;
+        }
+
+        @Override
+        public int numStats() {
+            return NUM_STATS;
+        }
+
+        @Override
+        public int numOutputs() {
+            return 1;
+        }
+
+        @Override
+        public double impurity(double[] stats, int offset) {
+            double g = stats[offset];
+            return stats[offset + 2] - g * g / (stats[offset + 1] + lambda);
+        }
+
+        @Override
+        public double weight(double[] stats, int offset) {
+            return stats[offset + 3];
+        }
+
+        @Override
+        public void leafValue(double[] stats, int offset, double[] output, int outputOffset) {
+            output[outputOffset] = -stats[offset] / (stats[offset + 1] + lambda);
+        }
+
+        /**
+         The category's own leaf value, as LightGBM orders categories
+         */
+        @Override
+        public double categoryOrder(double[] stats, int offset) {
+            return -stats[offset] / (stats[offset + 1] + lambda);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.heart_disease.classification.inference;
+
+import weka.classifiers.Classifier;
+import weka.classifiers.trees.J48;
+import weka.classifiers.trees.RandomForest;
+import weka.core.DenseInstance;
+import weka.core.Instance;
+import weka.core.Instances;
+import com.example.heart_disease.classification.balancing.BalancingClassifier;
+
+/**
+ A saved classifier ready to score batches of cleaned rows (laid out like the
+ header it was trained on, see FlatScorer). A J48 is scored as a FlatJ48Tree and a
+ Random Forest as a PackedForest, both with the same probabilities as Weka; any
+ other classifier goes through distributionForInstance on the given header.
+ Balancing only changes training, so a BalancingClassifier is scored as the
+ classifier it wraps. Safe to share between threads.
+ */
+public class BatchScorer {
+
+    private interface Scorer {
+        void score(double[][] rows, int count, double[] out) throws Exception;
+    }
+
+    private final String description;
+    private final int numClasses;
+    private final Scorer scorer;
+
+    private BatchScorer(String description, int numClasses, Scorer scorer) {
+        this.description = description;
+        this.numClasses = numClasses;
+        this.scorer = scorer;
+    }
+
+    /**
+     Scorer for classifier, trained on rows with header's layout; useWeka skips the
+     flat scorers
+     */
+    public static BatchScorer of(Classifier classifier, Instances header, boolean useWeka) throws Exception {
+        if (!header.classAttribute().isNominal()) {
+            throw new IllegalArgumentException("Scoring needs a nominal class");
+        }
+        Classifier model = classifier instanceof BalancingClassifier
+                ? ((BalancingClassifier) classifier).getClassifier() : classifier;
+        BatchScorer scorer;
+        if (!useWeka && model instanceof J48) {
+            FlatJ48Tree tree = FlatJ48Tree.compile((J48) model);
+            scorer = new BatchScorer("J48 as a flat tree (" + tree.numNodes() + " nodes)", tree.numClasses(),
+                    (rows, count, out) -> {
+                        double[] distribution = new double[tree.numClasses()];
+                        for (int i = 0; i < count; i++) {
+                            tree.distribution(rows[i], distribution);
+                            System.arraycopy(distribution, 0, out, i * distribution.length, distribution.length);
+                        }
+                    });
+        } else if (!useWeka && model instanceof RandomForest) {
+            PackedForest forest = PackedForest.export(model);
+            scorer = new BatchScorer(String.format("Random Forest as a packed forest (%d trees, %,d nodes)",
+                    forest.numTrees(), forest.numNodes()), forest.numClasses(),
+                    (rows, count, out) -> forest.distributions(rows, 0, count, out));
+        } else {
+            Instances dataset = new Instances(header, 0);
+            int numClasses = header.numClasses();
+            scorer = new BatchScorer("Weka " + model.getClass().getSimpleName() + ".distributionForInstance",
+                    numClasses, (rows, count, out) -> {
+                        for (int i = 0; i < count; i++) {
+                            Instance instance = new DenseInstance(1.0, rows[i]);
+                            instance.setDataset(dataset);
+                            System.arraycopy(classifier.distributionForInstance(instance), 0, out, i * numClasses,
+                                    numClasses);
+                        }
+                    });
+        }
+        if (scorer.numClasses != header.numClasses()) {
+            throw new IllegalArgumentException("Model has " + scorer.numClasses + " classes, the header "
+                    + header.numClasses());
+        }
+        return scorer;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public int numClasses() {
+        return numClasses;
+    }
+
+    /**
+     Class distributions of rows[0, count), numClasses values per row written to out
+     */
+    public void distributions(double[][] rows, int count, double[] out) throws Exception {
+        scorer.score(rows, count, out);
+    }
+
+    /**
+     Most probable class of a distribution as AbstractClassifier.classifyInstance picks
+     it: the first strictly largest value above 0, -1 when every value is 0
+     */
+    public static int predictedClass(double[] distributions, int offset, int numClasses) {
+        int best = -1;
+        double max = 0;
+        for (int c = 0; c < numClasses; c++) {
+            if (distributions[offset + c] > max) {
+                best = c;
+                max = distributions[offset + c];
+            }
+        }
+        return best;
+    }
+}
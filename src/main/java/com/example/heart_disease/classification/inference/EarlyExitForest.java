@@ -0,0 +1,202 @@
+package com.example.heart_disease.classification.inference;
+
+import weka.classifiers.Classifier;
+import weka.core.Utils;
+import com.example.heart_disease.classification.balancing.BalancingClassifier;
+import com.example.heart_disease.classification.randomforest.GrowingRandomForest;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ Class predictions from a PackedForest that stop adding trees once the vote is
+ settled, for callers that need the class and not the exact probabilities.
+
+ Trees are evaluated strongest first, by a strength per tree such as its out-of-bag
+ accuracy. Every tree adds a distribution summing to at most 1, so with R trees left
+ the lead of one class over another can shrink by at most R: once the leading class
+ is ahead of every other by more than R, the whole forest predicts it too and the
+ remaining trees are skipped. This rule never changes a prediction.
+
+ With a confidence delta above 0, voting also stops when margin^2 >= 2 R ln(1/delta).
+ If the remaining trees were independent votes leaning to neither class, Hoeffding's
+ bound puts the chance of them overturning such a margin at delta or less. Close
+ calls can then differ from the full forest.
+
+ distribution() returns the normalised vote of the trees evaluated. The number of
+ trees evaluated is counted over all calls.
+ */
+public class EarlyExitForest implements FlatScorer {
+
+    private final PackedForest forest;
+    private final int numClasses;
+    private final int[] roots;
+    private final double confidenceDelta;
+    private final double confidenceFactor;
+    private final ThreadLocal<double[]> scratch;
+    private final LongAdder rowsScored = new LongAdder();
+    private final LongAdder treesEvaluated = new LongAdder();
+
+    /**
+     Vote with the trees of forest in decreasing strength (forest order when strength
+     is null); confidenceDelta 0 stops only when the vote cannot change
+     */
+    public EarlyExitForest(PackedForest forest, double[] strength, double confidenceDelta) {
+        if (strength != null && strength.length != forest.numTrees()) {
+            throw new IllegalArgumentException("Strength given for " + strength.length + " trees, forest has "
+                    + forest.numTrees());
+        }
+        if (confidenceDelta < 0 || confidenceDelta >= 1) {
+            throw new IllegalArgumentException("Confidence delta must be in [0, 1): " + confidenceDelta);
+        }
+        this.forest = forest;
+        this.numClasses = forest.numClasses();
+        this.confidenceDelta = confidenceDelta;
+        this.confidenceFactor = confidenceDelta > 0 ? 2 * Math.log(1 / confidenceDelta) : 0;
+        this.scratch = ThreadLocal.withInitial(() -> new double[numClasses]);
+
+        // Stable, so equally strong trees keep their forest order
+        Integer[] order = IntStream.range(0, forest.numTrees()).boxed().toArray(Integer[]::new);
+        if (strength != null) {
+            Arrays.sort(order, Comparator.comparingDouble((Integer t) -> strength[t]).reversed());
+        }
+        roots = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            roots[i] = forest.root(order[i]);
+        }
+    }
+
+    /**
+     Out-of-bag accuracy of each tree, when the forest (or the forest inside a
+     BalancingClassifier) is a GrowingRandomForest; null otherwise
+     */
+    public static double[] outOfBagStrength(Classifier classifier) {
+        if (classifier instanceof BalancingClassifier) {
+            classifier = ((BalancingClassifier) classifier).getClassifier();
+        }
+        if (classifier instanceof GrowingRandomForest) {
+            double[] accuracy = ((GrowingRandomForest) classifier).getTreeOutOfBagAccuracy();
+            return accuracy.length > 0 ? accuracy : null;
+        }
+        return null;
+    }
+
+    /**
+     Accuracy of each tree of forest on rows whose class indices are labels, for forests
+     saved without out-of-bag accuracies (best measured on rows not used in training)
+     */
+    public static double[] measuredStrength(PackedForest forest, double[][] rows, int[] labels) {
+        double[] accuracy = new double[forest.numTrees()];
+        double[] distribution = new double[forest.numClasses()];
+        for (int t = 0; t < accuracy.length; t++) {
+            int correct = 0;
+            for (int row = 0; row < rows.length; row++) {
+                Arrays.fill(distribution, 0);
+                forest.addTree(forest.root(t), rows[row], distribution, 0);
+                if (Utils.sum(distribution) > 0 && Utils.maxIndex(distribution) == labels[row]) {
+                    correct++;
+                }
+            }
+            accuracy[t] = rows.length > 0 ? (double) correct / rows.length : 0;
+        }
+        return accuracy;
+    }
+
+    @Override
+    public int numClasses() {
+        return numClasses;
+    }
+
+    public int numTrees() {
+        return roots.length;
+    }
+
+    public double getConfidenceDelta() {
+        return confidenceDelta;
+    }
+
+    /**
+     Mean number of trees evaluated per row since the last resetStatistics()
+     */
+    public double getAverageTreesEvaluated() {
+        long rows = rowsScored.sum();
+        return rows == 0 ? Double.NaN : treesEvaluated.sum() / (double) rows;
+    }
+
+    public void resetStatistics() {
+        rowsScored.reset();
+        treesEvaluated.reset();
+    }
+
+    @Override
+    public double[] distribution(double[] row, double[] out) {
+        vote(row, out);
+        double sum = 0;
+        for (int c = 0; c < numClasses; c++) {
+            sum += out[c];
+        }
+        if (!Utils.eq(sum, 0)) {
+            for (int c = 0; c < numClasses; c++) {
+                out[c] /= sum;
+            }
+        }
+        return out;
+    }
+
+    /**
+     The class the whole forest predicts when voting stopped because it could not
+     change; -1 when every tree was evaluated and every probability is 0, as in
+     PackedForest.classify
+     */
+    @Override
+    public int classify(double[] row) {
+        return vote(row, scratch.get());
+    }
+
+    /**
+     Add trees to votes until the leader is settled; returns the predicted class
+     */
+    private int vote(double[] row, double[] votes) {
+        Arrays.fill(votes, 0, numClasses, 0);
+        int evaluated = 0;
+        int decided = -1;
+        while (evaluated < roots.length) {
+            forest.addTree(roots[evaluated++], row, votes, 0);
+            int leader = 0;
+            double first = votes[0];
+            double second = Double.NEGATIVE_INFINITY;
+            for (int c = 1; c < numClasses; c++) {
+                if (votes[c] > first) {
+                    second = first;
+                    first = votes[c];
+                    leader = c;
+                } else if (votes[c] > second) {
+                    second = votes[c];
+                }
+            }
+            double margin = first - second;
+            int remaining = roots.length - evaluated;
+            if (Utils.gr(margin, remaining)
+                    || (confidenceFactor > 0 && margin > 0 && margin * margin >= confidenceFactor * remaining)) {
+                decided = leader;
+                break;
+            }
+        }
+        rowsScored.increment();
+        treesEvaluated.add(evaluated);
+        if (decided >= 0) {
+            return decided;
+        }
+
+        double max = 0;
+        for (int c = 0; c < numClasses; c++) {
+            if (votes[c] > max) {
+                decided = c;
+                max = votes[c];
+            }
+        }
+        return decided;
+    }
+}
@@ -0,0 +1,285 @@
+package com.example.heart_disease.classification.inference;
+
+import weka.classifiers.trees.J48;
+import weka.classifiers.trees.j48.BinC45Split;
+import weka.classifiers.trees.j48.C45Split;
+import weka.classifiers.trees.j48.ClassifierSplitModel;
+import weka.classifiers.trees.j48.ClassifierTree;
+import weka.classifiers.trees.j48.Distribution;
+import weka.core.Instances;
+import weka.core.Utils;
+
+import java.lang.reflect.Field;
+
+/**
+ A trained J48 tree copied into primitive arrays indexed by node (node 0 is the
+ root), scored without building an Instance or walking ClassifierTree objects.
+
+ The children of an inner node are numChildren consecutive nodes from firstChild.
+ A numeric split sends a row to its first child when the value is at most threshold;
+ a multiway nominal split to child (int) value; a binary nominal split (J48 -B) to
+ its first child when the label is threshold. Leaves hold their class probabilities.
+ An empty branch (no training rows reached it) is a leaf holding the parent's
+ probabilities for that branch, as ClassifierTree answers for it.
+
+ A missing value is handled as in ClassifierTree.getProbs: the row goes down every
+ non-empty branch, weighted by the branch's share of the node's training weight, and
+ the probabilities are summed per class. Scores are the same as
+ J48.distributionForInstance and J48.classifyInstance, Laplace correction (-A)
+ included.
+ */
+public class FlatJ48Tree implements FlatScorer {
+
+    static final byte LEAF = 0;
+    static final byte EMPTY = 1;
+    static final byte NUMERIC = 2;
+    static final byte NOMINAL = 3;
+    static final byte BINARY_NOMINAL = 4;
+
+    private final int numClasses;
+    private final boolean laplace;
+    private final byte[] kind;
+    private final int[] attribute;
+    private final double[] threshold;
+    private final int[] firstChild;
+    private final int[] numChildren;
+    private final double[] missingWeight;
+    private final double[] probabilities;
+    private final double[] laplaceProbabilities;
+    private final int[] leafClass;
+
+    private FlatJ48Tree(int numClasses, int numNodes, boolean laplace) {
+        this.numClasses = numClasses;
+        this.laplace = laplace;
+        kind = new byte[numNodes];
+        attribute = new int[numNodes];
+        threshold = new double[numNodes];
+        firstChild = new int[numNodes];
+        numChildren = new int[numNodes];
+        missingWeight = new double[numNodes];
+        probabilities = new double[numNodes * numClasses];
+        laplaceProbabilities = laplace ? new double[numNodes * numClasses] : null;
+        leafClass = new int[numNodes];
+    }
+
+    /**
+     Copy a built J48. Its root and the empty flags of its nodes are protected in Weka,
+     so they are read by reflection.
+     */
+    public static FlatJ48Tree compile(J48 j48) throws Exception {
+        ClassifierTree root = (ClassifierTree) field(J48.class, "m_root").get(j48);
+        if (root == null) {
+            throw new Exception("J48 has not been built");
+        }
+        Instances header = root.getTrainingData();
+        if (header == null) {
+            throw new Exception("J48 tree has no training header");
+        }
+        FlatJ48Tree tree = new FlatJ48Tree(header.numClasses(), countNodes(root), j48.getUseLaplace());
+        tree.fill(root, 0, 1, header, field(ClassifierTree.class, "m_isEmpty"));
+        return tree;
+    }
+
+    private static Field field(Class<?> owner, String name) throws NoSuchFieldException {
+        Field field = owner.getDeclaredField(name);
+        field.setAccessible(true);
+        return field;
+    }
+
+    private static int countNodes(ClassifierTree node) {
+        int count = 1;
+        if (!node.isLeaf()) {
+            for (ClassifierTree son : node.getSons()) {
+                count += countNodes(son);
+            }
+        }
+        return count;
+    }
+
+    /**
+     Copy node into slot id, its children into the slots from next; returns the next free slot
+     */
+    private int fill(ClassifierTree node, int id, int next, Instances header, Field isEmpty) throws Exception {
+        ClassifierSplitModel model = node.getLocalModel();
+        Distribution distribution = model.distribution();
+        if (node.isLeaf()) {
+            kind[id] = LEAF;
+            for (int c = 0; c < numClasses; c++) {
+                probabilities[id * numClasses + c] = distribution.prob(c);
+                if (laplace) {
+                    laplaceProbabilities[id * numClasses + c] = distribution.laplaceProb(c);
+                }
+            }
+            leafClass[id] = maxClass(id);
+            return next;
+        }
+
+        if (model instanceof C45Split) {
+            C45Split split = (C45Split) model;
+            attribute[id] = split.attIndex();
+            threshold[id] = split.splitPoint();
+            kind[id] = header.attribute(attribute[id]).isNominal() ? NOMINAL : NUMERIC;
+        } else if (model instanceof BinC45Split) {
+            BinC45Split split = (BinC45Split) model;
+            attribute[id] = split.attIndex();
+            threshold[id] = split.splitPoint();
+            kind[id] = header.attribute(attribute[id]).isNominal() ? BINARY_NOMINAL : NUMERIC;
+        } else {
+            throw new IllegalArgumentException("Unsupported J48 split model: " + model.getClass().getName());
+        }
+
+        ClassifierTree[] sons = node.getSons();
+        firstChild[id] = next;
+        numChildren[id] = sons.length;
+        int free = next + sons.length;
+        for (int b = 0; b < sons.length; b++) {
+            int child = next + b;
+            missingWeight[child] = distribution.perBag(b) / distribution.total();
+            if ((Boolean) isEmpty.get(sons[b])) {
+                kind[child] = EMPTY;
+                for (int c = 0; c < numClasses; c++) {
+                    probabilities[child * numClasses + c] = model.classProb(c, null, b);
+                    if (laplace) {
+                        laplaceProbabilities[child * numClasses + c] = model.classProbLaplace(c, null, b);
+                    }
+                }
+                leafClass[child] = maxClass(child);
+            } else {
+                free = fill(sons[b], child, free, header, isEmpty);
+            }
+        }
+        return free;
+    }
+
+    /**
+     First class whose probability is greater than all before it, as in ClassifierTree.classifyInstance
+     */
+    private int maxClass(int node) {
+        int best = 0;
+        double max = -1;
+        for (int c = 0; c < numClasses; c++) {
+            if (Utils.gr(probabilities[node * numClasses + c], max)) {
+                best = c;
+                max = probabilities[node * numClasses + c];
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public int numClasses() {
+        return numClasses;
+    }
+
+    public int numNodes() {
+        return kind.length;
+    }
+
+    @Override
+    public double[] distribution(double[] row, double[] out) {
+        int node = 0;
+        while (kind[node] > EMPTY) {
+            double value = row[attribute[node]];
+            if (Double.isNaN(value)) {
+                double[] values = laplace ? laplaceProbabilities : probabilities;
+                for (int c = 0; c < numClasses; c++) {
+                    out[c] = probability(node, c, row, 1.0, values);
+                }
+                return out;
+            }
+            node = child(node, value);
+        }
+        System.arraycopy(laplace ? laplaceProbabilities : probabilities, node * numClasses, out, 0, numClasses);
+        return out;
+    }
+
+    @Override
+    public int classify(double[] row) {
+        int node = 0;
+        while (kind[node] > EMPTY) {
+            double value = row[attribute[node]];
+            if (Double.isNaN(value)) {
+                // J48.classifyInstance ignores the Laplace correction
+                int best = 0;
+                double max = -1;
+                for (int c = 0; c < numClasses; c++) {
+                    double p = probability(node, c, row, 1.0, probabilities);
+                    if (Utils.gr(p, max)) {
+                        best = c;
+                        max = p;
+                    }
+                }
+                return best;
+            }
+            node = child(node, value);
+        }
+        return leafClass[node];
+    }
+
+    /**
+     Weighted probability of class c below node, summed in ClassifierTree.getProbs order
+     */
+    private double probability(int node, int c, double[] row, double weight, double[] values) {
+        if (kind[node] <= EMPTY) {
+            return weight * values[node * numClasses + c];
+        }
+        double value = row[attribute[node]];
+        if (!Double.isNaN(value)) {
+            return probability(child(node, value), c, row, weight, values);
+        }
+        double sum = 0;
+        for (int child = firstChild[node], end = child + numChildren[node]; child < end; child++) {
+            if (kind[child] != EMPTY) {
+                sum += probability(child, c, row, missingWeight[child] * weight, values);
+            }
+        }
+        return sum;
+    }
+
+    private int child(int node, double value) {
+        switch (kind[node]) {
+            case NUMERIC:
+                return value <= threshold[node] ? firstChild[node] : firstChild[node] + 1;
+            case BINARY_NOMINAL:
+                return (int) value == (int) threshold[node] ? firstChild[node] : firstChild[node] + 1;
+            default:
+                int label = (int) value;
+                if (label < 0 || label >= numChildren[node]) {
+                    throw new IllegalArgumentException("Label index " + label + " out of range for attribute "
+                            + attribute[node]);
+                }
+                return firstChild[node] + label;
+        }
+    }
+
+    byte kind(int node) {
+        return kind[node];
+    }
+
+    int attribute(int node) {
+        return attribute[node];
+    }
+
+    double threshold(int node) {
+        return threshold[node];
+    }
+
+    int firstChild(int node) {
+        return firstChild[node];
+    }
+
+    int numChildren(int node) {
+        return numChildren[node];
+    }
+
+    /**
+     Probability of class c returned by distribution() at leaf node
+     */
+    double leafProbability(int node, int c) {
+        return (laplace ? laplaceProbabilities : probabilities)[node * numClasses + c];
+    }
+
+    int leafClass(int node) {
+        return leafClass[node];
+    }
+}
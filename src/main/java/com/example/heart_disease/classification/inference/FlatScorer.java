@@ -0,0 +1,24 @@
+package com.example.heart_disease.classification.inference;
+
+/**
+ A trained model compiled for scoring plain rows instead of Weka Instances.
+
+ A row is a double[] laid out like Instance.toDoubleArray() on the training header:
+ one value per attribute (the class slot is ignored), nominal values as label
+ indices and missing values as NaN. Implementations allocate nothing per call and
+ are safe to share between threads.
+ */
+public interface FlatScorer {
+
+    int numClasses();
+
+    /**
+     Class probabilities of row, written to out (length numClasses) and returned
+     */
+    double[] distribution(double[] row, double[] out);
+
+    /**
+     Index of the predicted class of row
+     */
+    int classify(double[] row);
+}
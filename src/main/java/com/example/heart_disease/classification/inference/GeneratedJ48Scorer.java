@@ -0,0 +1,241 @@
+package com.example.heart_disease.classification.inference;
+
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiPredicate;
+import java.util.function.ToIntFunction;
+
+/**
+ A FlatJ48Tree turned into straight-line Java code, compiled in memory with the JDK
+ compiler and loaded as bytecode: every split is an if (or a switch for a multiway
+ nominal split) on a constant threshold, and every leaf writes constant
+ probabilities, so scoring reads nothing but the row.
+
+ The JIT does not compile methods over 8000 bytes of bytecode, so the code is split
+ into methods of at most METHOD_NODES nodes, a subtree that does not fit becoming a
+ call. The generated class only uses java.util.function interfaces, so it compiles
+ whatever the application class path is (mvn exec:java included). A row with a
+ missing value on its path, which J48 spreads over several branches, is handed to
+ the flat tree.
+ */
+public class GeneratedJ48Scorer implements FlatScorer {
+
+    static final int METHOD_NODES = 200;
+
+    private static final AtomicInteger CLASS_IDS = new AtomicInteger();
+
+    private final FlatJ48Tree tree;
+    private final String source;
+    private final BiPredicate<double[], double[]> distributions;
+    private final ToIntFunction<double[]> classes;
+
+    private GeneratedJ48Scorer(FlatJ48Tree tree, String source, Object generated) {
+        this.tree = tree;
+        this.source = source;
+        this.distributions = cast(generated);
+        this.classes = cast(generated);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(Object generated) {
+        return (T) generated;
+    }
+
+    /**
+     Generate, compile and load the scorer of tree; needs a JDK, not just a JRE.
+     */
+    public static GeneratedJ48Scorer compile(FlatJ48Tree tree) throws Exception {
+        String className = "GeneratedJ48Scorer" + CLASS_IDS.incrementAndGet();
+        String source = new SourceWriter(tree).write(className);
+        byte[] bytecode = javac(className, source);
+        Class<?> generated = new ClassLoader(GeneratedJ48Scorer.class.getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                if (!name.equals(className)) {
+                    throw new ClassNotFoundException(name);
+                }
+                return defineClass(name, bytecode, 0, bytecode.length);
+            }
+        }.loadClass(className);
+        return new GeneratedJ48Scorer(tree, source, generated.getDeclaredConstructor().newInstance());
+    }
+
+    private static byte[] javac(String className, String source) throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new Exception("No Java compiler available: generated scorers need a JDK");
+        }
+        Map<String, ByteArrayOutputStream> output = new HashMap<>();
+        JavaFileManager files = new ForwardingJavaFileManager<JavaFileManager>(
+                compiler.getStandardFileManager(null, null, null)) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String name, JavaFileObject.Kind kind,
+                                                       FileObject sibling) {
+                return new SimpleJavaFileObject(URI.create("mem:///" + name + kind.extension), kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                        output.put(name, bytes);
+                        return bytes;
+                    }
+                };
+            }
+        };
+        JavaFileObject file = new SimpleJavaFileObject(URI.create("string:///" + className + ".java"),
+                JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        StringWriter diagnostics = new StringWriter();
+        boolean compiled = compiler.getTask(diagnostics, files, null, Arrays.asList("-g:none", "-proc:none"), null,
+                List.of(file)).call();
+        files.close();
+        if (!compiled || !output.containsKey(className)) {
+            throw new Exception("Generated J48 scorer did not compile: " + diagnostics);
+        }
+        return output.get(className).toByteArray();
+    }
+
+    @Override
+    public int numClasses() {
+        return tree.numClasses();
+    }
+
+    @Override
+    public double[] distribution(double[] row, double[] out) {
+        return distributions.test(row, out) ? out : tree.distribution(row, out);
+    }
+
+    @Override
+    public int classify(double[] row) {
+        int predicted = classes.applyAsInt(row);
+        return predicted >= 0 ? predicted : tree.classify(row);
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     Writes a distribution method d<node> and a classify method c<node> for the root and
+     for every subtree that starts a new method.
+     */
+    private static final class SourceWriter {
+
+        private final FlatJ48Tree tree;
+        private final int[] subtreeSize;
+        private final StringBuilder code = new StringBuilder();
+
+        SourceWriter(FlatJ48Tree tree) {
+            this.tree = tree;
+            this.subtreeSize = new int[tree.numNodes()];
+            for (int node = tree.numNodes() - 1; node >= 0; node--) {
+                subtreeSize[node] = 1;
+                if (tree.kind(node) > FlatJ48Tree.EMPTY) {
+                    for (int b = 0; b < tree.numChildren(node); b++) {
+                        subtreeSize[node] += subtreeSize[tree.firstChild(node) + b];
+                    }
+                }
+            }
+        }
+
+        String write(String className) {
+            code.append("public final class ").append(className)
+                    .append(" implements java.util.function.BiPredicate<double[], double[]>,")
+                    .append(" java.util.function.ToIntFunction<double[]> {\n\n");
+            code.append("    public boolean test(double[] x, double[] out) {\n        return d0(x, out);\n    }\n\n");
+            code.append("    public int applyAsInt(double[] x) {\n        return c0(x);\n    }\n");
+            for (boolean classify : new boolean[]{false, true}) {
+                Deque<Integer> roots = new ArrayDeque<>();
+                roots.add(0);
+                while (!roots.isEmpty()) {
+                    int root = roots.poll();
+                    code.append("\n    private static ").append(classify ? "int c" : "boolean d").append(root)
+                            .append(classify ? "(double[] x) {\n" : "(double[] x, double[] out) {\n")
+                            .append("        double v;\n");
+                    writeNode(root, classify, 2, new int[]{METHOD_NODES}, roots);
+                    code.append("    }\n");
+                }
+            }
+            code.append("}\n");
+            return code.toString();
+        }
+
+        /**
+         Inline node if its subtree fits in the method's remaining budget, else call its own method
+         */
+        private void writeNode(int node, boolean classify, int depth, int[] budget, Deque<Integer> roots) {
+            String indent = "    ".repeat(depth);
+            if (subtreeSize[node] > budget[0] && budget[0] < METHOD_NODES) {
+                roots.add(node);
+                code.append(indent).append("return ").append(classify ? "c" : "d").append(node)
+                        .append(classify ? "(x);\n" : "(x, out);\n");
+                return;
+            }
+            budget[0]--;
+            if (tree.kind(node) <= FlatJ48Tree.EMPTY) {
+                if (classify) {
+                    code.append(indent).append("return ").append(tree.leafClass(node)).append(";\n");
+                } else {
+                    for (int c = 0; c < tree.numClasses(); c++) {
+                        code.append(indent).append("out[").append(c).append("] = ")
+                                .append(literal(tree.leafProbability(node, c))).append(";\n");
+                    }
+                    code.append(indent).append("return true;\n");
+                }
+                return;
+            }
+
+            int first = tree.firstChild(node);
+            code.append(indent).append("v = x[").append(tree.attribute(node)).append("];\n");
+            code.append(indent).append("if (v != v) return ").append(classify ? "-1" : "false").append(";\n");
+            if (tree.kind(node) == FlatJ48Tree.NOMINAL) {
+                code.append(indent).append("switch ((int) v) {\n");
+                for (int b = 0; b < tree.numChildren(node); b++) {
+                    code.append(indent).append("case ").append(b).append(": {\n");
+                    writeNode(first + b, classify, depth + 1, budget, roots);
+                    code.append(indent).append("}\n");
+                }
+                // Out-of-range labels: the flat tree reports them
+                code.append(indent).append("default:\n").append(indent).append("    return ")
+                        .append(classify ? "-1" : "false").append(";\n");
+                code.append(indent).append("}\n");
+                return;
+            }
+            if (tree.kind(node) == FlatJ48Tree.NUMERIC) {
+                code.append(indent).append("if (v <= ").append(literal(tree.threshold(node))).append(") {\n");
+            } else {
+                code.append(indent).append("if ((int) v == ").append((int) tree.threshold(node)).append(") {\n");
+            }
+            writeNode(first, classify, depth + 1, budget, roots);
+            code.append(indent).append("} else {\n");
+            writeNode(first + 1, classify, depth + 1, budget, roots);
+            code.append(indent).append("}\n");
+        }
+
+        private static String literal(double value) {
+            if (Double.isInfinite(value)) {
+                return value > 0 ? "Double.POSITIVE_INFINITY" : "Double.NEGATIVE_INFINITY";
+            }
+            return Double.toString(value);
+        }
+    }
+}
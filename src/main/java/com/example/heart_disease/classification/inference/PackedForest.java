@@ -0,0 +1,397 @@
+package com.example.heart_disease.classification.inference;
+
+import weka.classifiers.Classifier;
+import weka.classifiers.IteratedSingleClassifierEnhancer;
+import weka.classifiers.trees.RandomForest;
+import weka.classifiers.trees.RandomTree;
+import weka.core.DenseInstance;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.Utils;
+import com.example.heart_disease.classification.balancing.BalancingClassifier;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ A trained Weka RandomForest packed into one set of primitive arrays for all its
+ trees (struct of arrays): node n of the forest has attribute[n], threshold[n] and
+ firstChild[n], tree t starts at node roots[t], and the children of a node are
+ consecutive. A numeric split sends a row to its first child when the value is
+ below threshold; a nominal split to child (int) value. Leaves have attribute -1
+ and their normalised class distribution at leafOffset in leafValues.
+
+ Scores are those of RandomForest.distributionForInstance: the trees' distributions
+ summed in tree order and normalised. A missing value sends the row down every
+ branch weighted by the training share of the branch (RandomTree's m_Prop); an empty
+ leaf answers with its parent's distribution, or is skipped under a missing value,
+ as RandomTree does.
+
+ distributions() scores a batch tree-major: blocks of blockRows rows go through one
+ tree after another, so the tree's nodes stay in cache for the whole block. Blocks
+ are scored in parallel with numThreads threads. No call allocates per row.
+ */
+public class PackedForest implements FlatScorer {
+
+    static final int BLOCK_ROWS = 1024;
+
+    private final int numClasses;
+    private final int[] roots;
+    private final int[] attribute;
+    private final double[] threshold;
+    private final boolean[] nominal;
+    private final int[] firstChild;
+    private final int[] numChildren;
+    private final double[] missingWeight;
+    private final boolean[] empty;
+    private final int[] leafOffset;
+    private final double[] leafValues;
+    private final ThreadLocal<double[]> scratch;
+    private int blockRows = BLOCK_ROWS;
+    private int numThreads = 1;
+    private ForkJoinPool pool;
+
+    private PackedForest(int numClasses, int numTrees, int numNodes, int numLeaves) {
+        this.numClasses = numClasses;
+        roots = new int[numTrees];
+        attribute = new int[numNodes];
+        threshold = new double[numNodes];
+        nominal = new boolean[numNodes];
+        firstChild = new int[numNodes];
+        numChildren = new int[numNodes];
+        missingWeight = new double[numNodes];
+        empty = new boolean[numNodes];
+        leafOffset = new int[numNodes];
+        leafValues = new double[numLeaves * numClasses];
+        scratch = ThreadLocal.withInitial(() -> new double[numClasses]);
+    }
+
+    /**
+     Pack a RandomForest, or the forest inside a BalancingClassifier (what
+     RandomForestClassifier.getClassifier() returns with balancing). Weka keeps the
+     trees and their nodes protected, so they are read by reflection.
+     */
+    public static PackedForest export(Classifier classifier) throws Exception {
+        if (classifier instanceof BalancingClassifier) {
+            classifier = ((BalancingClassifier) classifier).getClassifier();
+        }
+        if (!(classifier instanceof RandomForest)) {
+            throw new IllegalArgumentException("Not a RandomForest: " + classifier.getClass().getName());
+        }
+        Classifier[] members = (Classifier[]) field(IteratedSingleClassifierEnhancer.class, "m_Classifiers")
+                .get(classifier);
+        if (members == null) {
+            throw new Exception("RandomForest has not been built");
+        }
+        Exporter exporter = new Exporter();
+        for (Classifier member : members) {
+            exporter.count((RandomTree) member);
+        }
+        PackedForest forest = new PackedForest(exporter.numClasses, members.length, exporter.numNodes,
+                exporter.numLeaves);
+        exporter.numNodes = 0;
+        exporter.numLeaves = 0;
+        for (int t = 0; t < members.length; t++) {
+            forest.roots[t] = exporter.numNodes++;
+            exporter.fill(forest, (RandomTree) members[t], forest.roots[t]);
+        }
+        return forest;
+    }
+
+    private static Field field(Class<?> owner, String name) throws NoSuchFieldException {
+        Field field = owner.getDeclaredField(name);
+        field.setAccessible(true);
+        return field;
+    }
+
+    /**
+     Walks the RandomTree$Tree nodes: counts them first, then copies them breadth-first
+     per node (all children of a node, then their subtrees).
+     */
+    private static final class Exporter {
+
+        private final Field tree;
+        private final Field zeroR;
+        private final Field info;
+        private final Field nodeAttribute;
+        private final Field splitPoint;
+        private final Field successors;
+        private final Field prop;
+        private final Field classDistribution;
+        int numClasses;
+        int numNodes;
+        int numLeaves;
+
+        Exporter() throws Exception {
+            tree = field(RandomTree.class, "m_Tree");
+            zeroR = field(RandomTree.class, "m_zeroR");
+            info = field(RandomTree.class, "m_Info");
+            Class<?> node = Class.forName(RandomTree.class.getName() + "$Tree");
+            nodeAttribute = field(node, "m_Attribute");
+            splitPoint = field(node, "m_SplitPoint");
+            successors = field(node, "m_Successors");
+            prop = field(node, "m_Prop");
+            classDistribution = field(node, "m_ClassDistribution");
+        }
+
+        void count(RandomTree member) throws Exception {
+            Instances header = (Instances) info.get(member);
+            if (!header.classAttribute().isNominal()) {
+                throw new IllegalArgumentException("Only forests with a nominal class can be packed");
+            }
+            numClasses = header.numClasses();
+            if (zeroR.get(member) != null) {
+                numNodes++;
+                numLeaves++;
+            } else {
+                countNodes(tree.get(member));
+            }
+        }
+
+        private void countNodes(Object node) throws Exception {
+            numNodes++;
+            Object[] children = (Object[]) successors.get(node);
+            if ((int) nodeAttribute.get(node) < 0 || children == null) {
+                numLeaves++;
+                return;
+            }
+            for (Object child : children) {
+                countNodes(child);
+            }
+        }
+
+        void fill(PackedForest forest, RandomTree member, int id) throws Exception {
+            Object root = tree.get(member);
+            if (zeroR.get(member) != null) {
+                // No usable attribute when trained: ZeroR answers with the class prior
+                Instances header = (Instances) info.get(member);
+                Instance blank = new DenseInstance(header.numAttributes());
+                blank.setDataset(header);
+                setLeaf(forest, id, ((Classifier) zeroR.get(member)).distributionForInstance(blank), false);
+                return;
+            }
+            if (classDistribution.get(root) == null && (int) nodeAttribute.get(root) < 0) {
+                throw new Exception("RandomTree has an empty root");
+            }
+            fillNode(forest, member, root, id);
+        }
+
+        private void fillNode(PackedForest forest, RandomTree member, Object node, int id) throws Exception {
+            Object[] children = (Object[]) successors.get(node);
+            if ((int) nodeAttribute.get(node) < 0 || children == null) {
+                setLeaf(forest, id, normalised((double[]) classDistribution.get(node)), false);
+                return;
+            }
+            int split = (int) nodeAttribute.get(node);
+            double[] weights = (double[]) prop.get(node);
+            forest.attribute[id] = split;
+            forest.threshold[id] = (double) splitPoint.get(node);
+            forest.nominal[id] = ((Instances) info.get(member)).attribute(split).isNominal();
+            forest.firstChild[id] = numNodes;
+            forest.numChildren[id] = children.length;
+            int first = numNodes;
+            numNodes += children.length;
+            for (int b = 0; b < children.length; b++) {
+                forest.missingWeight[first + b] = weights[b];
+                Object child = children[b];
+                if ((int) nodeAttribute.get(child) < 0 && classDistribution.get(child) == null) {
+                    // Empty leaf: RandomTree returns null and the parent answers for it,
+                    // unless unclassified rows are allowed (then it answers zeros)
+                    if (member.getAllowUnclassifiedInstances()) {
+                        setLeaf(forest, first + b, new double[numClasses], false);
+                    } else {
+                        setLeaf(forest, first + b, normalised((double[]) classDistribution.get(node)), true);
+                    }
+                } else {
+                    fillNode(forest, member, child, first + b);
+                }
+            }
+        }
+
+        private void setLeaf(PackedForest forest, int id, double[] distribution, boolean empty) {
+            forest.attribute[id] = -1;
+            forest.empty[id] = empty;
+            forest.leafOffset[id] = numLeaves * numClasses;
+            System.arraycopy(distribution, 0, forest.leafValues, numLeaves * numClasses, numClasses);
+            numLeaves++;
+        }
+
+        private static double[] normalised(double[] distribution) {
+            double[] copy = distribution.clone();
+            Utils.normalize(copy);
+            return copy;
+        }
+    }
+
+    @Override
+    public int numClasses() {
+        return numClasses;
+    }
+
+    public int numTrees() {
+        return roots.length;
+    }
+
+    public int numNodes() {
+        return attribute.length;
+    }
+
+    /**
+     First node of tree t
+     */
+    int root(int t) {
+        return roots[t];
+    }
+
+    /**
+     Rows per block of distributions() (default BLOCK_ROWS)
+     */
+    public void setBlockRows(int blockRows) {
+        this.blockRows = blockRows;
+    }
+
+    /**
+     Threads used by distributions(), 0 for one per core
+     */
+    public void setNumThreads(int numThreads) {
+        this.numThreads = numThreads > 0 ? numThreads : Runtime.getRuntime().availableProcessors();
+        if (pool != null) {
+            pool.shutdown();
+        }
+        pool = this.numThreads > 1 ? new ForkJoinPool(this.numThreads) : null;
+    }
+
+    @Override
+    public double[] distribution(double[] row, double[] out) {
+        Arrays.fill(out, 0, numClasses, 0);
+        for (int root : roots) {
+            addTree(root, row, out, 0);
+        }
+        normalise(out, 0);
+        return out;
+    }
+
+    /**
+     As AbstractClassifier.classifyInstance: the first most probable class, or -1 when
+     every probability is 0
+     */
+    @Override
+    public int classify(double[] row) {
+        double[] distribution = distribution(row, scratch.get());
+        int best = -1;
+        double max = 0;
+        for (int c = 0; c < numClasses; c++) {
+            if (distribution[c] > max) {
+                best = c;
+                max = distribution[c];
+            }
+        }
+        return best;
+    }
+
+    /**
+     Class distributions of rows[from, to), numClasses values per row written to out
+     from index 0
+     */
+    public void distributions(double[][] rows, int from, int to, double[] out) throws Exception {
+        int numBlocks = (to - from + blockRows - 1) / blockRows;
+        if (pool == null || numBlocks < 2) {
+            for (int block = 0; block < numBlocks; block++) {
+                scoreBlock(rows, from, to, block, out);
+            }
+            return;
+        }
+        try {
+            pool.submit(() -> IntStream.range(0, numBlocks).parallel()
+                    .forEach(block -> scoreBlock(rows, from, to, block, out))).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : new RuntimeException(cause);
+        }
+    }
+
+    private void scoreBlock(double[][] rows, int from, int to, int block, double[] out) {
+        int start = from + block * blockRows;
+        int end = Math.min(to, start + blockRows);
+        Arrays.fill(out, (start - from) * numClasses, (end - from) * numClasses, 0);
+        for (int root : roots) {
+            for (int row = start; row < end; row++) {
+                addTree(root, rows[row], out, (row - from) * numClasses);
+            }
+        }
+        for (int row = start; row < end; row++) {
+            normalise(out, (row - from) * numClasses);
+        }
+    }
+
+    /**
+     As Bagging: leave an all-zero sum as it is, otherwise divide by the sum
+     */
+    private void normalise(double[] out, int offset) {
+        double sum = 0;
+        for (int c = 0; c < numClasses; c++) {
+            sum += out[offset + c];
+        }
+        if (!Utils.eq(sum, 0)) {
+            for (int c = 0; c < numClasses; c++) {
+                out[offset + c] /= sum;
+            }
+        }
+    }
+
+    /**
+     Add the distribution of the tree starting at root to out[offset, offset + numClasses)
+     */
+    void addTree(int root, double[] row, double[] out, int offset) {
+        int node = root;
+        while (attribute[node] >= 0) {
+            double value = row[attribute[node]];
+            if (Double.isNaN(value)) {
+                for (int c = 0; c < numClasses; c++) {
+                    out[offset + c] += probability(node, c, row);
+                }
+                return;
+            }
+            node = child(node, value);
+        }
+        int leaf = leafOffset[node];
+        for (int c = 0; c < numClasses; c++) {
+            out[offset + c] += leafValues[leaf + c];
+        }
+    }
+
+    /**
+     Class c of the distribution RandomTree returns below node, summed in its order
+     */
+    private double probability(int node, int c, double[] row) {
+        if (attribute[node] < 0) {
+            return leafValues[leafOffset[node] + c];
+        }
+        double value = row[attribute[node]];
+        if (!Double.isNaN(value)) {
+            return probability(child(node, value), c, row);
+        }
+        double sum = 0;
+        for (int child = firstChild[node], end = child + numChildren[node]; child < end; child++) {
+            if (!empty[child]) {
+                sum += missingWeight[child] * probability(child, c, row);
+            }
+        }
+        return sum;
+    }
+
+    private int child(int node, double value) {
+        if (!nominal[node]) {
+            return value < threshold[node] ? firstChild[node] : firstChild[node] + 1;
+        }
+        int label = (int) value;
+        if (label < 0 || label >= numChildren[node]) {
+            throw new IllegalArgumentException("Label index " + label + " out of range for attribute "
+                    + attribute[node]);
+        }
+        return firstChild[node] + label;
+    }
+}
@@ -0,0 +1,339 @@
+package com.example.heart_disease.classification.inference;
+
+import weka.core.Attribute;
+import weka.core.Instances;
+import com.example.heart_disease.preprocessing.CleaningTransform;
+import com.example.heart_disease.preprocessing.StreamingCSVLoader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ Streams a CSV of new rows through a fitted CleaningTransform and a BatchScorer and
+ writes one line per row: its number, the predicted label and the probability of
+ every class.
+
+ Rows travel in chunks through four stages joined by bounded queues: one reader
+ thread fills chunks with lines, numThreads transform threads clean them into
+ double rows, numThreads score threads score and format them, and one writer thread
+ writes them back in input order. A fixed set of chunks is allocated up front and
+ recycled after writing, so the reader waits once they are all in flight and memory
+ stays the same whatever the size of the input.
+
+ Columns are matched to the preprocessing by name and the class column may be
+ absent. A line that cannot be cleaned (wrong number of fields) is written with an
+ empty prediction and counted as rejected.
+ */
+public class PredictionPipeline {
+
+    public static final int DEFAULT_CHUNK_ROWS = 4096;
+
+    private final CleaningTransform transform;
+    private final BatchScorer scorer;
+    private int chunkRows = DEFAULT_CHUNK_ROWS;
+    private int numThreads = 1;
+    private int chunksPerThread = 2;
+
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final List<Thread> threads = new ArrayList<>();
+
+    /**
+     Counts and per-stage busy time of one run.
+     */
+    public static final class Summary {
+        public final long rows;
+        public final long rejected;
+        public final long nanos;
+        public final int chunks;
+        public final int chunkRows;
+        private final long[] stageNanos;
+
+        Summary(long rows, long rejected, long nanos, int chunks, int chunkRows, long[] stageNanos) {
+            this.rows = rows;
+            this.rejected = rejected;
+            this.nanos = nanos;
+            this.chunks = chunks;
+            this.chunkRows = chunkRows;
+            this.stageNanos = stageNanos;
+        }
+
+        /**
+         Busy time summed over the threads of a stage: 0 read, 1 transform, 2 score, 3 write
+         */
+        public long stageNanos(int stage) {
+            return stageNanos[stage];
+        }
+    }
+
+    private static final class Chunk {
+        final String[] lines;
+        final double[][] rows;
+        final boolean[] valid;
+        final double[] distributions;
+        final StringBuilder text = new StringBuilder();
+        long sequence;
+        long firstRow;
+        int count;
+
+        Chunk(int chunkRows, int width, int numClasses) {
+            lines = new String[chunkRows];
+            rows = new double[chunkRows][width];
+            valid = new boolean[chunkRows];
+            distributions = new double[chunkRows * numClasses];
+        }
+    }
+
+    /** Passed along a queue after the last chunk */
+    private static final Chunk END = new Chunk(0, 0, 0);
+
+    public PredictionPipeline(CleaningTransform transform, BatchScorer scorer) {
+        if (transform.getTrainingStructure().numClasses() != scorer.numClasses()) {
+            throw new IllegalArgumentException("Preprocessing has " + transform.getTrainingStructure().numClasses()
+                    + " classes, the model " + scorer.numClasses());
+        }
+        this.transform = transform;
+        this.scorer = scorer;
+    }
+
+    public void setChunkRows(int chunkRows) {
+        this.chunkRows = chunkRows;
+    }
+
+    /**
+     Threads of the transform stage and of the score stage each, 0 for one per core
+     */
+    public void setNumThreads(int numThreads) {
+        this.numThreads = numThreads > 0 ? numThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     Chunks in flight per worker thread (default 2)
+     */
+    public void setChunksPerThread(int chunksPerThread) {
+        this.chunksPerThread = chunksPerThread;
+    }
+
+    /**
+     Predict every line after the header of in and write the results to out (header
+     line first). The caller closes both.
+     */
+    public Summary run(BufferedReader in, Writer out) throws Exception {
+        String header = in.readLine();
+        if (header == null) {
+            throw new IOException("Input is empty");
+        }
+        int numFields = StreamingCSVLoader.splitLine(header).length;
+        int[] columns = transform.columnsOf(header);
+        Instances structure = transform.getTrainingStructure();
+        int numClasses = scorer.numClasses();
+        out.write(outputHeader(structure.classAttribute()));
+
+        int numChunks = Math.max(2, chunksPerThread * (2 * numThreads + 2));
+        BlockingQueue<Chunk> free = new ArrayBlockingQueue<>(numChunks);
+        for (int i = 0; i < numChunks; i++) {
+            free.add(new Chunk(chunkRows, structure.numAttributes(), numClasses));
+        }
+        BlockingQueue<Chunk> read = new ArrayBlockingQueue<>(numChunks + 1);
+        BlockingQueue<Chunk> cleaned = new ArrayBlockingQueue<>(numChunks + 1);
+        BlockingQueue<Chunk> scored = new ArrayBlockingQueue<>(numChunks + 1);
+        LongAdder[] busy = {new LongAdder(), new LongAdder(), new LongAdder(), new LongAdder()};
+        LongAdder rejected = new LongAdder();
+        AtomicLong rows = new AtomicLong();
+        Attribute classAttribute = structure.classAttribute();
+
+        long start = System.nanoTime();
+        failure.set(null);
+        threads.clear();
+        stage("reader", () -> {
+            long sequence = 0;
+            long row = 0;
+            boolean more = true;
+            while (more) {
+                Chunk chunk = free.take();
+                long begin = System.nanoTime();
+                int count = 0;
+                String line;
+                while (count < chunkRows && (line = in.readLine()) != null) {
+                    if (!line.isEmpty()) {
+                        chunk.lines[count++] = line;
+                    }
+                }
+                more = count == chunkRows;
+                chunk.sequence = sequence++;
+                chunk.firstRow = row;
+                chunk.count = count;
+                row += count;
+                busy[0].add(System.nanoTime() - begin);
+                read.put(chunk);
+            }
+            rows.set(row);
+            read.put(END);
+        });
+        AtomicInteger transformers = new AtomicInteger(numThreads);
+        AtomicInteger scorers = new AtomicInteger(numThreads);
+        for (int t = 0; t < numThreads; t++) {
+            stage("transform-" + t, () -> {
+                Chunk chunk;
+                while ((chunk = read.take()) != END) {
+                    long begin = System.nanoTime();
+                    for (int i = 0; i < chunk.count; i++) {
+                        try {
+                            transform.applyLine(chunk.lines[i], columns, numFields, chunk.rows[i]);
+                            chunk.valid[i] = true;
+                        } catch (IllegalArgumentException e) {
+                            chunk.valid[i] = false;
+                        }
+                        chunk.lines[i] = null;
+                    }
+                    busy[1].add(System.nanoTime() - begin);
+                    cleaned.put(chunk);
+                }
+                finish(read, cleaned, transformers);
+            });
+            stage("score-" + t, () -> {
+                Chunk chunk;
+                while ((chunk = cleaned.take()) != END) {
+                    long begin = System.nanoTime();
+                    scorer.distributions(chunk.rows, chunk.count, chunk.distributions);
+                    format(chunk, classAttribute, numClasses, rejected);
+                    busy[2].add(System.nanoTime() - begin);
+                    scored.put(chunk);
+                }
+                finish(cleaned, scored, scorers);
+            });
+        }
+        stage("writer", () -> {
+            // Chunks finish out of order; hold the early ones until their turn
+            Chunk[] pending = new Chunk[numChunks];
+            long next = 0;
+            Chunk chunk;
+            while ((chunk = scored.take()) != END) {
+                pending[(int) (chunk.sequence % numChunks)] = chunk;
+                Chunk ready;
+                while ((ready = pending[(int) (next % numChunks)]) != null && ready.sequence == next) {
+                    pending[(int) (next % numChunks)] = null;
+                    long begin = System.nanoTime();
+                    out.append(ready.text);
+                    busy[3].add(System.nanoTime() - begin);
+                    next++;
+                    free.put(ready);
+                }
+            }
+            long begin = System.nanoTime();
+            out.flush();
+            busy[3].add(System.nanoTime() - begin);
+        });
+
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Throwable cause = failure.get();
+        if (cause != null) {
+            throw cause instanceof Exception ? (Exception) cause : new RuntimeException(cause);
+        }
+        long[] stageNanos = new long[busy.length];
+        for (int s = 0; s < busy.length; s++) {
+            stageNanos[s] = busy[s].sum();
+        }
+        return new Summary(rows.get(), rejected.sum(), System.nanoTime() - start, numChunks, chunkRows, stageNanos);
+    }
+
+    private interface Stage {
+        void run() throws Exception;
+    }
+
+    /**
+     Thread for stage, started once all are created; the first failure stops every stage
+     */
+    private void stage(String name, Stage stage) {
+        Thread thread = new Thread(() -> {
+            try {
+                stage.run();
+            } catch (InterruptedException e) {
+                // Stopped after another stage failed
+            } catch (Throwable e) {
+                if (failure.compareAndSet(null, e)) {
+                    for (Thread other : threads) {
+                        other.interrupt();
+                    }
+                }
+            }
+        }, "prediction-" + name);
+        threads.add(thread);
+    }
+
+    /**
+     A worker saw END: hand it to the other workers of its stage, and downstream once
+     the last one is done
+     */
+    private static void finish(BlockingQueue<Chunk> input, BlockingQueue<Chunk> output, AtomicInteger workers)
+            throws InterruptedException {
+        if (workers.decrementAndGet() == 0) {
+            output.put(END);
+        } else {
+            input.put(END);
+        }
+    }
+
+    private static void format(Chunk chunk, Attribute classAttribute, int numClasses, LongAdder rejected) {
+        StringBuilder text = chunk.text;
+        text.setLength(0);
+        for (int i = 0; i < chunk.count; i++) {
+            if (!chunk.valid[i]) {
+                rejected.increment();
+                text.append(chunk.firstRow + i + 1).append(',');
+                for (int c = 0; c < numClasses; c++) {
+                    text.append(',');
+                }
+                text.append('\n');
+                continue;
+            }
+            appendRow(text, chunk.firstRow + i + 1, chunk.distributions, i * numClasses, classAttribute);
+        }
+    }
+
+    /**
+     Output header line: row, the class name and P(label) for every class
+     */
+    public static String outputHeader(Attribute classAttribute) {
+        StringBuilder header = new StringBuilder("row,").append(quote(classAttribute.name()));
+        for (int c = 0; c < classAttribute.numValues(); c++) {
+            header.append(',').append(quote("P(" + classAttribute.value(c) + ")"));
+        }
+        return header.append('\n').toString();
+    }
+
+    /**
+     Output line of row: its number, predicted label ("?" when every probability is 0)
+     and the distribution at offset
+     */
+    public static void appendRow(StringBuilder text, long row, double[] distributions, int offset,
+                                 Attribute classAttribute) {
+        int numClasses = classAttribute.numValues();
+        int predicted = BatchScorer.predictedClass(distributions, offset, numClasses);
+        text.append(row).append(',').append(predicted < 0 ? "?" : quote(classAttribute.value(predicted)));
+        for (int c = 0; c < numClasses; c++) {
+            text.append(',').append(distributions[offset + c]);
+        }
+        text.append('\n');
+    }
+
+    private static String quote(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -3,6 +3,7 @@ package com.example.heart_disease.classification.j48;
 import weka.classifiers.Classifier;
 import weka.classifiers.trees.J48;
 import com.example.heart_disease.classification.ClassifierBase;
+import com.example.heart_disease.classification.tuning.TunedOptions;
 import com.example.heart_disease.utils.Logger;
 
 public class J48Classifier extends ClassifierBase {
@@ -11,10 +12,15 @@ public class J48Classifier extends ClassifierBase {
         super(logger, "J48 Decision Tree");
     }
 
+    @Override
+    protected String getTuningFamily() {
+        return TunedOptions.J48_KEY;
+    }
+
     @Override
     public Classifier createClassifier() throws Exception {
         J48 tree = new J48();
-        return tree;
+        return applyOptions(tree);
     }
 
     public void printTree() {
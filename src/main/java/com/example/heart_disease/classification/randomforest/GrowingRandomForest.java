@@ -0,0 +1,266 @@
+package com.example.heart_disease.classification.randomforest;
+
+import weka.classifiers.AbstractClassifier;
+import weka.classifiers.Classifier;
+import weka.classifiers.Evaluation;
+import weka.classifiers.trees.RandomForest;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.Utils;
+import com.example.heart_disease.classification.balancing.BalancedRowsHandler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ Random Forest that keeps its own out-of-bag votes, so error, per-class recall and
+ ROC area come out of the single training run instead of a cross-validation.
+
+ Trees are grown in batches: each batch is an ordinary RandomForest built with the
+ forest's tree settings and seed + batch number, whose bootstrap samples are recorded to
+ add its trees' votes to the rows they did not see. With a growth batch size of 0
+ the forest is one batch of getNumIterations() trees, i.e. the same trees as
+ RandomForest with the same options. Otherwise batches are added until the
+ out-of-bag error has not improved by more than the tolerance for `patience`
+ batches in a row, or maxTrees is reached; getNumIterations() then reports the
+ number of trees actually grown. Only nominal classes are supported.
+
+ The out-of-bag accuracy of every single tree is kept with the model, as a measure
+ of its strength (see EarlyExitForest).
+
+ Inside a BalancingClassifier the trees are grown on the balanced rows, but the votes,
+ the error and the tree accuracies are taken on the rows before balancing, with their
+ own weights: a tree votes on an original row when none of its copies was drawn into
+ the tree's bootstrap sample.
+ */
+public class GrowingRandomForest extends RandomForest implements BalancedRowsHandler {
+
+    private static final long serialVersionUID = 1L;
+
+    private int growthBatchSize;
+    private int maxTrees = 500;
+    private int patience = 2;
+    private double tolerance = 0.001;
+
+    private transient Evaluation outOfBagEvaluation;
+    private double[] errorCurve = new double[0];
+    private int[] treeCurve = new int[0];
+    private double[] treeAccuracy = new double[0];
+
+    /**
+     Trees added per batch; 0 builds getNumIterations() trees in one batch
+     */
+    public void setGrowthBatchSize(int growthBatchSize) {
+        this.growthBatchSize = growthBatchSize;
+    }
+
+    public int getGrowthBatchSize() {
+        return growthBatchSize;
+    }
+
+    public void setMaxTrees(int maxTrees) {
+        this.maxTrees = maxTrees;
+    }
+
+    public int getMaxTrees() {
+        return maxTrees;
+    }
+
+    /**
+     Batches without improvement before growth stops
+     */
+    public void setPatience(int patience) {
+        this.patience = patience;
+    }
+
+    public int getPatience() {
+        return patience;
+    }
+
+    /**
+     Smallest drop in out-of-bag error rate that counts as an improvement
+     */
+    public void setTolerance(double tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    @Override
+    public void buildClassifier(Instances data) throws Exception {
+        buildClassifier(data, data, null);
+    }
+
+    @Override
+    public void buildClassifier(Instances data, Instances original, int[] source) throws Exception {
+        getCapabilities().testWithFail(data);
+        if (!data.classAttribute().isNominal()) {
+            throw new IllegalArgumentException("Out-of-bag growth needs a nominal class");
+        }
+
+        int batchSize = growthBatchSize > 0 ? growthBatchSize : getNumIterations();
+        int limit = growthBatchSize > 0 ? Math.max(batchSize, maxTrees) : batchSize;
+        double[][] votes = new double[original.numInstances()][original.numClasses()];
+        List<Classifier> trees = new ArrayList<>();
+        List<Double> errors = new ArrayList<>();
+        List<Integer> counts = new ArrayList<>();
+        List<Double> accuracies = new ArrayList<>();
+
+        double best = Double.POSITIVE_INFINITY;
+        int stale = 0;
+        for (int batchNumber = 0; trees.size() < limit && stale < Math.max(1, patience); batchNumber++) {
+            Batch batch = new Batch(this, Math.min(batchSize, limit - trees.size()), getSeed() + batchNumber);
+            batch.buildClassifier(data);
+            for (double accuracy : batch.addVotes(original, source, votes)) {
+                accuracies.add(accuracy);
+            }
+            trees.addAll(Arrays.asList(batch.trees()));
+
+            outOfBagEvaluation = evaluate(original, votes);
+            double error = outOfBagEvaluation.errorRate();
+            errors.add(error);
+            counts.add(trees.size());
+            if (growthBatchSize <= 0) {
+                break;
+            }
+            if (error < best - tolerance) {
+                best = error;
+                stale = 0;
+            } else {
+                stale++;
+            }
+        }
+
+        m_Classifiers = trees.toArray(new Classifier[0]);
+        setNumIterations(m_Classifiers.length);
+        errorCurve = errors.stream().mapToDouble(Double::doubleValue).toArray();
+        treeCurve = counts.stream().mapToInt(Integer::intValue).toArray();
+        treeAccuracy = accuracies.stream().mapToDouble(Double::doubleValue).toArray();
+    }
+
+    /**
+     Out-of-bag evaluation of the whole forest: each training row (before balancing) is
+     scored by the trees whose bootstrap sample did not contain it (rows no tree left
+     out are skipped). Available after buildClassifier; not kept when the model is saved.
+     */
+    public Evaluation getOutOfBagEvaluation() {
+        return outOfBagEvaluation;
+    }
+
+    @Override
+    public double measureOutOfBagError() {
+        return outOfBagEvaluation == null ? Double.NaN : outOfBagEvaluation.errorRate();
+    }
+
+    /**
+     Out-of-bag error rate after each batch
+     */
+    public double[] getOutOfBagErrorCurve() {
+        return errorCurve.clone();
+    }
+
+    /**
+     Number of trees after each batch
+     */
+    public int[] getTreeCountCurve() {
+        return treeCurve.clone();
+    }
+
+    /**
+     Weighted accuracy of each tree, in forest order, on the rows (before balancing) its
+     bootstrap sample did not contain (0 for a tree that left no row out)
+     */
+    public double[] getTreeOutOfBagAccuracy() {
+        return treeAccuracy.clone();
+    }
+
+    private static Evaluation evaluate(Instances data, double[][] votes) throws Exception {
+        Evaluation eval = new Evaluation(data);
+        for (int row = 0; row < votes.length; row++) {
+            double sum = Utils.sum(votes[row]);
+            if (sum > 0) {
+                double[] distribution = votes[row].clone();
+                Utils.normalize(distribution, sum);
+                eval.evaluateModelOnceAndRecordPrediction(distribution, data.instance(row));
+            }
+        }
+        return eval;
+    }
+
+    /**
+     One batch of trees, remembering which rows each bootstrap sample drew.
+     */
+    private static final class Batch extends RandomForest {
+
+        private static final long serialVersionUID = 1L;
+
+        private boolean[][] inBag;
+
+        Batch(RandomForest template, int trees, int seed) throws Exception {
+            setClassifier(AbstractClassifier.makeCopy(template.getClassifier()));
+            setBagSizePercent(template.getBagSizePercent());
+            setRepresentCopiesUsingWeights(template.getRepresentCopiesUsingWeights());
+            setNumExecutionSlots(template.getNumExecutionSlots());
+            setNumIterations(trees);
+            setSeed(seed);
+            // Bagging only records the bootstrap samples when it computes out-of-bag error
+            setCalcOutOfBag(true);
+            setStoreOutOfBagPredictions(false);
+        }
+
+        @Override
+        public void buildClassifier(Instances data) throws Exception {
+            inBag = new boolean[getNumIterations()][];
+            super.buildClassifier(data);
+        }
+
+        @Override
+        protected synchronized Instances getTrainingSet(int iteration) throws Exception {
+            Instances bag = super.getTrainingSet(iteration);
+            inBag[iteration] = m_inBag[iteration];
+            return bag;
+        }
+
+        Classifier[] trees() {
+            return m_Classifiers;
+        }
+
+        /**
+         Add each tree's votes to the original rows none of whose copies it was trained
+         on (source maps training rows to original rows, null for the same rows);
+         returns each tree's accuracy on them
+         */
+        double[] addVotes(Instances original, int[] source, double[][] votes) throws Exception {
+            double[] accuracy = new double[m_Classifiers.length];
+            boolean[] seen = new boolean[votes.length];
+            for (int tree = 0; tree < m_Classifiers.length; tree++) {
+                Arrays.fill(seen, false);
+                for (int row = 0; row < inBag[tree].length; row++) {
+                    if (inBag[tree][row]) {
+                        seen[source == null ? row : source[row]] = true;
+                    }
+                }
+                double correct = 0;
+                double total = 0;
+                for (int row = 0; row < votes.length; row++) {
+                    if (!seen[row]) {
+                        Instance instance = original.instance(row);
+                        double[] distribution = m_Classifiers[tree].distributionForInstance(instance);
+                        for (int c = 0; c < distribution.length; c++) {
+                            votes[row][c] += distribution[c];
+                        }
+                        total += instance.weight();
+                        if (Utils.sum(distribution) > 0 && Utils.maxIndex(distribution) == (int) instance.classValue()) {
+                            correct += instance.weight();
+                        }
+                    }
+                }
+                accuracy[tree] = total > 0 ? correct / total : 0;
+            }
+            return accuracy;
+        }
+    }
+}
@@ -1,60 +1,86 @@
 package com.example.heart_disease.classification.randomforest;
 
 import weka.classifiers.Classifier;
+import weka.classifiers.Evaluation;
 import weka.classifiers.trees.RandomForest;
 import weka.core.Instances;
-import weka.filters.Filter;
-import weka.filters.supervised.instance.Resample;
 import com.example.heart_disease.classification.ClassifierBase;
+import com.example.heart_disease.classification.balancing.BalancingClassifier;
+import com.example.heart_disease.classification.balancing.BalancingStrategy;
+import com.example.heart_disease.classification.tuning.TunedOptions;
 import com.example.heart_disease.utils.Logger;
 
 public class RandomForestClassifier extends ClassifierBase {
 
-    private boolean useBalancing;
-    private Instances balancedData;
+    private boolean outOfBag;
+    private int growthBatchSize;
 
     public RandomForestClassifier(Logger logger, boolean useBalancing) {
         super(logger, "Random Forest");
-        this.useBalancing = useBalancing;
+        balancing = useBalancing ? BalancingStrategy.WEIGHTS : BalancingStrategy.NONE;
     }
 
     @Override
-    public Classifier createClassifier() throws Exception {
-        RandomForest rf = new RandomForest();
-        rf.setNumIterations(100);
-        return rf;
+    protected String getTuningFamily() {
+        return TunedOptions.RANDOM_FOREST_KEY;
     }
 
-    public Instances balanceData(Instances data) throws Exception {
-        if (!useBalancing) {
-            return data;
+    @Override
+    public Classifier createClassifier() throws Exception {
+        RandomForest rf = outOfBag ? new GrowingRandomForest() : new RandomForest();
+        rf.setNumIterations(100);
+        applyOptions(rf);
+        if (outOfBag) {
+            ((GrowingRandomForest) rf).setGrowthBatchSize(growthBatchSize);
         }
+        return applyBalancing(rf);
+    }
 
-        logger.log("\n=== Balancing Dataset (Resampling) ===");
-        Resample resample = new Resample();
-        resample.setBiasToUniformClass(1.0);
-        resample.setNoReplacement(false);
-        resample.setSampleSizePercent(100);
-        resample.setInputFormat(data);
-
-        Instances balancedData = Filter.useFilter(data, resample);
+    /**
+     Evaluate on the out-of-bag rows while training. With growthBatchSize > 0 trees are
+     added in batches of that size until the out-of-bag error stops improving;
+     with 0 the usual number of trees is built.
+     */
+    public void useOutOfBag(int growthBatchSize) {
+        this.outOfBag = true;
+        this.growthBatchSize = growthBatchSize;
+    }
 
-        logger.log("✓ Data Balanced!");
-        logger.log("  - Original Instances: " + data.numInstances());
-        logger.log("  - Balanced Instances: " + balancedData.numInstances());
-        logger.log("");
+    /**
+     Out-of-bag evaluation of the last buildModel, or null if useOutOfBag was not set
+     */
+    public Evaluation getOutOfBagEvaluation() {
+        if (forest() instanceof GrowingRandomForest) {
+            return ((GrowingRandomForest) forest()).getOutOfBagEvaluation();
+        }
+        return null;
+    }
 
-        return balancedData;
+    private Classifier forest() {
+        if (classifier instanceof BalancingClassifier) {
+            return ((BalancingClassifier) classifier).getClassifier();
+        }
+        return classifier;
     }
 
     @Override
     public void buildModel(Instances data) throws Exception {
-        balancedData = balanceData(data);
-        super.buildModel(balancedData);
-    }
+        super.buildModel(data);
 
-    public Instances getBalancedData() {
-        return balancedData;
+        if (forest() instanceof GrowingRandomForest) {
+            GrowingRandomForest forest = (GrowingRandomForest) forest();
+            int[] trees = forest.getTreeCountCurve();
+            double[] errors = forest.getOutOfBagErrorCurve();
+            if (forest.getGrowthBatchSize() > 0) {
+                logger.log("Out-of-bag error while growing:");
+                for (int i = 0; i < trees.length; i++) {
+                    logger.log(String.format("  %4d trees: %.4f", trees[i], errors[i]));
+                }
+            }
+            logger.log(String.format("✓ Trees: %d, out-of-bag error: %.4f",
+                    forest.getNumIterations(), forest.measureOutOfBagError()));
+            logger.log("");
+        }
     }
 }
 
@@ -0,0 +1,230 @@
+package com.example.heart_disease.classification.tuning;
+
+import weka.classifiers.Classifier;
+import weka.classifiers.Evaluation;
+import weka.core.Instances;
+import weka.core.Utils;
+import com.example.heart_disease.classification.ClassifierBase;
+import com.example.heart_disease.classification.crossvalidation.CrossValidation;
+import com.example.heart_disease.classification.crossvalidation.RepeatedCrossValidation.Metric;
+import com.example.heart_disease.split.FoldIndices;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ Successive halving over classifier configurations, with the number of training rows
+ as the budget.
+
+ Every candidate is first scored by k-fold cross-validation on a small stratified
+ sample; only the best 1/eta go on to the next rung, which uses eta times as many
+ rows, until the last rung runs on all the data. Bad configurations are therefore
+ dropped after seeing a few hundred rows, and most of the budget goes to the few
+ that survive. Candidates of a rung are evaluated in parallel. Samples and folds are
+ fixed by the seed, so the outcome does not depend on the number of threads; ties
+ keep the order in which candidates were given.
+ */
+public class SuccessiveHalving {
+
+    /**
+     One configuration: a model, with its class balancing, and the options its
+     createClassifier applies. The model supplier is called for every classifier
+     created, so candidates can be evaluated concurrently.
+     */
+    public static final class Candidate {
+        private final Supplier<? extends ClassifierBase> model;
+        private final String[] options;
+        private final List<Double> scores = new ArrayList<>();
+
+        public Candidate(Supplier<? extends ClassifierBase> model, String... options) {
+            this.model = model;
+            this.options = options;
+        }
+
+        public Classifier create() throws Exception {
+            ClassifierBase base = model.get();
+            base.setOptions(options.clone());
+            return base.createClassifier();
+        }
+
+        public String[] getOptions() {
+            return options.clone();
+        }
+
+        public String getLabel() {
+            return Utils.joinOptions(options);
+        }
+
+        /**
+         Score of every rung the candidate was evaluated in.
+         */
+        public List<Double> getScores() {
+            return scores;
+        }
+
+        public double getLastScore() {
+            return scores.isEmpty() ? Double.NaN : scores.get(scores.size() - 1);
+        }
+    }
+
+    /**
+     Called after every rung with the candidates of that rung, best first.
+     */
+    public interface RungListener {
+        void rungFinished(int rung, int rows, List<Candidate> ranked, int kept, long millis) throws Exception;
+    }
+
+    private final Metric metric;
+    private final int eta;
+    private final int folds;
+    private final int minRows;
+    private final long seed;
+    private final int threads;
+    private long rowsEvaluated;
+
+    public SuccessiveHalving(Metric metric, int eta, int folds, int minRows, long seed, int threads) {
+        if (eta < 2) {
+            throw new IllegalArgumentException("eta must be at least 2: " + eta);
+        }
+        this.metric = metric;
+        this.eta = eta;
+        this.folds = folds;
+        this.minRows = minRows;
+        this.seed = seed;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     Number of rungs needed to narrow the candidates down to one.
+     */
+    public int numRungs(int numCandidates) {
+        int rungs = 1;
+        for (int left = numCandidates; left > 1; left = (left + eta - 1) / eta) {
+            rungs++;
+        }
+        return Math.max(1, rungs - 1);
+    }
+
+    public Candidate run(List<Candidate> candidates, Instances data, RungListener listener) throws Exception {
+        int rungs = numRungs(candidates.size());
+        List<Candidate> alive = new ArrayList<>(candidates);
+        rowsEvaluated = 0;
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, candidates.size()));
+        try {
+            for (int rung = 0; rung < rungs; rung++) {
+                long start = System.currentTimeMillis();
+                Instances sample = sample(data, rung, rungs);
+                FoldIndices sampleFolds = FoldIndices.crossValidation(sample, folds, seed);
+
+                List<Future<Double>> scores = new ArrayList<>(alive.size());
+                for (Candidate candidate : alive) {
+                    scores.add(executor.submit(() -> score(candidate, sample, sampleFolds)));
+                }
+                for (int c = 0; c < alive.size(); c++) {
+                    alive.get(c).scores.add(await(scores.get(c)));
+                }
+                rowsEvaluated += (long) sample.numInstances() * alive.size();
+
+                List<Candidate> ranked = new ArrayList<>(alive);
+                ranked.sort(Comparator.comparingDouble(this::rankKey));
+                int kept = rung == rungs - 1 ? 1 : Math.max(1, (alive.size() + eta - 1) / eta);
+                if (listener != null) {
+                    listener.rungFinished(rung, sample.numInstances(), ranked, kept,
+                            System.currentTimeMillis() - start);
+                }
+                alive = new ArrayList<>(ranked.subList(0, kept));
+            }
+            return alive.get(0);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     Rows times candidates, summed over the rungs of the last run. A grid search on all
+     rows would cost numInstances times the number of candidates.
+     */
+    public long getRowsEvaluated() {
+        return rowsEvaluated;
+    }
+
+    /**
+     Rung r of n uses data.numInstances() / eta^(n - 1 - r) rows (at least minRows),
+     a stratified sample drawn with the seed.
+     */
+    private Instances sample(Instances data, int rung, int rungs) {
+        if (rung == rungs - 1) {
+            return data;
+        }
+        double fraction = Math.pow(eta, -(rungs - 1 - rung));
+        fraction = Math.max(fraction, Math.min(1.0, minRows / (double) data.numInstances()));
+        if (fraction >= 1.0) {
+            return data;
+        }
+        return FoldIndices.holdout(data, fraction, seed, true).train(data, 0);
+    }
+
+    private double score(Candidate candidate, Instances sample, FoldIndices sampleFolds) throws Exception {
+        Evaluation eval = CrossValidation.crossValidate(candidate.create(), sample, sampleFolds);
+        return metric.value(eval);
+    }
+
+    /**
+     Smaller is better; NaN scores rank last.
+     */
+    private double rankKey(Candidate candidate) {
+        double score = candidate.getLastScore();
+        if (Double.isNaN(score)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return metric.isHigherBetter() ? -score : score;
+    }
+
+    private static Double await(Future<Double> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    /**
+     J48 (J48Classifier or J48BalancedClassifier): pruning confidence factor x minimum
+     instances per leaf.
+     */
+    public static List<Candidate> j48Grid(Supplier<? extends ClassifierBase> model) {
+        List<Candidate> grid = new ArrayList<>();
+        for (String confidence : new String[]{"0.05", "0.1", "0.15", "0.25", "0.35", "0.5"}) {
+            for (String minNumObj : new String[]{"2", "5", "10", "25", "50"}) {
+                grid.add(new Candidate(model, "-C", confidence, "-M", minNumObj));
+            }
+        }
+        return grid;
+    }
+
+    /**
+     Random Forest (RandomForestClassifier): trees x maximum depth (0 = unlimited) x
+     features per split (0 = log2(attributes) + 1).
+     */
+    public static List<Candidate> randomForestGrid(Supplier<? extends ClassifierBase> model) {
+        List<Candidate> grid = new ArrayList<>();
+        for (String trees : new String[]{"50", "100", "200"}) {
+            for (String depth : new String[]{"0", "10", "20"}) {
+                for (String features : new String[]{"0", "2", "4", "8"}) {
+                    grid.add(new Candidate(model, "-I", trees, "-depth", depth, "-K", features));
+                }
+            }
+        }
+        return grid;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.heart_disease.classification.tuning;
+
+import weka.core.Utils;
+import com.example.heart_disease.classification.balancing.BalancingStrategy;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Properties;
+
+/**
+ Best classifier options found by TuningRunner, one Weka option string per model
+ configuration (family and class balancing), kept in a properties file next to the
+ saved models. ClassifierBase subclasses read their entry only when asked to
+ (useTunedOptions, the runners' --tuned flag).
+ */
+public class TunedOptions {
+
+    public static final String DEFAULT_PATH = "TUNING.properties";
+    public static final String J48_KEY = "j48";
+    public static final String RANDOM_FOREST_KEY = "randomforest";
+
+    /**
+     Key of a model family trained with the given balancing, e.g. j48.weights
+     */
+    public static String key(String family, BalancingStrategy balancing) {
+        if (balancing == null || balancing == BalancingStrategy.NONE) {
+            return family;
+        }
+        return family + "." + balancing.name().toLowerCase();
+    }
+
+    /**
+     Options saved under key, or null when the file or the entry does not exist.
+     */
+    public static String[] load(String path, String key) {
+        File file = new File(path);
+        if (!file.exists()) {
+            return null;
+        }
+        try (Reader reader = new FileReader(file)) {
+            Properties properties = new Properties();
+            properties.load(reader);
+            String value = properties.getProperty(key);
+            return value == null ? null : Utils.splitOptions(value);
+        } catch (Exception e) {
+            System.out.println(" Ignoring unreadable tuned options in " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     Store options under key, keeping the entries of other model families.
+     */
+    public static void save(String path, String key, String[] options) throws IOException {
+        Properties properties = new Properties();
+        File file = new File(path);
+        if (file.exists()) {
+            try (Reader reader = new FileReader(file)) {
+                properties.load(reader);
+            }
+        }
+        properties.setProperty(key, Utils.joinOptions(options));
+        try (Writer writer = new FileWriter(file)) {
+            properties.store(writer, "Tuned classifier options (TuningRunner)");
+        }
+        System.out.println("✓ Tuned options saved to: " + path + " (" + key + ")");
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.heart_disease.preprocessing;
+
+import weka.core.Attribute;
+
+/**
+ How DataCleaner and CleaningTransform encode nominal attributes.
+ */
+public enum CategoricalEncoding {
+
+    /**
+     Every nominal attribute becomes numeric 0/1 columns (NominalToBinary): one column
+     for a two-valued attribute, one per label otherwise.
+     */
+    ONE_HOT("one-hot (NominalToBinary)"),
+
+    /**
+     Nominal attributes with at most MAX_NATIVE_LABELS labels stay nominal, i.e. one
+     dictionary-encoded column each (one byte per row in the columnar cache and in
+     binned tree training data), and tree learners split on them directly. Nominal
+     attributes with more labels are still one-hot encoded.
+     */
+    NATIVE("native categorical");
+
+    /**
+     Most labels a native column can have, so a label index and the missing code fit
+     in one unsigned byte.
+     */
+    public static final int MAX_NATIVE_LABELS = 255;
+
+    private final String label;
+
+    CategoricalEncoding(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     True when this encoding turns the (non-class) attribute into 0/1 columns.
+     */
+    public boolean expands(Attribute attribute) {
+        return attribute.isNominal() && (this == ONE_HOT || attribute.numValues() > MAX_NATIVE_LABELS);
+    }
+}
@@ -0,0 +1,492 @@
+package com.example.heart_disease.preprocessing;
+
+import weka.core.Attribute;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.DenseInstance;
+import weka.core.SerializationHelper;
+import weka.core.Utils;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ The cleaning steps of DataCleaner (quote removal in names, mean/mode imputation,
+ nominal-to-binary encoding or native categorical columns, constant-column removal)
+ compiled into one per-row mapping from input values to output values.
+
+ Everything the filters would learn from the data is derived up front from one
+ ColumnStatistics pass over the input, so rows can then be cleaned one at a time
+ without materialising the intermediate datasets. Output names, column order,
+ values and relation name follow ReplaceMissingValues, NominalToBinary and Remove.
+
+ A fitted transform is serializable: PreprocessingRunner saves it as
+ PREPROCESSING.model next to the classifier models, so new rows (raw CSV fields or
+ Instances with the original header) can be cleaned without the training data.
+ */
+public class CleaningTransform implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String DEFAULT_MODEL_PATH = "PREPROCESSING.model";
+
+    private static final String REPLACE_MISSING = "-weka.filters.unsupervised.attribute.ReplaceMissingValues";
+    private static final String NOMINAL_TO_BINARY = "-weka.filters.unsupervised.attribute.NominalToBinary-R";
+    private static final String REMOVE = "-weka.filters.unsupervised.attribute.Remove-R";
+
+    /** Output column copies the (imputed) input value unchanged. */
+    private static final int COPY = -1;
+    /** Output column holds the (imputed) label index of a two-valued nominal. */
+    private static final int BINARY = -2;
+
+    private final Instances inputStructure;
+    private final Instances outputStructure;
+    private final double[] imputeValues;
+    private final int[] sourceAttribute;
+    private final int[] sourceLabel;
+    private final ArrayList<String> removedAttributes;
+
+    private CleaningTransform(Instances inputStructure, Instances outputStructure, double[] imputeValues,
+                              int[] sourceAttribute, int[] sourceLabel, ArrayList<String> removedAttributes) {
+        this.inputStructure = inputStructure;
+        this.outputStructure = outputStructure;
+        this.imputeValues = imputeValues;
+        this.sourceAttribute = sourceAttribute;
+        this.sourceLabel = sourceLabel;
+        this.removedAttributes = removedAttributes;
+    }
+
+    /**
+     Derive the one-hot transform from the input header and its column statistics.
+     */
+    public static CleaningTransform fit(Instances data, ColumnStatistics stats) {
+        return fit(data, stats, CategoricalEncoding.ONE_HOT);
+    }
+
+    /**
+     Derive the transform for the given categorical encoding.
+     */
+    public static CleaningTransform fit(Instances data, ColumnStatistics stats, CategoricalEncoding encoding) {
+        int numInputs = data.numAttributes();
+        int numRows = stats.numInstances();
+        boolean hasMissing = stats.totalMissing() > 0;
+
+        if (!supports(data)) {
+            throw new IllegalArgumentException("Fused cleaning supports numeric and nominal attributes only");
+        }
+
+        // Imputation values as ReplaceMissingValues computes them (class left untouched)
+        double[] imputeValues = new double[numInputs];
+        for (int j = 0; j < numInputs; j++) {
+            Attribute attr = data.attribute(j);
+            if (j == data.classIndex() || (attr.isNominal() && attr.numValues() == 0)) {
+                imputeValues[j] = Utils.missingValue();
+            } else if (attr.isNominal()) {
+                imputeValues[j] = stats.mode(j);
+            } else {
+                // Also kept for complete columns, for rows cleaned later on
+                imputeValues[j] = stats.missingCount(j) > 0 ? filterMean(data, j) : stats.mean(j);
+            }
+        }
+
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        List<Integer> sources = new ArrayList<>();
+        List<Integer> labels = new ArrayList<>();
+        List<Boolean> constant = new ArrayList<>();
+        int outputClassIndex = -1;
+
+        for (int j = 0; j < numInputs; j++) {
+            Attribute attr = data.attribute(j);
+            String name = cleanName(attr.name());
+            int missing = stats.missingCount(j);
+
+            if (j == data.classIndex() || attr.isNumeric()) {
+                if (j == data.classIndex()) outputClassIndex = attributes.size();
+                attributes.add(attr.isNominal() ? copyNominal(attr, name) : new Attribute(name));
+                sources.add(j);
+                labels.add(COPY);
+                // All-missing numeric columns are imputed with 0 and become constant
+                constant.add(attr.isNumeric() && numRows > 1
+                        && (stats.count(j) == 0 || stats.min(j) == stats.max(j)));
+            } else if (!encoding.expands(attr)) {
+                attributes.add(copyNominal(attr, name));
+                sources.add(j);
+                labels.add(COPY);
+                constant.add(isConstant(imputedCounts(stats, j, missing), numRows));
+            } else if (attr.numValues() <= 2) {
+                String suffix = attr.numValues() == 2 ? "=" + attr.value(1) : "";
+                attributes.add(new Attribute(name + suffix));
+                sources.add(j);
+                labels.add(BINARY);
+                int[] counts = imputedCounts(stats, j, missing);
+                constant.add(numRows > 1 && counts.length > 0 && (counts.length == 1 || counts[0] == 0 || counts[1] == 0));
+            } else {
+                int[] counts = imputedCounts(stats, j, missing);
+                for (int v = 0; v < attr.numValues(); v++) {
+                    attributes.add(new Attribute(name + "=" + attr.value(v)));
+                    sources.add(j);
+                    labels.add(v);
+                    constant.add(numRows > 1 && (counts[v] == 0 || counts[v] == numRows));
+                }
+            }
+        }
+
+        // Constant-column removal, as DataCleaner.removeConstantAttributes does after encoding
+        String expanded = expandedAttributeRange(data, encoding);
+        String relationName = data.relationName() + (hasMissing ? REPLACE_MISSING : "")
+                + (expanded.isEmpty() ? "" : NOMINAL_TO_BINARY + expanded);
+        StringBuilder removedIndices = new StringBuilder();
+        ArrayList<String> removed = new ArrayList<>();
+        ArrayList<Attribute> kept = new ArrayList<>();
+        List<Integer> keptIndices = new ArrayList<>();
+        for (int k = 0; k < attributes.size(); k++) {
+            if (constant.get(k) && k != outputClassIndex) {
+                if (removedIndices.length() > 0) removedIndices.append(",");
+                removedIndices.append(k + 1);
+                removed.add(attributes.get(k).name());
+            } else {
+                keptIndices.add(k);
+                kept.add(attributes.get(k));
+            }
+        }
+        if (!removed.isEmpty()) {
+            relationName += REMOVE + removedIndices;
+        }
+
+        Instances outputStructure = new Instances(relationName, kept, 0);
+        int[] sourceAttribute = new int[kept.size()];
+        int[] sourceLabel = new int[kept.size()];
+        for (int k = 0; k < kept.size(); k++) {
+            int original = keptIndices.get(k);
+            sourceAttribute[k] = sources.get(original);
+            sourceLabel[k] = labels.get(original);
+            if (original == outputClassIndex) outputStructure.setClassIndex(k);
+        }
+
+        return new CleaningTransform(new Instances(data, 0), outputStructure, imputeValues,
+                sourceAttribute, sourceLabel, removed);
+    }
+
+    /**
+     Attributes the encoding turns into 0/1 columns, as the NominalToBinary range
+     ("first-last" for ONE_HOT, 1-based indices otherwise, "" for none).
+     */
+    static String expandedAttributeRange(Instances data, CategoricalEncoding encoding) {
+        if (encoding == CategoricalEncoding.ONE_HOT) {
+            return "first-last";
+        }
+        StringBuilder range = new StringBuilder();
+        for (int j = 0; j < data.numAttributes(); j++) {
+            if (j != data.classIndex() && encoding.expands(data.attribute(j))) {
+                if (range.length() > 0) range.append(",");
+                range.append(j + 1);
+            }
+        }
+        return range.toString();
+    }
+
+    /**
+     True when at most one label of a nominal column is in use (and there are rows to
+     tell), so the column is dropped like a constant numeric one.
+     */
+    static boolean isConstant(int[] counts, int numRows) {
+        if (numRows <= 1 || counts.length == 0) {
+            return false;
+        }
+        int used = 0;
+        for (int count : counts) {
+            if (count > 0) used++;
+        }
+        return used <= 1;
+    }
+
+    /**
+     True when every attribute is numeric or nominal.
+     */
+    public static boolean supports(Instances data) {
+        for (int j = 0; j < data.numAttributes(); j++) {
+            if (!data.attribute(j).isNumeric() && !data.attribute(j).isNominal()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     Mean summed in row order, so imputed values are bit-for-bit those of
+     ReplaceMissingValues (0 when nothing is observed). Only needed for columns
+     that actually have missing values.
+     */
+    private static double filterMean(Instances data, int attrIndex) {
+        double sum = 0;
+        double weight = 0;
+        for (int i = 0; i < data.numInstances(); i++) {
+            Instance instance = data.instance(i);
+            double value = instance.value(attrIndex);
+            if (!Double.isNaN(value)) {
+                sum += instance.weight() * value;
+                weight += instance.weight();
+            }
+        }
+        return Utils.gr(weight, 0) ? sum / weight : 0;
+    }
+
+    /**
+     Label counts after missing values are replaced by the mode.
+     */
+    private static int[] imputedCounts(ColumnStatistics stats, int attrIndex, int missing) {
+        int[] counts = stats.nominalCounts(attrIndex).clone();
+        if (counts.length > 0) {
+            counts[stats.mode(attrIndex)] += missing;
+        }
+        return counts;
+    }
+
+    private static Attribute copyNominal(Attribute attr, String name) {
+        List<String> values = new ArrayList<>(attr.numValues());
+        for (int v = 0; v < attr.numValues(); v++) {
+            values.add(attr.value(v));
+        }
+        return new Attribute(name, values);
+    }
+
+    /**
+     Attribute name with surrounding single quotes removed.
+     */
+    static String cleanName(String name) {
+        if (name.length() >= 2 && name.startsWith("'") && name.endsWith("'")) {
+            return name.substring(1, name.length() - 1);
+        }
+        return name;
+    }
+
+    public Instances getInputStructure() {
+        return new Instances(inputStructure, 0);
+    }
+
+    /**
+     Empty dataset with the cleaned header.
+     */
+    public Instances getOutputStructure() {
+        return new Instances(outputStructure, 0);
+    }
+
+    /**
+     Cleaned header as Steps 2 and 3 train on it (ClassifierBase.prepareData): the class
+     is the last attribute when none is set, and a class encoded as a 0/1 column is
+     nominal {0,1}, as NumericToNominal turns it.
+     */
+    public Instances getTrainingStructure() {
+        Instances structure = getOutputStructure();
+        int classIndex = structure.classIndex() >= 0 ? structure.classIndex() : structure.numAttributes() - 1;
+        if (structure.attribute(classIndex).isNumeric() && sourceLabel[classIndex] != COPY) {
+            ArrayList<Attribute> attributes = new ArrayList<>();
+            for (int k = 0; k < structure.numAttributes(); k++) {
+                Attribute attr = structure.attribute(k);
+                attributes.add(k == classIndex ? new Attribute(attr.name(), List.of("0", "1")) : attr.copy(attr.name()));
+            }
+            structure = new Instances(structure.relationName(), attributes, 0);
+        }
+        structure.setClassIndex(classIndex);
+        return structure;
+    }
+
+    public int numOutputAttributes() {
+        return sourceAttribute.length;
+    }
+
+    /**
+     Names of the encoded columns dropped for having a single value.
+     */
+    public List<String> getRemovedAttributes() {
+        return removedAttributes;
+    }
+
+    /**
+     Clean one row into the given output array.
+     */
+    public void apply(Instance instance, double[] output) {
+        for (int k = 0; k < sourceAttribute.length; k++) {
+            output[k] = encode(k, instance.value(sourceAttribute[k]));
+        }
+    }
+
+    /**
+     Clean one row into a new array.
+     */
+    public double[] apply(Instance instance) {
+        double[] output = new double[sourceAttribute.length];
+        apply(instance, output);
+        return output;
+    }
+
+    /**
+     Clean one row of raw CSV fields, in the column order of the original file.
+     Empty or "?" fields, unparsable numbers and labels not seen during fitting are
+     treated as missing and imputed.
+     */
+    public double[] apply(String[] fields) {
+        return applyValues(parseFields(fields));
+    }
+
+    /**
+     Clean one row given as values in the input header (label indices for nominals).
+     */
+    public double[] applyValues(double[] input) {
+        double[] output = new double[sourceAttribute.length];
+        for (int k = 0; k < sourceAttribute.length; k++) {
+            output[k] = encode(k, input[sourceAttribute[k]]);
+        }
+        return output;
+    }
+
+    /**
+     Clean one raw CSV line.
+     */
+    public double[] applyLine(String line) {
+        return apply(StreamingCSVLoader.splitLine(line));
+    }
+
+    /**
+     Input attribute order of a CSV of new rows from its header line: for each input
+     attribute the index of its column, matched by name in any order. The class column
+     (the last one when no class is set) may be left out, its index is then -1; any
+     other missing attribute is an error.
+     */
+    public int[] columnsOf(String headerLine) {
+        String[] names = StreamingCSVLoader.splitLine(headerLine);
+        int[] columns = new int[inputStructure.numAttributes()];
+        int classIndex = inputStructure.classIndex() >= 0 ? inputStructure.classIndex() : columns.length - 1;
+        for (int j = 0; j < columns.length; j++) {
+            String name = cleanName(inputStructure.attribute(j).name());
+            columns[j] = -1;
+            for (int f = 0; f < names.length; f++) {
+                if (cleanName(names[f]).equals(name)) {
+                    columns[j] = f;
+                    break;
+                }
+            }
+            if (columns[j] < 0 && j != classIndex) {
+                throw new IllegalArgumentException("Column '" + name + "' not found in CSV header");
+            }
+        }
+        return columns;
+    }
+
+    /**
+     Clean one raw CSV line whose columns are laid out as described by columnsOf,
+     into output (length numOutputAttributes). The line must have numFields fields.
+     */
+    public void applyLine(String line, int[] columns, int numFields, double[] output) {
+        String[] fields = StreamingCSVLoader.splitLine(line);
+        if (fields.length != numFields) {
+            throw new IllegalArgumentException("Expected " + numFields + " fields, got " + fields.length);
+        }
+        double[] input = new double[columns.length];
+        for (int j = 0; j < columns.length; j++) {
+            input[j] = columns[j] < 0 ? Utils.missingValue() : parseField(j, fields[columns[j]]);
+        }
+        for (int k = 0; k < sourceAttribute.length; k++) {
+            output[k] = encode(k, input[sourceAttribute[k]]);
+        }
+    }
+
+    /**
+     Clean a batch of rows with the original header. Unlike DataCleaner, duplicates
+     are kept: every input row gets its cleaned row, in order.
+     */
+    public Instances apply(Instances batch) {
+        Instances output = new Instances(outputStructure, batch.numInstances());
+        for (int i = 0; i < batch.numInstances(); i++) {
+            Instance instance = batch.instance(i);
+            output.add(new DenseInstance(instance.weight(), apply(instance)));
+        }
+        return output;
+    }
+
+    /**
+     Clean a batch of raw CSV rows.
+     */
+    public Instances applyRows(List<String[]> rows) {
+        Instances output = new Instances(outputStructure, rows.size());
+        for (String[] fields : rows) {
+            output.add(new DenseInstance(1.0, apply(fields)));
+        }
+        return output;
+    }
+
+    /**
+     Raw CSV fields as values in the input header.
+     */
+    double[] parseFields(String[] fields) {
+        if (fields.length != inputStructure.numAttributes()) {
+            throw new IllegalArgumentException("Expected " + inputStructure.numAttributes()
+                    + " fields, got " + fields.length);
+        }
+        double[] input = new double[fields.length];
+        for (int j = 0; j < fields.length; j++) {
+            input[j] = parseField(j, fields[j]);
+        }
+        return input;
+    }
+
+    /**
+     Copy with the imputation values recomputed from running totals (numeric sums and
+     weights, nominal label counts), following the same rules as fit. The output
+     layout is unchanged.
+     */
+    CleaningTransform withRunningStatistics(double[] sums, double[] weights, int[][] labelCounts) {
+        double[] values = imputeValues.clone();
+        for (int j = 0; j < values.length; j++) {
+            if (Double.isNaN(imputeValues[j])) continue;
+            if (labelCounts[j] != null) {
+                int best = 0;
+                for (int v = 1; v < labelCounts[j].length; v++) {
+                    if (labelCounts[j][v] > labelCounts[j][best]) best = v;
+                }
+                values[j] = best;
+            } else {
+                values[j] = Utils.gr(weights[j], 0) ? sums[j] / weights[j] : 0;
+            }
+        }
+        return new CleaningTransform(inputStructure, outputStructure, values,
+                sourceAttribute, sourceLabel, removedAttributes);
+    }
+
+    private double parseField(int attrIndex, String field) {
+        if (StreamingCSVLoader.isMissing(field)) {
+            return Utils.missingValue();
+        }
+        Attribute attr = inputStructure.attribute(attrIndex);
+        if (attr.isNominal()) {
+            int label = attr.indexOfValue(field);
+            return label < 0 ? Utils.missingValue() : label;
+        }
+        try {
+            return Double.parseDouble(field);
+        } catch (NumberFormatException e) {
+            return Utils.missingValue();
+        }
+    }
+
+    private double encode(int k, double value) {
+        if (Double.isNaN(value)) {
+            value = imputeValues[sourceAttribute[k]];
+        }
+        int label = sourceLabel[k];
+        if (label >= 0 && !Double.isNaN(value)) {
+            value = (int) value == label ? 1 : 0;
+        }
+        return value;
+    }
+
+    public void save(String path) throws Exception {
+        SerializationHelper.write(path, this);
+        System.out.println("✓ Preprocessing transform saved to: " + path);
+    }
+
+    public static CleaningTransform load(String path) throws Exception {
+        return (CleaningTransform) SerializationHelper.read(path);
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.heart_disease.preprocessing;
+
+import weka.core.Attribute;
+import weka.core.Instance;
+import weka.core.Instances;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ Per-attribute statistics computed in one pass over the data: missing counts, min/max,
+ weighted mean and variance (Welford) for numeric attributes, label counts for nominal
+ ones. Row blocks are scanned in parallel and the partial results merged.
+
+ Results are cached per Instances object (by identity) so every cleaning and analysis
+ step reading the same dataset shares a single scan. Instances is a List whose
+ equals and hashCode walk every row, so the cache holds weak references compared
+ with == rather than a hash map; datasets that are no longer referenced drop out.
+ The cache assumes values are not modified in place after statistics are taken; a
+ change in row or attribute count triggers a recompute.
+ */
+public class ColumnStatistics {
+
+    private static final int BLOCK_SIZE = 4096;
+    private static final List<CacheEntry> CACHE = new ArrayList<>();
+
+    private final int numInstances;
+    private final int numAttributes;
+    private final boolean[] numeric;
+    private final int[] missingCount;
+    private final double[] sumOfWeights;
+    private final double[] mean;
+    private final double[] m2;
+    private final double[] min;
+    private final double[] max;
+    private final int[][] nominalCounts;
+
+    private static final class CacheEntry {
+        final WeakReference<Instances> data;
+        ColumnStatistics stats;
+
+        CacheEntry(Instances data, ColumnStatistics stats) {
+            this.data = new WeakReference<>(data);
+            this.stats = stats;
+        }
+    }
+
+    private ColumnStatistics(Instances data) {
+        this(data, data.numInstances());
+    }
+
+    private ColumnStatistics(Instances structure, int numInstances) {
+        this.numInstances = numInstances;
+        numAttributes = structure.numAttributes();
+        numeric = new boolean[numAttributes];
+        missingCount = new int[numAttributes];
+        sumOfWeights = new double[numAttributes];
+        mean = new double[numAttributes];
+        m2 = new double[numAttributes];
+        min = new double[numAttributes];
+        max = new double[numAttributes];
+        nominalCounts = new int[numAttributes][];
+        for (int j = 0; j < numAttributes; j++) {
+            Attribute attr = structure.attribute(j);
+            numeric[j] = attr.isNumeric();
+            nominalCounts[j] = attr.isNominal() ? new int[attr.numValues()] : null;
+            min[j] = Double.POSITIVE_INFINITY;
+            max[j] = Double.NEGATIVE_INFINITY;
+        }
+    }
+
+    /**
+     Statistics for the dataset, computed once and then served from the cache.
+     */
+    public static ColumnStatistics of(Instances data) {
+        synchronized (CACHE) {
+            CacheEntry entry = null;
+            for (Iterator<CacheEntry> it = CACHE.iterator(); it.hasNext(); ) {
+                CacheEntry candidate = it.next();
+                Instances cached = candidate.data.get();
+                if (cached == null) {
+                    it.remove();
+                } else if (cached == data) {
+                    entry = candidate;
+                }
+            }
+            if (entry == null) {
+                entry = new CacheEntry(data, null);
+                CACHE.add(entry);
+            }
+            ColumnStatistics stats = entry.stats;
+            if (stats == null || stats.numInstances != data.numInstances()
+                    || stats.numAttributes != data.numAttributes()) {
+                stats = compute(data);
+                entry.stats = stats;
+            }
+            return stats;
+        }
+    }
+
+    /**
+     Single pass over all attributes, row blocks in parallel.
+     */
+    public static ColumnStatistics compute(Instances data) {
+        int numBlocks = (data.numInstances() + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        return IntStream.range(0, Math.max(1, numBlocks)).parallel()
+                .mapToObj(block -> {
+                    ColumnStatistics partial = new ColumnStatistics(data);
+                    int end = Math.min(data.numInstances(), (block + 1) * BLOCK_SIZE);
+                    for (int row = block * BLOCK_SIZE; row < end; row++) {
+                        partial.add(data.instance(row));
+                    }
+                    return partial;
+                })
+                .reduce(ColumnStatistics::merge)
+                .orElseGet(() -> new ColumnStatistics(data));
+    }
+
+    /**
+     Statistics of the rows seen so far followed by the rows of chunk, for data read in
+     chunks (see StreamingCSVLoader). The chunk header may have nominal labels appended
+     since the earlier rows; its header is the one the result describes.
+     */
+    public ColumnStatistics plus(Instances chunk) {
+        return new ColumnStatistics(chunk, numInstances + chunk.numInstances()).merge(this).merge(compute(chunk));
+    }
+
+    private void add(Instance instance) {
+        double weight = instance.weight();
+        for (int j = 0; j < numAttributes; j++) {
+            double value = instance.value(j);
+            if (Double.isNaN(value)) {
+                missingCount[j]++;
+                continue;
+            }
+            if (nominalCounts[j] != null) {
+                nominalCounts[j][(int) value]++;
+            }
+            if (numeric[j]) {
+                if (value < min[j]) min[j] = value;
+                if (value > max[j]) max[j] = value;
+                double newSum = sumOfWeights[j] + weight;
+                double delta = value - mean[j];
+                mean[j] += delta * weight / newSum;
+                m2[j] += weight * delta * (value - mean[j]);
+                sumOfWeights[j] = newSum;
+            } else {
+                sumOfWeights[j] += weight;
+            }
+        }
+    }
+
+    /**
+     Combine two partial results (parallel Welford update).
+     */
+    private ColumnStatistics merge(ColumnStatistics other) {
+        for (int j = 0; j < numAttributes; j++) {
+            missingCount[j] += other.missingCount[j];
+            if (nominalCounts[j] != null) {
+                for (int v = 0; v < other.nominalCounts[j].length; v++) {
+                    nominalCounts[j][v] += other.nominalCounts[j][v];
+                }
+            }
+            double total = sumOfWeights[j] + other.sumOfWeights[j];
+            if (numeric[j] && other.sumOfWeights[j] > 0) {
+                double delta = other.mean[j] - mean[j];
+                mean[j] += delta * other.sumOfWeights[j] / total;
+                m2[j] += other.m2[j] + delta * delta * sumOfWeights[j] * other.sumOfWeights[j] / total;
+                min[j] = Math.min(min[j], other.min[j]);
+                max[j] = Math.max(max[j], other.max[j]);
+            }
+            sumOfWeights[j] = total;
+        }
+        return this;
+    }
+
+    public int numInstances() {
+        return numInstances;
+    }
+
+    public int numAttributes() {
+        return numAttributes;
+    }
+
+    public int missingCount(int attrIndex) {
+        return missingCount[attrIndex];
+    }
+
+    public long totalMissing() {
+        long total = 0;
+        for (int count : missingCount) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     Percentage of non-missing cells.
+     */
+    public double completeness() {
+        long cells = (long) numInstances * numAttributes;
+        return cells == 0 ? 100.0 : (cells - totalMissing()) * 100.0 / cells;
+    }
+
+    /**
+     Number of non-missing values.
+     */
+    public int count(int attrIndex) {
+        return numInstances - missingCount[attrIndex];
+    }
+
+    public double min(int attrIndex) {
+        return count(attrIndex) == 0 ? Double.NaN : min[attrIndex];
+    }
+
+    public double max(int attrIndex) {
+        return count(attrIndex) == 0 ? Double.NaN : max[attrIndex];
+    }
+
+    /**
+     Weighted mean of a numeric attribute (0 when every value is missing, as in Weka).
+     */
+    public double mean(int attrIndex) {
+        return mean[attrIndex];
+    }
+
+    /**
+     Weighted sample variance with Weka's conventions: NaN for total weight <= 1,
+     never negative.
+     */
+    public double variance(int attrIndex) {
+        if (sumOfWeights[attrIndex] <= 1) {
+            return Double.NaN;
+        }
+        return Math.max(0, m2[attrIndex] / (sumOfWeights[attrIndex] - 1));
+    }
+
+    public double stdDev(int attrIndex) {
+        return Math.sqrt(variance(attrIndex));
+    }
+
+    /**
+     Label counts of a nominal attribute, or null for other types.
+     */
+    public int[] nominalCounts(int attrIndex) {
+        return nominalCounts[attrIndex];
+    }
+
+    /**
+     Index of the most frequent label (first one on ties), as Instances.meanOrMode does.
+     */
+    public int mode(int attrIndex) {
+        int[] counts = nominalCounts[attrIndex];
+        int best = 0;
+        for (int v = 1; v < counts.length; v++) {
+            if (counts[v] > counts[best]) best = v;
+        }
+        return best;
+    }
+
+    /**
+     Mean for numeric attributes, mode index for nominal ones.
+     */
+    public double meanOrMode(int attrIndex) {
+        return nominalCounts[attrIndex] != null ? mode(attrIndex) : mean(attrIndex);
+    }
+}
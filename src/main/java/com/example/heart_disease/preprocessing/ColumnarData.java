@@ -0,0 +1,113 @@
+package com.example.heart_disease.preprocessing;
+
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instances;
+import weka.core.Utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ Column-major dataset: numeric columns as double[], nominal columns as dictionary
+ codes in int[] (-1 = missing) with the label dictionary kept alongside.
+ */
+public class ColumnarData {
+
+    private final String relationName;
+    private final String[] names;
+    private final double[][] numeric;
+    private final int[][] codes;
+    private final String[][] labels;
+    private final int numRows;
+
+    public ColumnarData(String relationName, String[] names, double[][] numeric,
+                        int[][] codes, String[][] labels, int numRows) {
+        this.relationName = relationName;
+        this.names = names;
+        this.numeric = numeric;
+        this.codes = codes;
+        this.labels = labels;
+        this.numRows = numRows;
+    }
+
+    public String getRelationName() {
+        return relationName;
+    }
+
+    public int numRows() {
+        return numRows;
+    }
+
+    public int numColumns() {
+        return names.length;
+    }
+
+    public String name(int col) {
+        return names[col];
+    }
+
+    public boolean isNominal(int col) {
+        return codes[col] != null;
+    }
+
+    /**
+     Numeric column values, or null for a nominal column.
+     */
+    public double[] numericColumn(int col) {
+        return numeric[col];
+    }
+
+    /**
+     Dictionary codes of a nominal column, or null for a numeric column.
+     */
+    public int[] nominalColumn(int col) {
+        return codes[col];
+    }
+
+    public String[] labels(int col) {
+        return labels[col];
+    }
+
+    /**
+     Value in Weka's encoding: numeric value or label index, NaN when missing.
+     */
+    public double value(int row, int col) {
+        if (codes[col] != null) {
+            int code = codes[col][row];
+            return code < 0 ? Utils.missingValue() : code;
+        }
+        return numeric[col][row];
+    }
+
+    /**
+     Header matching this data (no rows).
+     */
+    public Instances structure() {
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        for (int col = 0; col < names.length; col++) {
+            if (isNominal(col)) {
+                attributes.add(new Attribute(names[col], new ArrayList<>(Arrays.asList(labels[col]))));
+            } else {
+                attributes.add(new Attribute(names[col]));
+            }
+        }
+        return new Instances(relationName, attributes, 0);
+    }
+
+    /**
+     Convert to row-major Weka Instances.
+     */
+    public Instances toInstances() {
+        Instances data = new Instances(structure(), numRows);
+        int numColumns = names.length;
+        for (int row = 0; row < numRows; row++) {
+            double[] values = new double[numColumns];
+            for (int col = 0; col < numColumns; col++) {
+                values[col] = value(row, col);
+            }
+            data.add(new DenseInstance(1.0, values));
+        }
+        return data;
+    }
+}
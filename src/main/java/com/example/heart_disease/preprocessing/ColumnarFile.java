@@ -0,0 +1,338 @@
+package com.example.heart_disease.preprocessing;
+
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.Utils;
+import com.example.heart_disease.utils.FormatUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ Binary columnar dataset file, written next to the cleaned ARFF so later steps can
+ memory-map it instead of parsing text.
+
+ Layout (little-endian): magic, version, header length, header (relation name,
+ attribute count, class index, row count, then name/type/labels per attribute),
+ padding to 8 bytes, then one fixed-width column after another, each padded to 8
+ bytes: numeric columns as 8-byte doubles, nominal columns with at most 255 labels as
+ 1-byte label indices (0xFF = missing) and other nominal columns as 4-byte label
+ indices (-1 = missing). Version 1 files, with 4-byte indices for every nominal
+ column, are still read.
+ */
+public class ColumnarFile {
+
+    private static final int MAGIC = 0x48444331; // "HDC1"
+    private static final int VERSION = 2;
+    private static final byte NUMERIC = 0;
+    private static final byte NOMINAL = 1;
+    private static final byte NOMINAL_BYTE = 2;
+    private static final int BYTE_MISSING = 0xFF;
+    private static final int COLUMN_BUFFER_SIZE = 1 << 16;
+
+    /**
+     Save dataset in columnar form. Numeric values are rounded to the 6 decimal places
+     the ARFF saver keeps, so loading the cache gives exactly what loading the ARFF gives.
+     */
+    public static void write(Instances data, String outputPath) throws IOException {
+        try (RowWriter writer = new RowWriter(data, data.numInstances(), outputPath)) {
+            for (int row = 0; row < data.numInstances(); row++) {
+                writer.add(data.instance(row));
+            }
+        }
+        System.out.println("✓ Dataset saved as columnar cache: " + outputPath);
+    }
+
+    /**
+     Load a columnar file as Instances. Columns are read through memory-mapped views,
+     so the only copy made is the row-major one Weka needs.
+     */
+    public static Instances read(String path) throws IOException {
+        try (FileChannel channel = FileChannel.open(new File(path).toPath(), StandardOpenOption.READ)) {
+            MappedFile file = map(channel);
+            Instances data = new Instances(file.structure, file.numRows);
+            int numColumns = file.structure.numAttributes();
+            for (int row = 0; row < file.numRows; row++) {
+                double[] values = new double[numColumns];
+                for (int col = 0; col < numColumns; col++) {
+                    if (file.numeric[col] != null) {
+                        values[col] = file.numeric[col].get(row);
+                    } else {
+                        int code = file.code(col, row);
+                        values[col] = code < 0 ? Utils.missingValue() : code;
+                    }
+                }
+                data.add(new DenseInstance(1.0, values));
+            }
+            return data;
+        }
+    }
+
+    /**
+     Load a columnar file as ColumnarData (bulk copies of each mapped column).
+     */
+    public static ColumnarData readColumns(String path) throws IOException {
+        try (FileChannel channel = FileChannel.open(new File(path).toPath(), StandardOpenOption.READ)) {
+            MappedFile file = map(channel);
+            int numColumns = file.structure.numAttributes();
+            String[] names = new String[numColumns];
+            double[][] numeric = new double[numColumns][];
+            int[][] codes = new int[numColumns][];
+            String[][] labels = new String[numColumns][];
+            for (int col = 0; col < numColumns; col++) {
+                Attribute attr = file.structure.attribute(col);
+                names[col] = attr.name();
+                if (file.numeric[col] != null) {
+                    numeric[col] = new double[file.numRows];
+                    file.numeric[col].get(0, numeric[col]);
+                } else {
+                    codes[col] = new int[file.numRows];
+                    if (file.codes[col] != null) {
+                        file.codes[col].get(0, codes[col]);
+                    } else {
+                        for (int row = 0; row < file.numRows; row++) {
+                            codes[col][row] = file.code(col, row);
+                        }
+                    }
+                    labels[col] = new String[attr.numValues()];
+                    for (int v = 0; v < attr.numValues(); v++) {
+                        labels[col][v] = attr.value(v);
+                    }
+                }
+            }
+            return new ColumnarData(file.structure.relationName(), names, numeric, codes, labels, file.numRows);
+        }
+    }
+
+    static double roundLikeArff(double value) {
+        if (Utils.isMissingValue(value) || value == Math.rint(value)) {
+            return value;
+        }
+        return FormatUtils.roundTo(value, 6);
+    }
+
+    private static MappedFile map(FileChannel channel) throws IOException {
+        ByteBuffer prefix = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(prefix, 0);
+        prefix.flip();
+        if (prefix.remaining() < 12 || prefix.getInt() != MAGIC) {
+            throw new IOException("Not a columnar dataset file");
+        }
+        int version = prefix.getInt();
+        if (version != 1 && version != VERSION) {
+            throw new IOException("Unsupported columnar file version: " + version);
+        }
+        int headerLength = prefix.getInt();
+
+        ByteBuffer headerBytes = ByteBuffer.allocate(headerLength);
+        channel.read(headerBytes, 12);
+        DataInputStream in = new DataInputStream(new java.io.ByteArrayInputStream(headerBytes.array()));
+
+        String relationName = in.readUTF();
+        int numColumns = in.readInt();
+        int classIndex = in.readInt();
+        int numRows = in.readInt();
+        ArrayList<Attribute> attributes = new ArrayList<>(numColumns);
+        boolean[] byteCodes = new boolean[numColumns];
+        for (int col = 0; col < numColumns; col++) {
+            String name = in.readUTF();
+            byte type = in.readByte();
+            byteCodes[col] = type == NOMINAL_BYTE;
+            if (type != NUMERIC) {
+                int numLabels = in.readInt();
+                ArrayList<String> labels = new ArrayList<>(numLabels);
+                for (int v = 0; v < numLabels; v++) {
+                    labels.add(in.readUTF());
+                }
+                attributes.add(new Attribute(name, labels));
+            } else {
+                attributes.add(new Attribute(name));
+            }
+        }
+
+        MappedFile file = new MappedFile();
+        file.structure = new Instances(relationName, attributes, 0);
+        file.structure.setClassIndex(classIndex);
+        file.numRows = numRows;
+        file.numeric = new DoubleBuffer[numColumns];
+        file.codes = new IntBuffer[numColumns];
+        file.byteCodes = new ByteBuffer[numColumns];
+
+        long offset = align(12L + headerLength);
+        for (int col = 0; col < numColumns; col++) {
+            boolean nominal = attributes.get(col).isNominal();
+            long length = (long) numRows * (byteCodes[col] ? 1 : nominal ? 4 : 8);
+            MappedByteBuffer column = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            column.order(ByteOrder.LITTLE_ENDIAN);
+            if (byteCodes[col]) {
+                file.byteCodes[col] = column;
+            } else if (nominal) {
+                file.codes[col] = column.asIntBuffer();
+            } else {
+                file.numeric[col] = column.asDoubleBuffer();
+            }
+            offset = align(offset + length);
+        }
+        return file;
+    }
+
+    private static byte[] encodeHeader(Instances data, int numRows) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(data.relationName());
+        out.writeInt(data.numAttributes());
+        out.writeInt(data.classIndex());
+        out.writeInt(numRows);
+        for (int col = 0; col < data.numAttributes(); col++) {
+            Attribute attr = data.attribute(col);
+            if (!attr.isNumeric() && !attr.isNominal()) {
+                throw new IOException("Columnar cache supports numeric and nominal attributes only: " + attr.name());
+            }
+            out.writeUTF(attr.name());
+            out.writeByte(!attr.isNominal() ? NUMERIC : isByteColumn(attr) ? NOMINAL_BYTE : NOMINAL);
+            if (attr.isNominal()) {
+                out.writeInt(attr.numValues());
+                for (int v = 0; v < attr.numValues(); v++) {
+                    out.writeUTF(attr.value(v));
+                }
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     Nominal columns whose label indices and missing code fit in one unsigned byte.
+     */
+    private static boolean isByteColumn(Attribute attr) {
+        return attr.isNominal() && attr.numValues() <= BYTE_MISSING;
+    }
+
+    private static long align(long offset) {
+        return (offset + 7) & ~7L;
+    }
+
+    /**
+     Writes a columnar file one row at a time. Every column region has a fixed size
+     known from the row count, so each column fills its own buffer, which is written
+     at that column's position in the file when full.
+     */
+    static final class RowWriter implements Closeable {
+        private final FileChannel channel;
+        private final boolean[] nominal;
+        private final boolean[] byteCodes;
+        private final ByteBuffer[] buffers;
+        private final long[] positions;
+        private final long end;
+        private final int numRows;
+        private int rowsAdded;
+
+        RowWriter(Instances structure, int numRows, String outputPath) throws IOException {
+            byte[] header = encodeHeader(structure, numRows);
+            int numColumns = structure.numAttributes();
+            this.numRows = numRows;
+            nominal = new boolean[numColumns];
+            byteCodes = new boolean[numColumns];
+            buffers = new ByteBuffer[numColumns];
+            positions = new long[numColumns];
+            long offset = align(12L + header.length);
+            for (int col = 0; col < numColumns; col++) {
+                nominal[col] = structure.attribute(col).isNominal();
+                byteCodes[col] = isByteColumn(structure.attribute(col));
+                positions[col] = offset;
+                offset = align(offset + (long) numRows * (byteCodes[col] ? 1 : nominal[col] ? 4 : 8));
+                buffers[col] = ByteBuffer.allocateDirect(COLUMN_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            }
+            end = offset;
+
+            channel = FileChannel.open(new File(outputPath).toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            ByteBuffer prefix = ByteBuffer.allocate(12 + header.length).order(ByteOrder.LITTLE_ENDIAN);
+            prefix.putInt(MAGIC).putInt(VERSION).putInt(header.length).put(header).flip();
+            writeAt(prefix, 0);
+        }
+
+        void add(Instance instance) throws IOException {
+            for (int col = 0; col < nominal.length; col++) {
+                ByteBuffer buffer = buffers[col];
+                if (buffer.remaining() < 8) {
+                    flush(col);
+                }
+                double value = instance.value(col);
+                if (byteCodes[col]) {
+                    buffer.put((byte) (Utils.isMissingValue(value) ? BYTE_MISSING : (int) value));
+                } else if (nominal[col]) {
+                    buffer.putInt(Utils.isMissingValue(value) ? -1 : (int) value);
+                } else {
+                    buffer.putDouble(roundLikeArff(value));
+                }
+            }
+            rowsAdded++;
+        }
+
+        private void flush(int col) throws IOException {
+            buffers[col].flip();
+            positions[col] += writeAt(buffers[col], positions[col]);
+            buffers[col].clear();
+        }
+
+        private long writeAt(ByteBuffer buffer, long position) throws IOException {
+            long written = 0;
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer, position + written);
+            }
+            return written;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                for (int col = 0; col < nominal.length; col++) {
+                    flush(col);
+                }
+                // Zero padding after the last column, as far as the aligned end
+                if (channel.size() < end) {
+                    writeAt(ByteBuffer.allocate((int) (end - channel.size())), channel.size());
+                }
+                if (rowsAdded != numRows) {
+                    throw new IOException("Columnar file expects " + numRows + " rows, got " + rowsAdded);
+                }
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    private static final class MappedFile {
+        Instances structure;
+        int numRows;
+        DoubleBuffer[] numeric;
+        IntBuffer[] codes;
+        ByteBuffer[] byteCodes;
+
+        /**
+         Label index of a nominal cell, -1 when missing
+         */
+        int code(int col, int row) {
+            if (byteCodes[col] != null) {
+                int code = byteCodes[col].get(row) & 0xFF;
+                return code == BYTE_MISSING ? -1 : code;
+            }
+            return codes[col].get(row);
+        }
+    }
+}
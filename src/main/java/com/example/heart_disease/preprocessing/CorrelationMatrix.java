@@ -0,0 +1,328 @@
+package com.example.heart_disease.preprocessing;
+
+import weka.core.Attribute;
+import weka.core.Instances;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ Pearson or Spearman correlation between all numeric (and two-valued nominal) columns.
+
+ Columns are copied out once, centred and scaled to unit length (Spearman: after
+ replacing values by their average ranks), so every coefficient is a plain dot
+ product. The upper triangle is cut into tiles of TILE x TILE columns; each tile
+ walks the rows in blocks small enough for its columns to stay in cache, and tiles
+ are spread over a ForkJoinPool.
+
+ Missing values count as the column mean (rank) and so contribute nothing to the
+ dot products. Columns with no variance get NaN.
+ */
+public class CorrelationMatrix {
+
+    public enum Method { PEARSON, SPEARMAN }
+
+    private static final int TILE = 16;
+    private static final int ROW_BLOCK = 2048;
+    private static final int TILES_PER_TASK = 4;
+
+    private final Method method;
+    private final String[] names;
+    private final double[][] values;
+
+    private CorrelationMatrix(Method method, String[] names, double[][] values) {
+        this.method = method;
+        this.names = names;
+        this.values = values;
+    }
+
+    public static CorrelationMatrix compute(Instances data, Method method) {
+        return compute(data, method, ForkJoinPool.commonPool());
+    }
+
+    public static CorrelationMatrix compute(Instances data, Method method, ForkJoinPool pool) {
+        List<Integer> columns = new ArrayList<>();
+        for (int j = 0; j < data.numAttributes(); j++) {
+            Attribute attr = data.attribute(j);
+            if (attr.isNumeric() || (attr.isNominal() && attr.numValues() == 2)) {
+                columns.add(j);
+            }
+        }
+        int numColumns = columns.size();
+        String[] names = new String[numColumns];
+        double[][] unit = new double[numColumns][];
+        boolean[] constant = new boolean[numColumns];
+
+        // Column extraction and normalisation, one task per column
+        pool.invoke(new ColumnTask(data, columns, method, names, unit, constant, 0, numColumns));
+
+        double[][] values = new double[numColumns][numColumns];
+        List<int[]> tiles = new ArrayList<>();
+        for (int ti = 0; ti < numColumns; ti += TILE) {
+            for (int tj = ti; tj < numColumns; tj += TILE) {
+                tiles.add(new int[]{ti, tj});
+            }
+        }
+        pool.invoke(new TileTask(tiles, unit, values, 0, tiles.size()));
+
+        for (int i = 0; i < numColumns; i++) {
+            for (int j = i; j < numColumns; j++) {
+                double r = constant[i] || constant[j] ? Double.NaN : Math.max(-1, Math.min(1, values[i][j]));
+                values[i][j] = r;
+                values[j][i] = r;
+            }
+        }
+        return new CorrelationMatrix(method, names, values);
+    }
+
+    /**
+     Values centred and divided by their norm; with SPEARMAN the values are ranks first.
+     */
+    private static double[] normalise(Instances data, int attrIndex, Method method) {
+        int numRows = data.numInstances();
+        double[] column = new double[numRows];
+        for (int row = 0; row < numRows; row++) {
+            column[row] = data.instance(row).value(attrIndex);
+        }
+        if (method == Method.SPEARMAN) {
+            column = ranks(column);
+        }
+
+        double sum = 0;
+        int count = 0;
+        for (double value : column) {
+            if (!Double.isNaN(value)) {
+                sum += value;
+                count++;
+            }
+        }
+        double mean = count > 0 ? sum / count : 0;
+        double squares = 0;
+        for (int row = 0; row < numRows; row++) {
+            double centred = Double.isNaN(column[row]) ? 0 : column[row] - mean;
+            column[row] = centred;
+            squares += centred * centred;
+        }
+        if (squares > 0) {
+            double scale = 1 / Math.sqrt(squares);
+            for (int row = 0; row < numRows; row++) {
+                column[row] *= scale;
+            }
+        }
+        return column;
+    }
+
+    /**
+     Average ranks (1-based, ties share their mean rank); missing values stay NaN.
+     */
+    static double[] ranks(double[] column) {
+        double[] sorted = column.clone();
+        Arrays.sort(sorted); // NaN sorts last
+        int observed = sorted.length;
+        while (observed > 0 && Double.isNaN(sorted[observed - 1])) {
+            observed--;
+        }
+        double[] ranks = new double[column.length];
+        for (int row = 0; row < column.length; row++) {
+            double value = column[row];
+            if (Double.isNaN(value)) {
+                ranks[row] = Double.NaN;
+                continue;
+            }
+            int first = lowerBound(sorted, observed, value);
+            int last = lowerBound(sorted, observed, Math.nextUp(value)) - 1;
+            ranks[row] = (first + last) / 2.0 + 1;
+        }
+        return ranks;
+    }
+
+    private static int lowerBound(double[] sorted, int length, double value) {
+        int low = 0;
+        int high = length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public String name(int index) {
+        return names[index];
+    }
+
+    public double get(int i, int j) {
+        return values[i][j];
+    }
+
+    /**
+     Up to limit column pairs with the largest absolute correlation, strongest first.
+     */
+    public List<int[]> strongestPairs(int limit) {
+        List<int[]> pairs = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            for (int j = i + 1; j < names.length; j++) {
+                if (!Double.isNaN(values[i][j])) {
+                    pairs.add(new int[]{i, j});
+                }
+            }
+        }
+        pairs.sort((a, b) -> Double.compare(Math.abs(values[b[0]][b[1]]), Math.abs(values[a[0]][a[1]])));
+        return pairs.subList(0, Math.min(limit, pairs.size()));
+    }
+
+    /**
+     Save as CSV: a header row of column names, then one row per column.
+     */
+    public void saveAsCSV(String outputPath) throws IOException {
+        File outputFile = new File(outputPath);
+        if (outputFile.getParentFile() != null) {
+            outputFile.getParentFile().mkdirs();
+        }
+        try (PrintWriter out = new PrintWriter(new FileWriter(outputFile))) {
+            StringBuilder line = new StringBuilder(method.name().toLowerCase(Locale.ROOT));
+            for (String name : names) {
+                line.append(',').append(quote(name));
+            }
+            out.println(line);
+            for (int i = 0; i < names.length; i++) {
+                line.setLength(0);
+                line.append(quote(names[i]));
+                for (int j = 0; j < names.length; j++) {
+                    line.append(',').append(Double.isNaN(values[i][j])
+                            ? "NaN" : String.format(Locale.ROOT, "%.6f", values[i][j]));
+                }
+                out.println(line);
+            }
+        }
+        System.out.println("✓ Correlation matrix saved: " + outputPath);
+    }
+
+    private static String quote(String name) {
+        if (name.indexOf(',') < 0 && name.indexOf('"') < 0) {
+            return name;
+        }
+        return '"' + name.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     Extracts and normalises a range of columns, splitting it in halves.
+     */
+    private static final class ColumnTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Instances data;
+        private final transient List<Integer> columns;
+        private final Method method;
+        private final String[] names;
+        private final double[][] unit;
+        private final boolean[] constant;
+        private final int from;
+        private final int to;
+
+        ColumnTask(Instances data, List<Integer> columns, Method method, String[] names,
+                   double[][] unit, boolean[] constant, int from, int to) {
+            this.data = data;
+            this.columns = columns;
+            this.method = method;
+            this.names = names;
+            this.unit = unit;
+            this.constant = constant;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ColumnTask(data, columns, method, names, unit, constant, from, mid),
+                        new ColumnTask(data, columns, method, names, unit, constant, mid, to));
+                return;
+            }
+            for (int c = from; c < to; c++) {
+                int attrIndex = columns.get(c);
+                names[c] = data.attribute(attrIndex).name();
+                unit[c] = normalise(data, attrIndex, method);
+                double squares = 0;
+                for (double value : unit[c]) {
+                    squares += value * value;
+                }
+                constant[c] = squares == 0;
+            }
+        }
+    }
+
+    /**
+     Computes the dot products of a range of tiles, splitting it in halves.
+     */
+    private static final class TileTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<int[]> tiles;
+        private final double[][] unit;
+        private final double[][] result;
+        private final int from;
+        private final int to;
+
+        TileTask(List<int[]> tiles, double[][] unit, double[][] result, int from, int to) {
+            this.tiles = tiles;
+            this.unit = unit;
+            this.result = result;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > TILES_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new TileTask(tiles, unit, result, from, mid),
+                        new TileTask(tiles, unit, result, mid, to));
+                return;
+            }
+            for (int t = from; t < to; t++) {
+                computeTile(tiles.get(t)[0], tiles.get(t)[1]);
+            }
+        }
+
+        private void computeTile(int tileI, int tileJ) {
+            int endI = Math.min(unit.length, tileI + TILE);
+            int endJ = Math.min(unit.length, tileJ + TILE);
+            int numRows = unit.length == 0 ? 0 : unit[0].length;
+            for (int start = 0; start < numRows; start += ROW_BLOCK) {
+                int end = Math.min(numRows, start + ROW_BLOCK);
+                for (int i = tileI; i < endI; i++) {
+                    double[] a = unit[i];
+                    for (int j = Math.max(i, tileJ); j < endJ; j++) {
+                        double[] b = unit[j];
+                        double dot = 0;
+                        for (int row = start; row < end; row++) {
+                            dot += a[row] * b[row];
+                        }
+                        result[i][j] += dot;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -1,57 +1,88 @@
 package com.example.heart_disease.preprocessing;
 
 import weka.core.Instances;
-import weka.core.AttributeStats;
 import weka.core.Attribute;
 
+import java.io.IOException;
+import java.util.List;
+
 public class DataAnalyzer {
 
+    private static final int TOP_CORRELATIONS = 10;
+
     /**
      Data analysis
      */
     public void performAnalysis(Instances data) {
+        try {
+            performAnalysis(data, (String) null);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     Data analysis; when correlationPrefix is given, the Pearson and Spearman matrices
+     are also saved as correlationPrefix + "_Pearson.csv" / "_Spearman.csv".
+     */
+    public void performAnalysis(Instances data, String correlationPrefix) throws IOException {
+        ColumnStatistics stats = ColumnStatistics.of(data);
+        System.out.println("\n COMPREHENSIVE DATA ANALYSIS");
+        printDatasetOverview(data, stats);
+        printAttributeDetails(data, stats);
+        printClassDistribution(data, stats);
+        printMissingValueReport(data, stats);
+        printCorrelationAnalysis(data, correlationPrefix);
+        printDataQuality(stats);
+    }
+
+    /**
+     Data analysis of a dataset that was only streamed, from its header and statistics.
+     The correlation analysis needs the rows and is left out.
+     */
+    public void performAnalysis(Instances structure, ColumnStatistics stats) {
         System.out.println("\n COMPREHENSIVE DATA ANALYSIS");
-        printDatasetOverview(data);
-        printAttributeDetails(data);
-        printClassDistribution(data);
-        printMissingValueReport(data);
-        printCorrelationAnalysis(data);
+        printDatasetOverview(structure, stats);
+        printAttributeDetails(structure, stats);
+        printClassDistribution(structure, stats);
+        printMissingValueReport(structure, stats);
+        System.out.println("\n CORRELATION ANALYSIS skipped (streamed data)");
+        printDataQuality(stats);
     }
 
-    private void printDatasetOverview(Instances data) {
+    private void printDatasetOverview(Instances data, ColumnStatistics stats) {
         System.out.println("\n DATASET OVERVIEW ");
         System.out.println("Dataset Name: " + data.relationName());
-        System.out.println("Total Instances: " + data.numInstances());
+        System.out.println("Total Instances: " + stats.numInstances());
         System.out.println("Total Attributes: " + data.numAttributes());
         System.out.println("Class Attribute: " +
                 (data.classIndex() >= 0 ? data.attribute(data.classIndex()).name() : "Not set"));
     }
 
-    private void printAttributeDetails(Instances data) {
+    private void printAttributeDetails(Instances data, ColumnStatistics stats) {
         System.out.println("\n ATTRIBUTE DETAILS ");
         for (int i = 0; i < data.numAttributes(); i++) {
             Attribute attr = data.attribute(i);
-            AttributeStats stats = data.attributeStats(i);
 
             System.out.println((i+1) + ". " + attr.name() +
                     " [" + Attribute.typeToString(attr) + "]");
 
             if (attr.isNumeric()) {
-                printNumericStats(data, i, stats);
+                printNumericStats(i, stats);
             } else if (attr.isNominal()) {
-                printNominalStats(data, i, stats, attr);
+                printNominalStats(i, stats, attr);
             }
-            System.out.println("   Missing: " + stats.missingCount +
-                    " (" + String.format("%.2f", (stats.missingCount * 100.0 / data.numInstances())) + "%)");
+            System.out.println("   Missing: " + stats.missingCount(i) +
+                    " (" + String.format("%.2f", (stats.missingCount(i) * 100.0 / stats.numInstances())) + "%)");
             System.out.println();
         }
     }
 
-    private void printNumericStats(Instances data, int attrIndex, AttributeStats stats) {
-        double min = data.kthSmallestValue(attrIndex, 1);
-        double max = data.kthSmallestValue(attrIndex, data.numInstances());
-        double mean = data.meanOrMode(attrIndex);
-        double stdDev = Math.sqrt(data.variance(attrIndex));
+    private void printNumericStats(int attrIndex, ColumnStatistics stats) {
+        double min = stats.min(attrIndex);
+        double max = stats.max(attrIndex);
+        double mean = stats.mean(attrIndex);
+        double stdDev = stats.stdDev(attrIndex);
 
         System.out.println("   Min: " + String.format("%.2f", min) +
                 ", Max: " + String.format("%.2f", max) +
@@ -59,65 +90,63 @@ public class DataAnalyzer {
                 ", StdDev: " + String.format("%.2f", stdDev));
     }
 
-    private void printNominalStats(Instances data, int attrIndex, AttributeStats stats, Attribute attr) {
+    private void printNominalStats(int attrIndex, ColumnStatistics stats, Attribute attr) {
         System.out.println("   Distinct values: " + attr.numValues());
         for (int j = 0; j < Math.min(attr.numValues(), 5); j++) {
-            int count = stats.nominalCounts[j];
+            int count = stats.nominalCounts(attrIndex)[j];
             System.out.println("     - " + attr.value(j) + ": " + count +
-                    " (" + String.format("%.2f", (count * 100.0 / data.numInstances())) + "%)");
+                    " (" + String.format("%.2f", (count * 100.0 / stats.numInstances())) + "%)");
         }
         if (attr.numValues() > 5) {
             System.out.println("     ... and " + (attr.numValues() - 5) + " more values");
         }
     }
 
-    private void printClassDistribution(Instances data) {
+    private void printClassDistribution(Instances data, ColumnStatistics stats) {
         if (data.classIndex() >= 0) {
             System.out.println("\n CLASS DISTRIBUTION ");
             Attribute classAttr = data.attribute(data.classIndex());
-            AttributeStats classStats = data.attributeStats(data.classIndex());
 
             for (int i = 0; i < classAttr.numValues(); i++) {
-                int count = classStats.nominalCounts[i];
+                int count = stats.nominalCounts(data.classIndex())[i];
                 System.out.println(classAttr.value(i) + ": " + count +
-                        " (" + String.format("%.2f", (count * 100.0 / data.numInstances())) + "%)");
+                        " (" + String.format("%.2f", (count * 100.0 / stats.numInstances())) + "%)");
             }
         }
     }
 
-    private void printMissingValueReport(Instances data) {
+    private void printMissingValueReport(Instances data, ColumnStatistics stats) {
         System.out.println("\n MISSING VALUE REPORT ");
-        int totalMissing = 0;
         for (int i = 0; i < data.numAttributes(); i++) {
-            AttributeStats stats = data.attributeStats(i);
-            if (stats.missingCount > 0) {
-                System.out.println(data.attribute(i).name() + ": " + stats.missingCount + " missing");
-                totalMissing += stats.missingCount;
+            if (stats.missingCount(i) > 0) {
+                System.out.println(data.attribute(i).name() + ": " + stats.missingCount(i) + " missing");
             }
         }
+        long totalMissing = stats.totalMissing();
         System.out.println("Total missing values: " + totalMissing);
     }
 
-    private void printCorrelationAnalysis(Instances data) {
-        System.out.println("\n DATA QUALITY ASSESSMENT ---");
-        System.out.println("Dataset completeness: " +
-                String.format("%.2f", calculateCompleteness(data)) + "%");
-        System.out.println("Recommended: Consider feature selection based on variance analysis");
-    }
-
-    private double calculateCompleteness(Instances data) {
-        int totalValues = data.numInstances() * data.numAttributes();
-        int missingValues = 0;
-
-        for (int i = 0; i < data.numInstances(); i++) {
-            for (int j = 0; j < data.numAttributes(); j++) {
-                if (data.instance(i).isMissing(j)) {
-                    missingValues++;
-                }
+    private void printCorrelationAnalysis(Instances data, String correlationPrefix) throws IOException {
+        CorrelationMatrix pearson = CorrelationMatrix.compute(data, CorrelationMatrix.Method.PEARSON);
+        if (pearson.size() > 1) {
+            System.out.println("\n CORRELATION ANALYSIS (Pearson, " + pearson.size() + " columns)");
+            List<int[]> pairs = pearson.strongestPairs(TOP_CORRELATIONS);
+            for (int[] pair : pairs) {
+                System.out.println("   " + pearson.name(pair[0]) + " ~ " + pearson.name(pair[1]) + ": " +
+                        String.format("%.4f", pearson.get(pair[0], pair[1])));
             }
         }
+        if (correlationPrefix != null && pearson.size() > 0) {
+            pearson.saveAsCSV(correlationPrefix + "_Pearson.csv");
+            CorrelationMatrix.compute(data, CorrelationMatrix.Method.SPEARMAN)
+                    .saveAsCSV(correlationPrefix + "_Spearman.csv");
+        }
+    }
 
-        return ((totalValues - missingValues) * 100.0) / totalValues;
+    private void printDataQuality(ColumnStatistics stats) {
+        System.out.println("\n DATA QUALITY ASSESSMENT ---");
+        System.out.println("Dataset completeness: " +
+                String.format("%.2f", stats.completeness()) + "%");
+        System.out.println("Recommended: Consider feature selection based on variance analysis");
     }
 }
-
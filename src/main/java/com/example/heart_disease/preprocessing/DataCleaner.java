@@ -1,5 +1,7 @@
 package com.example.heart_disease.preprocessing;
 
+import weka.core.DenseInstance;
+import weka.core.Instance;
 import weka.core.Instances;
 import weka.core.Attribute;
 import weka.filters.Filter;
@@ -9,19 +11,45 @@ import weka.filters.unsupervised.attribute.ReplaceMissingValues;
 
 public class DataCleaner {
 
+    private CleaningTransform fittedTransform;
+    private CategoricalEncoding encoding = CategoricalEncoding.ONE_HOT;
+
+    /**
+     How nominal attributes are encoded (default ONE_HOT)
+     */
+    public void setCategoricalEncoding(CategoricalEncoding encoding) {
+        this.encoding = encoding;
+    }
+
+    public CategoricalEncoding getCategoricalEncoding() {
+        return encoding;
+    }
+
+    /**
+     Transform fitted by the last cleanData/cleanDataFused call, for cleaning new rows
+     the same way (see CleaningTransform.save).
+     */
+    public CleaningTransform getFittedTransform() {
+        return fittedTransform;
+    }
+
     /**
      * Complete data cleaning pipeline for heart disease dataset.
      */
     public Instances cleanData(Instances data) throws Exception {
         System.out.println("\n  DATA CLEANING PIPELINE");
 
+        // One statistics pass over the input, shared with DataAnalyzer via the cache
+        ColumnStatistics inputStats = ColumnStatistics.of(data);
+        fittedTransform = CleaningTransform.supports(data) ? CleaningTransform.fit(data, inputStats, encoding) : null;
+
         Instances cleanedData = new Instances(data);
 
         // FIX 1: Correct column names
         cleanedData = renameAttributes(cleanedData);
 
         // Step 1: Handle missing values (Imputation)
-        cleanedData = handleMissingValues(cleanedData);
+        cleanedData = handleMissingValues(cleanedData, inputStats);
 
         // Step 2: Categorical Encoding
         cleanedData = encodeNominalAttributes(cleanedData);
@@ -33,12 +61,77 @@ public class DataCleaner {
         cleanedData = removeDuplicates(cleanedData);
 
         System.out.println(" Data cleaning completed successfully.");
-        System.out.println("Final dataset: " + cleanedData.numInstances() +
-                " instances, " + cleanedData.numAttributes() + " attributes (Now fully numerical)");
+        printFinalDataset(cleanedData);
+
+        return cleanedData;
+    }
+
+    /**
+     Same result as cleanData, in a single pass over the rows: the cleaning steps are
+     compiled into a CleaningTransform from one statistics pass, then each row is
+     imputed, encoded and deduplicated on the fly. Only the output dataset is
+     materialised, instead of one full copy per filter.
+     */
+    public Instances cleanDataFused(Instances data) throws Exception {
+        if (!CleaningTransform.supports(data)) {
+            System.out.println(" Fused cleaning needs numeric and nominal attributes only, using filters.");
+            return cleanData(data);
+        }
+        System.out.println("\n  DATA CLEANING PIPELINE (fused)");
+
+        ColumnStatistics inputStats = ColumnStatistics.of(data);
+        CleaningTransform transform = CleaningTransform.fit(data, inputStats, encoding);
+        fittedTransform = transform;
+
+        long missingBefore = inputStats.totalMissing();
+        if (missingBefore > 0) {
+            System.out.println(" Handling " + missingBefore + " missing values...");
+        }
+        System.out.println(" Attributes before encoding: " + data.numAttributes());
+        for (String name : transform.getRemovedAttributes()) {
+            System.out.println(" Removing constant attribute: " + name);
+        }
+
+        Instances cleanedData = transform.getOutputStructure();
+        RowHashIndex index = new RowHashIndex(data.numInstances());
+        double[][] pending = new double[1][];
+        RowHashIndex.RowEquality equality =
+                (existing, candidate) -> RowHashIndex.sameValues(cleanedData.instance(existing), pending[0]);
+
+        double[] row = new double[transform.numOutputAttributes()];
+        for (int i = 0; i < data.numInstances(); i++) {
+            Instance instance = data.instance(i);
+            transform.apply(instance, row);
+            pending[0] = row;
+            long hashHigh = RowHashIndex.hashHigh(row);
+            long hashLow = RowHashIndex.hashLow(row);
+            if (index.findOrAdd(hashHigh, hashLow, cleanedData.numInstances(), equality) < 0) {
+                cleanedData.add(new DenseInstance(instance.weight(), row));
+                row = new double[row.length];
+            }
+        }
+
+        int duplicates = data.numInstances() - cleanedData.numInstances();
+        if (duplicates > 0) {
+            System.out.println(" Removed " + duplicates + " duplicate instances");
+        }
+
+        System.out.println(" Data cleaning completed successfully.");
+        printFinalDataset(cleanedData);
 
         return cleanedData;
     }
 
+    private void printFinalDataset(Instances cleanedData) {
+        int nominal = 0;
+        for (int i = 0; i < cleanedData.numAttributes(); i++) {
+            if (cleanedData.attribute(i).isNominal()) nominal++;
+        }
+        System.out.println("Final dataset: " + cleanedData.numInstances() + " instances, "
+                + cleanedData.numAttributes() + " attributes"
+                + (nominal == 0 ? " (Now fully numerical)" : " (" + nominal + " native categorical)"));
+    }
+
     /**
      Remove single quotes from attribute names.
      */
@@ -58,12 +151,26 @@ public class DataCleaner {
     }
 
     /**
-     Convert all nominal (categorical) attributes to binary features.
+     Convert the nominal (categorical) attributes the encoding expands to binary
+     features; with NATIVE, low-cardinality ones stay nominal.
      */
     private Instances encodeNominalAttributes(Instances data) throws Exception {
-        System.out.println(" Encoding nominal attributes to binary features...");
-
         NominalToBinary nominalToBinaryFilter = new NominalToBinary();
+        if (encoding == CategoricalEncoding.NATIVE) {
+            String expanded = CleaningTransform.expandedAttributeRange(data, encoding);
+            int nominal = 0;
+            for (int i = 0; i < data.numAttributes(); i++) {
+                if (data.attribute(i).isNominal()) nominal++;
+            }
+            System.out.println(" Keeping low-cardinality nominal attributes as native categorical columns...");
+            if (expanded.isEmpty()) {
+                System.out.println(" Nominal attributes kept: " + nominal + " (none encoded)");
+                return data;
+            }
+            nominalToBinaryFilter.setAttributeIndices(expanded);
+        } else {
+            System.out.println(" Encoding nominal attributes to binary features...");
+        }
         nominalToBinaryFilter.setInputFormat(data);
 
         Instances encodedData = Filter.useFilter(data, nominalToBinaryFilter);
@@ -75,16 +182,25 @@ public class DataCleaner {
     }
 
     /**
-     Remove attributes with zero variance (constant values).
+     Remove attributes with zero variance (constant values), and native nominal ones
+     with a single label in use.
      */
     private Instances removeConstantAttributes(Instances data) throws Exception {
         StringBuilder constantAttrs = new StringBuilder();
+        ColumnStatistics stats = ColumnStatistics.of(data);
 
         for (int i = 0; i < data.numAttributes(); i++) {
+            if (encoding == CategoricalEncoding.NATIVE && data.attribute(i).isNominal()
+                    && CleaningTransform.isConstant(stats.nominalCounts(i), data.numInstances())) {
+                if (constantAttrs.length() > 0) constantAttrs.append(",");
+                constantAttrs.append(i + 1);
+                System.out.println(" Removing constant attribute: " + data.attribute(i).name());
+                continue;
+            }
             // FIX: Removed the invalid .isBinary() check.
             // All numerical attributes, including the new binary ones, are covered by .isNumeric().
             if (data.attribute(i).isNumeric()) {
-                if (data.variance(i) == 0) {
+                if (stats.variance(i) == 0) {
                     if (constantAttrs.length() > 0) constantAttrs.append(",");
                     constantAttrs.append(i + 1);
                     System.out.println(" Removing constant attribute: " + data.attribute(i).name());
@@ -105,8 +221,8 @@ public class DataCleaner {
     /**
      Handle missing values using Weka's ReplaceMissingValues filter (Imputation).
      */
-    private Instances handleMissingValues(Instances data) throws Exception {
-        int missingBefore = countMissingValues(data);
+    private Instances handleMissingValues(Instances data, ColumnStatistics stats) throws Exception {
+        long missingBefore = stats.totalMissing();
 
         if (missingBefore > 0) {
             System.out.println(" Handling " + missingBefore + " missing values...");
@@ -115,7 +231,14 @@ public class DataCleaner {
             replaceFilter.setInputFormat(data);
             Instances cleanedData = Filter.useFilter(data, replaceFilter);
 
-            int missingAfter = countMissingValues(cleanedData);
+            // Only string/date attributes and label-less nominals are left as they are
+            long missingAfter = 0;
+            for (int i = 0; i < data.numAttributes(); i++) {
+                Attribute attr = data.attribute(i);
+                if (!attr.isNumeric() && !(attr.isNominal() && attr.numValues() > 0)) {
+                    missingAfter += stats.missingCount(i);
+                }
+            }
             System.out.println(" Missing values handled: " + missingBefore + " → " + missingAfter);
 
             return cleanedData;
@@ -126,43 +249,16 @@ public class DataCleaner {
     }
 
     /**
-     Remove duplicate instances.
+     Remove duplicate instances (first occurrence kept, see DuplicateRemover).
      */
     private Instances removeDuplicates(Instances data) {
-        java.util.HashSet<String> uniqueInstances = new java.util.HashSet<>();
-        Instances cleanedData = new Instances(data, 0);
-        int duplicatesRemoved = 0;
+        DuplicateRemover remover = new DuplicateRemover();
+        Instances cleanedData = remover.removeDuplicates(data);
 
-        for (int i = 0; i < data.numInstances(); i++) {
-            String instanceString = data.instance(i).toString();
-            if (!uniqueInstances.contains(instanceString)) {
-                uniqueInstances.add(instanceString);
-                cleanedData.add(data.instance(i));
-            } else {
-                duplicatesRemoved++;
-            }
-        }
-
-        if (duplicatesRemoved > 0) {
-            System.out.println(" Removed " + duplicatesRemoved + " duplicate instances");
+        if (remover.getDuplicatesRemoved() > 0) {
+            System.out.println(" Removed " + remover.getDuplicatesRemoved() + " duplicate instances");
         }
 
         return cleanedData;
     }
-
-    /**
-     Count total missing values in dataset.
-     */
-    private int countMissingValues(Instances data) {
-        int missingCount = 0;
-        for (int i = 0; i < data.numInstances(); i++) {
-            for (int j = 0; j < data.numAttributes(); j++) {
-                if (data.instance(i).isMissing(j)) {
-                    missingCount++;
-                }
-            }
-        }
-        return missingCount;
-    }
 }
-
@@ -4,7 +4,13 @@ import weka.core.Instances;
 import weka.core.converters.ArffSaver;
 import weka.core.converters.CSVLoader;
 import weka.core.converters.CSVSaver; // NEW Import
+import weka.core.converters.ConverterUtils.DataSource;
+import com.example.heart_disease.split.FoldIndices;
+import com.example.heart_disease.utils.FileUtils;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileWriter;
+import java.io.Writer;
 
 public class DataLoader {
 
@@ -43,15 +49,60 @@ public class DataLoader {
     }
 
     /**
-     Split data into training and testing sets (80-20 split)
+     Save dataset as CSV, ARFF and columnar cache (next to the ARFF) in one pass over
+     the rows. Same files as saveAsCSV, saveAsARFF and saveAsColumnarCache.
      */
-    public Instances[] splitTrainTest(Instances data, double trainRatio) throws Exception {
-        data.randomize(new java.util.Random(42));
-        int trainSize = (int) Math.round(data.numInstances() * trainRatio);
-        int testSize = data.numInstances() - trainSize;
+    public void saveAll(Instances data, String csvPath, String arffPath) throws Exception {
+        new DatasetWriter()
+                .csv(csvPath)
+                .arff(arffPath)
+                .columnar(FileUtils.getColumnarCachePath(arffPath))
+                .write(data);
+    }
 
-        Instances train = new Instances(data, 0, trainSize);
-        Instances test = new Instances(data, trainSize, testSize);
+    /**
+     Append rows to a CSV or ARFF file written by saveAsCSV/saveAsARFF with the same
+     header. Data lines are formatted as both savers format them.
+     */
+    public void appendRows(Instances rows, String outputPath) throws Exception {
+        try (Writer out = new BufferedWriter(new FileWriter(outputPath, true))) {
+            for (int i = 0; i < rows.numInstances(); i++) {
+                out.write(rows.instance(i).toString());
+                out.write('\n');
+            }
+        }
+        System.out.println("✓ " + rows.numInstances() + " rows appended to: " + outputPath);
+    }
+
+    /**
+     Load a cleaned dataset (ARFF or CSV). When a columnar cache at least as new as the
+     file sits next to it, the cache is memory-mapped instead of parsing the text.
+     */
+    public Instances loadDataset(String path) throws Exception {
+        String cachePath = FileUtils.getFreshCachePath(path);
+        if (cachePath != null) {
+            Instances data = ColumnarFile.read(cachePath);
+            System.out.println("✓ Dataset loaded from columnar cache: " + cachePath);
+            return data;
+        }
+        return new DataSource(path).getDataSet();
+    }
+
+    /**
+     Save dataset as a columnar cache next to the given dataset path
+     */
+    public void saveAsColumnarCache(Instances data, String datasetPath) throws Exception {
+        ColumnarFile.write(data, FileUtils.getColumnarCachePath(datasetPath));
+    }
+
+    /**
+     Split data into training and testing sets (80-20 split). The input keeps its row
+     order; both halves are views over it with the rows of data.randomize(new Random(42)).
+     */
+    public Instances[] splitTrainTest(Instances data, double trainRatio) throws Exception {
+        FoldIndices split = FoldIndices.holdout(data, trainRatio, 42, false);
+        Instances train = split.train(data, 0);
+        Instances test = split.test(data, 0);
 
         System.out.println("✓ Data split - Training: " + train.numInstances() +
                 ", Testing: " + test.numInstances());
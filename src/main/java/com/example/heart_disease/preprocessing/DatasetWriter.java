@@ -0,0 +1,305 @@
+package com.example.heart_disease.preprocessing;
+
+import weka.core.Attribute;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.Utils;
+import com.example.heart_disease.utils.FormatUtils;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ Writes a dataset to several files in one pass over the rows: CSV (as CSVSaver),
+ ARFF (as ArffSaver) and the binary columnar format (as ColumnarFile.write).
+
+ Each row is formatted once; CSV and ARFF share the same text except for the rare
+ cases where the savers differ (instance weights, labels containing a comma). Numbers
+ go through FormatUtils instead of DecimalFormat, and text is encoded into large
+ direct buffers written through NIO channels. Paths ending in ".gz" are
+ gzip-compressed. The output bytes are those of the Weka savers.
+
+ write takes a whole dataset; open returns an Appender for adding the rows in chunks.
+ */
+public class DatasetWriter {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int DECIMALS = 6;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final List<String> csvPaths = new ArrayList<>();
+    private final List<String> arffPaths = new ArrayList<>();
+    private final List<String> columnarPaths = new ArrayList<>();
+
+    public DatasetWriter csv(String path) {
+        csvPaths.add(path);
+        return this;
+    }
+
+    public DatasetWriter arff(String path) {
+        arffPaths.add(path);
+        return this;
+    }
+
+    public DatasetWriter columnar(String path) {
+        columnarPaths.add(path);
+        return this;
+    }
+
+    public void write(Instances data) throws IOException {
+        if (!csvPaths.isEmpty()) {
+            for (int i = 0; i < data.numInstances(); i++) {
+                if (data.instance(i).weight() != 1.0) {
+                    // CSVSaver refuses these as well; the weights would be lost
+                    throw new IOException("CSV output does not support instance weights other than 1");
+                }
+            }
+        }
+        try (Appender appender = open(data, data.numInstances())) {
+            appender.add(data);
+        }
+    }
+
+    /**
+     Start the files for a dataset with this header whose rows are then added in
+     chunks, so the whole dataset never has to be in memory. The columnar format lays
+     columns out back to back, so the final number of rows must be known up front.
+     */
+    public Appender open(Instances structure, int numInstances) throws IOException {
+        return new Appender(structure, numInstances);
+    }
+
+    /**
+     Files opened by open; close once every row has been added.
+     */
+    public final class Appender implements AutoCloseable {
+        private final String[][] csvLabels;
+        private final String[][] arffLabels;
+        private final boolean[] plainNumeric;
+        private final List<TextSink> csvSinks = new ArrayList<>();
+        private final List<TextSink> arffSinks = new ArrayList<>();
+        private final List<ColumnarFile.RowWriter> columnarSinks = new ArrayList<>();
+        private final StringBuilder csvRow = new StringBuilder(256);
+        private final StringBuilder arffRow = new StringBuilder(256);
+        private boolean sameText = true;
+        private boolean failed;
+
+        private Appender(Instances data, int numInstances) throws IOException {
+            int numAttributes = data.numAttributes();
+            csvLabels = new String[numAttributes][];
+            arffLabels = new String[numAttributes][];
+            plainNumeric = new boolean[numAttributes];
+            for (int j = 0; j < numAttributes; j++) {
+                Attribute attr = data.attribute(j);
+                plainNumeric[j] = attr.isNumeric() && !attr.isDate();
+                if (attr.isNominal() || attr.isString()) {
+                    csvLabels[j] = new String[attr.numValues()];
+                    arffLabels[j] = new String[attr.numValues()];
+                    for (int v = 0; v < attr.numValues(); v++) {
+                        arffLabels[j][v] = Utils.quote(attr.value(v));
+                        csvLabels[j][v] = csvField(arffLabels[j][v]);
+                        sameText &= csvLabels[j][v].equals(arffLabels[j][v]);
+                    }
+                }
+            }
+
+            try {
+                for (String path : csvPaths) {
+                    TextSink sink = new TextSink(path);
+                    csvSinks.add(sink);
+                    StringBuilder header = new StringBuilder();
+                    for (int j = 0; j < numAttributes; j++) {
+                        if (j > 0) header.append(',');
+                        header.append(Utils.quote(data.attribute(j).name()));
+                    }
+                    header.append(LINE_SEPARATOR);
+                    sink.write(header);
+                }
+                for (String path : arffPaths) {
+                    TextSink sink = new TextSink(path);
+                    arffSinks.add(sink);
+                    sink.write(new Instances(data, 0).toString());
+                }
+                for (String path : columnarPaths) {
+                    columnarSinks.add(new ColumnarFile.RowWriter(data, numInstances, path));
+                }
+            } catch (IOException e) {
+                failed = true;
+                closeSinks();
+                throw e;
+            }
+        }
+
+        /**
+         Append rows laid out like the header given to open (nominal labels may only
+         have been appended since).
+         */
+        public void add(Instances rows) throws IOException {
+            for (int i = 0; i < rows.numInstances(); i++) {
+                add(rows.instance(i));
+            }
+        }
+
+        public void add(Instance instance) throws IOException {
+            try {
+                if (!csvSinks.isEmpty() && instance.weight() != 1.0) {
+                    throw new IOException("CSV output does not support instance weights other than 1");
+                }
+                if (!csvSinks.isEmpty() || !arffSinks.isEmpty()) {
+                    formatRow(instance, plainNumeric, csvLabels, csvRow);
+                    StringBuilder row = csvRow;
+                    if (!arffSinks.isEmpty() && (!sameText || instance.weight() != 1.0)) {
+                        formatRow(instance, plainNumeric, arffLabels, arffRow);
+                        if (instance.weight() != 1.0) {
+                            arffRow.append(",{").append(Utils.doubleToString(instance.weight(), DECIMALS)).append('}');
+                        }
+                        row = arffRow;
+                    }
+                    csvRow.append(LINE_SEPARATOR);
+                    if (row != csvRow) row.append(LINE_SEPARATOR);
+                    for (TextSink sink : csvSinks) sink.write(csvRow);
+                    for (TextSink sink : arffSinks) sink.write(row);
+                }
+                for (ColumnarFile.RowWriter sink : columnarSinks) {
+                    sink.add(instance);
+                }
+            } catch (IOException e) {
+                failed = true;
+                throw e;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOException failure = closeSinks();
+            if (failure != null) throw failure;
+            if (failed) return;
+
+            for (String path : csvPaths) System.out.println("✓ Dataset saved as CSV: " + path);
+            for (String path : arffPaths) System.out.println("✓ Dataset saved as ARFF: " + path);
+            for (String path : columnarPaths) System.out.println("✓ Dataset saved as columnar cache: " + path);
+        }
+
+        private IOException closeSinks() {
+            IOException failure = null;
+            for (TextSink sink : csvSinks) failure = closeQuietly(sink, failure);
+            for (TextSink sink : arffSinks) failure = closeQuietly(sink, failure);
+            for (ColumnarFile.RowWriter sink : columnarSinks) failure = closeQuietly(sink, failure);
+            csvSinks.clear();
+            arffSinks.clear();
+            columnarSinks.clear();
+            return failure;
+        }
+    }
+
+    /**
+     One data line without line separator, values as Instance.toString(index, 6) gives them.
+     */
+    private static void formatRow(Instance instance, boolean[] plainNumeric, String[][] labels, StringBuilder out) {
+        out.setLength(0);
+        for (int j = 0; j < instance.numAttributes(); j++) {
+            if (j > 0) out.append(',');
+            double value = instance.value(j);
+            if (Utils.isMissingValue(value)) {
+                out.append('?');
+            } else if (labels[j] != null) {
+                out.append(labels[j][(int) value]);
+            } else if (plainNumeric[j]) {
+                FormatUtils.appendDouble(out, value, DECIMALS);
+            } else {
+                out.append(instance.toString(j, DECIMALS));
+            }
+        }
+    }
+
+    /**
+     CSVSaver wraps a field in single quotes when it contains the separator and is not quoted yet.
+     */
+    private static String csvField(String field) {
+        if (field.contains(",") && !(field.startsWith("'") && field.endsWith("'"))) {
+            return "'" + field + "'";
+        }
+        return field;
+    }
+
+    private static IOException closeQuietly(AutoCloseable sink, IOException failure) {
+        try {
+            sink.close();
+        } catch (Exception e) {
+            if (failure == null) {
+                failure = e instanceof IOException ? (IOException) e : new IOException(e);
+            }
+        }
+        return failure;
+    }
+
+    /**
+     Text file written through a direct buffer; ASCII characters are copied straight in,
+     anything else goes through the platform charset like the savers' FileWriter.
+     */
+    private static final class TextSink implements AutoCloseable {
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final Charset charset = Charset.defaultCharset();
+
+        TextSink(String path) throws IOException {
+            if (path.endsWith(".gz")) {
+                channel = Channels.newChannel(new GZIPOutputStream(new FileOutputStream(path), BUFFER_SIZE));
+            } else {
+                channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            }
+        }
+
+        void write(CharSequence text) throws IOException {
+            int length = text.length();
+            for (int i = 0; i < length; i++) {
+                char c = text.charAt(i);
+                if (c >= 0x80) {
+                    writeEncoded(text.subSequence(i, length).toString());
+                    return;
+                }
+                if (!buffer.hasRemaining()) flush();
+                buffer.put((byte) c);
+            }
+        }
+
+        private void writeEncoded(String text) throws IOException {
+            byte[] bytes = text.getBytes(charset);
+            int offset = 0;
+            while (offset < bytes.length) {
+                if (!buffer.hasRemaining()) flush();
+                int count = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, count);
+                offset += count;
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.heart_disease.preprocessing;
+
+import weka.core.Instances;
+
+import java.util.HashSet;
+import java.util.stream.IntStream;
+
+/**
+ Duplicate-row removal keeping the first occurrence of each row, in original order.
+
+ Rows are hashed from their raw double values (128-bit, in parallel), then
+ partitioned by hash into shards that are deduplicated independently on separate
+ cores. Equal hashes are confirmed by an exact value comparison.
+ */
+public class DuplicateRemover {
+
+    private final int numShards;
+    private int duplicatesRemoved;
+
+    public DuplicateRemover() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public DuplicateRemover(int parallelism) {
+        this.numShards = Integer.highestOneBit(Math.max(1, parallelism) * 2 - 1);
+    }
+
+    public int getDuplicatesRemoved() {
+        return duplicatesRemoved;
+    }
+
+    /**
+     Remove duplicate instances (hash-partitioned, parallel).
+     */
+    public Instances removeDuplicates(Instances data) {
+        int numRows = data.numInstances();
+        long[] hashHigh = new long[numRows];
+        long[] hashLow = new long[numRows];
+        IntStream.range(0, numRows).parallel().forEach(row -> {
+            hashHigh[row] = RowHashIndex.hashHigh(data.instance(row));
+            hashLow[row] = RowHashIndex.hashLow(data.instance(row));
+        });
+
+        // Every shard walks the rows in order, so the first occurrence is the one kept
+        boolean[] keep = new boolean[numRows];
+        int shardBits = Integer.numberOfTrailingZeros(numShards);
+        RowHashIndex.RowEquality equality =
+                (existing, candidate) -> RowHashIndex.sameValues(data.instance(existing), data.instance(candidate));
+        IntStream.range(0, numShards).parallel().forEach(shard -> {
+            RowHashIndex index = new RowHashIndex(numRows / numShards + 1);
+            for (int row = 0; row < numRows; row++) {
+                if (shardBits > 0 && (int) (hashLow[row] >>> (64 - shardBits)) != shard) continue;
+                keep[row] = index.findOrAdd(hashHigh[row], hashLow[row], row, equality) < 0;
+            }
+        });
+
+        Instances cleanedData = new Instances(data, numRows);
+        for (int row = 0; row < numRows; row++) {
+            if (keep[row]) {
+                cleanedData.add(data.instance(row));
+            }
+        }
+        duplicatesRemoved = numRows - cleanedData.numInstances();
+        return cleanedData;
+    }
+
+    /**
+     Previous implementation: one formatted string per row in a HashSet. Rows count as
+     equal when they print the same (values rounded to 6 decimals). Kept for comparison.
+     */
+    public Instances removeDuplicatesByString(Instances data) {
+        HashSet<String> uniqueInstances = new HashSet<>();
+        Instances cleanedData = new Instances(data, 0);
+
+        for (int i = 0; i < data.numInstances(); i++) {
+            String instanceString = data.instance(i).toString();
+            if (uniqueInstances.add(instanceString)) {
+                cleanedData.add(data.instance(i));
+            }
+        }
+        duplicatesRemoved = data.numInstances() - cleanedData.numInstances();
+        return cleanedData;
+    }
+}
@@ -0,0 +1,356 @@
+package com.example.heart_disease.preprocessing;
+
+import weka.core.DenseInstance;
+import weka.core.Instances;
+import weka.core.SerializationHelper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ Incremental Step 1: remembers how far the raw CSV has been cleaned and, when rows
+ have only been appended since, cleans just the new tail.
+
+ The state file keeps the byte offset reached, checksums of the header line and of
+ the last processed line (to detect edits, truncation or a different file), running
+ totals for the imputation values, the fitted CleaningTransform and a hash-only
+ RowHashIndex of every cleaned row written so far, so new rows can be deduplicated
+ against the whole history without reading it. The encoded layout stays the one
+ fitted on the first full run; labels first seen in a delta are imputed.
+
+ Only complete lines are taken: a delta stops at the last newline, so a row still
+ being written is left for the next run. The state also records the length of each
+ cleaned output it covers, and is replaced atomically (temp file + rename) only
+ after the outputs have been appended. A run interrupted between the appends and
+ the save leaves outputs longer than recorded; discardPartialAppends cuts them back
+ before the delta is appended again, so no row is written twice.
+ */
+public class IncrementalPreprocessor {
+
+    private final String statePath;
+    private State state;
+    private int duplicatesRemoved;
+    private int rowsRead;
+
+    public IncrementalPreprocessor(String statePath) {
+        this.statePath = statePath;
+    }
+
+    /**
+     Everything remembered between runs.
+     */
+    private static final class State implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        String inputPath;
+        long headerChecksum;
+        long offset;
+        long lastLineStart;
+        long lastLineChecksum;
+        CleaningTransform transform;
+        RowHashIndex index;
+        int rowsWritten;
+        double[] sums;
+        double[] weights;
+        int[][] labelCounts;
+        String[] outputPaths = new String[0];
+        long[] outputLengths = new long[0];
+    }
+
+    /**
+     Load the saved state and check that the CSV still starts with the rows it covers.
+     Returns false (full run needed) when there is no usable state.
+     */
+    public boolean canResume(String csvPath) {
+        File stateFile = new File(statePath);
+        if (!stateFile.exists()) {
+            return false;
+        }
+        try {
+            State saved = (State) SerializationHelper.read(statePath);
+            File input = new File(csvPath);
+            if (!input.getCanonicalPath().equals(saved.inputPath)) {
+                System.out.println(" Incremental state is for another input, full run needed.");
+                return false;
+            }
+            try (RandomAccessFile file = new RandomAccessFile(input, "r")) {
+                if (file.length() < saved.offset
+                        || checksum(file, 0, headerEnd(file)) != saved.headerChecksum
+                        || checksum(file, saved.lastLineStart, saved.offset) != saved.lastLineChecksum) {
+                    System.out.println(" Input was modified before the last processed row, full run needed.");
+                    return false;
+                }
+            }
+            state = saved;
+            return true;
+        } catch (Exception e) {
+            System.out.println(" Incremental state unreadable (" + e.getMessage() + "), full run needed.");
+            return false;
+        }
+    }
+
+    /**
+     Start the state from a full run: the raw data as loaded, the cleaned rows written
+     and the transform fitted on them.
+     */
+    public void initialize(String csvPath, Instances rawData, Instances cleanedData,
+                           CleaningTransform transform) throws Exception {
+        RowHashIndex index = new RowHashIndex(cleanedData.numInstances());
+        for (int row = 0; row < cleanedData.numInstances(); row++) {
+            index.findOrAdd(RowHashIndex.hashHigh(cleanedData.instance(row)),
+                    RowHashIndex.hashLow(cleanedData.instance(row)), row, null);
+        }
+        initialize(csvPath, rawData, ColumnStatistics.of(rawData), index, transform);
+    }
+
+    /**
+     Start the state from a streamed full run (see StreamingPreprocessor): the raw
+     header and statistics, and the hash index of the cleaned rows written.
+     */
+    public void initialize(String csvPath, Instances rawStructure, ColumnStatistics stats, RowHashIndex index,
+                           CleaningTransform transform) throws Exception {
+        State fresh = new State();
+        File input = new File(csvPath);
+        fresh.inputPath = input.getCanonicalPath();
+        try (RandomAccessFile file = new RandomAccessFile(input, "r")) {
+            fresh.headerChecksum = checksum(file, 0, headerEnd(file));
+            fresh.offset = file.length();
+            fresh.lastLineStart = lastLineStart(file, fresh.offset);
+            fresh.lastLineChecksum = checksum(file, fresh.lastLineStart, fresh.offset);
+        }
+        fresh.transform = transform;
+        fresh.index = index;
+        fresh.rowsWritten = index.size();
+
+        int numAttributes = rawStructure.numAttributes();
+        fresh.sums = new double[numAttributes];
+        fresh.weights = new double[numAttributes];
+        fresh.labelCounts = new int[numAttributes][];
+        for (int j = 0; j < numAttributes; j++) {
+            if (rawStructure.attribute(j).isNominal()) {
+                fresh.labelCounts[j] = stats.nominalCounts(j).clone();
+            } else {
+                fresh.weights[j] = stats.count(j);
+                fresh.sums[j] = stats.mean(j) * stats.count(j);
+            }
+        }
+        state = fresh;
+    }
+
+    /**
+     Read and clean the rows appended after the saved offset. Returns the new cleaned
+     rows that are not duplicates of anything written before.
+     */
+    public Instances processDelta() throws IOException {
+        List<double[]> inputs = new ArrayList<>();
+        long lastLineStart = state.lastLineStart;
+        long offset = state.offset;
+        try (RandomAccessFile file = new RandomAccessFile(state.inputPath, "r")) {
+            long length = file.length();
+            long position = offset;
+            file.seek(position);
+            byte[] buffer = new byte[1 << 16];
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            long lineStart = position;
+            while (position < length) {
+                int read = file.read(buffer, 0, (int) Math.min(buffer.length, length - position));
+                if (read < 0) break;
+                for (int i = 0; i < read; i++) {
+                    position++;
+                    if (buffer[i] == '\n') {
+                        if (addLine(line, inputs)) {
+                            lastLineStart = lineStart;
+                            offset = position;
+                        }
+                        line.reset();
+                        lineStart = position;
+                    } else {
+                        line.write(buffer[i]);
+                    }
+                }
+            }
+            // A last line without newline may still be being written: it waits for the next run
+            rowsRead = inputs.size();
+
+            // Running imputation totals include the delta before it is cleaned
+            for (double[] input : inputs) {
+                for (int j = 0; j < input.length; j++) {
+                    if (Double.isNaN(input[j])) continue;
+                    if (state.labelCounts[j] != null) {
+                        state.labelCounts[j][(int) input[j]]++;
+                    } else {
+                        state.sums[j] += input[j];
+                        state.weights[j]++;
+                    }
+                }
+            }
+            state.transform = state.transform.withRunningStatistics(state.sums, state.weights, state.labelCounts);
+
+            Instances cleaned = state.transform.getOutputStructure();
+            for (double[] input : inputs) {
+                double[] row = state.transform.applyValues(input);
+                long hashHigh = RowHashIndex.hashHigh(row);
+                long hashLow = RowHashIndex.hashLow(row);
+                if (state.index.findOrAdd(hashHigh, hashLow, state.rowsWritten, null) < 0) {
+                    cleaned.add(new DenseInstance(1.0, row));
+                    state.rowsWritten++;
+                }
+            }
+            duplicatesRemoved = inputs.size() - cleaned.numInstances();
+
+            if (offset > state.offset) {
+                state.lastLineStart = lastLineStart;
+                state.lastLineChecksum = checksum(file, lastLineStart, offset);
+                state.offset = offset;
+            }
+            return cleaned;
+        }
+    }
+
+    private boolean addLine(ByteArrayOutputStream line, List<double[]> inputs) {
+        String text = new String(line.toByteArray(), StandardCharsets.UTF_8);
+        if (text.endsWith("\r")) {
+            text = text.substring(0, text.length() - 1);
+        }
+        if (text.trim().isEmpty()) {
+            return false;
+        }
+        inputs.add(state.transform.parseFields(StreamingCSVLoader.splitLine(text)));
+        return true;
+    }
+
+    /**
+     Remember the current length of each cleaned output; call once they are complete,
+     before save.
+     */
+    public void recordOutputs(String... paths) throws IOException {
+        state.outputPaths = new String[paths.length];
+        state.outputLengths = new long[paths.length];
+        for (int i = 0; i < paths.length; i++) {
+            File output = new File(paths[i]);
+            state.outputPaths[i] = output.getCanonicalPath();
+            state.outputLengths[i] = output.length();
+        }
+    }
+
+    /**
+     Truncate outputs that grew past their recorded length, the rows appended by a run
+     that stopped before saving its state. Returns false (full run needed) when an
+     output is missing or shorter than recorded.
+     */
+    public boolean discardPartialAppends() throws IOException {
+        if (state.outputPaths == null) {
+            // State saved before output lengths were recorded
+            return true;
+        }
+        for (int i = 0; i < state.outputPaths.length; i++) {
+            File output = new File(state.outputPaths[i]);
+            if (!output.exists() || output.length() < state.outputLengths[i]) {
+                System.out.println(" " + output + " is shorter than the incremental state, full run needed.");
+                return false;
+            }
+            if (output.length() > state.outputLengths[i]) {
+                try (RandomAccessFile file = new RandomAccessFile(output, "rw")) {
+                    file.setLength(state.outputLengths[i]);
+                }
+                System.out.println("✓ Unsaved rows of an interrupted run removed from: " + output);
+            }
+        }
+        return true;
+    }
+
+    /**
+     Write the state to a temporary file and rename it over the previous one, so a crash
+     leaves either the old or the new state.
+     */
+    public void save() throws Exception {
+        Path target = Paths.get(statePath);
+        Path temp = Paths.get(statePath + ".tmp");
+        SerializationHelper.write(temp.toString(), state);
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        System.out.println("✓ Incremental state saved to: " + statePath);
+    }
+
+    /**
+     Remove a saved state, so the next incremental run starts from a full run.
+     */
+    public static void delete(String statePath) throws IOException {
+        Files.deleteIfExists(Paths.get(statePath));
+        Files.deleteIfExists(Paths.get(statePath + ".tmp"));
+    }
+
+    public CleaningTransform getTransform() {
+        return state.transform;
+    }
+
+    public int getRowsRead() {
+        return rowsRead;
+    }
+
+    public int getDuplicatesRemoved() {
+        return duplicatesRemoved;
+    }
+
+    public int getRowsWritten() {
+        return state.rowsWritten;
+    }
+
+    private static long headerEnd(RandomAccessFile file) throws IOException {
+        file.seek(0);
+        int b;
+        while ((b = file.read()) >= 0 && b != '\n') {
+            // skip to the end of the header line
+        }
+        return file.getFilePointer();
+    }
+
+    /**
+     Start of the last non-empty line ending at or before end.
+     */
+    private static long lastLineStart(RandomAccessFile file, long end) throws IOException {
+        long position = end;
+        // Skip trailing line breaks
+        while (position > 0) {
+            file.seek(position - 1);
+            int b = file.read();
+            if (b != '\n' && b != '\r') break;
+            position--;
+        }
+        while (position > 0) {
+            file.seek(position - 1);
+            if (file.read() == '\n') break;
+            position--;
+        }
+        return position;
+    }
+
+    private static long checksum(RandomAccessFile file, long from, long to) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[8192];
+        file.seek(from);
+        long remaining = to - from;
+        while (remaining > 0) {
+            int read = file.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read < 0) break;
+            crc.update(buffer, 0, read);
+            remaining -= read;
+        }
+        return crc.getValue() ^ ((to - from) << 32);
+    }
+}
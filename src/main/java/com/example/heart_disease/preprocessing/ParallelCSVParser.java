@@ -0,0 +1,490 @@
+package com.example.heart_disease.preprocessing;
+
+import weka.core.Instances;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ Parallel CSV parser. The file is memory-mapped, cut into ranges on line boundaries
+ and each range is parsed on its own thread straight into primitive columns: double[]
+ for numeric columns, dictionary-encoded int[] for nominal ones. Produces the same
+ Instances as DataLoader.loadCSV (same typing rule, labels in order of first appearance).
+ */
+public class ParallelCSVParser {
+
+    private static final long MAX_RANGE_BYTES = 1L << 30;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final int numThreads;
+
+    public ParallelCSVParser() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public ParallelCSVParser(int numThreads) {
+        this.numThreads = Math.max(1, numThreads);
+    }
+
+    /**
+     Load dataset from CSV file (drop-in for DataLoader.loadCSV)
+     */
+    public Instances loadCSV(String filePath) throws Exception {
+        Instances data = parse(filePath).toInstances();
+        System.out.println("✓ Dataset parsed (" + numThreads + " threads): " + data.numInstances() +
+                " instances, " + data.numAttributes() + " attributes");
+        return data;
+    }
+
+    /**
+     Parse a CSV file into columnar arrays.
+     */
+    public ColumnarData parse(String filePath) throws IOException {
+        File file = new File(filePath);
+
+        // Column names and types come from a sample; a numeric column that later turns
+        // out to contain text is re-parsed as nominal, which keeps CSVLoader's typing exact
+        Instances sampled;
+        try (StreamingCSVLoader sampler = new StreamingCSVLoader(filePath)) {
+            sampled = sampler.getStructure();
+        }
+        int numColumns = sampled.numAttributes();
+        String[] names = new String[numColumns];
+        boolean[] nominal = new boolean[numColumns];
+        for (int col = 0; col < numColumns; col++) {
+            names[col] = sampled.attribute(col).name();
+            nominal[col] = sampled.attribute(col).isNominal();
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long[] bounds = splitRanges(channel);
+            while (true) {
+                try {
+                    List<RangeResult> results = parseRanges(channel, bounds, nominal);
+                    return merge(sampled.relationName(), names, nominal, results);
+                } catch (TypeMismatchException e) {
+                    nominal[e.column] = true;
+                }
+            }
+        }
+    }
+
+    private List<RangeResult> parseRanges(FileChannel channel, long[] bounds, boolean[] nominal) throws IOException {
+        int numRanges = bounds.length - 1;
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(numThreads, numRanges));
+        try {
+            List<Future<RangeResult>> futures = new ArrayList<>();
+            for (int r = 0; r < numRanges; r++) {
+                long start = bounds[r];
+                long end = bounds[r + 1];
+                futures.add(executor.submit(() -> parseRange(channel.map(FileChannel.MapMode.READ_ONLY,
+                        start, end - start), nominal)));
+            }
+            List<RangeResult> results = new ArrayList<>();
+            for (Future<RangeResult> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TypeMismatchException) {
+                throw (TypeMismatchException) e.getCause();
+            }
+            throw new IOException("CSV parsing failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("CSV parsing interrupted", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     Range boundaries: the data section (after the header line) cut into roughly equal
+     pieces, each moved forward to the start of the next line.
+     */
+    private long[] splitRanges(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long dataStart = nextLineStart(channel, 0);
+        long dataBytes = size - dataStart;
+        int numRanges = (int) Math.max(numThreads, (dataBytes + MAX_RANGE_BYTES - 1) / MAX_RANGE_BYTES);
+        if (dataBytes < 1 << 20) {
+            numRanges = 1;
+        }
+
+        long[] bounds = new long[numRanges + 1];
+        bounds[0] = dataStart;
+        int count = 1;
+        for (int r = 1; r < numRanges; r++) {
+            long candidate = nextLineStart(channel, dataStart + dataBytes * r / numRanges - 1);
+            if (candidate > bounds[count - 1] && candidate < size) {
+                bounds[count++] = candidate;
+            }
+        }
+        bounds[count++] = size;
+        return Arrays.copyOf(bounds, count);
+    }
+
+    /**
+     Offset just after the first '\n' at or after position (file size if none).
+     */
+    private static long nextLineStart(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long pos = position;
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, pos);
+            if (read <= 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return pos + i + 1;
+                }
+            }
+            pos += read;
+        }
+    }
+
+    private RangeResult parseRange(MappedByteBuffer buffer, boolean[] nominal) {
+        int numColumns = nominal.length;
+        RangeResult result = new RangeResult(numColumns, nominal, Math.max(16, buffer.limit() / 128));
+        int limit = buffer.limit();
+        int pos = 0;
+
+        while (pos < limit) {
+            int lineEnd = pos;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int contentEnd = lineEnd;
+            if (contentEnd > pos && buffer.get(contentEnd - 1) == '\r') {
+                contentEnd--;
+            }
+            if (contentEnd > pos) {
+                int row = result.newRow();
+                int fieldStart = pos;
+                for (int col = 0; col < numColumns; col++) {
+                    if (fieldStart > contentEnd) {
+                        // Short row: remaining columns are missing
+                        result.store(buffer, row, col, contentEnd, contentEnd);
+                        continue;
+                    }
+                    int fieldEnd = findFieldEnd(buffer, fieldStart, contentEnd);
+                    result.store(buffer, row, col, fieldStart, fieldEnd);
+                    fieldStart = fieldEnd + 1;
+                }
+            }
+            pos = lineEnd + 1;
+        }
+        return result;
+    }
+
+    private static int findFieldEnd(ByteBuffer buffer, int start, int end) {
+        byte quote = 0;
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (quote != 0) {
+                if (b == quote) quote = 0;
+            } else if (b == '"' || b == '\'') {
+                quote = b;
+            } else if (b == ',') {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    private static ColumnarData merge(String relationName, String[] names, boolean[] nominal,
+                                      List<RangeResult> results) {
+        int numColumns = names.length;
+        int numRows = 0;
+        for (RangeResult result : results) {
+            numRows += result.rows;
+        }
+
+        double[][] numeric = new double[numColumns][];
+        int[][] codes = new int[numColumns][];
+        String[][] labels = new String[numColumns][];
+
+        for (int col = 0; col < numColumns; col++) {
+            if (!nominal[col]) {
+                numeric[col] = new double[numRows];
+                int offset = 0;
+                for (RangeResult result : results) {
+                    System.arraycopy(result.numeric[col], 0, numeric[col], offset, result.rows);
+                    offset += result.rows;
+                }
+                continue;
+            }
+
+            // Ranges are visited in file order, so the global dictionary keeps first-appearance order
+            ByteDictionary global = new ByteDictionary();
+            codes[col] = new int[numRows];
+            int offset = 0;
+            for (RangeResult result : results) {
+                ByteDictionary local = result.dictionaries[col];
+                int[] remap = new int[local.size];
+                for (int code = 0; code < local.size; code++) {
+                    byte[] key = local.keys[code];
+                    remap[code] = global.lookupOrAdd(ByteBuffer.wrap(key), 0, key.length);
+                }
+                int[] localCodes = result.codes[col];
+                for (int row = 0; row < result.rows; row++) {
+                    int code = localCodes[row];
+                    codes[col][offset + row] = code < 0 ? -1 : remap[code];
+                }
+                offset += result.rows;
+            }
+            labels[col] = global.labels();
+        }
+
+        return new ColumnarData(relationName, names, numeric, codes, labels, numRows);
+    }
+
+    /**
+     Parse a number from ASCII bytes. Up to 15 significant digits and a decimal exponent
+     within +/-22 are computed exactly with one multiply or divide (the result is then
+     correctly rounded, as Double.parseDouble would give); anything else falls back to
+     Double.parseDouble. Throws NumberFormatException for non-numeric text.
+     */
+    static double parseDouble(ByteBuffer buffer, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int significantDigits = 0;
+        int scale = 0;
+        boolean seenDot = false;
+        boolean seenDigit = false;
+        int exponent = 0;
+        boolean fastPath = true;
+
+        for (; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b >= '0' && b <= '9') {
+                seenDigit = true;
+                if (mantissa != 0 || b != '0') {
+                    significantDigits++;
+                }
+                if (significantDigits > 15) {
+                    fastPath = false;
+                    break;
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                if (seenDot) scale--;
+            } else if (b == '.' && !seenDot) {
+                seenDot = true;
+            } else if ((b == 'e' || b == 'E') && seenDigit && i + 1 < end) {
+                int j = i + 1;
+                boolean negativeExponent = false;
+                if (buffer.get(j) == '-' || buffer.get(j) == '+') {
+                    negativeExponent = buffer.get(j) == '-';
+                    j++;
+                }
+                if (j >= end || end - j > 3) {
+                    fastPath = false;
+                    break;
+                }
+                for (; j < end; j++) {
+                    byte d = buffer.get(j);
+                    if (d < '0' || d > '9') {
+                        fastPath = false;
+                        break;
+                    }
+                    exponent = exponent * 10 + (d - '0');
+                }
+                if (negativeExponent) exponent = -exponent;
+                i = end;
+                break;
+            } else {
+                fastPath = false;
+                break;
+            }
+        }
+
+        int power = scale + exponent;
+        if (fastPath && seenDigit && power >= -22 && power <= 22) {
+            double value = mantissa;
+            value = power >= 0 ? value * POWERS_OF_TEN[power] : value / POWERS_OF_TEN[-power];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(new String(ascii(buffer, start, end), StandardCharsets.US_ASCII));
+    }
+
+    private static byte[] ascii(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        for (int i = start; i < end; i++) {
+            bytes[i - start] = buffer.get(i);
+        }
+        return bytes;
+    }
+
+    /**
+     Columns parsed from one range of the file.
+     */
+    private static final class RangeResult {
+        final boolean[] nominal;
+        final double[][] numeric;
+        final int[][] codes;
+        final ByteDictionary[] dictionaries;
+        int rows;
+        int capacity;
+
+        RangeResult(int numColumns, boolean[] nominal, int initialCapacity) {
+            this.nominal = nominal;
+            this.capacity = initialCapacity;
+            numeric = new double[numColumns][];
+            codes = new int[numColumns][];
+            dictionaries = new ByteDictionary[numColumns];
+            for (int col = 0; col < numColumns; col++) {
+                if (nominal[col]) {
+                    codes[col] = new int[capacity];
+                    dictionaries[col] = new ByteDictionary();
+                } else {
+                    numeric[col] = new double[capacity];
+                }
+            }
+        }
+
+        int newRow() {
+            if (rows == capacity) {
+                capacity = capacity + (capacity >> 1) + 1;
+                for (int col = 0; col < nominal.length; col++) {
+                    if (nominal[col]) {
+                        codes[col] = Arrays.copyOf(codes[col], capacity);
+                    } else {
+                        numeric[col] = Arrays.copyOf(numeric[col], capacity);
+                    }
+                }
+            }
+            return rows++;
+        }
+
+        void store(ByteBuffer buffer, int row, int col, int start, int end) {
+            // Trim blanks and surrounding quotes, like the CSVLoader tokenizer
+            while (start < end && buffer.get(start) == ' ') start++;
+            while (end > start && buffer.get(end - 1) == ' ') end--;
+            if (end - start >= 2) {
+                byte first = buffer.get(start);
+                if ((first == '"' || first == '\'') && buffer.get(end - 1) == first) {
+                    start++;
+                    end--;
+                }
+            }
+            boolean missing = start == end || (end - start == 1 && buffer.get(start) == '?');
+
+            if (nominal[col]) {
+                codes[col][row] = missing ? -1 : dictionaries[col].lookupOrAdd(buffer, start, end - start);
+            } else if (missing) {
+                numeric[col][row] = weka.core.Utils.missingValue();
+            } else {
+                try {
+                    numeric[col][row] = parseDouble(buffer, start, end);
+                } catch (NumberFormatException e) {
+                    throw new TypeMismatchException(col);
+                }
+            }
+        }
+    }
+
+    /**
+     Open-addressing dictionary from raw label bytes to codes assigned in insertion order.
+     Avoids creating a String per field; labels are only decoded once, at merge time.
+     */
+    private static final class ByteDictionary {
+        byte[][] keys = new byte[8][];
+        int[] hashes = new int[8];
+        int size;
+        int[] table = new int[16];
+
+        int lookupOrAdd(ByteBuffer buffer, int start, int length) {
+            int hash = 1;
+            for (int i = start; i < start + length; i++) {
+                hash = 31 * hash + buffer.get(i);
+            }
+            int mask = table.length - 1;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (table[slot] != 0) {
+                int code = table[slot] - 1;
+                if (hashes[code] == hash && matches(keys[code], buffer, start, length)) {
+                    return code;
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                hashes = Arrays.copyOf(hashes, size * 2);
+            }
+            byte[] key = new byte[length];
+            for (int i = 0; i < length; i++) {
+                key[i] = buffer.get(start + i);
+            }
+            keys[size] = key;
+            hashes[size] = hash;
+            table[slot] = size + 1;
+            size++;
+            if (size * 2 > table.length) {
+                rehash();
+            }
+            return size - 1;
+        }
+
+        private static boolean matches(byte[] key, ByteBuffer buffer, int start, int length) {
+            if (key.length != length) return false;
+            for (int i = 0; i < length; i++) {
+                if (key[i] != buffer.get(start + i)) return false;
+            }
+            return true;
+        }
+
+        private void rehash() {
+            table = new int[table.length * 2];
+            int mask = table.length - 1;
+            for (int code = 0; code < size; code++) {
+                int slot = (hashes[code] ^ (hashes[code] >>> 16)) & mask;
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = code + 1;
+            }
+        }
+
+        String[] labels() {
+            String[] labels = new String[size];
+            for (int code = 0; code < size; code++) {
+                labels[code] = new String(keys[code], StandardCharsets.UTF_8);
+            }
+            return labels;
+        }
+    }
+
+    private static final class TypeMismatchException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int column;
+
+        TypeMismatchException(int column) {
+            super("Non-numeric value in column " + column, null, false, false);
+            this.column = column;
+        }
+    }
+}
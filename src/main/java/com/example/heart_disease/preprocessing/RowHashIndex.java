@@ -0,0 +1,173 @@
+package com.example.heart_disease.preprocessing;
+
+import weka.core.Instance;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ Open-addressing set of rows keyed by a 128-bit hash of their raw double values.
+ Stores only the two hash halves and a row id per entry, so no per-row objects are
+ allocated. When a RowEquality is supplied, matching hashes are confirmed by an exact
+ comparison; without one the 128-bit hash alone decides.
+ */
+public class RowHashIndex implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private static final long HIGH_SEED = 0x9E3779B97F4A7C15L;
+    private static final long LOW_SEED = 0xC2B2AE3D27D4EB4FL;
+
+    /**
+     Exact comparison of two rows by id.
+     */
+    public interface RowEquality {
+        boolean sameRow(int existingRow, int candidateRow);
+    }
+
+    private long[] high;
+    private long[] low;
+    private int[] rows;
+    private int size;
+
+    public RowHashIndex(int expectedRows) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedRows * 2 - 1)) << 1;
+        high = new long[capacity];
+        low = new long[capacity];
+        rows = new int[capacity];
+        Arrays.fill(rows, -1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     Add the row unless an equal row is already present.
+     Returns -1 when added, otherwise the id of the row already present.
+     */
+    public int findOrAdd(long hashHigh, long hashLow, int row, RowEquality equality) {
+        int mask = rows.length - 1;
+        int slot = (int) (hashHigh ^ (hashHigh >>> 32)) & mask;
+        while (rows[slot] >= 0) {
+            if (high[slot] == hashHigh && low[slot] == hashLow
+                    && (equality == null || equality.sameRow(rows[slot], row))) {
+                return rows[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        high[slot] = hashHigh;
+        low[slot] = hashLow;
+        rows[slot] = row;
+        size++;
+        if (size * 2 > rows.length) {
+            grow();
+        }
+        return -1;
+    }
+
+    private void grow() {
+        long[] oldHigh = high;
+        long[] oldLow = low;
+        int[] oldRows = rows;
+        high = new long[oldRows.length * 2];
+        low = new long[oldRows.length * 2];
+        rows = new int[oldRows.length * 2];
+        Arrays.fill(rows, -1);
+        int mask = rows.length - 1;
+        for (int i = 0; i < oldRows.length; i++) {
+            if (oldRows[i] < 0) continue;
+            int slot = (int) (oldHigh[i] ^ (oldHigh[i] >>> 32)) & mask;
+            while (rows[slot] >= 0) {
+                slot = (slot + 1) & mask;
+            }
+            high[slot] = oldHigh[i];
+            low[slot] = oldLow[i];
+            rows[slot] = oldRows[i];
+        }
+    }
+
+    /**
+     First half of the 128-bit row hash. Missing values (NaN) hash alike.
+     */
+    public static long hashHigh(Instance instance) {
+        long h = HIGH_SEED;
+        for (int j = 0; j < instance.numAttributes(); j++) {
+            h = stepHigh(h, instance.value(j));
+        }
+        return finish(h ^ instance.numAttributes());
+    }
+
+    public static long hashHigh(double[] values) {
+        long h = HIGH_SEED;
+        for (double value : values) {
+            h = stepHigh(h, value);
+        }
+        return finish(h ^ values.length);
+    }
+
+    /**
+     Second, independently seeded half of the 128-bit row hash.
+     */
+    public static long hashLow(Instance instance) {
+        long h = LOW_SEED;
+        for (int j = 0; j < instance.numAttributes(); j++) {
+            h = stepLow(h, instance.value(j));
+        }
+        return finish(h ^ ((long) instance.numAttributes() << 32));
+    }
+
+    public static long hashLow(double[] values) {
+        long h = LOW_SEED;
+        for (double value : values) {
+            h = stepLow(h, value);
+        }
+        return finish(h ^ ((long) values.length << 32));
+    }
+
+    /**
+     Exact row comparison on raw bits (NaN equals NaN, 0.0 differs from -0.0).
+     */
+    public static boolean sameValues(Instance a, Instance b) {
+        int numAttributes = a.numAttributes();
+        if (numAttributes != b.numAttributes()) return false;
+        for (int j = 0; j < numAttributes; j++) {
+            if (Double.doubleToLongBits(a.value(j)) != Double.doubleToLongBits(b.value(j))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static boolean sameValues(Instance a, double[] b) {
+        if (a.numAttributes() != b.length) return false;
+        for (int j = 0; j < b.length; j++) {
+            if (Double.doubleToLongBits(a.value(j)) != Double.doubleToLongBits(b[j])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long stepHigh(long h, double value) {
+        return Long.rotateLeft(h ^ mix(Double.doubleToLongBits(value)), 27) * 0x87C37B91114253D5L;
+    }
+
+    private static long stepLow(long h, double value) {
+        return Long.rotateLeft(h + Double.doubleToLongBits(value) * 0x4CF5AD432745937FL, 31)
+                * 0x52DCE729L + 0x38495AB5L;
+    }
+
+    private static long mix(long k) {
+        k *= 0x87C37B91114253D5L;
+        k = Long.rotateLeft(k, 31);
+        return k * 0x4CF5AD432745937FL;
+    }
+
+    private static long finish(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+}
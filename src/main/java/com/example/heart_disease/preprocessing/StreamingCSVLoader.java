@@ -0,0 +1,236 @@
+package com.example.heart_disease.preprocessing;
+
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instances;
+import weka.core.Utils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ Streaming CSV reader. The schema (numeric vs nominal, nominal labels) is inferred
+ from a bounded sample of rows at the top of the file; afterwards the file is handed
+ out as fixed-size Instances chunks, so memory stays bounded by sample + chunk size.
+
+ Nominal labels first seen after the sample are appended to the attribute, so label
+ indices already handed out in earlier chunks stay valid and the latest chunk always
+ carries the most complete header. Text in a column sampled as numeric cannot be
+ represented and is read as missing (and counted).
+ */
+public class StreamingCSVLoader implements AutoCloseable {
+
+    public static final int DEFAULT_SAMPLE_SIZE = 1000;
+    public static final int DEFAULT_CHUNK_SIZE = 5000;
+
+    private final BufferedReader reader;
+    private Instances structure;
+    private final Deque<String[]> pendingRows = new ArrayDeque<>();
+    private long rowsRead;
+    private long unmatchedValues;
+
+    public StreamingCSVLoader(String filePath, int sampleSize) throws IOException {
+        File file = new File(filePath);
+        reader = new BufferedReader(new FileReader(file), 1 << 16);
+
+        String headerLine = reader.readLine();
+        if (headerLine == null) {
+            reader.close();
+            throw new IOException("Empty CSV file: " + filePath);
+        }
+        String[] header = splitLine(headerLine);
+
+        String line;
+        while (pendingRows.size() < sampleSize && (line = reader.readLine()) != null) {
+            if (!line.isEmpty()) {
+                pendingRows.add(splitLine(line));
+            }
+        }
+
+        structure = inferStructure(relationName(file), header, pendingRows);
+    }
+
+    public StreamingCSVLoader(String filePath) throws IOException {
+        this(filePath, DEFAULT_SAMPLE_SIZE);
+    }
+
+    /**
+     Header inferred from the sample (no rows).
+     */
+    public Instances getStructure() {
+        return new Instances(structure, 0);
+    }
+
+    /**
+     Read the next chunk of at most chunkSize rows, or null once the file is exhausted.
+     */
+    public Instances nextChunk(int chunkSize) throws IOException {
+        List<double[]> rows = new ArrayList<>(chunkSize);
+        String line;
+        while (rows.size() < chunkSize) {
+            String[] fields;
+            if (!pendingRows.isEmpty()) {
+                fields = pendingRows.poll();
+            } else if ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) continue;
+                fields = splitLine(line);
+            } else {
+                break;
+            }
+            rows.add(toValues(fields));
+            rowsRead++;
+        }
+        if (rows.isEmpty()) {
+            return null;
+        }
+
+        // Header is taken after the rows are parsed so it includes any labels they added
+        Instances chunk = new Instances(structure, rows.size());
+        for (double[] values : rows) {
+            chunk.add(new DenseInstance(1.0, values));
+        }
+        return chunk;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    /**
+     Number of values read as missing because they were text in a numeric column.
+     */
+    public long getUnmatchedValues() {
+        return unmatchedValues;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private double[] toValues(String[] fields) {
+        double[] values = new double[structure.numAttributes()];
+        for (int j = 0; j < values.length; j++) {
+            String field = j < fields.length ? fields[j] : null;
+            if (isMissing(field)) {
+                values[j] = Utils.missingValue();
+                continue;
+            }
+            Attribute attr = structure.attribute(j);
+            if (attr.isNumeric()) {
+                try {
+                    values[j] = Double.parseDouble(field);
+                } catch (NumberFormatException e) {
+                    values[j] = Utils.missingValue();
+                    unmatchedValues++;
+                }
+            } else {
+                int index = attr.indexOfValue(field);
+                if (index < 0) {
+                    index = appendLabel(j, field);
+                }
+                values[j] = index;
+            }
+        }
+        return values;
+    }
+
+    private int appendLabel(int attrIndex, String label) {
+        Attribute attr = structure.attribute(attrIndex);
+        List<String> labels = new ArrayList<>(attr.numValues() + 1);
+        for (int v = 0; v < attr.numValues(); v++) {
+            labels.add(attr.value(v));
+        }
+        labels.add(label);
+        structure.replaceAttributeAt(new Attribute(attr.name(), labels), attrIndex);
+        return labels.size() - 1;
+    }
+
+    /**
+     Same typing rule as CSVLoader: a column is numeric when every non-missing value
+     parses as a number, otherwise nominal with labels in order of first appearance.
+     */
+    static Instances inferStructure(String relationName, String[] header, Iterable<String[]> sample) {
+        int numColumns = header.length;
+        boolean[] numeric = new boolean[numColumns];
+        List<LinkedHashSet<String>> labels = new ArrayList<>();
+        for (int j = 0; j < numColumns; j++) {
+            numeric[j] = true;
+            labels.add(new LinkedHashSet<>());
+        }
+
+        for (String[] row : sample) {
+            for (int j = 0; j < numColumns && j < row.length; j++) {
+                if (isMissing(row[j])) continue;
+                labels.get(j).add(row[j]);
+                if (numeric[j] && !isNumber(row[j])) {
+                    numeric[j] = false;
+                }
+            }
+        }
+
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        for (int j = 0; j < numColumns; j++) {
+            if (numeric[j]) {
+                attributes.add(new Attribute(header[j]));
+            } else {
+                attributes.add(new Attribute(header[j], new ArrayList<>(labels.get(j))));
+            }
+        }
+        return new Instances(relationName, attributes, 0);
+    }
+
+    static String relationName(File file) {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    static boolean isMissing(String field) {
+        return field == null || field.isEmpty() || field.equals("?");
+    }
+
+    private static boolean isNumber(String field) {
+        try {
+            Double.parseDouble(field);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     Split one CSV line on commas, honouring single or double quoted fields.
+     */
+    public static String[] splitLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        char quote = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == ',') {
+                fields.add(current.toString().trim());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString().trim());
+        return fields.toArray(new String[0]);
+    }
+}
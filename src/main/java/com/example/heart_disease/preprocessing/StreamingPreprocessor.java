@@ -0,0 +1,219 @@
+package com.example.heart_disease.preprocessing;
+
+import weka.core.DenseInstance;
+import weka.core.Instance;
+import weka.core.Instances;
+
+import java.util.BitSet;
+
+/**
+ Step 1 for inputs larger than memory: the CSV is read in chunks by StreamingCSVLoader
+ and each chunk is cleaned by a CleaningTransform and written by DatasetWriter as it
+ arrives, so neither the raw nor the cleaned dataset is ever held in full.
+
+ The file is read three times:
+   1. column statistics and imputation totals, to fit the transform
+   2. cleaned rows hashed to find the duplicates (first occurrence kept, hashes only,
+      as IncrementalPreprocessor does)
+   3. cleaned rows that are kept written to CSV, ARFF and the columnar cache, whose
+      layout needs the final row count up front
+
+ Memory is bounded by the chunk size plus 16 bytes of hash and one bit per row. The
+ outputs are those of DataCleaner.cleanDataFused on the same rows.
+ */
+public class StreamingPreprocessor {
+
+    private final CategoricalEncoding encoding;
+    private int sampleSize = StreamingCSVLoader.DEFAULT_SAMPLE_SIZE;
+    private int chunkSize = StreamingCSVLoader.DEFAULT_CHUNK_SIZE;
+
+    private Instances inputStructure;
+    private ColumnStatistics inputStatistics;
+    private ColumnStatistics outputStatistics;
+    private CleaningTransform transform;
+    private RowHashIndex index;
+    private long rowsRead;
+    private long unmatchedValues;
+
+    private interface ChunkHandler {
+        void handle(Instances chunk) throws Exception;
+    }
+
+    public StreamingPreprocessor(CategoricalEncoding encoding) {
+        this.encoding = encoding;
+    }
+
+    /**
+     Rows the schema is inferred from (default 1000)
+     */
+    public void setSampleSize(int sampleSize) {
+        this.sampleSize = sampleSize;
+    }
+
+    /**
+     Rows read, cleaned and written at a time (default 5000)
+     */
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     Clean csvPath into the CSV, ARFF and columnar cache outputs.
+     */
+    public void run(String csvPath, String cleanedCsvPath, String cleanedArffPath, String columnarPath)
+            throws Exception {
+        System.out.println("\n  DATA CLEANING PIPELINE (streaming, chunks of " + chunkSize + " rows)");
+
+        // Pass 1: statistics, plus the imputation means summed in row order as ReplaceMissingValues does
+        Instances[] header = new Instances[1];
+        ColumnStatistics[] stats = new ColumnStatistics[1];
+        double[][] sums = new double[1][];
+        double[][] weights = new double[1][];
+        int[][][] labelCounts = new int[1][][];
+        rowsRead = forEachChunk(csvPath, chunk -> {
+            if (stats[0] == null) {
+                stats[0] = ColumnStatistics.compute(new Instances(chunk, 0));
+                sums[0] = new double[chunk.numAttributes()];
+                weights[0] = new double[chunk.numAttributes()];
+            }
+            stats[0] = stats[0].plus(chunk);
+            header[0] = new Instances(chunk, 0);
+            for (int i = 0; i < chunk.numInstances(); i++) {
+                Instance instance = chunk.instance(i);
+                for (int j = 0; j < chunk.numAttributes(); j++) {
+                    double value = instance.value(j);
+                    if (!Double.isNaN(value) && chunk.attribute(j).isNumeric()) {
+                        sums[0][j] += instance.weight() * value;
+                        weights[0][j] += instance.weight();
+                    }
+                }
+            }
+        });
+        if (header[0] == null) {
+            try (StreamingCSVLoader loader = new StreamingCSVLoader(csvPath, sampleSize)) {
+                header[0] = loader.getStructure();
+            }
+            stats[0] = ColumnStatistics.compute(header[0]);
+            sums[0] = new double[header[0].numAttributes()];
+            weights[0] = new double[header[0].numAttributes()];
+        }
+        if (unmatchedValues > 0) {
+            System.out.println(" " + unmatchedValues + " non-numeric values in numeric columns were read as missing");
+        }
+        inputStructure = header[0];
+        inputStatistics = stats[0];
+        labelCounts[0] = new int[inputStructure.numAttributes()][];
+        for (int j = 0; j < inputStructure.numAttributes(); j++) {
+            if (inputStructure.attribute(j).isNominal()) {
+                labelCounts[0][j] = inputStatistics.nominalCounts(j);
+            }
+        }
+        transform = CleaningTransform.fit(inputStructure, inputStatistics, encoding)
+                .withRunningStatistics(sums[0], weights[0], labelCounts[0]);
+        System.out.println("✓ Dataset streamed: " + rowsRead + " instances, " +
+                inputStructure.numAttributes() + " attributes");
+
+        long missingBefore = inputStatistics.totalMissing();
+        if (missingBefore > 0) {
+            System.out.println(" Handling " + missingBefore + " missing values...");
+        }
+        System.out.println(" Attributes before encoding: " + inputStructure.numAttributes());
+        for (String name : transform.getRemovedAttributes()) {
+            System.out.println(" Removing constant attribute: " + name);
+        }
+
+        // Pass 2: which rows are the first of their cleaned values
+        index = new RowHashIndex(chunkSize);
+        BitSet kept = new BitSet();
+        int[] row = new int[1];
+        double[] values = new double[transform.numOutputAttributes()];
+        forEachChunk(csvPath, chunk -> {
+            for (int i = 0; i < chunk.numInstances(); i++, row[0]++) {
+                transform.apply(chunk.instance(i), values);
+                if (index.findOrAdd(RowHashIndex.hashHigh(values), RowHashIndex.hashLow(values),
+                        index.size(), null) < 0) {
+                    kept.set(row[0]);
+                }
+            }
+        });
+        int numKept = index.size();
+        if (rowsRead > numKept) {
+            System.out.println(" Removed " + (rowsRead - numKept) + " duplicate instances");
+        }
+
+        // Pass 3: clean and write the kept rows chunk by chunk
+        Instances outputStructure = transform.getOutputStructure();
+        if (outputStructure.classIndex() < 0) {
+            outputStructure.setClassIndex(outputStructure.numAttributes() - 1);
+        }
+        DatasetWriter writer = new DatasetWriter().csv(cleanedCsvPath).arff(cleanedArffPath).columnar(columnarPath);
+        ColumnStatistics[] cleanedStats = {ColumnStatistics.compute(outputStructure)};
+        row[0] = 0;
+        try (DatasetWriter.Appender appender = writer.open(outputStructure, numKept)) {
+            forEachChunk(csvPath, chunk -> {
+                Instances cleaned = new Instances(outputStructure, chunk.numInstances());
+                for (int i = 0; i < chunk.numInstances(); i++, row[0]++) {
+                    if (kept.get(row[0])) {
+                        Instance instance = chunk.instance(i);
+                        cleaned.add(new DenseInstance(instance.weight(), transform.apply(instance)));
+                    }
+                }
+                appender.add(cleaned);
+                cleanedStats[0] = cleanedStats[0].plus(cleaned);
+            });
+        }
+        outputStatistics = cleanedStats[0];
+
+        System.out.println(" Data cleaning completed successfully.");
+        int nominal = 0;
+        for (int k = 0; k < outputStructure.numAttributes(); k++) {
+            if (outputStructure.attribute(k).isNominal()) nominal++;
+        }
+        System.out.println("Final dataset: " + numKept + " instances, " + outputStructure.numAttributes()
+                + " attributes" + (nominal == 0 ? " (Now fully numerical)" : " (" + nominal + " native categorical)"));
+    }
+
+    private long forEachChunk(String csvPath, ChunkHandler handler) throws Exception {
+        try (StreamingCSVLoader loader = new StreamingCSVLoader(csvPath, sampleSize)) {
+            Instances chunk;
+            while ((chunk = loader.nextChunk(chunkSize)) != null) {
+                handler.handle(chunk);
+            }
+            unmatchedValues = loader.getUnmatchedValues();
+            return loader.getRowsRead();
+        }
+    }
+
+    /**
+     Raw header with every label seen in the file
+     */
+    public Instances getInputStructure() {
+        return inputStructure;
+    }
+
+    public ColumnStatistics getInputStatistics() {
+        return inputStatistics;
+    }
+
+    /**
+     Statistics of the cleaned rows written, for DataAnalyzer
+     */
+    public ColumnStatistics getOutputStatistics() {
+        return outputStatistics;
+    }
+
+    public CleaningTransform getTransform() {
+        return transform;
+    }
+
+    /**
+     Hashes of the cleaned rows written, for IncrementalPreprocessor
+     */
+    public RowHashIndex getIndex() {
+        return index;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+}
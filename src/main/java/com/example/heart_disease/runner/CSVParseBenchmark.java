@@ -0,0 +1,130 @@
+package com.example.heart_disease.runner;
+
+import weka.core.Instances;
+import com.example.heart_disease.preprocessing.DataLoader;
+import com.example.heart_disease.preprocessing.ParallelCSVParser;
+import com.example.heart_disease.utils.FileUtils;
+import com.example.heart_disease.utils.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ Compares CSVLoader (DataLoader.loadCSV) with ParallelCSVParser on synthetic inputs
+ built by repeating the rows of heart_disease.csv.
+
+ Usage: CSVParseBenchmark [rows,rows,...]   (default 1000000,10000000)
+ */
+public class CSVParseBenchmark {
+
+    public static void main(String[] args) {
+        PrintWriter writer = null;
+        try {
+            String sizes = args.length > 0 ? args[0] : "1000000,10000000";
+
+            writer = FileUtils.createOutputWriter(FileUtils.getOutputPath("Benchmark_CSVParse.txt"));
+            Logger logger = new Logger(writer);
+
+            logger.log("=== BENCHMARK: CSV PARSING (CSVLoader vs ParallelCSVParser) ===\n");
+            logger.log("Threads available: " + Runtime.getRuntime().availableProcessors());
+            logger.log("Max heap: " + (Runtime.getRuntime().maxMemory() >> 20) + " MB");
+            logger.log("");
+
+            String source = FileUtils.resolveDataPath("src/main/resources/heart_disease.csv");
+            for (String size : sizes.split(",")) {
+                runSize(logger, source, Integer.parseInt(size.trim()));
+            }
+
+            logger.log("=== BENCHMARK COMPLETED ===");
+
+        } catch (Exception e) {
+            System.err.println("❌ Error in CSV benchmark: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            if (writer != null) {
+                writer.close();
+                System.out.println("\n✓ Output saved to: docs/output/Benchmark_CSVParse.txt");
+            }
+        }
+    }
+
+    private static void runSize(Logger logger, String source, int rows) throws Exception {
+        File input = File.createTempFile("heart_disease_" + rows + "_", ".csv");
+        input.deleteOnExit();
+        writeSynthetic(source, input, rows);
+
+        logger.log("---- " + rows + " rows (" + (input.length() >> 20) + " MB) ----");
+
+        Instances parallel = null;
+        long parallelMs = -1;
+        try {
+            System.gc();
+            long start = System.nanoTime();
+            parallel = new ParallelCSVParser().loadCSV(input.getPath());
+            parallelMs = (System.nanoTime() - start) / 1_000_000;
+            logger.log("ParallelCSVParser: " + parallelMs + " ms");
+        } catch (OutOfMemoryError e) {
+            logger.log("ParallelCSVParser: out of memory");
+        }
+
+        // Keep only a small fingerprint so CSVLoader gets the whole heap
+        String parallelHeader = parallel != null ? new Instances(parallel, 0).toString() : null;
+        long parallelChecksum = parallel != null ? checksum(parallel) : 0;
+        parallel = null;
+
+        try {
+            System.gc();
+            long start = System.nanoTime();
+            Instances baseline = new DataLoader().loadCSV(input.getPath());
+            long baselineMs = (System.nanoTime() - start) / 1_000_000;
+            logger.log("CSVLoader:         " + baselineMs + " ms");
+            if (parallelMs > 0) {
+                logger.log(String.format("Speedup:           %.2fx", baselineMs / (double) parallelMs));
+                boolean same = new Instances(baseline, 0).toString().equals(parallelHeader)
+                        && checksum(baseline) == parallelChecksum;
+                logger.log("Same header and rows: " + (same ? "yes" : "NO"));
+            }
+        } catch (OutOfMemoryError e) {
+            logger.log("CSVLoader:         out of memory");
+        }
+
+        logger.log("");
+        input.delete();
+    }
+
+    private static long checksum(Instances data) {
+        long hash = 1;
+        for (int i = 0; i < data.numInstances(); i++) {
+            for (int j = 0; j < data.numAttributes(); j++) {
+                hash = 31 * hash + Double.doubleToLongBits(data.instance(i).value(j));
+            }
+        }
+        return hash;
+    }
+
+    private static void writeSynthetic(String source, File output, int rows) throws Exception {
+        List<String> lines = new ArrayList<>();
+        String header;
+        try (BufferedReader reader = new BufferedReader(new FileReader(source))) {
+            header = reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) lines.add(line);
+            }
+        }
+        try (BufferedWriter out = new BufferedWriter(new FileWriter(output), 1 << 16)) {
+            out.write(header);
+            out.newLine();
+            for (int i = 0; i < rows; i++) {
+                out.write(lines.get(i % lines.size()));
+                out.newLine();
+            }
+        }
+    }
+}
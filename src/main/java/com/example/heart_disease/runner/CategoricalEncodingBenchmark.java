@@ -0,0 +1,133 @@
+package com.example.heart_disease.runner;
+
+import weka.classifiers.Classifier;
+import weka.classifiers.Evaluation;
+import weka.classifiers.trees.J48;
+import weka.classifiers.trees.RandomForest;
+import weka.core.Instances;
+import com.example.heart_disease.classification.boosting.GradientBoostedTrees;
+import com.example.heart_disease.classification.crossvalidation.CrossValidation;
+import com.example.heart_disease.classification.histogram.FeatureBinning;
+import com.example.heart_disease.classification.histogram.HistogramForest;
+import com.example.heart_disease.classification.j48.J48Classifier;
+import com.example.heart_disease.preprocessing.CategoricalEncoding;
+import com.example.heart_disease.preprocessing.ColumnarFile;
+import com.example.heart_disease.preprocessing.DataCleaner;
+import com.example.heart_disease.preprocessing.DataLoader;
+import com.example.heart_disease.split.FoldIndices;
+import com.example.heart_disease.utils.BenchmarkUtils;
+import com.example.heart_disease.utils.FileUtils;
+import com.example.heart_disease.utils.Logger;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.function.Supplier;
+
+/**
+ One-hot against native categorical encoding of the raw dataset: size of the cleaned
+ data (Weka rows, columnar cache, binned tree columns), histogram bins a tree node
+ scans, and 10-fold cross-validation time and quality of the tree learners on both.
+
+ Usage: CategoricalEncodingBenchmark [rawCsvPath]
+ */
+public class CategoricalEncodingBenchmark {
+
+    private static final int FOLDS = 10;
+
+    public static void main(String[] args) {
+        PrintWriter writer = null;
+        try {
+            String csvPath = FileUtils.resolveDataPath(args.length > 0 ? args[0] : "src/main/resources/heart_disease.csv");
+
+            writer = FileUtils.createOutputWriter(FileUtils.getOutputPath("Benchmark_CategoricalEncoding.txt"));
+            Logger logger = new Logger(writer);
+
+            logger.log("=== BENCHMARK: CATEGORICAL ENCODING (one-hot vs native) ===\n");
+
+            Instances raw = new DataLoader().loadCSV(csvPath);
+            CategoricalEncoding[] encodings = CategoricalEncoding.values();
+            Instances[] cleaned = new Instances[encodings.length];
+            for (int e = 0; e < encodings.length; e++) {
+                DataCleaner cleaner = new DataCleaner();
+                cleaner.setCategoricalEncoding(encodings[e]);
+                Instances data = cleaner.cleanDataFused(new Instances(raw));
+                data.setClassIndex(data.numAttributes() - 1);
+                cleaned[e] = new J48Classifier(logger).prepareData(data);
+            }
+            logger.log("");
+            logger.log("✓ Raw data: " + csvPath + " (" + raw.numInstances() + " rows, " + raw.numAttributes()
+                    + " attributes)");
+            logger.log("");
+
+            logger.log("---- Data size ----");
+            logger.log(String.format("%-28s | %-26s | %-26s", "", encodings[0].getLabel(), encodings[1].getLabel()));
+            logger.log(String.format("%-28s | %26d | %26d", "Attributes", cleaned[0].numAttributes(),
+                    cleaned[1].numAttributes()));
+            logger.log(String.format("%-28s | %26s | %26s", "Weka rows (8-byte values)",
+                    BenchmarkUtils.formatBytes(8L * cleaned[0].numInstances() * cleaned[0].numAttributes()),
+                    BenchmarkUtils.formatBytes(8L * cleaned[1].numInstances() * cleaned[1].numAttributes())));
+            logger.log(String.format("%-28s | %26s | %26s", "Columnar cache file",
+                    BenchmarkUtils.formatBytes(columnarSize(cleaned[0])),
+                    BenchmarkUtils.formatBytes(columnarSize(cleaned[1]))));
+            FeatureBinning[] binnings = {FeatureBinning.fit(cleaned[0], FeatureBinning.MAX_BINS),
+                    FeatureBinning.fit(cleaned[1], FeatureBinning.MAX_BINS)};
+            logger.log(String.format("%-28s | %26s | %26s", "Binned tree columns",
+                    BenchmarkUtils.formatBytes((long) binnings[0].numFeatures() * cleaned[0].numInstances()),
+                    BenchmarkUtils.formatBytes((long) binnings[1].numFeatures() * cleaned[1].numInstances())));
+            logger.log(String.format("%-28s | %26d | %26d", "Histogram bins per node", totalBins(binnings[0]),
+                    totalBins(binnings[1])));
+            logger.log("");
+
+            logger.log("---- " + FOLDS + "-fold cross-validation ----");
+            logger.log(String.format("%-28s | %-26s | %10s | %8s | %6s", "Model", "Encoding", "Time", "Accuracy", "AUC"));
+            evaluate(logger, "J48", J48::new, encodings, cleaned);
+            evaluate(logger, "Random Forest (100 trees)", RandomForest::new, encodings, cleaned);
+            evaluate(logger, "Histogram Forest (100 trees)", HistogramForest::new, encodings, cleaned);
+            evaluate(logger, "Gradient Boosted Trees", GradientBoostedTrees::new, encodings, cleaned);
+            logger.log("");
+            logger.log("J48 and Random Forest split nominal attributes multiway (Weka); the histogram");
+            logger.log("learners split them into two category subsets.");
+            logger.log("");
+            logger.log("=== BENCHMARK COMPLETED ===");
+
+        } catch (Exception e) {
+            System.err.println("❌ Error in categorical encoding benchmark: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            if (writer != null) {
+                writer.close();
+                System.out.println("\n✓ Output saved to: docs/output/Benchmark_CategoricalEncoding.txt");
+            }
+        }
+    }
+
+    private static void evaluate(Logger logger, String name, Supplier<Classifier> classifier,
+                                 CategoricalEncoding[] encodings, Instances[] cleaned) throws Exception {
+        for (int e = 0; e < encodings.length; e++) {
+            long start = System.currentTimeMillis();
+            Evaluation eval = CrossValidation.crossValidate(classifier.get(), cleaned[e],
+                    FoldIndices.crossValidation(cleaned[e], FOLDS, 1));
+            long time = System.currentTimeMillis() - start;
+            logger.log(String.format("%-28s | %-26s | %7d ms | %7.2f%% | %6.4f", e == 0 ? name : "",
+                    encodings[e].getLabel(), time, eval.pctCorrect(), eval.areaUnderROC(1)));
+        }
+    }
+
+    private static long columnarSize(Instances data) throws Exception {
+        File file = File.createTempFile("encoding", ".col");
+        try {
+            ColumnarFile.write(data, file.getPath());
+            return file.length();
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static int totalBins(FeatureBinning binning) {
+        int bins = 0;
+        for (int f = 0; f < binning.numFeatures(); f++) {
+            bins += binning.numBins(f) + 1;
+        }
+        return bins;
+    }
+}
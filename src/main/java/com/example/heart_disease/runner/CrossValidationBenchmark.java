@@ -0,0 +1,105 @@
+package com.example.heart_disease.runner;
+
+import weka.classifiers.Classifier;
+import weka.classifiers.Evaluation;
+import weka.classifiers.trees.J48;
+import weka.classifiers.trees.RandomForest;
+import weka.core.Instances;
+import com.example.heart_disease.classification.crossvalidation.CrossValidation;
+import com.example.heart_disease.classification.j48.J48Classifier;
+import com.example.heart_disease.preprocessing.DataLoader;
+import com.example.heart_disease.split.FoldIndices;
+import com.example.heart_disease.utils.FileUtils;
+import com.example.heart_disease.utils.Logger;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ Wall-clock time of 10-fold cross-validation run serially and with the fold-parallel
+ engine at increasing thread counts, and whether the parallel results are identical.
+
+ Usage: CrossValidationBenchmark [threads,threads,...]   (default 1,2,4,... up to the core count)
+ */
+public class CrossValidationBenchmark {
+
+    private static final int FOLDS = 10;
+
+    public static void main(String[] args) {
+        PrintWriter writer = null;
+        try {
+            int cores = Runtime.getRuntime().availableProcessors();
+            List<Integer> threadCounts = new ArrayList<>();
+            if (args.length > 0) {
+                for (String count : args[0].split(",")) {
+                    threadCounts.add(Integer.parseInt(count.trim()));
+                }
+            } else {
+                for (int count = 2; count < cores; count *= 2) {
+                    threadCounts.add(count);
+                }
+                threadCounts.add(Math.max(2, cores));
+            }
+
+            writer = FileUtils.createOutputWriter(FileUtils.getOutputPath("Benchmark_CrossValidation.txt"));
+            Logger logger = new Logger(writer);
+
+            logger.log("=== BENCHMARK: " + FOLDS + "-FOLD CROSS-VALIDATION (serial vs fold-parallel) ===\n");
+            logger.log("Cores available: " + cores);
+
+            String dataPath = FileUtils.resolveDataPath("src/main/resources/heart_disease_cleaned.arff");
+            Instances data = new J48Classifier(logger).prepareData(new DataLoader().loadDataset(dataPath));
+            FoldIndices folds = FoldIndices.crossValidation(data, FOLDS, 1);
+            logger.log("");
+
+            RandomForest forest = new RandomForest();
+            forest.setNumIterations(100);
+            Classifier[] classifiers = {new J48(), forest};
+            String[] names = {"J48", "Random Forest (100 trees)"};
+
+            for (int c = 0; c < classifiers.length; c++) {
+                logger.log("---- " + names[c] + " ----");
+                long start = System.currentTimeMillis();
+                Evaluation serial = CrossValidation.crossValidate(classifiers[c], data, folds);
+                long serialTime = System.currentTimeMillis() - start;
+                String expected = fingerprint(serial);
+
+                logger.log(String.format("%-10s | %10s | %8s | %9s", "Threads", "Wall time", "Speedup", "Identical"));
+                logger.log(String.format("%-10s | %7d ms | %7.2fx | %9s", "serial", serialTime, 1.0, "-"));
+                for (int threads : threadCounts) {
+                    start = System.currentTimeMillis();
+                    Evaluation parallel = CrossValidation.crossValidate(classifiers[c], data, folds, threads, null);
+                    long time = System.currentTimeMillis() - start;
+                    logger.log(String.format("%-10d | %7d ms | %7.2fx | %9s", threads, time,
+                            serialTime / (double) Math.max(1, time),
+                            fingerprint(parallel).equals(expected) ? "yes" : "NO"));
+                }
+                logger.log("");
+            }
+            logger.log("=== BENCHMARK COMPLETED ===");
+
+        } catch (Exception e) {
+            System.err.println("❌ Error in cross-validation benchmark: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            if (writer != null) {
+                writer.close();
+                System.out.println("\n✓ Output saved to: docs/output/Benchmark_CrossValidation.txt");
+            }
+        }
+    }
+
+    /**
+     Everything an Evaluation reports, down to the individual predictions.
+     */
+    private static String fingerprint(Evaluation eval) throws Exception {
+        StringBuilder text = new StringBuilder(eval.toSummaryString(true))
+                .append(eval.toMatrixString())
+                .append(eval.toClassDetailsString());
+        for (Object prediction : eval.predictions()) {
+            text.append(prediction).append('\n');
+        }
+        return text.toString();
+    }
+}
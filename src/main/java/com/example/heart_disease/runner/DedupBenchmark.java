@@ -0,0 +1,101 @@
+package com.example.heart_disease.runner;
+
+import weka.core.DenseInstance;
+import weka.core.Instances;
+import com.example.heart_disease.preprocessing.DataLoader;
+import com.example.heart_disease.preprocessing.DuplicateRemover;
+import com.example.heart_disease.utils.BenchmarkUtils;
+import com.example.heart_disease.utils.FileUtils;
+import com.example.heart_disease.utils.Logger;
+
+import java.io.PrintWriter;
+
+/**
+ Compares the string-based duplicate removal with the hash-partitioned one on
+ synthetic data built from the cleaned dataset (about half of the rows repeated).
+
+ Usage: DedupBenchmark [rows,rows,...]   (default 100000,1000000)
+ */
+public class DedupBenchmark {
+
+    public static void main(String[] args) {
+        PrintWriter writer = null;
+        try {
+            String sizes = args.length > 0 ? args[0] : "100000,1000000";
+
+            writer = FileUtils.createOutputWriter(FileUtils.getOutputPath("Benchmark_Dedup.txt"));
+            Logger logger = new Logger(writer);
+
+            logger.log("=== BENCHMARK: DUPLICATE REMOVAL (toString HashSet vs 128-bit row hash) ===\n");
+            logger.log("Threads available: " + Runtime.getRuntime().availableProcessors());
+            logger.log("");
+
+            String dataPath = FileUtils.resolveDataPath("src/main/resources/heart_disease_cleaned.arff");
+            Instances base = new DataLoader().loadDataset(dataPath);
+
+            for (String size : sizes.split(",")) {
+                Instances data = synthesize(base, Integer.parseInt(size.trim()));
+                logger.log("---- " + data.numInstances() + " rows, " + data.numAttributes() + " attributes ----");
+
+                DuplicateRemover remover = new DuplicateRemover();
+                remover.removeDuplicates(synthesize(base, 20000));  // warm-up
+                remover.removeDuplicatesByString(synthesize(base, 20000));
+
+                long[] legacy = measure(() -> remover.removeDuplicatesByString(data));
+                int legacyRemoved = remover.getDuplicatesRemoved();
+                long[] hashed = measure(() -> remover.removeDuplicates(data));
+                int hashedRemoved = remover.getDuplicatesRemoved();
+
+                logger.log(String.format("%-22s | %14s | %18s | %9s", "Implementation", "Time", "Throughput", "Allocated"));
+                logger.log(String.format("%-22s | %11d ms | %18s | %9s", "toString + HashSet",
+                        legacy[0] / 1_000_000, BenchmarkUtils.formatRate(data.numInstances(), legacy[0]),
+                        BenchmarkUtils.formatBytes(legacy[1])));
+                logger.log(String.format("%-22s | %11d ms | %18s | %9s", "128-bit hash, sharded",
+                        hashed[0] / 1_000_000, BenchmarkUtils.formatRate(data.numInstances(), hashed[0]),
+                        BenchmarkUtils.formatBytes(hashed[1])));
+                logger.log("Duplicates removed: " + legacyRemoved + " (string) / " + hashedRemoved + " (hash)");
+                logger.log(String.format("Speedup: %.2fx", legacy[0] / (double) hashed[0]));
+                logger.log("");
+            }
+
+            logger.log("=== BENCHMARK COMPLETED ===");
+
+        } catch (Exception e) {
+            System.err.println("❌ Error in dedup benchmark: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            if (writer != null) {
+                writer.close();
+                System.out.println("\n✓ Output saved to: docs/output/Benchmark_Dedup.txt");
+            }
+        }
+    }
+
+    private static long[] measure(Runnable task) {
+        System.gc();
+        long bytesBefore = BenchmarkUtils.allocatedBytes();
+        long start = System.nanoTime();
+        task.run();
+        long nanos = System.nanoTime() - start;
+        long bytesAfter = BenchmarkUtils.allocatedBytes();
+        return new long[]{nanos, bytesBefore < 0 ? -1 : bytesAfter - bytesBefore};
+    }
+
+    /**
+     Rows cycle through the base data; every other repetition of a row is shifted so
+     roughly half of the synthetic rows are unique and half are exact duplicates.
+     */
+    private static Instances synthesize(Instances base, int rows) {
+        Instances data = new Instances(base, rows);
+        int n = base.numInstances();
+        for (int i = 0; i < rows; i++) {
+            double[] values = base.instance(i % n).toDoubleArray();
+            int repetition = i / n;
+            if (repetition % 2 == 1) {
+                values[0] += repetition;
+            }
+            data.add(new DenseInstance(1.0, values));
+        }
+        return data;
+    }
+}
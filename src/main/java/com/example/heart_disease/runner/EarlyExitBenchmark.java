@@ -0,0 +1,180 @@
+package com.example.heart_disease.runner;
+
+import weka.classifiers.Classifier;
+import weka.core.Instances;
+import weka.core.SerializationHelper;
+import com.example.heart_disease.classification.inference.EarlyExitForest;
+import com.example.heart_disease.classification.inference.FlatScorer;
+import com.example.heart_disease.classification.inference.PackedForest;
+import com.example.heart_disease.classification.randomforest.RandomForestClassifier;
+import com.example.heart_disease.preprocessing.DataLoader;
+import com.example.heart_disease.utils.BenchmarkUtils;
+import com.example.heart_disease.utils.FileUtils;
+import com.example.heart_disease.utils.Logger;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ Single-row class prediction of the Random Forest with every tree (the packed
+ forest) against early-exit voting: mean trees evaluated per row, agreement with
+ the full forest and p50/p99 latency.
+
+ Early exit is run in forest order and in out-of-bag strength order with the exact
+ stop rule, then in strength order with each --delta confidence bound. Every scorer
+ classifies the cleaned rows --warmup times, then --rounds timed passes time each
+ row on its own.
+
+ Usage: EarlyExitBenchmark [modelPath] [--delta=D1,D2] [--warmup=N] [--rounds=N]
+        (defaults: RANDOMFOREST.model, 0.05,0.01, 3, 5; a balanced 100-tree forest with
+         out-of-bag accuracies is trained if the model is missing. A saved forest
+         without them is ordered by each tree's accuracy on the cleaned rows.)
+ */
+public class EarlyExitBenchmark {
+
+    private static long sink;
+
+    public static void main(String[] args) {
+        PrintWriter writer = null;
+        try {
+            String modelPath = "RANDOMFOREST.model";
+            double[] deltas = {0.05, 0.01};
+            int warmup = 3;
+            int rounds = 5;
+            for (String arg : args) {
+                if (arg.startsWith("--delta=")) {
+                    deltas = Arrays.stream(arg.substring("--delta=".length()).split(","))
+                            .mapToDouble(Double::parseDouble).toArray();
+                } else if (arg.startsWith("--warmup=")) {
+                    warmup = Integer.parseInt(arg.substring("--warmup=".length()));
+                } else if (arg.startsWith("--rounds=")) {
+                    rounds = Integer.parseInt(arg.substring("--rounds=".length()));
+                } else {
+                    modelPath = arg;
+                }
+            }
+
+            writer = FileUtils.createOutputWriter(FileUtils.getOutputPath("Benchmark_EarlyExit.txt"));
+            Logger logger = new Logger(writer);
+
+            logger.log("=== BENCHMARK: RANDOM FOREST EARLY-EXIT VOTING ===\n");
+
+            String dataPath = FileUtils.resolveDataPath("src/main/resources/heart_disease_cleaned.arff");
+            RandomForestClassifier trainer = new RandomForestClassifier(logger, true);
+            Instances data = trainer.prepareData(new DataLoader().loadDataset(dataPath));
+            Classifier forest;
+            if (new File(modelPath).exists()) {
+                forest = (Classifier) SerializationHelper.read(modelPath);
+                logger.log("✓ Random Forest loaded from " + modelPath);
+            } else {
+                trainer.useOutOfBag(0);
+                trainer.buildModel(data);
+                forest = trainer.getClassifier();
+                logger.log("✓ " + modelPath + " not found, Random Forest trained on " + dataPath);
+            }
+
+            PackedForest packed = PackedForest.export(forest);
+            logger.log(String.format("✓ Packed forest: %d trees, %,d nodes", packed.numTrees(), packed.numNodes()));
+
+            int n = data.numInstances();
+            double[][] rows = new double[n][];
+            int[] labels = new int[n];
+            for (int i = 0; i < n; i++) {
+                rows[i] = data.instance(i).toDoubleArray();
+                labels[i] = (int) data.instance(i).classValue();
+            }
+            double[] strength = EarlyExitForest.outOfBagStrength(forest);
+            if (strength != null) {
+                logger.log("✓ Tree order: out-of-bag accuracy");
+            } else {
+                strength = EarlyExitForest.measuredStrength(packed, rows, labels);
+                logger.log("✓ Tree order: accuracy on the cleaned rows (the model has no out-of-bag accuracies)");
+            }
+            double[] sorted = strength.clone();
+            Arrays.sort(sorted);
+            logger.log(String.format("✓ Tree strength: min %.4f, median %.4f, max %.4f", sorted[0],
+                    sorted[sorted.length / 2], sorted[sorted.length - 1]));
+
+            int[] expected = new int[n];
+            int wekaAgreement = 0;
+            for (int i = 0; i < n; i++) {
+                expected[i] = packed.classify(rows[i]);
+                if (expected[i] == (int) forest.classifyInstance(data.instance(i))) {
+                    wekaAgreement++;
+                }
+            }
+            logger.log("✓ Full packed forest agrees with Weka on " + wekaAgreement + "/" + n + " rows");
+            logger.log("");
+
+            List<String> names = new ArrayList<>();
+            List<FlatScorer> scorers = new ArrayList<>();
+            names.add("Full forest");
+            scorers.add(packed);
+            names.add("Exact, forest order");
+            scorers.add(new EarlyExitForest(packed, null, 0));
+            names.add("Exact, strength order");
+            scorers.add(new EarlyExitForest(packed, strength, 0));
+            for (double delta : deltas) {
+                names.add("Delta " + delta + ", strength order");
+                scorers.add(new EarlyExitForest(packed, strength, delta));
+            }
+
+            logger.log("---- Latency per row (" + warmup + " warm-up, " + rounds + " timed passes over " + n
+                    + " rows) ----");
+            logger.log(String.format("%-30s | %10s | %11s | %10s | %10s | %10s | %9s", "Scorer", "Mean trees",
+                    "Agreement", "Mean us", "p50 us", "p99 us", "p50 gain"));
+            double fullMedian = -1;
+            for (int s = 0; s < scorers.size(); s++) {
+                FlatScorer scorer = scorers.get(s);
+                for (int round = 0; round < warmup; round++) {
+                    for (double[] row : rows) {
+                        sink += scorer.classify(row);
+                    }
+                }
+                if (scorer instanceof EarlyExitForest) {
+                    ((EarlyExitForest) scorer).resetStatistics();
+                }
+                long[] latencies = new long[rounds * n];
+                int agreement = 0;
+                for (int round = 0; round < rounds; round++) {
+                    for (int i = 0; i < n; i++) {
+                        long start = System.nanoTime();
+                        int predicted = scorer.classify(rows[i]);
+                        latencies[round * n + i] = System.nanoTime() - start;
+                        if (predicted == expected[i]) {
+                            agreement++;
+                        }
+                    }
+                }
+                Arrays.sort(latencies);
+                double mean = Arrays.stream(latencies).average().orElse(0) / 1e3;
+                double p50 = BenchmarkUtils.percentile(latencies, 50) / 1e3;
+                double p99 = BenchmarkUtils.percentile(latencies, 99) / 1e3;
+                double trees = scorer instanceof EarlyExitForest
+                        ? ((EarlyExitForest) scorer).getAverageTreesEvaluated() : packed.numTrees();
+                if (fullMedian < 0) {
+                    fullMedian = p50;
+                }
+                logger.log(String.format("%-30s | %10.1f | %10.2f%% | %10.1f | %10.1f | %10.1f | %8.2fx", names.get(s),
+                        trees, 100.0 * agreement / latencies.length, mean, p50, p99, fullMedian / p50));
+            }
+            logger.log("");
+            logger.log("Agreement: predictions equal to the full forest's. The exact rule stops only when the");
+            logger.log("remaining trees cannot change the prediction; a delta allows a chance of that per row.");
+            logger.log("");
+            logger.log("=== BENCHMARK COMPLETED ===");
+
+        } catch (Exception e) {
+            System.err.println("❌ Error in early-exit benchmark: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            if (writer != null) {
+                writer.close();
+                System.out.println("\n✓ Output saved to: docs/output/Benchmark_EarlyExit.txt");
+            }
+        }
+    }
+}
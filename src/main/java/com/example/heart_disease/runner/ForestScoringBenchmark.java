@@ -0,0 +1,191 @@
+package com.example.heart_disease.runner;
+
+import weka.classifiers.Classifier;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.SerializationHelper;
+import com.example.heart_disease.classification.inference.PackedForest;
+import com.example.heart_disease.classification.randomforest.RandomForestClassifier;
+import com.example.heart_disease.preprocessing.DataLoader;
+import com.example.heart_disease.utils.BenchmarkUtils;
+import com.example.heart_disease.utils.FileUtils;
+import com.example.heart_disease.utils.Logger;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ Batch scoring of the saved Random Forest through Weka (distributionForInstance per
+ row) and through the packed struct-of-arrays forest, single-threaded and on
+ --threads threads, at increasing batch sizes: rows per second and bytes allocated
+ per row, after a check that the packed forest returns exactly Weka's distributions.
+
+ Batches of N rows are taken in turn from max(N, --min-rows) rows drawn with
+ replacement from the cleaned rows. Each scorer scores batches until it has seen
+ --min-rows rows to warm up, then again to time. Weka is skipped above
+ --weka-max-rows.
+
+ Usage: ForestScoringBenchmark [modelPath] [sizes] [--threads=N] [--min-rows=N] [--weka-max-rows=N]
+        (defaults: RANDOMFOREST.model, 1,64,4096,1000000, all cores, 100000, 1000000;
+         a balanced 100-tree forest is trained if the model is missing)
+ */
+public class ForestScoringBenchmark {
+
+    private static double sink;
+
+    private interface BatchScorer {
+        void score(int batch) throws Exception;
+    }
+
+    public static void main(String[] args) {
+        PrintWriter writer = null;
+        try {
+            String modelPath = "RANDOMFOREST.model";
+            List<Integer> sizes = new ArrayList<>();
+            int threads = Runtime.getRuntime().availableProcessors();
+            int minRows = 100_000;
+            int wekaMaxRows = 1_000_000;
+            for (String arg : args) {
+                if (arg.startsWith("--threads=")) {
+                    threads = Integer.parseInt(arg.substring("--threads=".length()));
+                } else if (arg.startsWith("--min-rows=")) {
+                    minRows = Integer.parseInt(arg.substring("--min-rows=".length()));
+                } else if (arg.startsWith("--weka-max-rows=")) {
+                    wekaMaxRows = Integer.parseInt(arg.substring("--weka-max-rows=".length()));
+                } else if (Character.isDigit(arg.charAt(0))) {
+                    for (String size : arg.split(",")) {
+                        sizes.add(Integer.parseInt(size.trim()));
+                    }
+                } else {
+                    modelPath = arg;
+                }
+            }
+            if (sizes.isEmpty()) {
+                sizes.addAll(Arrays.asList(1, 64, 4096, 1_000_000));
+            }
+
+            writer = FileUtils.createOutputWriter(FileUtils.getOutputPath("Benchmark_ForestScoring.txt"));
+            Logger logger = new Logger(writer);
+
+            logger.log("=== BENCHMARK: RANDOM FOREST BATCH SCORING (Weka vs packed forest) ===\n");
+
+            String dataPath = FileUtils.resolveDataPath("src/main/resources/heart_disease_cleaned.arff");
+            RandomForestClassifier trainer = new RandomForestClassifier(logger, true);
+            Instances data = trainer.prepareData(new DataLoader().loadDataset(dataPath));
+            Classifier forest;
+            if (new File(modelPath).exists()) {
+                forest = (Classifier) SerializationHelper.read(modelPath);
+                logger.log("✓ Random Forest loaded from " + modelPath);
+            } else {
+                trainer.buildModel(data);
+                forest = trainer.getClassifier();
+                logger.log("✓ " + modelPath + " not found, Random Forest trained on " + dataPath);
+            }
+
+            long start = System.nanoTime();
+            PackedForest packed = PackedForest.export(forest);
+            long exportTime = System.nanoTime() - start;
+            logger.log(String.format("✓ Packed forest: %d trees, %,d nodes, exported in %.0f ms", packed.numTrees(),
+                    packed.numNodes(), exportTime / 1e6));
+            logger.log("✓ Threads: " + threads + ", cores: " + Runtime.getRuntime().availableProcessors());
+
+            int n = data.numInstances();
+            Instance[] instances = new Instance[n];
+            double[][] rows = new double[n][];
+            for (int i = 0; i < n; i++) {
+                instances[i] = data.instance(i);
+                rows[i] = instances[i].toDoubleArray();
+            }
+            double[] check = new double[n * packed.numClasses()];
+            packed.distributions(rows, 0, n, check);
+            int identical = 0;
+            for (int i = 0; i < n; i++) {
+                double[] expected = forest.distributionForInstance(instances[i]);
+                if (Arrays.equals(expected, Arrays.copyOfRange(check, i * expected.length, (i + 1) * expected.length))) {
+                    identical++;
+                }
+            }
+            logger.log("✓ Identical distributions: " + identical + "/" + n);
+            logger.log("");
+
+            logger.log(String.format("%-9s | %-22s | %20s | %10s | %9s", "Batch", "Scorer", "Throughput", "Alloc/row",
+                    "Speedup"));
+            for (int size : sizes) {
+                // Consecutive batches take different rows, so a small batch is not the same rows over and over
+                int poolSize = Math.max(size, minRows);
+                int poolBatches = poolSize / size;
+                Random random = new Random(size);
+                Instance[] poolInstances = new Instance[poolSize];
+                double[][] poolRows = new double[poolSize][];
+                for (int i = 0; i < poolSize; i++) {
+                    int row = random.nextInt(n);
+                    poolInstances[i] = instances[row];
+                    poolRows[i] = rows[row];
+                }
+                double[] out = new double[size * packed.numClasses()];
+
+                double weka = -1;
+                if (size <= wekaMaxRows) {
+                    weka = measure(logger, size, "Weka", size, minRows, -1, batch -> {
+                        int from = (batch % poolBatches) * size;
+                        for (int i = from; i < from + size; i++) {
+                            sink += forest.distributionForInstance(poolInstances[i])[0];
+                        }
+                    });
+                } else {
+                    logger.log(String.format("%-9d | %-22s | %20s |", size, "Weka", "skipped"));
+                }
+                packed.setNumThreads(1);
+                BatchScorer packedScorer = batch -> {
+                    int from = (batch % poolBatches) * size;
+                    packed.distributions(poolRows, from, from + size, out);
+                    sink += out[0];
+                };
+                measure(logger, size, "Packed, 1 thread", size, minRows, weka, packedScorer);
+                if (threads > 1) {
+                    packed.setNumThreads(threads);
+                    measure(logger, size, "Packed, " + threads + " threads", size, minRows, weka, packedScorer);
+                }
+            }
+            logger.log("");
+            logger.log("Speedup: against Weka at the same batch size. Alloc/row includes the benchmark loop.");
+            logger.log("");
+            logger.log("=== BENCHMARK COMPLETED ===");
+
+        } catch (Exception e) {
+            System.err.println("❌ Error in forest scoring benchmark: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            if (writer != null) {
+                writer.close();
+                System.out.println("\n✓ Output saved to: docs/output/Benchmark_ForestScoring.txt");
+            }
+        }
+    }
+
+    private static double measure(Logger logger, int size, String name, int batchRows, int minRows, double baseline,
+                                  BatchScorer scorer) throws Exception {
+        int batches = Math.max(1, minRows / batchRows);
+        for (int batch = 0; batch < batches; batch++) {
+            scorer.score(batch);
+        }
+        long allocated = BenchmarkUtils.allocatedBytes();
+        long start = System.nanoTime();
+        for (int batch = 0; batch < batches; batch++) {
+            scorer.score(batch);
+        }
+        long nanos = System.nanoTime() - start;
+        long rows = (long) batches * batchRows;
+        long bytes = allocated < 0 ? -1 : (BenchmarkUtils.allocatedBytes() - allocated) / rows;
+
+        double rate = rows / (nanos / 1e9);
+        String speedup = baseline > 0 ? String.format("%8.2fx", rate / baseline) : "-";
+        logger.log(String.format("%-9d | %-22s | %20s | %10s | %9s", size, name, BenchmarkUtils.formatRate(rows, nanos),
+                bytes < 0 ? "n/a" : bytes + " B", speedup));
+        return rate;
+    }
+}
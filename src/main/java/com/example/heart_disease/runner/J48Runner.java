@@ -1,10 +1,11 @@
 package com.example.heart_disease.runner;
 
 import weka.core.Instances;
-import weka.core.converters.ConverterUtils.DataSource;
 import weka.classifiers.Evaluation;
 import com.example.heart_disease.classification.j48.J48Classifier;
 import com.example.heart_disease.classification.crossvalidation.CrossValidation;
+import com.example.heart_disease.classification.crossvalidation.ExperimentScheduler;
+import com.example.heart_disease.preprocessing.DataLoader;
 import com.example.heart_disease.utils.FileUtils;
 import com.example.heart_disease.utils.Logger;
 
@@ -13,9 +14,34 @@ import java.io.PrintWriter;
 public class J48Runner {
 
     public static void main(String[] args) {
+        String dataPath = "src/main/resources/heart_disease_cleaned.arff";
+        int cvThreads = 1;
+        boolean tuned = false;
+        for (String arg : args) {
+            if (arg.equals("--tuned")) {
+                tuned = true;
+            } else if (arg.equals("--parallel-cv")) {
+                cvThreads = Runtime.getRuntime().availableProcessors();
+            } else if (arg.startsWith("--parallel-cv=")) {
+                cvThreads = Integer.parseInt(arg.substring("--parallel-cv=".length()));
+            } else {
+                dataPath = arg;
+            }
+        }
+        run(dataPath, cvThreads, tuned, null);
+    }
+
+    /**
+     Step 2 report for the J48 cell of an ExperimentScheduler run (TotalRunner): the
+     fitted model and its cross-validation are taken from the cell, not computed again
+     */
+    public static void report(ExperimentScheduler.CellResult scheduled) {
+        run("src/main/resources/heart_disease_cleaned.arff", 1, false, scheduled);
+    }
+
+    private static void run(String dataPath, int cvThreads, boolean tuned, ExperimentScheduler.CellResult scheduled) {
         PrintWriter writer = null;
         try {
-            String dataPath = args.length > 0 ? args[0] : "src/main/resources/heart_disease_cleaned.arff";
             dataPath = FileUtils.resolveDataPath(dataPath);
 
             writer = FileUtils.createOutputWriter(FileUtils.getOutputPath("Step2.txt"));
@@ -26,8 +52,7 @@ public class J48Runner {
             logger.log("=== STEP 2: CLASSIFICATION ALGORITHM (J48 Decision Tree) ===\n");
 
             // 1. Load the ARFF dataset
-            DataSource source = new DataSource(dataPath);
-            Instances data = source.getDataSet();
+            Instances data = new DataLoader().loadDataset(dataPath);
 
             logger.log("✓ Dataset loaded: " + dataPath);
             logger.log("✓ Number of instances: " + data.numInstances());
@@ -36,6 +61,9 @@ public class J48Runner {
 
             // 2. Prepare data: set class attribute and convert to nominal
             J48Classifier j48 = new J48Classifier(logger);
+            if (tuned) {
+                j48.useTunedOptions();
+            }
             Instances preparedData = j48.prepareData(data);
 
             logger.log("Class attribute: " + preparedData.classAttribute().name());
@@ -44,7 +72,11 @@ public class J48Runner {
             logger.log("");
 
             // 3. Build J48 Decision Tree Classifier
-            j48.buildModel(preparedData);
+            if (scheduled != null) {
+                j48.useModel(scheduled.getModel(), scheduled.getBuildMillis());
+            } else {
+                j48.buildModel(preparedData);
+            }
 
             // 4. Display the decision tree
             j48.printTree();
@@ -60,8 +92,15 @@ public class J48Runner {
             logger.log("");
 
             // 6. Evaluate using 10-fold cross-validation
-            CrossValidation cv = new CrossValidation(logger);
-            Evaluation evalCV = cv.performCrossValidation(j48.getClassifier(), preparedData, 10);
+            CrossValidation cv = new CrossValidation(logger, cvThreads);
+            Evaluation evalCV;
+            if (scheduled != null) {
+                logger.log("=== 10-Fold Cross-Validation ===");
+                logger.log("✓ Folds run by the experiment scheduler: " + scheduled.getFoldMillis() + " ms CPU time\n");
+                evalCV = scheduled.getEvaluation();
+            } else {
+                evalCV = cv.performCrossValidation(j48.getClassifier(), preparedData, 10);
+            }
 
             logger.log(evalCV.toSummaryString());
             logger.log("Confusion Matrix:");
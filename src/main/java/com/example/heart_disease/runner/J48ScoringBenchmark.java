@@ -0,0 +1,199 @@
+package com.example.heart_disease.runner;
+
+import weka.classifiers.trees.J48;
+import weka.core.DenseInstance;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.SerializationHelper;
+import com.example.heart_disease.classification.inference.FlatJ48Tree;
+import com.example.heart_disease.classification.inference.FlatScorer;
+import com.example.heart_disease.classification.inference.GeneratedJ48Scorer;
+import com.example.heart_disease.classification.j48.J48Classifier;
+import com.example.heart_disease.preprocessing.DataLoader;
+import com.example.heart_disease.utils.BenchmarkUtils;
+import com.example.heart_disease.utils.FileUtils;
+import com.example.heart_disease.utils.Logger;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ Single-row scoring of the saved J48 through Weka (distributionForInstance on a
+ ready Instance, and on one built from the row as a caller must), the flat array
+ tree and the generated bytecode scorer: nanoseconds and bytes allocated per row,
+ and whether the flat scorers return exactly Weka's probabilities and classes.
+
+ Each scorer scores every cleaned row --warmup times before --rounds timed passes,
+ then does the same on a copy of the rows with three values blanked, which J48
+ spreads over several branches. Every result is summed into a sink so the JIT
+ cannot drop the calls.
+
+ Usage: J48ScoringBenchmark [modelPath] [--warmup=N] [--rounds=N]
+        (defaults: DECISIONTREE.model, 20, 20; a new J48 is trained if the model is missing)
+ */
+public class J48ScoringBenchmark {
+
+    private static double sink;
+
+    private interface RowScorer {
+        double score(int row) throws Exception;
+    }
+
+    public static void main(String[] args) {
+        PrintWriter writer = null;
+        try {
+            String modelPath = "DECISIONTREE.model";
+            int warmup = 20;
+            int rounds = 20;
+            for (String arg : args) {
+                if (arg.startsWith("--warmup=")) {
+                    warmup = Integer.parseInt(arg.substring("--warmup=".length()));
+                } else if (arg.startsWith("--rounds=")) {
+                    rounds = Integer.parseInt(arg.substring("--rounds=".length()));
+                } else {
+                    modelPath = arg;
+                }
+            }
+
+            writer = FileUtils.createOutputWriter(FileUtils.getOutputPath("Benchmark_J48Scoring.txt"));
+            Logger logger = new Logger(writer);
+
+            logger.log("=== BENCHMARK: J48 SCORING (Weka vs flat tree vs generated bytecode) ===\n");
+
+            String dataPath = FileUtils.resolveDataPath("src/main/resources/heart_disease_cleaned.arff");
+            Instances data = new J48Classifier(logger).prepareData(new DataLoader().loadDataset(dataPath));
+            J48 j48;
+            if (new File(modelPath).exists()) {
+                j48 = (J48) SerializationHelper.read(modelPath);
+                logger.log("✓ J48 loaded from " + modelPath);
+            } else {
+                j48 = new J48();
+                j48.buildClassifier(data);
+                logger.log("✓ " + modelPath + " not found, J48 trained on " + dataPath);
+            }
+
+            long start = System.nanoTime();
+            FlatJ48Tree flat = FlatJ48Tree.compile(j48);
+            long flatTime = System.nanoTime() - start;
+            start = System.nanoTime();
+            GeneratedJ48Scorer generated = GeneratedJ48Scorer.compile(flat);
+            long generatedTime = System.nanoTime() - start;
+            logger.log(String.format("✓ Flat tree: %d nodes, built in %.1f ms", flat.numNodes(), flatTime / 1e6));
+            logger.log(String.format("✓ Generated scorer: %,d characters of source, compiled and loaded in %.0f ms",
+                    generated.getSource().length(), generatedTime / 1e6));
+
+            // Cleaned rows have no missing values; a copy with three values blanked per row
+            // takes J48's missing-value path
+            int n = data.numInstances();
+            Instance[][] instances = new Instance[2][n];
+            double[][][] rows = new double[2][n][];
+            Random random = new Random(1);
+            for (int i = 0; i < n; i++) {
+                for (int set = 0; set < 2; set++) {
+                    instances[set][i] = (Instance) data.instance(i).copy();
+                    instances[set][i].setDataset(data);
+                }
+                for (int k = 0; k < 3; k++) {
+                    int attribute = random.nextInt(data.numAttributes() - 1);
+                    instances[1][i].setMissing(attribute < data.classIndex() ? attribute : attribute + 1);
+                }
+                for (int set = 0; set < 2; set++) {
+                    rows[set][i] = instances[set][i].toDoubleArray();
+                }
+            }
+            logger.log("✓ Rows: " + n + " complete, " + n + " with three missing values");
+            logger.log("");
+
+            logger.log("---- Agreement with J48 ----");
+            FlatScorer[] scorers = {flat, generated};
+            String[] names = {"Flat tree", "Generated bytecode"};
+            double[] out = new double[data.numClasses()];
+            for (int s = 0; s < scorers.length; s++) {
+                int distributions = 0;
+                int classes = 0;
+                for (int set = 0; set < 2; set++) {
+                    for (int i = 0; i < n; i++) {
+                        if (Arrays.equals(j48.distributionForInstance(instances[set][i]),
+                                scorers[s].distribution(rows[set][i], out))) {
+                            distributions++;
+                        }
+                        if ((int) j48.classifyInstance(instances[set][i]) == scorers[s].classify(rows[set][i])) {
+                            classes++;
+                        }
+                    }
+                }
+                logger.log(String.format("%-20s | identical distributions: %d/%d | identical classes: %d/%d",
+                        names[s], distributions, 2 * n, classes, 2 * n));
+            }
+            logger.log("");
+
+            logger.log("---- Time per row (" + warmup + " warm-up, " + rounds + " timed passes over " + n + " rows) ----");
+            logger.log(String.format("%-36s | %-16s | %10s | %10s | %9s", "Scorer", "Rows", "ns/row", "Alloc/row",
+                    "Speedup"));
+            for (int set = 0; set < 2; set++) {
+                String label = set == 0 ? "complete" : "missing values";
+                Instance[] setInstances = instances[set];
+                double[][] setRows = rows[set];
+                double weka = measure(logger, "Weka J48.distributionForInstance", label, n, warmup, rounds, -1,
+                        row -> j48.distributionForInstance(setInstances[row])[1]);
+                measure(logger, "Weka, Instance built from the row", label, n, warmup, rounds, weka, row -> {
+                    Instance instance = new DenseInstance(1.0, setRows[row]);
+                    instance.setDataset(data);
+                    return j48.distributionForInstance(instance)[1];
+                });
+                measure(logger, "Flat tree distribution", label, n, warmup, rounds, weka,
+                        row -> flat.distribution(setRows[row], out)[1]);
+                measure(logger, "Generated bytecode distribution", label, n, warmup, rounds, weka,
+                        row -> generated.distribution(setRows[row], out)[1]);
+                double wekaClassify = measure(logger, "Weka J48.classifyInstance", label, n, warmup, rounds, -1,
+                        row -> j48.classifyInstance(setInstances[row]));
+                measure(logger, "Flat tree classify", label, n, warmup, rounds, wekaClassify,
+                        row -> flat.classify(setRows[row]));
+                measure(logger, "Generated bytecode classify", label, n, warmup, rounds, wekaClassify,
+                        row -> generated.classify(setRows[row]));
+            }
+            logger.log("");
+            logger.log("Speedup: against the Weka call above it, on a ready Instance. Alloc/row includes the");
+            logger.log("benchmark loop itself (none for the flat scorers). The generated scorer hands rows");
+            logger.log("with a missing value on their path to the flat tree.");
+            logger.log("");
+            logger.log("=== BENCHMARK COMPLETED ===");
+
+        } catch (Exception e) {
+            System.err.println("❌ Error in J48 scoring benchmark: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            if (writer != null) {
+                writer.close();
+                System.out.println("\n✓ Output saved to: docs/output/Benchmark_J48Scoring.txt");
+            }
+        }
+    }
+
+    private static double measure(Logger logger, String name, String rows, int n, int warmup, int rounds,
+                                  double baseline, RowScorer scorer) throws Exception {
+        double sum = 0;
+        for (int round = 0; round < warmup; round++) {
+            for (int row = 0; row < n; row++) {
+                sum += scorer.score(row);
+            }
+        }
+        long allocated = BenchmarkUtils.allocatedBytes();
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            for (int row = 0; row < n; row++) {
+                sum += scorer.score(row);
+            }
+        }
+        double nanos = (System.nanoTime() - start) / (double) ((long) rounds * n);
+        long bytes = allocated < 0 ? -1 : (BenchmarkUtils.allocatedBytes() - allocated) / ((long) rounds * n);
+        sink += sum;
+
+        String speedup = baseline > 0 ? String.format("%8.2fx", baseline / nanos) : "-";
+        logger.log(String.format("%-36s | %-16s | %10.1f | %10s | %9s", name, rows, nanos,
+                bytes < 0 ? "n/a" : bytes + " B", speedup));
+        return nanos;
+    }
+}
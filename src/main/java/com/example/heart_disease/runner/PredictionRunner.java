@@ -0,0 +1,140 @@
+package com.example.heart_disease.runner;
+
+import weka.classifiers.Classifier;
+import weka.core.SerializationHelper;
+import com.example.heart_disease.classification.inference.BatchScorer;
+import com.example.heart_disease.classification.inference.PredictionPipeline;
+import com.example.heart_disease.preprocessing.CleaningTransform;
+import com.example.heart_disease.utils.FileUtils;
+import com.example.heart_disease.utils.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ Predicts a CSV of new patients with a saved model: every row is cleaned by the
+ preprocessing saved in Step 1 and scored by the model saved in Step 2 or 3, and
+ the output CSV gets the row number, predicted class and class probabilities.
+ Input and output paths ending in ".gz" are gzip-compressed.
+
+ Usage: PredictionRunner [input.csv] [output.csv] [--model=PATH] [--preprocessing=PATH]
+                         [--threads=N] [--chunk=N] [--weka]
+        (defaults: src/main/resources/heart_disease.csv, predictions.csv,
+         DECISIONTREE.model, PREPROCESSING.model, all cores, 4096 rows; --weka scores
+         through Weka instead of the flat J48 tree or packed forest)
+ */
+public class PredictionRunner {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    public static void main(String[] args) {
+        PrintWriter writer = null;
+        try {
+            String inputPath = null;
+            String outputPath = null;
+            String modelPath = "DECISIONTREE.model";
+            String preprocessingPath = CleaningTransform.DEFAULT_MODEL_PATH;
+            int threads = 0;
+            int chunkRows = PredictionPipeline.DEFAULT_CHUNK_ROWS;
+            boolean useWeka = false;
+            for (String arg : args) {
+                if (arg.startsWith("--model=")) {
+                    modelPath = arg.substring("--model=".length());
+                } else if (arg.startsWith("--preprocessing=")) {
+                    preprocessingPath = arg.substring("--preprocessing=".length());
+                } else if (arg.startsWith("--threads=")) {
+                    threads = Integer.parseInt(arg.substring("--threads=".length()));
+                } else if (arg.startsWith("--chunk=")) {
+                    chunkRows = Integer.parseInt(arg.substring("--chunk=".length()));
+                } else if (arg.equals("--weka")) {
+                    useWeka = true;
+                } else if (inputPath == null) {
+                    inputPath = arg;
+                } else {
+                    outputPath = arg;
+                }
+            }
+            inputPath = FileUtils.resolveDataPath(inputPath != null ? inputPath : "src/main/resources/heart_disease.csv");
+            if (outputPath == null) {
+                outputPath = "predictions.csv";
+            }
+
+            writer = FileUtils.createOutputWriter(FileUtils.getOutputPath("Prediction.txt"));
+            Logger logger = new Logger(writer);
+
+            logger.log("=== PREDICTION: SAVED MODEL ON NEW ROWS ===\n");
+
+            if (!new File(preprocessingPath).exists()) {
+                throw new Exception(preprocessingPath + " not found: run Step 1 (PreprocessingRunner) first");
+            }
+            if (!new File(modelPath).exists()) {
+                throw new Exception(modelPath + " not found: run Step 2 (J48Runner) or Step 3 (RandomForestRunner) first");
+            }
+            CleaningTransform transform = CleaningTransform.load(preprocessingPath);
+            logger.log("✓ Preprocessing loaded from " + preprocessingPath + " (" + transform.numOutputAttributes()
+                    + " cleaned attributes)");
+            Classifier model = (Classifier) SerializationHelper.read(modelPath);
+            BatchScorer scorer = BatchScorer.of(model, transform.getTrainingStructure(), useWeka);
+            logger.log("✓ Model loaded from " + modelPath + ": " + scorer.getDescription());
+
+            PredictionPipeline pipeline = new PredictionPipeline(transform, scorer);
+            pipeline.setNumThreads(threads);
+            pipeline.setChunkRows(chunkRows);
+
+            PredictionPipeline.Summary summary;
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(open(inputPath),
+                    StandardCharsets.UTF_8), BUFFER_SIZE);
+                 Writer out = new BufferedWriter(new OutputStreamWriter(create(outputPath), StandardCharsets.UTF_8),
+                         BUFFER_SIZE)) {
+                summary = pipeline.run(in, out);
+            }
+
+            logger.log("✓ Input: " + inputPath);
+            logger.log("✓ Predictions written to: " + outputPath);
+            logger.log(String.format("✓ Rows: %,d (%,d rejected)", summary.rows, summary.rejected));
+            logger.log(String.format("✓ Time: %.2f s, %,.0f rows/sec, %,.0f rows/min", summary.nanos / 1e9,
+                    summary.rows / (summary.nanos / 1e9), summary.rows / (summary.nanos / 6e10)));
+            logger.log(String.format("✓ In flight: at most %d chunks of %,d rows", summary.chunks, summary.chunkRows));
+            String[] stages = {"Read", "Transform", "Score", "Write"};
+            logger.log("Busy time per stage (summed over its threads):");
+            for (int s = 0; s < stages.length; s++) {
+                logger.log(String.format("  %-10s %8.2f s", stages[s], summary.stageNanos(s) / 1e9));
+            }
+
+        } catch (Exception e) {
+            System.err.println("❌ Error in prediction: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            if (writer != null) {
+                writer.close();
+                System.out.println("\n✓ Output saved to: docs/output/Prediction.txt");
+            }
+        }
+    }
+
+    private static InputStream open(String path) throws Exception {
+        InputStream in = new FileInputStream(path);
+        return path.endsWith(".gz") ? new GZIPInputStream(in, BUFFER_SIZE) : in;
+    }
+
+    private static OutputStream create(String path) throws Exception {
+        File parent = new File(path).getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        OutputStream out = new FileOutputStream(path);
+        return path.endsWith(".gz") ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+    }
+}
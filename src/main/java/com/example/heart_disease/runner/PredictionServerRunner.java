@@ -0,0 +1,129 @@
+package com.example.heart_disease.runner;
+
+import weka.classifiers.Classifier;
+import weka.core.SerializationHelper;
+import com.example.heart_disease.classification.inference.BatchScorer;
+import com.example.heart_disease.preprocessing.CleaningTransform;
+import com.example.heart_disease.serving.LatencyHistogram;
+import com.example.heart_disease.serving.MicroBatcher;
+import com.example.heart_disease.serving.PredictionServer;
+import com.example.heart_disease.utils.FileUtils;
+import com.example.heart_disease.utils.Logger;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ Serves a saved model over HTTP until stopped (Ctrl+C): POST CSV rows of patients to
+ /predict, read latency histograms from /metrics (see PredictionServer). Requests
+ run on virtual threads and concurrent ones are scored in micro-batches. On exit the
+ latency of every endpoint and the batch sizes are written to Serving.txt.
+
+ Example: curl --data-binary @src/main/resources/heart_disease.csv http://127.0.0.1:8080/predict
+
+ Usage: PredictionServerRunner [--port=N] [--host=H] [--model=PATH] [--preprocessing=PATH]
+                               [--max-batch=N] [--max-delay-us=N] [--scorers=N] [--weka]
+        (defaults: 8080, 127.0.0.1, DECISIONTREE.model, PREPROCESSING.model, 256 rows,
+         500 µs, one scoring thread; --weka scores through Weka instead of the flat
+         J48 tree or packed forest)
+ */
+public class PredictionServerRunner {
+
+    public static void main(String[] args) {
+        PrintWriter writer = null;
+        try {
+            int port = 8080;
+            String host = "127.0.0.1";
+            String modelPath = "DECISIONTREE.model";
+            String preprocessingPath = CleaningTransform.DEFAULT_MODEL_PATH;
+            int maxBatch = MicroBatcher.DEFAULT_MAX_BATCH_ROWS;
+            long maxDelay = MicroBatcher.DEFAULT_MAX_DELAY_MICROS;
+            int scorers = 1;
+            boolean useWeka = false;
+            for (String arg : args) {
+                if (arg.startsWith("--port=")) {
+                    port = Integer.parseInt(arg.substring("--port=".length()));
+                } else if (arg.startsWith("--host=")) {
+                    host = arg.substring("--host=".length());
+                } else if (arg.startsWith("--model=")) {
+                    modelPath = arg.substring("--model=".length());
+                } else if (arg.startsWith("--preprocessing=")) {
+                    preprocessingPath = arg.substring("--preprocessing=".length());
+                } else if (arg.startsWith("--max-batch=")) {
+                    maxBatch = Integer.parseInt(arg.substring("--max-batch=".length()));
+                } else if (arg.startsWith("--max-delay-us=")) {
+                    maxDelay = Long.parseLong(arg.substring("--max-delay-us=".length()));
+                } else if (arg.startsWith("--scorers=")) {
+                    scorers = Integer.parseInt(arg.substring("--scorers=".length()));
+                } else if (arg.equals("--weka")) {
+                    useWeka = true;
+                }
+            }
+
+            writer = FileUtils.createOutputWriter(FileUtils.getOutputPath("Serving.txt"));
+            Logger logger = new Logger(writer);
+
+            logger.log("=== SERVING: SAVED MODEL OVER HTTP ===\n");
+
+            if (!new File(preprocessingPath).exists()) {
+                throw new Exception(preprocessingPath + " not found: run Step 1 (PreprocessingRunner) first");
+            }
+            if (!new File(modelPath).exists()) {
+                throw new Exception(modelPath + " not found: run Step 2 (J48Runner) or Step 3 (RandomForestRunner) first");
+            }
+            CleaningTransform transform = CleaningTransform.load(preprocessingPath);
+            logger.log("✓ Preprocessing loaded from " + preprocessingPath);
+            Classifier model = (Classifier) SerializationHelper.read(modelPath);
+            BatchScorer scorer = BatchScorer.of(model, transform.getTrainingStructure(), useWeka);
+            logger.log("✓ Model loaded from " + modelPath + ": " + scorer.getDescription());
+
+            PredictionServer.enableNoDelay();
+            PredictionServer server = new PredictionServer(transform, scorer);
+            MicroBatcher batcher = server.getBatcher();
+            batcher.setMaxBatchRows(maxBatch);
+            batcher.setMaxDelayMicros(maxDelay);
+            batcher.setNumScorers(scorers);
+            server.start(host, port);
+            logger.log(String.format("✓ Listening on http://%s:%d (batches up to %d rows, %d µs budget, %d scorer(s))",
+                    host, server.getPort(), batcher.getMaxBatchRows(), batcher.getMaxDelayMicros(), scorers));
+            logger.log("  POST /predict  CSV rows, header optional");
+            logger.log("  GET  /metrics  Prometheus latency histograms");
+            logger.log("  GET  /health");
+            logger.log("Press Ctrl+C to stop.\n");
+
+            CountDownLatch stopped = new CountDownLatch(1);
+            PrintWriter output = writer;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    server.stop();
+                    logger.log("\n=== LATENCY PER ENDPOINT ===");
+                    for (Map.Entry<String, LatencyHistogram> entry : server.getLatencies().entrySet()) {
+                        logger.log(String.format("  %-9s %s", entry.getKey(), entry.getValue().summary()));
+                    }
+                    logger.log("  queue     " + batcher.getQueueWait().summary());
+                    logger.log("  batch     " + batcher.getScoreTime().summary());
+                    logger.log(String.format("✓ %,d rows in %,d batches (mean %.1f rows, largest %d)",
+                            batcher.getBatchedRows(), batcher.getBatches(), batcher.getMeanBatchRows(),
+                            batcher.getLargestBatch()));
+                } finally {
+                    output.close();
+                    System.out.println("\n✓ Output saved to: docs/output/Serving.txt");
+                    stopped.countDown();
+                }
+            }));
+            writer = null;
+            stopped.await();
+
+        } catch (Exception e) {
+            System.err.println("❌ Error in serving: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            if (writer != null) {
+                writer.close();
+                System.out.println("\n✓ Output saved to: docs/output/Serving.txt");
+            }
+        }
+    }
+}
@@ -1,20 +1,48 @@
 package com.example.heart_disease.runner;
 
 import weka.core.Instances;
+import com.example.heart_disease.preprocessing.CategoricalEncoding;
+import com.example.heart_disease.preprocessing.CleaningTransform;
 import com.example.heart_disease.preprocessing.DataLoader;
 import com.example.heart_disease.preprocessing.DataAnalyzer;
 import com.example.heart_disease.preprocessing.DataCleaner;
+import com.example.heart_disease.preprocessing.IncrementalPreprocessor;
+import com.example.heart_disease.preprocessing.ParallelCSVParser;
+import com.example.heart_disease.preprocessing.StreamingPreprocessor;
 import com.example.heart_disease.utils.FileUtils;
 import com.example.heart_disease.utils.Logger;
 
+import java.io.File;
 import java.io.PrintWriter;
 
 public class PreprocessingRunner {
 
+    private static final String NATIVE_MODEL_PATH = "PREPROCESSING_native.model";
+
     public static void main(String[] args) {
         PrintWriter writer = null;
         try {
-            String inputPath = args.length > 0 ? args[0] : "src/main/resources/heart_disease.csv";
+            String inputPath = "src/main/resources/heart_disease.csv";
+            boolean streaming = false;
+            boolean parallel = false;
+            boolean fused = false;
+            boolean incremental = false;
+            CategoricalEncoding encoding = CategoricalEncoding.ONE_HOT;
+            for (String arg : args) {
+                if (arg.equals("--streaming")) {
+                    streaming = true;
+                } else if (arg.equals("--parallel")) {
+                    parallel = true;
+                } else if (arg.equals("--fused")) {
+                    fused = true;
+                } else if (arg.equals("--incremental")) {
+                    incremental = true;
+                } else if (arg.equals("--native-categorical")) {
+                    encoding = CategoricalEncoding.NATIVE;
+                } else {
+                    inputPath = arg;
+                }
+            }
             inputPath = FileUtils.resolveDataPath(inputPath);
 
             writer = FileUtils.createOutputWriter(FileUtils.getOutputPath("Step1.txt"));
@@ -26,35 +54,70 @@ public class PreprocessingRunner {
             DataLoader loader = new DataLoader();
             DataAnalyzer analyzer = new DataAnalyzer();
             DataCleaner cleaner = new DataCleaner();
-
-            // Step 1: Load data
-            String csvPath = inputPath;
-            Instances originalData = loader.loadCSV(csvPath);
-
-            // Step 2: Analyze original data
-            System.out.println("\n--- ORIGINAL DATA ANALYSIS ---");
-            analyzer.performAnalysis(originalData);
-
-            // Step 3: Clean data (Includes imputation, encoding, and scaling)
-            Instances cleanedData = cleaner.cleanData(originalData);
-
-            // Step 4: Set class attribute (Important for Weka even if just cleaning)
-            cleanedData.setClassIndex(cleanedData.numAttributes() - 1);
-            System.out.println("✓ Class attribute set to: " +
-                    cleanedData.attribute(cleanedData.classIndex()).name());
-
-            // Step 5: Analyze cleaned data
-            System.out.println("\n--- CLEANED DATA ANALYSIS ---");
-            analyzer.performAnalysis(cleanedData);
-
-            // Step 6: Save the entire cleaned dataset as both CSV and ARFF files
-            loader.saveAsCSV(cleanedData, FileUtils.getResourcePath("heart_disease_cleaned.csv"));
-            loader.saveAsARFF(cleanedData, FileUtils.getResourcePath("heart_disease_cleaned.arff"));
+            cleaner.setCategoricalEncoding(encoding);
+
+            // The native-categorical outputs sit next to the one-hot ones, for comparison
+            String name = encoding == CategoricalEncoding.NATIVE
+                    ? "heart_disease_cleaned_native" : "heart_disease_cleaned";
+            String modelPath = encoding == CategoricalEncoding.NATIVE
+                    ? NATIVE_MODEL_PATH : CleaningTransform.DEFAULT_MODEL_PATH;
+            String cleanedCsvPath = FileUtils.getResourcePath(name + ".csv");
+            String cleanedArffPath = FileUtils.getResourcePath(name + ".arff");
+            String statePath = FileUtils.getResourcePath(name + ".state");
+            IncrementalPreprocessor tracker = incremental ? new IncrementalPreprocessor(statePath) : null;
+            if (tracker != null && new File(cleanedCsvPath).exists() && new File(cleanedArffPath).exists()
+                    && tracker.canResume(inputPath) && tracker.discardPartialAppends()) {
+                runIncremental(logger, loader, tracker, cleanedCsvPath, cleanedArffPath, modelPath);
+                return;
+            }
+            // A full run rewrites the outputs, so an older state no longer describes them
+            IncrementalPreprocessor.delete(statePath);
+            logger.log("Categorical encoding: " + encoding.getLabel());
+
+            if (streaming) {
+                runStreaming(analyzer, tracker, encoding, inputPath, cleanedCsvPath, cleanedArffPath, modelPath);
+            } else {
+                // Step 1: Load data
+                String csvPath = inputPath;
+                Instances originalData = parallel ? new ParallelCSVParser().loadCSV(csvPath) : loader.loadCSV(csvPath);
+
+                // Step 2: Analyze original data
+                System.out.println("\n--- ORIGINAL DATA ANALYSIS ---");
+                analyzer.performAnalysis(originalData);
+
+                // Step 3: Clean data (Includes imputation, encoding, and scaling)
+                Instances cleanedData = fused ? cleaner.cleanDataFused(originalData) : cleaner.cleanData(originalData);
+
+                // Step 4: Set class attribute (Important for Weka even if just cleaning)
+                cleanedData.setClassIndex(cleanedData.numAttributes() - 1);
+                System.out.println("✓ Class attribute set to: " +
+                        cleanedData.attribute(cleanedData.classIndex()).name());
+
+                // Step 5: Analyze cleaned data
+                System.out.println("\n--- CLEANED DATA ANALYSIS ---");
+                analyzer.performAnalysis(cleanedData, FileUtils.getOutputPath("Step1_Correlation"));
+
+                // Step 6: Save the entire cleaned dataset as both CSV and ARFF files
+                loader.saveAll(cleanedData, cleanedCsvPath, cleanedArffPath);
+                if (cleaner.getFittedTransform() != null) {
+                    cleaner.getFittedTransform().save(modelPath);
+                    if (tracker != null) {
+                        tracker.initialize(csvPath, originalData, cleanedData, cleaner.getFittedTransform());
+                        tracker.recordOutputs(cleanedCsvPath, cleanedArffPath);
+                        tracker.save();
+                    }
+                }
+            }
 
             logger.log("\n STEP 1 COMPLETED.");
             logger.log("Final outputs:");
-            logger.log("  - heart_disease_cleaned.csv (For general use)");
-            logger.log("  - heart_disease_cleaned.arff (For WEKA use)");
+            logger.log("  - " + name + ".csv (For general use)");
+            logger.log("  - " + name + ".arff (For WEKA use)");
+            logger.log("  - " + name + ".col (Columnar cache loaded by Steps 2-4)");
+            logger.log("  - " + modelPath + " (Fitted cleaning transform for new rows)");
+            if (!streaming) {
+                logger.log("  - docs/output/Step1_Correlation_Pearson.csv, Step1_Correlation_Spearman.csv");
+            }
 
         } catch (Exception e) {
             System.err.println(" Error in Step 1: " + e.getMessage());
@@ -66,5 +129,59 @@ public class PreprocessingRunner {
             }
         }
     }
+
+    /**
+     Clean and write the input chunk by chunk (see StreamingPreprocessor); the analysis
+     is taken from the statistics gathered on the way, without correlations.
+     */
+    private static void runStreaming(DataAnalyzer analyzer, IncrementalPreprocessor tracker,
+                                     CategoricalEncoding encoding, String csvPath, String cleanedCsvPath,
+                                     String cleanedArffPath, String modelPath) throws Exception {
+        StreamingPreprocessor preprocessor = new StreamingPreprocessor(encoding);
+        preprocessor.run(csvPath, cleanedCsvPath, cleanedArffPath, FileUtils.getColumnarCachePath(cleanedArffPath));
+
+        System.out.println("\n--- ORIGINAL DATA ANALYSIS ---");
+        analyzer.performAnalysis(preprocessor.getInputStructure(), preprocessor.getInputStatistics());
+        System.out.println("\n--- CLEANED DATA ANALYSIS ---");
+        Instances cleanedStructure = preprocessor.getTransform().getOutputStructure();
+        cleanedStructure.setClassIndex(cleanedStructure.numAttributes() - 1);
+        analyzer.performAnalysis(cleanedStructure, preprocessor.getOutputStatistics());
+
+        preprocessor.getTransform().save(modelPath);
+        if (tracker != null) {
+            tracker.initialize(csvPath, preprocessor.getInputStructure(), preprocessor.getInputStatistics(),
+                    preprocessor.getIndex(), preprocessor.getTransform());
+            tracker.recordOutputs(cleanedCsvPath, cleanedArffPath);
+            tracker.save();
+        }
+    }
+
+    /**
+     Clean only the rows appended since the last run and append them to the outputs.
+     */
+    private static void runIncremental(Logger logger, DataLoader loader, IncrementalPreprocessor tracker,
+                                       String cleanedCsvPath, String cleanedArffPath, String modelPath)
+            throws Exception {
+        long startTime = System.currentTimeMillis();
+        Instances newRows = tracker.processDelta();
+        System.out.println("✓ New input rows: " + tracker.getRowsRead() +
+                ", duplicates removed: " + tracker.getDuplicatesRemoved());
+
+        if (newRows.numInstances() > 0) {
+            loader.appendRows(newRows, cleanedCsvPath);
+            loader.appendRows(newRows, cleanedArffPath);
+        }
+        tracker.getTransform().save(modelPath);
+        // Saved only once both appends are complete
+        tracker.recordOutputs(cleanedCsvPath, cleanedArffPath);
+        tracker.save();
+
+        logger.log("\n STEP 1 COMPLETED (incremental).");
+        logger.log("New input rows: " + tracker.getRowsRead());
+        logger.log("Rows appended: " + newRows.numInstances() +
+                " (" + tracker.getDuplicatesRemoved() + " duplicates removed)");
+        logger.log("Cleaned rows in total: " + tracker.getRowsWritten());
+        logger.log("Time: " + (System.currentTimeMillis() - startTime) + " ms");
+    }
 }
 
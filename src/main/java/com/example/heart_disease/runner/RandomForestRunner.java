@@ -1,10 +1,11 @@
 package com.example.heart_disease.runner;
 
 import weka.core.Instances;
-import weka.core.converters.ConverterUtils.DataSource;
 import weka.classifiers.Evaluation;
 import com.example.heart_disease.classification.randomforest.RandomForestClassifier;
 import com.example.heart_disease.classification.crossvalidation.CrossValidation;
+import com.example.heart_disease.classification.crossvalidation.ExperimentScheduler;
+import com.example.heart_disease.preprocessing.DataLoader;
 import com.example.heart_disease.utils.FileUtils;
 import com.example.heart_disease.utils.Logger;
 
@@ -13,9 +14,41 @@ import java.io.PrintWriter;
 public class RandomForestRunner {
 
     public static void main(String[] args) {
+        String dataPath = "src/main/resources/heart_disease_cleaned.arff";
+        int cvThreads = 1;
+        int oobBatchSize = -1;
+        boolean tuned = false;
+        for (String arg : args) {
+            if (arg.equals("--tuned")) {
+                tuned = true;
+            } else if (arg.equals("--parallel-cv")) {
+                cvThreads = Runtime.getRuntime().availableProcessors();
+            } else if (arg.startsWith("--parallel-cv=")) {
+                cvThreads = Integer.parseInt(arg.substring("--parallel-cv=".length()));
+            } else if (arg.equals("--oob")) {
+                oobBatchSize = 25;
+            } else if (arg.startsWith("--oob=")) {
+                oobBatchSize = Integer.parseInt(arg.substring("--oob=".length()));
+            } else {
+                dataPath = arg;
+            }
+        }
+        run(dataPath, cvThreads, oobBatchSize, tuned, null);
+    }
+
+    /**
+     Step 3 report for the Random Forest cell of an ExperimentScheduler run
+     (TotalRunner): the fitted model and its cross-validation are taken from the cell,
+     not computed again
+     */
+    public static void report(ExperimentScheduler.CellResult scheduled) {
+        run("src/main/resources/heart_disease_cleaned.arff", 1, -1, false, scheduled);
+    }
+
+    private static void run(String dataPath, int cvThreads, int oobBatchSize, boolean tuned,
+                            ExperimentScheduler.CellResult scheduled) {
         PrintWriter writer = null;
         try {
-            String dataPath = args.length > 0 ? args[0] : "src/main/resources/heart_disease_cleaned.arff";
             dataPath = FileUtils.resolveDataPath(dataPath);
 
             writer = FileUtils.createOutputWriter(FileUtils.getOutputPath("Step3.txt"));
@@ -24,33 +57,53 @@ public class RandomForestRunner {
             logger.log("=== STEP 3: CLASSIFICATION (Random Forest with Balancing) ===\n");
 
             // 1. Load Data
-            DataSource source = new DataSource(dataPath);
-            Instances data = source.getDataSet();
+            Instances data = new DataLoader().loadDataset(dataPath);
             logger.log("✓ Dataset loaded");
 
             // 2. Prepare data: set class attribute and convert to nominal
             RandomForestClassifier rf = new RandomForestClassifier(logger, true);
+            if (tuned) {
+                rf.useTunedOptions();
+            }
+            if (oobBatchSize >= 0) {
+                rf.useOutOfBag(oobBatchSize);
+            }
             Instances preparedData = rf.prepareData(data);
             logger.log("✓ Class attribute converted to nominal");
             logger.log("");
 
-            // 3.  APPLY RESAMPLE FILTER (Crucial Step)
-            // Build Random Forest Classifier with Balancing
-            rf.buildModel(preparedData);
-
-            // Get balanced data for evaluation
-            Instances balancedData = rf.getBalancedData();
-
-            // Evaluation (10-Fold Cross-Validation on Balanced Data)
-            CrossValidation cv = new CrossValidation(logger);
-            Evaluation eval = cv.performCrossValidation(rf.getClassifier(), balancedData, 10);
-
-            logger.log(eval.toSummaryString());
-            logger.log("Confusion Matrix:");
-            logger.log(eval.toMatrixString());
-            logger.log("");
+            // 3. Build Random Forest Classifier with Balancing
+            // (classes are reweighted inside the training data only)
+            if (scheduled != null) {
+                rf.useModel(scheduled.getModel(), scheduled.getBuildMillis());
+            } else {
+                rf.buildModel(preparedData);
+            }
 
-            cv.printEvaluationResults(eval, balancedData);
+            CrossValidation cv = new CrossValidation(logger, cvThreads);
+            if (oobBatchSize >= 0) {
+                // Out-of-bag estimate from the training run, no cross-validation
+                logger.log("=== Out-of-Bag Evaluation ===");
+                cv.printEvaluationResults(rf.getOutOfBagEvaluation(), preparedData);
+            } else {
+                // Evaluation (10-Fold Cross-Validation, balancing each training fold)
+                Evaluation eval;
+                if (scheduled != null) {
+                    logger.log("=== 10-Fold Cross-Validation ===");
+                    logger.log("✓ Folds run by the experiment scheduler: " + scheduled.getFoldMillis()
+                            + " ms CPU time\n");
+                    eval = scheduled.getEvaluation();
+                } else {
+                    eval = cv.performCrossValidation(rf.getClassifier(), preparedData, 10);
+                }
+
+                logger.log(eval.toSummaryString());
+                logger.log("Confusion Matrix:");
+                logger.log(eval.toMatrixString());
+                logger.log("");
+
+                cv.printEvaluationResults(eval, preparedData);
+            }
 
             // 4. Save model to binary file
             rf.saveModel("RANDOMFOREST.model");
@@ -0,0 +1,190 @@
+package com.example.heart_disease.runner;
+
+import weka.classifiers.Classifier;
+import weka.core.SerializationHelper;
+import com.example.heart_disease.classification.inference.BatchScorer;
+import com.example.heart_disease.preprocessing.CleaningTransform;
+import com.example.heart_disease.serving.LatencyHistogram;
+import com.example.heart_disease.serving.LoadGenerator;
+import com.example.heart_disease.serving.MicroBatcher;
+import com.example.heart_disease.serving.PredictionServer;
+import com.example.heart_disease.utils.FileUtils;
+import com.example.heart_disease.utils.Logger;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ Load test of PredictionServer with the bundled LoadGenerator: requests per second
+ and p50/p99/p99.9 latency at each client concurrency, for three settings of the
+ micro-batcher started in-process on a free port:
+
+   unbatched      every request scored on its own (batches of 1)
+   batched        requests already queued scored together, no waiting
+   budget         batched, and a batch waits up to --max-delay-us for more requests
+
+ Request bodies are rows of the raw dataset, --rows-per-request per request. Before
+ the first run the JVM is warmed up for --jvm-warmup seconds against a throwaway
+ server, and every run has its own --warmup. With --url the load goes to an
+ already running server instead.
+
+ Usage: ServingBenchmark [modelPath] [--concurrency=N1,N2] [--seconds=N] [--warmup=N]
+                         [--jvm-warmup=N] [--rows-per-request=N] [--rate=N]
+                         [--max-delay-us=N] [--url=URL]
+        (defaults: DECISIONTREE.model, 1,16,64, 5, 2, 30, 1, closed loop, 500 µs;
+         --rate sends that many requests per second whatever the latency instead)
+ */
+public class ServingBenchmark {
+
+    public static void main(String[] args) {
+        PrintWriter writer = null;
+        try {
+            String modelPath = "DECISIONTREE.model";
+            int[] concurrencies = {1, 16, 64};
+            int seconds = 5;
+            int warmup = 2;
+            int jvmWarmup = 30;
+            int rowsPerRequest = 1;
+            double rate = 0;
+            long maxDelay = MicroBatcher.DEFAULT_MAX_DELAY_MICROS;
+            String url = null;
+            for (String arg : args) {
+                if (arg.startsWith("--concurrency=")) {
+                    concurrencies = Arrays.stream(arg.substring("--concurrency=".length()).split(","))
+                            .mapToInt(Integer::parseInt).toArray();
+                } else if (arg.startsWith("--seconds=")) {
+                    seconds = Integer.parseInt(arg.substring("--seconds=".length()));
+                } else if (arg.startsWith("--warmup=")) {
+                    warmup = Integer.parseInt(arg.substring("--warmup=".length()));
+                } else if (arg.startsWith("--jvm-warmup=")) {
+                    jvmWarmup = Integer.parseInt(arg.substring("--jvm-warmup=".length()));
+                } else if (arg.startsWith("--rows-per-request=")) {
+                    rowsPerRequest = Integer.parseInt(arg.substring("--rows-per-request=".length()));
+                } else if (arg.startsWith("--rate=")) {
+                    rate = Double.parseDouble(arg.substring("--rate=".length()));
+                } else if (arg.startsWith("--max-delay-us=")) {
+                    maxDelay = Long.parseLong(arg.substring("--max-delay-us=".length()));
+                } else if (arg.startsWith("--url=")) {
+                    url = arg.substring("--url=".length());
+                } else {
+                    modelPath = arg;
+                }
+            }
+
+            writer = FileUtils.createOutputWriter(FileUtils.getOutputPath("Benchmark_Serving.txt"));
+            Logger logger = new Logger(writer);
+
+            logger.log("=== BENCHMARK: HTTP SCORING WITH MICRO-BATCHING ===\n");
+
+            String dataPath = FileUtils.resolveDataPath("src/main/resources/heart_disease.csv");
+            List<String> lines = Files.readAllLines(Paths.get(dataPath), StandardCharsets.UTF_8);
+            List<String> bodies = new ArrayList<>();
+            for (int i = 1; i + rowsPerRequest <= lines.size(); i += rowsPerRequest) {
+                bodies.add(String.join("\n", lines.subList(i, i + rowsPerRequest)) + "\n");
+            }
+            logger.log(String.format("✓ %,d request bodies of %d row(s) from %s", bodies.size(), rowsPerRequest,
+                    dataPath));
+            logger.log(String.format("✓ %s, %d s warm-up and %d s measured per run, %d cores",
+                    rate > 0 ? String.format("Open loop at %,.0f requests/s", rate) : "Closed loop",
+                    warmup, seconds, Runtime.getRuntime().availableProcessors()));
+
+            if (url != null) {
+                logger.log("✓ Target: " + url + "\n");
+                header(logger);
+                for (int concurrency : concurrencies) {
+                    LoadGenerator.Result result = load(url, bodies, concurrency, rate, warmup, seconds);
+                    row(logger, "external", concurrency, result, Double.NaN);
+                }
+                return;
+            }
+
+            if (!new File(CleaningTransform.DEFAULT_MODEL_PATH).exists()) {
+                throw new Exception(CleaningTransform.DEFAULT_MODEL_PATH
+                        + " not found: run Step 1 (PreprocessingRunner) first");
+            }
+            CleaningTransform transform = CleaningTransform.load(CleaningTransform.DEFAULT_MODEL_PATH);
+            Classifier model = (Classifier) SerializationHelper.read(modelPath);
+            BatchScorer scorer = BatchScorer.of(model, transform.getTrainingStructure(), false);
+            logger.log("✓ Model loaded from " + modelPath + ": " + scorer.getDescription());
+
+            String[] names = {"unbatched", "batched", "budget"};
+            int[] maxBatches = {1, MicroBatcher.DEFAULT_MAX_BATCH_ROWS, MicroBatcher.DEFAULT_MAX_BATCH_ROWS};
+            long[] delays = {0, 0, maxDelay};
+
+            PredictionServer.enableNoDelay();
+
+            // Let the JIT compile the server, client and scorer paths before the first measured run
+            PredictionServer warmupServer = new PredictionServer(transform, scorer);
+            warmupServer.start("127.0.0.1", 0);
+            try {
+                for (int concurrency : concurrencies) {
+                    load("http://127.0.0.1:" + warmupServer.getPort() + "/predict", bodies, concurrency, 0, 0,
+                            Math.max(1, jvmWarmup / concurrencies.length));
+                }
+            } finally {
+                warmupServer.stop();
+            }
+            logger.log(String.format("✓ JVM warmed up for %d s\n", jvmWarmup));
+
+            header(logger);
+            for (int c = 0; c < names.length; c++) {
+                for (int concurrency : concurrencies) {
+                    PredictionServer server = new PredictionServer(transform, scorer);
+                    server.getBatcher().setMaxBatchRows(maxBatches[c]);
+                    server.getBatcher().setMaxDelayMicros(delays[c]);
+                    server.start("127.0.0.1", 0);
+                    LoadGenerator.Result result;
+                    try {
+                        result = load("http://127.0.0.1:" + server.getPort() + "/predict", bodies, concurrency, rate,
+                                warmup, seconds);
+                    } finally {
+                        server.stop();
+                    }
+                    row(logger, names[c], concurrency, result, server.getBatcher().getMeanBatchRows());
+                }
+            }
+            logger.log("\nBatch = mean rows per scorer call, warm-up included; "
+                    + "latency from request due to response received.");
+
+        } catch (Exception e) {
+            System.err.println("❌ Error in serving benchmark: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            if (writer != null) {
+                writer.close();
+                System.out.println("\n✓ Output saved to: docs/output/Benchmark_Serving.txt");
+            }
+        }
+    }
+
+    private static LoadGenerator.Result load(String url, List<String> bodies, int concurrency, double rate,
+                                             int warmup, int seconds) throws InterruptedException {
+        LoadGenerator generator = new LoadGenerator(URI.create(url), bodies);
+        generator.setConcurrency(concurrency);
+        generator.setRate(rate);
+        return generator.run(Duration.ofSeconds(warmup), Duration.ofSeconds(seconds));
+    }
+
+    private static void header(Logger logger) {
+        logger.log(String.format("%-10s %8s %10s %10s %10s %10s %8s %7s", "Server", "Clients", "Req/s",
+                "p50 (µs)", "p99 (µs)", "p99.9 (µs)", "Batch", "Errors"));
+        logger.log("-".repeat(80));
+    }
+
+    private static void row(Logger logger, String name, int concurrency, LoadGenerator.Result result,
+                            double meanBatch) {
+        LatencyHistogram latency = result.latency;
+        logger.log(String.format("%-10s %8d %,10.0f %,10.0f %,10.0f %,10.0f %8s %7d", name, concurrency,
+                result.throughput(), latency.percentile(50) / 1e3, latency.percentile(99) / 1e3,
+                latency.percentile(99.9) / 1e3, Double.isNaN(meanBatch) ? "-" : String.format("%.1f", meanBatch),
+                result.errors));
+    }
+}
@@ -2,11 +2,12 @@ package com.example.heart_disease.runner;
 
 import weka.classifiers.Evaluation;
 import weka.core.Instances;
-import weka.core.converters.ConverterUtils.DataSource;
 import com.example.heart_disease.classification.j48.J48BalancedClassifier;
+import com.example.heart_disease.preprocessing.DataLoader;
 import com.example.heart_disease.utils.Logger;
 import java.io.FileWriter;
 import java.io.PrintWriter;
+import java.util.Arrays;
 import java.util.Random;
 
 public class Step3bRunner {
@@ -19,7 +20,7 @@ public class Step3bRunner {
             fileWriter = new PrintWriter(new FileWriter("docs/output/step3b.txt"));
             logger = new Logger(fileWriter);
             
-            executeStep3b(logger);
+            executeStep3b(logger, Arrays.asList(args).contains("--tuned"));
             
         } catch (Exception e) {
             System.err.println("❌ Error in Step 3b: " + e.getMessage());
@@ -36,12 +37,18 @@ public class Step3bRunner {
     }
     
     public static void executeStep3b(Logger logger) throws Exception {
+        executeStep3b(logger, false);
+    }
+
+    /**
+     Step 3b; with tuned, the options TuningRunner saved for balanced J48
+     */
+    public static void executeStep3b(Logger logger, boolean tuned) throws Exception {
         logger.log("=== STEP 3B: J48 DECISION TREE WITH BALANCED DATA ===\n");
         
         // 1. Load the ARFF dataset
         String datasetPath = "src/main/resources/heart_disease_cleaned.arff";
-        DataSource source = new DataSource(datasetPath);
-        Instances data = source.getDataSet();
+        Instances data = new DataLoader().loadDataset(datasetPath);
         
         logger.log("✓ Dataset loaded: " + datasetPath);
         logger.log("✓ Number of instances: " + data.numInstances());
@@ -50,6 +57,9 @@ public class Step3bRunner {
         
         // 2. Prepare data (set class and convert to nominal)
         J48BalancedClassifier classifier = new J48BalancedClassifier(logger, true);
+        if (tuned) {
+            classifier.useTunedOptions();
+        }
         data = classifier.prepareData(data);
         
         // 3. Build J48 with balanced data
@@ -60,15 +70,12 @@ public class Step3bRunner {
         logger.log(classifier.getClassifier().toString());
         logger.log("");
         
-        // 5. Get balanced data for evaluation
-        Instances balancedData = classifier.getBalancedData();
-        
-        // 6. Evaluate using 10-fold cross-validation on balanced data
-        logger.log("=== 10-Fold Cross-Validation (on Balanced Data) ===");
+        // 5. Evaluate using 10-fold cross-validation, balancing each training fold
+        logger.log("=== 10-Fold Cross-Validation (Balanced Training Folds) ===");
         long evalStartTime = System.currentTimeMillis();
         
-        Evaluation eval = new Evaluation(balancedData);
-        eval.crossValidateModel(classifier.getClassifier(), balancedData, 10, new Random(1));
+        Evaluation eval = new Evaluation(data);
+        eval.crossValidateModel(classifier.getClassifier(), data, 10, new Random(1));
         
         long evalTime = System.currentTimeMillis() - evalStartTime;
         
@@ -77,7 +84,7 @@ public class Step3bRunner {
         logger.log(eval.toMatrixString());
         logger.log("");
         
-        // 7. Performance metrics
+        // 6. Performance metrics
         logger.log("=== Performance Metrics ===");
         logger.log(String.format("Correctly Classified: %.2f%%", eval.pctCorrect()));
         logger.log(String.format("Incorrectly Classified: %.2f%%", eval.pctIncorrect()));
@@ -86,17 +93,17 @@ public class Step3bRunner {
         logger.log(String.format("Root Mean Squared Error: %.4f", eval.rootMeanSquaredError()));
         logger.log("");
         
-        // 8. Class-specific metrics
+        // 7. Class-specific metrics
         logger.log("=== Class-Specific Metrics ===");
-        for (int i = 0; i < balancedData.numClasses(); i++) {
-            logger.log("\nClass " + i + " (" + balancedData.classAttribute().value(i) + "):");
+        for (int i = 0; i < data.numClasses(); i++) {
+            logger.log("\nClass " + i + " (" + data.classAttribute().value(i) + "):");
             logger.log(String.format("  Precision: %.4f", eval.precision(i)));
             logger.log(String.format("  Recall: %.4f", eval.recall(i)));
             logger.log(String.format("  F-Measure: %.4f", eval.fMeasure(i)));
             logger.log(String.format("  ROC Area: %.4f", eval.areaUnderROC(i)));
         }
         
-        // 9. Timing information
+        // 8. Timing information
         logger.log("\n=== Timing Information ===");
         logger.log("Build time: " + classifier.getBuildTime() + " ms");
         logger.log("Evaluation time (10-fold CV): " + evalTime + " ms");
@@ -2,26 +2,73 @@ package com.example.heart_disease.runner;
 
 import weka.classifiers.Evaluation;
 import weka.core.Instances;
-import weka.core.converters.ConverterUtils.DataSource;
+import com.example.heart_disease.classification.balancing.BalancingClassifier;
+import com.example.heart_disease.classification.boosting.GradientBoostingClassifier;
+import com.example.heart_disease.classification.crossvalidation.ExperimentScheduler;
+import com.example.heart_disease.classification.crossvalidation.RepeatedCrossValidation;
+import com.example.heart_disease.classification.crossvalidation.RepeatedCrossValidation.Metric;
 import com.example.heart_disease.classification.j48.J48Classifier;
 import com.example.heart_disease.classification.j48.J48BalancedClassifier;
 import com.example.heart_disease.classification.randomforest.RandomForestClassifier;
+import com.example.heart_disease.preprocessing.DataLoader;
+import com.example.heart_disease.split.FoldIndices;
 import com.example.heart_disease.utils.Logger;
+import weka.experiment.PairedStatsCorrected;
+import weka.experiment.Stats;
 import java.io.FileWriter;
 import java.io.PrintWriter;
-import java.util.Random;
+import java.util.Arrays;
+import java.util.List;
 
 public class Step4ComprehensiveRunner {
     
+    private static final String[] MODEL_NAMES = {"Model 1 (J48 Imbalanced)", "Model 2 (J48 Balanced)",
+            "Model 3 (Random Forest)", "Model 4 (Boosted Trees)"};
+    private static final String[] MODEL_TITLES = {"J48 on Imbalanced Data", "J48 with Balanced Data",
+            "Random Forest", "Gradient Boosted Trees"};
+    
+    public static final String J48_CELL = "MODEL 1: J48 Decision Tree (Imbalanced Data)";
+    public static final String RANDOM_FOREST_CELL = "MODEL 3: Random Forest (Balanced Data)";
+    
+    /** Kappa up to this is at most slight agreement (Landis and Koch). */
+    private static final double SLIGHT_KAPPA = 0.2;
+    
+    /**
+     * Usage: Step4ComprehensiveRunner [--repeated-cv[=repetitions]] [--threads=N]
+     * Models and folds run on all cores (or N threads). --repeated-cv adds 10 x 10-fold
+     * (or repetitions x 10-fold) cross-validation with mean/stddev per metric and
+     * corrected t-tests.
+     */
     public static void main(String[] args) {
+        run(args, null);
+    }
+    
+    /**
+     * Step 4 with the given arguments; cells is also called with each model as it
+     * finishes (TotalRunner writes the Step 2 and Step 3 reports from J48_CELL and
+     * RANDOM_FOREST_CELL)
+     */
+    public static void run(String[] args, ExperimentScheduler.Listener cells) {
         PrintWriter fileWriter = null;
         Logger logger = null;
         
         try {
+            int repetitions = 0;
+            int threads = Runtime.getRuntime().availableProcessors();
+            for (String arg : args) {
+                if (arg.equals("--repeated-cv")) {
+                    repetitions = 10;
+                } else if (arg.startsWith("--repeated-cv=")) {
+                    repetitions = Integer.parseInt(arg.substring("--repeated-cv=".length()));
+                } else if (arg.startsWith("--threads=")) {
+                    threads = Integer.parseInt(arg.substring("--threads=".length()));
+                }
+            }
+
             fileWriter = new PrintWriter(new FileWriter("docs/output/Step4.txt"));
             logger = new Logger(fileWriter);
             
-            executeStep4(logger);
+            executeStep4(logger, repetitions, threads, cells);
             
         } catch (Exception e) {
             System.err.println("❌ Error in Step 4: " + e.getMessage());
@@ -38,12 +85,20 @@ public class Step4ComprehensiveRunner {
     }
     
     public static void executeStep4(Logger logger) throws Exception {
+        executeStep4(logger, 0, 1, null);
+    }
+
+    /**
+     * Step 4 with, when repetitions > 0, repeated cross-validation of all four models
+     * on the given number of threads
+     */
+    public static void executeStep4(Logger logger, int repetitions, int threads, ExperimentScheduler.Listener cells)
+            throws Exception {
         logger.log("=== STEP 4: COMPREHENSIVE MODEL EVALUATION AND COMPARISON ===\n");
         
         // 1. Load the ARFF dataset
         String datasetPath = "src/main/resources/heart_disease_cleaned.arff";
-        DataSource source = new DataSource(datasetPath);
-        Instances data = source.getDataSet();
+        Instances data = new DataLoader().loadDataset(datasetPath);
         
         logger.log("✓ Dataset loaded: " + datasetPath);
         logger.log("✓ Total instances: " + data.numInstances());
@@ -76,31 +131,40 @@ public class Step4ComprehensiveRunner {
         logger.log("Ratio: " + String.format("%.1f:1", (class0Count * 1.0 / class1Count)));
         logger.log("");
         
-        // 3. Build and evaluate three models
+        // 3. Build and evaluate four models
         logger.log("=== Model Training & Evaluation ===\n");
-        
-        // Model 1: J48 on Imbalanced Data
-        logger.log("---- MODEL 1: J48 Decision Tree (Imbalanced Data) ----");
-        J48Classifier j48Imbalanced = new J48Classifier(logger);
-        j48Imbalanced.buildModel(dataForEval);
-        Evaluation eval1 = evaluateModel(logger, j48Imbalanced.getClassifier(), dataForEval, "J48 (Imbalanced)");
-        logger.log("");
-        
-        // Model 2: J48 on Balanced Data
-        logger.log("---- MODEL 2: J48 Decision Tree (Balanced Data) ----");
-        J48BalancedClassifier j48Balanced = new J48BalancedClassifier(logger, true);
-        j48Balanced.buildModel(dataForEval);
-        Instances balancedData = j48Balanced.getBalancedData();
-        Evaluation eval2 = evaluateModel(logger, j48Balanced.getClassifier(), balancedData, "J48 (Balanced)");
+        logger.log("Fits and folds of all models run as one task graph on " + threads
+                + " worker thread(s); models are reported as they finish.\n");
+        
+        ExperimentScheduler scheduler = new ExperimentScheduler(threads)
+                .add(J48_CELL, new J48Classifier(logger).createClassifier(), "cleaned", dataForEval)
+                .add("MODEL 2: J48 Decision Tree (Balanced Data)",
+                        new J48BalancedClassifier(logger, true).createClassifier(), "cleaned", dataForEval)
+                .add(RANDOM_FOREST_CELL, new RandomForestClassifier(logger, true).createClassifier(), "cleaned",
+                        dataForEval)
+                .add("MODEL 4: Gradient Boosted Trees (Class Weights)",
+                        new GradientBoostingClassifier(logger, true).createClassifier(), "cleaned", dataForEval);
+        long scheduleStart = System.currentTimeMillis();
+        List<ExperimentScheduler.CellResult> results = scheduler.run(result -> {
+            logCellResult(logger, result);
+            if (cells != null) {
+                cells.cellFinished(result);
+            }
+        });
+        long scheduleTime = System.currentTimeMillis() - scheduleStart;
+        long workTime = 0;
+        for (ExperimentScheduler.CellResult result : results) {
+            workTime += result.getBuildMillis() + result.getFoldMillis();
+        }
+        logger.log(String.format("✓ All models finished in %d ms (%d ms CPU time in fits and folds%s)",
+                scheduleTime, workTime, estimatedSpeedup(threads, workTime, scheduleTime)));
         logger.log("");
         
-        // Model 3: Random Forest on Balanced Data
-        logger.log("---- MODEL 3: Random Forest (Balanced Data) ----");
-        RandomForestClassifier rfBalanced = new RandomForestClassifier(logger, true);
-        rfBalanced.buildModel(dataForEval);
-        Instances balancedDataRF = rfBalanced.getBalancedData();
-        Evaluation eval3 = evaluateModel(logger, rfBalanced.getClassifier(), balancedDataRF, "Random Forest (Balanced)");
-        logger.log("");
+        Evaluation eval1 = results.get(0).getEvaluation();
+        Evaluation eval2 = results.get(1).getEvaluation();
+        Evaluation eval3 = results.get(2).getEvaluation();
+        Evaluation eval4 = results.get(3).getEvaluation();
+        Evaluation[] evals = {eval1, eval2, eval3, eval4};
         
         // 4. Comparative Analysis
         logger.log("=== COMPARATIVE ANALYSIS ===\n");
@@ -111,60 +175,72 @@ public class Step4ComprehensiveRunner {
         logger.log(String.format("│ Model 1 (J48 Imbalanced):        %6.2f%%                        │", eval1.pctCorrect()));
         logger.log(String.format("│ Model 2 (J48 Balanced):          %6.2f%%                        │", eval2.pctCorrect()));
         logger.log(String.format("│ Model 3 (Random Forest):         %6.2f%%                        │", eval3.pctCorrect()));
+        logger.log(String.format("│ Model 4 (Boosted Trees):         %6.2f%%                        │", eval4.pctCorrect()));
         logger.log("└─────────────────────────────────────────────────────────────────────┘");
         logger.log("");
         
         logger.log("┌──────────────────────────────────────────────────────────────────────────┐");
         logger.log("│ CLASS 1 (DISEASE) RECALL COMPARISON - CRITICAL FOR MEDICAL USE            │");
         logger.log("├──────────────────────────────────────────────────────────────────────────┤");
-        logger.log(String.format("│ Model 1 (J48 Imbalanced):        %6.2f%%  ❌ POOR                 │", eval1.recall(1) * 100));
-        logger.log(String.format("│ Model 2 (J48 Balanced):          %6.2f%%  ✅ ACCEPTABLE           │", eval2.recall(1) * 100));
-        logger.log(String.format("│ Model 3 (Random Forest):         %6.2f%%  ✅ EXCELLENT            │", eval3.recall(1) * 100));
+        for (int m = 0; m < evals.length; m++) {
+            logger.log(String.format("│ %-32s %6.2f%%  %-22s │", MODEL_NAMES[m] + ":", evals[m].recall(1) * 100,
+                    recallVerdict(evals[m].recall(1))));
+        }
         logger.log("└──────────────────────────────────────────────────────────────────────────┘");
         logger.log("");
         
         logger.log("┌──────────────────────────────────────────────────────────────┐");
         logger.log("│ KAPPA STATISTIC (Agreement Beyond Chance)                     │");
         logger.log("├──────────────────────────────────────────────────────────────┤");
-        logger.log(String.format("│ Model 1 (J48 Imbalanced):        %7.4f  ❌ USELESS           │", eval1.kappa()));
-        logger.log(String.format("│ Model 2 (J48 Balanced):          %7.4f  ✅ FAIR             │", eval2.kappa()));
-        logger.log(String.format("│ Model 3 (Random Forest):         %7.4f  ✅ EXCELLENT        │", eval3.kappa()));
+        for (int m = 0; m < evals.length; m++) {
+            logger.log(String.format("│ %-32s %7.4f  %-18s │", MODEL_NAMES[m] + ":", evals[m].kappa(),
+                    kappaVerdict(evals[m].kappa())));
+        }
         logger.log("└──────────────────────────────────────────────────────────────┘");
         logger.log("");
         
         // 5. Detailed Metrics Table
         logger.log("=== DETAILED METRICS COMPARISON TABLE ===\n");
         
-        logger.log("Metric                           | J48 Imbalanced | J48 Balanced   | Random Forest");
-        logger.log("─────────────────────────────────────────────────────────────────────────────────────");
-        logger.log(String.format("Accuracy                         | %14.2f | %14.2f | %14.2f", 
-                  eval1.pctCorrect(), eval2.pctCorrect(), eval3.pctCorrect()));
-        logger.log(String.format("Kappa Statistic                  | %14.4f | %14.4f | %14.4f", 
-                  eval1.kappa(), eval2.kappa(), eval3.kappa()));
-        logger.log(String.format("Mean Absolute Error              | %14.4f | %14.4f | %14.4f", 
-                  eval1.meanAbsoluteError(), eval2.meanAbsoluteError(), eval3.meanAbsoluteError()));
+        logger.log("Metric                           | J48 Imbalanced | J48 Balanced   | Random Forest  | Boosted Trees");
+        logger.log("────────────────────────────────────────────────────────────────────────────────────────────────────");
+        logger.log(String.format("Accuracy                         | %14.2f | %14.2f | %14.2f | %14.2f", 
+                  eval1.pctCorrect(), eval2.pctCorrect(), eval3.pctCorrect(), eval4.pctCorrect()));
+        logger.log(String.format("Kappa Statistic                  | %14.4f | %14.4f | %14.4f | %14.4f", 
+                  eval1.kappa(), eval2.kappa(), eval3.kappa(), eval4.kappa()));
+        logger.log(String.format("Mean Absolute Error              | %14.4f | %14.4f | %14.4f | %14.4f", 
+                  eval1.meanAbsoluteError(), eval2.meanAbsoluteError(), eval3.meanAbsoluteError(), eval4.meanAbsoluteError()));
         logger.log("");
         
         logger.log("CLASS 0 (NO DISEASE) METRICS:");
-        logger.log(String.format("  Precision (Class 0)            | %14.4f | %14.4f | %14.4f", 
-                  eval1.precision(0), eval2.precision(0), eval3.precision(0)));
-        logger.log(String.format("  Recall (Class 0)               | %14.4f | %14.4f | %14.4f", 
-                  eval1.recall(0), eval2.recall(0), eval3.recall(0)));
-        logger.log(String.format("  F-Measure (Class 0)            | %14.4f | %14.4f | %14.4f", 
-                  eval1.fMeasure(0), eval2.fMeasure(0), eval3.fMeasure(0)));
+        logger.log(String.format("  Precision (Class 0)            | %14.4f | %14.4f | %14.4f | %14.4f", 
+                  eval1.precision(0), eval2.precision(0), eval3.precision(0), eval4.precision(0)));
+        logger.log(String.format("  Recall (Class 0)               | %14.4f | %14.4f | %14.4f | %14.4f", 
+                  eval1.recall(0), eval2.recall(0), eval3.recall(0), eval4.recall(0)));
+        logger.log(String.format("  F-Measure (Class 0)            | %14.4f | %14.4f | %14.4f | %14.4f", 
+                  eval1.fMeasure(0), eval2.fMeasure(0), eval3.fMeasure(0), eval4.fMeasure(0)));
         logger.log("");
         
         logger.log("CLASS 1 (HAS DISEASE) METRICS:");
-        logger.log(String.format("  Precision (Class 1)            | %14.4f | %14.4f | %14.4f", 
-                  eval1.precision(1), eval2.precision(1), eval3.precision(1)));
-        logger.log(String.format("  Recall (Class 1)               | %14.4f | %14.4f | %14.4f", 
-                  eval1.recall(1), eval2.recall(1), eval3.recall(1)));
-        logger.log(String.format("  F-Measure (Class 1)            | %14.4f | %14.4f | %14.4f", 
-                  eval1.fMeasure(1), eval2.fMeasure(1), eval3.fMeasure(1)));
-        logger.log(String.format("  ROC Area (Class 1)             | %14.4f | %14.4f | %14.4f", 
-                  eval1.areaUnderROC(1), eval2.areaUnderROC(1), eval3.areaUnderROC(1)));
+        logger.log(String.format("  Precision (Class 1)            | %14.4f | %14.4f | %14.4f | %14.4f", 
+                  eval1.precision(1), eval2.precision(1), eval3.precision(1), eval4.precision(1)));
+        logger.log(String.format("  Recall (Class 1)               | %14.4f | %14.4f | %14.4f | %14.4f", 
+                  eval1.recall(1), eval2.recall(1), eval3.recall(1), eval4.recall(1)));
+        logger.log(String.format("  F-Measure (Class 1)            | %14.4f | %14.4f | %14.4f | %14.4f", 
+                  eval1.fMeasure(1), eval2.fMeasure(1), eval3.fMeasure(1), eval4.fMeasure(1)));
+        logger.log(String.format("  ROC Area (Class 1)             | %14.4f | %14.4f | %14.4f | %14.4f", 
+                  eval1.areaUnderROC(1), eval2.areaUnderROC(1), eval3.areaUnderROC(1), eval4.areaUnderROC(1)));
         logger.log("");
         
+        // 5b. Repeated cross-validation
+        Boolean forestSignificantlyBetter = null;
+        if (repetitions > 0) {
+            forestSignificantlyBetter = logRepeatedCrossValidation(logger, new J48Classifier(logger).createClassifier(),
+                    dataForEval, new J48BalancedClassifier(logger, true).createClassifier(),
+                    new RandomForestClassifier(logger, true).createClassifier(),
+                    new GradientBoostingClassifier(logger, true).createClassifier(), repetitions, threads);
+        }
+        
         // 6. Key Insights
         logger.log("=== KEY INSIGHTS & ANALYSIS ===\n");
         
@@ -173,10 +249,12 @@ public class Step4ComprehensiveRunner {
         double recallImprove = (eval2.recall(1) - eval1.recall(1)) * 100;
         double kappaImprove = eval2.kappa() - eval1.kappa();
         
-        logger.log("   • Accuracy improved by:       " + String.format("%.2f%%", accuracyImprove));
-        logger.log("   • Class 1 Recall improved by: " + String.format("%.2f%%", recallImprove));
-        logger.log("   • Kappa improved by:          " + String.format("%.4f", kappaImprove));
-        logger.log("   → Data balancing significantly improves J48's ability to detect disease");
+        logger.log("   • Accuracy change:            " + String.format("%+.2f%%", accuracyImprove));
+        logger.log("   • Class 1 Recall change:      " + String.format("%+.2f%%", recallImprove));
+        logger.log("   • Kappa change:               " + String.format("%+.4f", kappaImprove));
+        logger.log(recallImprove > 0 && kappaImprove > 0
+                ? "   → Data balancing improves J48's ability to detect disease"
+                : "   → Data balancing does not make J48 better at detecting disease here");
         logger.log("");
         
         logger.log("2. ALGORITHM DIFFERENCE (Model 2 vs Model 3):");
@@ -187,63 +265,236 @@ public class Step4ComprehensiveRunner {
         logger.log("   • Accuracy difference:       " + String.format("%.2f%%", algorithmAccuracy));
         logger.log("   • Class 1 Recall difference: " + String.format("%.2f%%", algorithmRecall));
         logger.log("   • Kappa difference:          " + String.format("%.4f", algorithmKappa));
-        logger.log("   → Random Forest outperforms J48 even with balanced data");
+        logger.log(algorithmKappa > 0 && algorithmAccuracy > 0
+                ? "   → Random Forest outperforms J48 with balanced data"
+                : algorithmKappa < 0 && algorithmAccuracy < 0
+                ? "   → J48 outperforms Random Forest with balanced data"
+                : "   → Neither model is better on both accuracy and kappa");
+        logger.log("");
+        
+        logger.log("3. BAGGING VS BOOSTING (Model 3 vs Model 4):");
+        logger.log("   • Accuracy difference:       " + String.format("%.2f%%", eval4.pctCorrect() - eval3.pctCorrect()));
+        logger.log("   • Class 1 Recall difference: " + String.format("%.2f%%", (eval4.recall(1) - eval3.recall(1)) * 100));
+        logger.log("   • ROC Area difference:       " + String.format("%.4f", eval4.areaUnderROC(1) - eval3.areaUnderROC(1)));
+        logger.log("   → Boosting uses a few shallow trees (early stopping on a validation fold)");
+        logger.log("     instead of 100 unpruned ones, so it is far cheaper to score");
         logger.log("");
         
-        logger.log("3. MEDICAL PERSPECTIVE:");
+        logger.log("4. MEDICAL PERSPECTIVE:");
         double model1MissRate = (1 - eval1.recall(1)) * class1Count;
         double model2MissRate = (1 - eval2.recall(1)) * class1Count;
         double model3MissRate = (1 - eval3.recall(1)) * class1Count;
+        double model4MissRate = (1 - eval4.recall(1)) * class1Count;
         
         logger.log("   Expected missed diagnoses (out of " + class1Count + " sick patients):");
-        logger.log("   • Model 1 (J48 Imbalanced):  ~" + (int)model1MissRate + " patients ❌");
-        logger.log("   • Model 2 (J48 Balanced):    ~" + (int)model2MissRate + " patients ⚠️");
-        logger.log("   • Model 3 (Random Forest):   ~" + (int)model3MissRate + " patients ✅");
+        double[] missRates = {model1MissRate, model2MissRate, model3MissRate, model4MissRate};
+        for (int m = 0; m < evals.length; m++) {
+            logger.log(String.format("   • %-27s ~%d patients %s", MODEL_NAMES[m] + ":", (int) missRates[m],
+                    recallVerdict(evals[m].recall(1)).split(" ")[0]));
+        }
         logger.log("");
         
         // 7. Final Recommendation
         logger.log("=== FINAL RECOMMENDATION ===\n");
-        logger.log("🏆 WINNER: Random Forest (Model 3)\n");
-        
-        logger.log("REASONS:");
-        logger.log("1. Highest Overall Accuracy:      " + String.format("%.2f%%", eval3.pctCorrect()));
-        logger.log("2. Excellent Disease Detection:   " + String.format("%.2f%% Recall", eval3.recall(1) * 100));
-        logger.log("3. Strong Reliability (Kappa):    " + String.format("%.4f", eval3.kappa()));
-        logger.log("4. Balanced Class Performance:    Both classes > 90% recall");
-        logger.log("5. Medical Feasibility:           Only ~" + (int)model3MissRate + " missed diagnoses\n");
-        
-        logger.log("RUNNER-UP: J48 with Balanced Data (Model 2)");
-        logger.log("• Improvement over imbalanced:  Data balancing is critical!");
-        logger.log("• Disease recall improved from " + String.format("%.2f%%", eval1.recall(1) * 100) + 
-                  " to " + String.format("%.2f%%", eval2.recall(1) * 100));
-        logger.log("• Still inferior to Random Forest for medical applications\n");
-        
-        logger.log("NOT RECOMMENDED: J48 on Imbalanced Data (Model 1)");
-        logger.log("• Misses " + (int)model1MissRate + " out of " + class1Count + " sick patients");
-        logger.log("• Negative Kappa: Worse than random guessing!");
-        logger.log("• Dangerous for medical use\n");
+        // Ranked by kappa: unlike accuracy it does not reward predicting the majority class
+        Integer[] ranking = {0, 1, 2, 3};
+        Arrays.sort(ranking, (x, y) -> Double.compare(evals[y].kappa(), evals[x].kappa()));
+        int winner = ranking[0];
+        int runnerUp = ranking[1];
+        Evaluation best = evals[winner];
+        if (best.kappa() > SLIGHT_KAPPA) {
+            logger.log("🏆 WINNER: " + MODEL_TITLES[winner] + " (Model " + (winner + 1) + ")\n");
+        } else {
+            logger.log("⚠️ NO CLEAR WINNER: no model agrees with the labels much beyond chance");
+            logger.log("   Best kappa: " + MODEL_TITLES[winner] + " (Model " + (winner + 1) + ")\n");
+        }
+        
+        logger.log(best.kappa() > SLIGHT_KAPPA ? "REASONS:" : "METRICS:");
+        logger.log("1. Overall Accuracy:              " + String.format("%.2f%% (%s of %d)", best.pctCorrect(),
+                rankLabel(evals, winner), evals.length));
+        logger.log("2. Disease Detection:             " + String.format("%.2f%% Recall %s", best.recall(1) * 100,
+                recallVerdict(best.recall(1))));
+        logger.log("3. Reliability (Kappa):           " + String.format("%.4f %s", best.kappa(),
+                kappaVerdict(best.kappa())));
+        logger.log("4. Class Performance:             " + String.format("%.2f%% / %.2f%% recall (class 0 / 1)%s",
+                best.recall(0) * 100, best.recall(1) * 100,
+                Math.min(best.recall(0), best.recall(1)) > 0.9 ? ", both > 90%" : ""));
+        logger.log("5. Medical Feasibility:           ~" + (int) missRates[winner] + " missed diagnoses out of "
+                + class1Count + "\n");
+        if (forestSignificantlyBetter != null) {
+            logger.log("Repeated CV (corrected t-test): Random Forest accuracy " + (forestSignificantlyBetter
+                    ? "significantly higher than J48 (Balanced)\n"
+                    : "NOT significantly higher than J48 (Balanced)\n"));
+        }
+        
+        Evaluation second = evals[runnerUp];
+        if (second.kappa() > 0) {
+            logger.log("RUNNER-UP: " + MODEL_TITLES[runnerUp] + " (Model " + (runnerUp + 1) + ")");
+            logger.log("• Accuracy " + String.format("%.2f%%", second.pctCorrect()) + ", disease recall "
+                    + String.format("%.2f%%", second.recall(1) * 100) + ", kappa "
+                    + String.format("%.4f", second.kappa()));
+            if (runnerUp != 0 && winner != 0) {
+                logger.log("• Disease recall compared with J48 on imbalanced data: "
+                        + String.format("%.2f%% instead of %.2f%%", second.recall(1) * 100, eval1.recall(1) * 100));
+            }
+            logger.log("");
+        }
+        
+        for (int m = 0; m < evals.length; m++) {
+            if (m == winner || evals[m].kappa() > 0) continue;
+            logger.log("NOT RECOMMENDED: " + MODEL_TITLES[m] + " (Model " + (m + 1) + ")");
+            logger.log("• Misses " + (int) missRates[m] + " out of " + class1Count + " sick patients");
+            logger.log(evals[m].kappa() < 0
+                    ? "• Negative Kappa: Worse than random guessing!"
+                    : "• Zero Kappa: No better than random guessing");
+            logger.log("• Dangerous for medical use\n");
+        }
         
         logger.log("=== STEP 4 EVALUATION COMPLETED ===");
     }
     
     /**
-     * Helper method to evaluate a classifier with 10-fold cross-validation
+     * Repeated 10-fold cross-validation of the four models, summarised per metric, and
+     * corrected resampled t-tests of Random Forest against balanced J48 on the same folds.
+     * Returns whether Random Forest's accuracy is significantly higher.
      */
-    private static Evaluation evaluateModel(Logger logger, weka.classifiers.Classifier classifier, 
-                                           Instances data, String modelName) throws Exception {
-        logger.log("Evaluating " + modelName + " with 10-fold cross-validation...");
+    private static boolean logRepeatedCrossValidation(Logger logger, weka.classifiers.Classifier j48Imbalanced,
+                                                      Instances data, weka.classifiers.Classifier j48Balanced,
+                                                      weka.classifiers.Classifier randomForest,
+                                                      weka.classifiers.Classifier boostedTrees,
+                                                      int repetitions, int threads) throws Exception {
+        logger.log("=== REPEATED CROSS-VALIDATION (" + repetitions + " x 10-fold, seeds 1-" + repetitions
+                + ", worker threads: " + threads + ") ===\n");
+        logger.log("All models are evaluated on the same folds; Models 2-4 balance each training fold.");
+        
+        List<FoldIndices> runs = FoldIndices.repeatedCrossValidation(data, 10, repetitions, 1);
+        RepeatedCrossValidation[] results = {
+                RepeatedCrossValidation.run(j48Imbalanced, data, runs, threads),
+                RepeatedCrossValidation.run(j48Balanced, data, runs, threads),
+                RepeatedCrossValidation.run(randomForest, data, runs, threads),
+                RepeatedCrossValidation.run(boostedTrees, data, runs, threads)
+        };
+        String[] names = {"J48 Imbalanced", "J48 Balanced", "Random Forest", "Boosted Trees"};
+        
+        long wallTime = 0;
+        long foldTime = 0;
+        for (int m = 0; m < results.length; m++) {
+            wallTime += results[m].getWallMillis();
+            foldTime += results[m].getFoldMillis();
+            logger.log(String.format("✓ %-15s %d fold fits in %d ms (summed fold CPU time %d ms)", names[m] + ":",
+                    repetitions * 10, results[m].getWallMillis(), results[m].getFoldMillis()));
+        }
+        logger.log(String.format("✓ Total: %d ms wall time, %d ms fold CPU time%s",
+                wallTime, foldTime, estimatedSpeedup(threads, foldTime, wallTime)));
+        logger.log("");
         
-        long startTime = System.currentTimeMillis();
-        Evaluation eval = new Evaluation(data);
-        eval.crossValidateModel(classifier, data, 10, new Random(1));
-        long evalTime = System.currentTimeMillis() - startTime;
+        logger.log("Mean ± standard deviation over " + (repetitions * 10) + " folds:");
+        logger.log(String.format("%-24s | %-19s | %-19s | %-19s | %s", "Metric", names[0], names[1], names[2],
+                names[3]));
+        logger.log("─────────────────────────────────────────────────────────────────────────────────────────────────────────────");
+        for (Metric metric : Metric.values()) {
+            StringBuilder line = new StringBuilder(String.format("%-24s", metric.getLabel()));
+            for (RepeatedCrossValidation result : results) {
+                Stats stats = result.statistics(metric);
+                line.append(metric == Metric.ACCURACY
+                        ? String.format(" | %8.2f ± %-8.2f", stats.mean, stats.stdDev)
+                        : String.format(" | %8.4f ± %-8.4f", stats.mean, stats.stdDev));
+            }
+            logger.log(line.toString().trim());
+        }
+        logger.log("");
         
-        logger.log("✓ Evaluation completed in " + evalTime + " ms");
+        boolean forestBetter = logCorrectedTTest(logger, results[2], names[2], results[1], names[1]);
+        logCorrectedTTest(logger, results[3], names[3], results[2], names[2]);
+        return forestBetter;
+    }
+    
+    /**
+     * Corrected resampled t-test of model a against model b per metric; returns whether
+     * a's accuracy is significantly higher
+     */
+    private static boolean logCorrectedTTest(Logger logger, RepeatedCrossValidation a, String nameA,
+                                             RepeatedCrossValidation b, String nameB) {
+        logger.log("Corrected resampled t-test: " + nameA + " vs " + nameB + " (alpha = 0.05):");
+        logger.log(String.format("%-24s | %15s | %8s | %s", "Metric", "Mean difference", "p-value", "Result"));
+        logger.log("─────────────────────────────────────────────────────────────────────────────────────────");
+        boolean aBetter = false;
+        for (Metric metric : Metric.values()) {
+            PairedStatsCorrected test = a.compare(b, metric, 0.05);
+            int better = metric.isHigherBetter() ? test.differencesSignificance : -test.differencesSignificance;
+            String verdict = better > 0 ? nameA + " significantly better"
+                    : better < 0 ? nameB + " significantly better" : "no significant difference";
+            logger.log(String.format("%-24s | %+15.4f | %8.4f | %s", metric.getLabel(),
+                    test.differencesStats.mean, test.differencesProbability, verdict));
+            if (metric == Metric.ACCURACY) {
+                aBetter = better > 0;
+            }
+        }
+        logger.log("");
+        return aBetter;
+    }
+    
+    /**
+     * ", estimated speedup Nx" from CPU time over wall time, or nothing on one thread,
+     * where the ratio only shows JIT and GC overhead. Not a measured serial run
+     * (CrossValidationBenchmark times one).
+     */
+    private static String estimatedSpeedup(int threads, long cpuMillis, long wallMillis) {
+        if (threads <= 1) {
+            return "";
+        }
+        return String.format(", estimated speedup %.2fx", cpuMillis / (double) Math.max(1, wallMillis));
+    }
+    
+    /**
+     * Label for a class 1 recall
+     */
+    private static String recallVerdict(double recall) {
+        if (recall >= 0.9) return "✅ EXCELLENT";
+        if (recall >= 0.8) return "✅ GOOD";
+        if (recall >= 0.6) return "⚠️ ACCEPTABLE";
+        return "❌ POOR";
+    }
+    
+    /**
+     * Label for a kappa statistic, on the Landis and Koch scale
+     */
+    private static String kappaVerdict(double kappa) {
+        if (kappa > 0.8) return "✅ EXCELLENT";
+        if (kappa > 0.6) return "✅ SUBSTANTIAL";
+        if (kappa > 0.4) return "✅ MODERATE";
+        if (kappa > SLIGHT_KAPPA) return "⚠️ FAIR";
+        if (kappa > 0) return "❌ SLIGHT";
+        return "❌ USELESS";
+    }
+    
+    /**
+     * "Highest", "2nd", ... position of a model by accuracy
+     */
+    private static String rankLabel(Evaluation[] evals, int model) {
+        int rank = 1;
+        for (Evaluation eval : evals) {
+            if (eval.pctCorrect() > evals[model].pctCorrect()) rank++;
+        }
+        return rank == 1 ? "highest" : rank == 2 ? "2nd" : rank == 3 ? "3rd" : rank + "th";
+    }
+    
+    /**
+     * Report one model as soon as the scheduler finishes it
+     */
+    private static void logCellResult(Logger logger, ExperimentScheduler.CellResult result) throws Exception {
+        Evaluation eval = result.getEvaluation();
+        logger.log("---- " + result.getCell().getName() + " ----");
+        if (result.getModel() instanceof BalancingClassifier) {
+            logger.log("✓ Class balancing: " + ((BalancingClassifier) result.getModel()).getEffectiveStrategy().getLabel()
+                    + ", inside each training fold");
+        }
+        logger.log("✓ Build time: " + result.getBuildMillis() + " ms CPU time");
+        logger.log("✓ 10-fold cross-validation: " + result.getFoldMillis() + " ms CPU time, finished after "
+                + result.getFinishedMillis() + " ms");
         logger.log(String.format("  Accuracy: %.2f%%", eval.pctCorrect()));
         logger.log(String.format("  Kappa: %.4f", eval.kappa()));
         logger.log(String.format("  Class 1 Recall: %.4f (%.2f%%)", eval.recall(1), eval.recall(1) * 100));
         logger.log("");
-        
-        return eval;
     }
 }
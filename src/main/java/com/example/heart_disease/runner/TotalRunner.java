@@ -18,16 +18,18 @@ public class TotalRunner {
             }
             System.out.println(">>> Step 1 completed.\n");
 
-            System.out.println(">>> Running Step 2: J48 Decision Tree...");
-            J48Runner.main(new String[]{});
-            System.out.println(">>> Step 2 completed.\n");
-
-            System.out.println(">>> Running Step 3: Random Forest...");
-            RandomForestRunner.main(new String[]{});
-            System.out.println(">>> Step 3 completed.\n");
-
-            System.out.println(">>> Running Step 4: Model Evaluation & Comparison...");
-            EvaluationRunner.main(new String[]{});
+            // Step 4 fits and cross-validates the Step 2 and Step 3 models too, so all three
+            // steps run as one task graph and the two reports are written from its cells
+            System.out.println(">>> Running Steps 2-4: J48, Random Forest and Model Comparison...");
+            Step4ComprehensiveRunner.run(new String[]{}, result -> {
+                if (result.getCell().getName().equals(Step4ComprehensiveRunner.J48_CELL)) {
+                    J48Runner.report(result);
+                    System.out.println(">>> Step 2 completed.\n");
+                } else if (result.getCell().getName().equals(Step4ComprehensiveRunner.RANDOM_FOREST_CELL)) {
+                    RandomForestRunner.report(result);
+                    System.out.println(">>> Step 3 completed.\n");
+                }
+            });
             System.out.println(">>> Step 4 completed.\n");
 
             System.out.println("========================================");
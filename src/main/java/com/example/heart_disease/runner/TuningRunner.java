@@ -0,0 +1,124 @@
+package com.example.heart_disease.runner;
+
+import weka.core.Instances;
+import com.example.heart_disease.classification.ClassifierBase;
+import com.example.heart_disease.classification.crossvalidation.RepeatedCrossValidation.Metric;
+import com.example.heart_disease.classification.j48.J48BalancedClassifier;
+import com.example.heart_disease.classification.j48.J48Classifier;
+import com.example.heart_disease.classification.randomforest.RandomForestClassifier;
+import com.example.heart_disease.classification.tuning.SuccessiveHalving;
+import com.example.heart_disease.classification.tuning.SuccessiveHalving.Candidate;
+import com.example.heart_disease.classification.tuning.TunedOptions;
+import com.example.heart_disease.preprocessing.DataLoader;
+import com.example.heart_disease.utils.FileUtils;
+import com.example.heart_disease.utils.Logger;
+
+import java.io.PrintWriter;
+import java.util.List;
+
+/**
+ Tunes J48, balanced J48 and Random Forest with successive halving and saves the best
+ options to TUNING.properties. Every configuration is built by the classifier's own
+ createClassifier, class balancing included, and saved under its getTuningKey(), so
+ J48Classifier, J48BalancedClassifier and RandomForestClassifier each get the options
+ tuned for them when they are asked to use them (--tuned).
+
+ Usage: TuningRunner [j48|j48-balanced|rf|all] [--threads=N] [--metric=ROC_AREA|KAPPA|ACCURACY|...] [dataPath]
+ */
+public class TuningRunner {
+
+    private static final int ETA = 3;
+    private static final int FOLDS = 3;
+    private static final int MIN_ROWS = 300;
+
+    public static void main(String[] args) {
+        PrintWriter writer = null;
+        try {
+            String target = "all";
+            String dataPath = "src/main/resources/heart_disease_cleaned.arff";
+            int threads = Runtime.getRuntime().availableProcessors();
+            Metric metric = Metric.ROC_AREA;
+            for (String arg : args) {
+                if (arg.equals("j48") || arg.equals("j48-balanced") || arg.equals("rf") || arg.equals("all")) {
+                    target = arg;
+                } else if (arg.startsWith("--threads=")) {
+                    threads = Integer.parseInt(arg.substring("--threads=".length()));
+                } else if (arg.startsWith("--metric=")) {
+                    metric = Metric.valueOf(arg.substring("--metric=".length()));
+                } else {
+                    dataPath = arg;
+                }
+            }
+            dataPath = FileUtils.resolveDataPath(dataPath);
+
+            writer = FileUtils.createOutputWriter(FileUtils.getOutputPath("Tuning.txt"));
+            Logger logger = new Logger(writer);
+
+            logger.log("=== HYPERPARAMETER TUNING (Successive Halving) ===\n");
+
+            Instances data = new J48Classifier(logger).prepareData(new DataLoader().loadDataset(dataPath));
+            logger.log("");
+            logger.log("✓ Dataset: " + dataPath + " (" + data.numInstances() + " instances)");
+            logger.log("✓ Metric: " + metric.getLabel() + ", " + FOLDS + "-fold cross-validation per rung");
+            logger.log("✓ Halving factor: " + ETA + ", smallest sample: " + MIN_ROWS + " rows, "
+                    + threads + " worker threads");
+            logger.log("");
+
+            SuccessiveHalving search = new SuccessiveHalving(metric, ETA, FOLDS, MIN_ROWS, 1, threads);
+            if (target.equals("j48") || target.equals("all")) {
+                tune(logger, search, new J48Classifier(logger),
+                        SuccessiveHalving.j48Grid(() -> new J48Classifier(logger)), data);
+            }
+            if (target.equals("j48-balanced") || target.equals("all")) {
+                tune(logger, search, new J48BalancedClassifier(logger, true),
+                        SuccessiveHalving.j48Grid(() -> new J48BalancedClassifier(logger, true)), data);
+            }
+            if (target.equals("rf") || target.equals("all")) {
+                tune(logger, search, new RandomForestClassifier(logger, true),
+                        SuccessiveHalving.randomForestGrid(() -> new RandomForestClassifier(logger, true)), data);
+            }
+
+            logger.log("=== TUNING COMPLETED ===");
+
+        } catch (Exception e) {
+            System.err.println("❌ Error in tuning: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            if (writer != null) {
+                writer.close();
+                System.out.println("\n✓ Output saved to: docs/output/Tuning.txt");
+            }
+        }
+    }
+
+    private static void tune(Logger logger, SuccessiveHalving search, ClassifierBase model, List<Candidate> grid,
+                             Instances data) throws Exception {
+        String key = model.getTuningKey();
+        logger.log("---- " + model.getModelName() + ", balancing: " + model.getBalancing().getLabel() + ": "
+                + grid.size() + " configurations, " + search.numRungs(grid.size()) + " rungs ----");
+        long start = System.currentTimeMillis();
+        Candidate best = search.run(grid, data, (rung, rows, ranked, kept, millis) -> {
+            logger.log(String.format("Rung %d: %d configurations on %d rows, %d kept (%d ms)",
+                    rung + 1, ranked.size(), rows, kept, millis));
+            for (int i = 0; i < Math.min(5, ranked.size()); i++) {
+                logger.log(String.format("  %d. %-28s %.4f", i + 1, ranked.get(i).getLabel(),
+                        ranked.get(i).getLastScore()));
+            }
+            if (ranked.size() > 5) {
+                Candidate worst = ranked.get(ranked.size() - 1);
+                logger.log(String.format("  ...  worst: %-21s %.4f", worst.getLabel(), worst.getLastScore()));
+            }
+        });
+        long time = System.currentTimeMillis() - start;
+
+        long gridRows = (long) data.numInstances() * grid.size();
+        logger.log("");
+        logger.log("✓ Best configuration: " + best.getLabel());
+        logger.log(String.format("✓ Score on all data: %.4f", best.getLastScore()));
+        logger.log(String.format("✓ Tuning time: %d ms; training rows used: %.1f%% of a grid search at the same folds",
+                time, 100.0 * search.getRowsEvaluated() / gridRows));
+        TunedOptions.save(TunedOptions.DEFAULT_PATH, key, best.getOptions());
+        logger.log("✓ Saved to " + TunedOptions.DEFAULT_PATH + " as '" + key + "'");
+        logger.log("");
+    }
+}
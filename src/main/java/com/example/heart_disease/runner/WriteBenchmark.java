@@ -0,0 +1,128 @@
+package com.example.heart_disease.runner;
+
+import weka.core.DenseInstance;
+import weka.core.Instances;
+import com.example.heart_disease.preprocessing.DataLoader;
+import com.example.heart_disease.preprocessing.DatasetWriter;
+import com.example.heart_disease.utils.BenchmarkUtils;
+import com.example.heart_disease.utils.FileUtils;
+import com.example.heart_disease.utils.Logger;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ Compares saving the cleaned outputs with CSVSaver + ArffSaver + ColumnarFile against
+ the single-pass DatasetWriter, on synthetic data built from the cleaned dataset.
+
+ Usage: WriteBenchmark [rows,rows,...]   (default 100000,1000000)
+ */
+public class WriteBenchmark {
+
+    public static void main(String[] args) {
+        PrintWriter writer = null;
+        try {
+            String sizes = args.length > 0 ? args[0] : "100000,1000000";
+
+            writer = FileUtils.createOutputWriter(FileUtils.getOutputPath("Benchmark_Write.txt"));
+            Logger logger = new Logger(writer);
+
+            logger.log("=== BENCHMARK: WRITING CSV + ARFF + COLUMNAR (Weka savers vs DatasetWriter) ===\n");
+
+            String dataPath = FileUtils.resolveDataPath("src/main/resources/heart_disease_cleaned.arff");
+            Instances base = new DataLoader().loadDataset(dataPath);
+            File dir = Files.createTempDirectory("write_benchmark").toFile();
+
+            for (String size : sizes.split(",")) {
+                Instances data = synthesize(base, Integer.parseInt(size.trim()));
+                logger.log("---- " + data.numInstances() + " rows, " + data.numAttributes() + " attributes ----");
+
+                String[] legacy = paths(dir, "legacy");
+                String[] single = paths(dir, "single");
+                String gzip = new File(dir, "single.csv.gz").getPath();
+                DataLoader loader = new DataLoader();
+
+                long[] legacyCost = measure(() -> {
+                    loader.saveAsCSV(data, legacy[0]);
+                    loader.saveAsARFF(data, legacy[1]);
+                    loader.saveAsColumnarCache(data, legacy[1]);
+                });
+                long[] singleCost = measure(() -> loader.saveAll(data, single[0], single[1]));
+                long[] gzipCost = measure(() -> new DatasetWriter().csv(gzip).write(data));
+
+                logger.log(String.format("%-26s | %11s | %18s | %9s", "Implementation", "Time", "Throughput", "Allocated"));
+                log(logger, "Savers (3 passes)", data, legacyCost);
+                log(logger, "DatasetWriter (1 pass)", data, singleCost);
+                log(logger, "DatasetWriter, CSV gzip", data, gzipCost);
+                logger.log(String.format("Speedup: %.2fx", legacyCost[0] / (double) singleCost[0]));
+                boolean identical = true;
+                for (int k = 0; k < legacy.length; k++) {
+                    identical &= Arrays.equals(Files.readAllBytes(new File(legacy[k]).toPath()),
+                            Files.readAllBytes(new File(single[k]).toPath()));
+                }
+                logger.log("Identical bytes (CSV, ARFF, columnar): " + (identical ? "yes" : "NO"));
+                logger.log("CSV size: " + BenchmarkUtils.formatBytes(new File(single[0]).length())
+                        + ", gzip: " + BenchmarkUtils.formatBytes(new File(gzip).length()));
+                logger.log("");
+            }
+
+            for (File file : dir.listFiles()) {
+                file.delete();
+            }
+            dir.delete();
+            logger.log("=== BENCHMARK COMPLETED ===");
+
+        } catch (Exception e) {
+            System.err.println("❌ Error in write benchmark: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            if (writer != null) {
+                writer.close();
+                System.out.println("\n✓ Output saved to: docs/output/Benchmark_Write.txt");
+            }
+        }
+    }
+
+    private interface Task {
+        void run() throws Exception;
+    }
+
+    private static String[] paths(File dir, String name) {
+        return new String[]{
+                new File(dir, name + ".csv").getPath(),
+                new File(dir, name + ".arff").getPath(),
+                FileUtils.getColumnarCachePath(new File(dir, name + ".arff").getPath())
+        };
+    }
+
+    private static void log(Logger logger, String name, Instances data, long[] cost) {
+        logger.log(String.format("%-26s | %8d ms | %18s | %9s", name, cost[0] / 1_000_000,
+                BenchmarkUtils.formatRate(data.numInstances(), cost[0]), BenchmarkUtils.formatBytes(cost[1])));
+    }
+
+    private static long[] measure(Task task) throws Exception {
+        System.gc();
+        long bytesBefore = BenchmarkUtils.allocatedBytes();
+        long start = System.nanoTime();
+        task.run();
+        long nanos = System.nanoTime() - start;
+        long bytesAfter = BenchmarkUtils.allocatedBytes();
+        return new long[]{nanos, bytesBefore < 0 ? -1 : bytesAfter - bytesBefore};
+    }
+
+    /**
+     Rows cycle through the base data with the first column shifted per repetition.
+     */
+    private static Instances synthesize(Instances base, int rows) {
+        Instances data = new Instances(base, rows);
+        int n = base.numInstances();
+        for (int i = 0; i < rows; i++) {
+            double[] values = base.instance(i % n).toDoubleArray();
+            values[0] += i / n;
+            data.add(new DenseInstance(1.0, values));
+        }
+        return data;
+    }
+}
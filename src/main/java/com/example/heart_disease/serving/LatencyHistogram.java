@@ -0,0 +1,142 @@
+package com.example.heart_disease.serving;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ Latencies in nanoseconds counted in log-linear buckets: each power of two is split
+ into 16 equal buckets, so a bucket is at most 6.25% wide relative to its values
+ and a fixed 608 counters cover everything up to about 36 minutes. Recording is one
+ atomic increment and allocates nothing; any number of threads may record and read
+ at once. Percentiles report the upper edge of their bucket, never less than the
+ true value.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 40;
+    static final int NUM_BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(NUM_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucket(value));
+        count.increment();
+        sum.add(value);
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return NUM_BUCKETS - 1;
+        }
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + (int) (value >>> (exponent - SUB_BITS)) - SUB_BUCKETS;
+    }
+
+    /**
+     Smallest value counted in bucket
+     */
+    static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BITS);
+    }
+
+    /**
+     Largest value counted in bucket
+     */
+    static long upperBound(int bucket) {
+        return bucket == NUM_BUCKETS - 1 ? Long.MAX_VALUE : lowerBound(bucket + 1) - 1;
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public double mean() {
+        long n = count.sum();
+        return n == 0 ? 0 : sum.sum() / (double) n;
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     Latency below which percent (0-100) of the recorded values fall, in nanoseconds
+     */
+    public long percentile(double percent) {
+        long[] snapshot = snapshot();
+        long total = 0;
+        for (long bucketCount : snapshot) {
+            total += bucketCount;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percent / 100.0 * total));
+        long seen = 0;
+        for (int b = 0; b < snapshot.length; b++) {
+            seen += snapshot[b];
+            if (seen >= rank) {
+                return Math.min(upperBound(b), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     Count per bucket at this moment
+     */
+    long[] snapshot() {
+        long[] snapshot = new long[NUM_BUCKETS];
+        for (int b = 0; b < NUM_BUCKETS; b++) {
+            snapshot[b] = counts.get(b);
+        }
+        return snapshot;
+    }
+
+    /**
+     Count, mean and percentiles in microseconds on one line
+     */
+    public String summary() {
+        return String.format("count=%d mean=%.1fus p50=%.1fus p90=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus",
+                count(), mean() / 1e3, percentile(50) / 1e3, percentile(90) / 1e3, percentile(99) / 1e3,
+                percentile(99.9) / 1e3, max() / 1e3);
+    }
+
+    /**
+     Prometheus text format of a histogram named name with the given labels: every
+     bucket as a cumulative count (upper edge in seconds), empty or not, so each scrape
+     has the same series; then +Inf, sum and count
+     */
+    public void appendPrometheus(StringBuilder out, String name, String labels) {
+        long[] snapshot = snapshot();
+        long cumulative = 0;
+        for (int b = 0; b < snapshot.length; b++) {
+            cumulative += snapshot[b];
+            if (b < NUM_BUCKETS - 1) {
+                out.append(name).append("_bucket{").append(labels).append(",le=\"")
+                        .append((upperBound(b) + 1) / 1e9).append("\"} ").append(cumulative).append('\n');
+            }
+        }
+        // Totals from the same snapshot, so the buckets never exceed +Inf
+        out.append(name).append("_bucket{").append(labels).append(",le=\"+Inf\"} ").append(cumulative).append('\n');
+        out.append(name).append("_sum{").append(labels).append("} ").append(sum.sum() / 1e9).append('\n');
+        out.append(name).append("_count{").append(labels).append("} ").append(cumulative).append('\n');
+    }
+}
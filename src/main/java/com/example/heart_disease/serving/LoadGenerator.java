@@ -0,0 +1,152 @@
+package com.example.heart_disease.serving;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ Sends POST requests with CSV bodies to a scoring endpoint and measures their
+ latency, for load-testing PredictionServer locally.
+
+ Closed loop (rate 0): concurrency clients, each on a virtual thread, send their
+ next request as soon as the previous one is answered. Throughput is then what the
+ server sustains at that concurrency.
+
+ Open loop (rate > 0): requests are started at a fixed rate whatever the server
+ does, at most concurrency at once. Latency is measured from the time a request was
+ due rather than from when it was sent, so a stalled server shows up in the
+ percentiles instead of silently slowing the load down (coordinated omission).
+ Requests that find concurrency already in flight wait for a slot, and that wait
+ counts too.
+ */
+public class LoadGenerator {
+
+    private final URI uri;
+    private final List<String> bodies;
+    private int concurrency = 16;
+    private double rate;
+
+    /**
+     Outcome of one run: requests answered during the measured period, their latency
+     and the non-200 or failed ones.
+     */
+    public static final class Result {
+        public final long requests;
+        public final long errors;
+        public final double seconds;
+        public final LatencyHistogram latency;
+
+        Result(long requests, long errors, double seconds, LatencyHistogram latency) {
+            this.requests = requests;
+            this.errors = errors;
+            this.seconds = seconds;
+            this.latency = latency;
+        }
+
+        public double throughput() {
+            return requests / seconds;
+        }
+    }
+
+    public LoadGenerator(URI uri, List<String> bodies) {
+        if (bodies.isEmpty()) {
+            throw new IllegalArgumentException("No request bodies");
+        }
+        this.uri = uri;
+        this.bodies = bodies;
+    }
+
+    /**
+     Clients in the closed loop, most requests in flight in the open loop
+     */
+    public void setConcurrency(int concurrency) {
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    /**
+     Requests per second of the open loop; 0 for the closed loop
+     */
+    public void setRate(double rate) {
+        this.rate = Math.max(0, rate);
+    }
+
+    /**
+     Send load for warmup, unmeasured, then for duration
+     */
+    public Result run(Duration warmup, Duration duration) throws InterruptedException {
+        LatencyHistogram latency = new LatencyHistogram();
+        LongAdder errors = new LongAdder();
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+
+        try (HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+             ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            if (rate == 0) {
+                AtomicInteger nextBody = new AtomicInteger();
+                for (int c = 0; c < concurrency; c++) {
+                    clients.submit(() -> {
+                        long now;
+                        while ((now = System.nanoTime()) < end) {
+                            send(client, bodies.get(Math.floorMod(nextBody.getAndIncrement(), bodies.size())),
+                                    now, measureFrom, latency, errors);
+                        }
+                    });
+                }
+            } else {
+                Semaphore inFlight = new Semaphore(concurrency);
+                long interval = (long) (1e9 / rate);
+                long due = System.nanoTime();
+                for (long i = 0; due < end; i++, due += interval) {
+                    long wait = due - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    inFlight.acquire();
+                    long scheduled = due;
+                    String body = bodies.get((int) (i % bodies.size()));
+                    clients.submit(() -> {
+                        try {
+                            send(client, body, scheduled, measureFrom, latency, errors);
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                }
+            }
+        }
+        return new Result(latency.count(), errors.sum(), duration.toNanos() / 1e9, latency);
+    }
+
+    private void send(HttpClient client, String body, long start, long measureFrom, LatencyHistogram latency,
+                      LongAdder errors) {
+        boolean ok;
+        try {
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .header("Content-Type", "text/csv")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+            ok = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (Exception e) {
+            ok = false;
+        }
+        if (start >= measureFrom) {
+            if (ok) {
+                latency.record(System.nanoTime() - start);
+            } else {
+                errors.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.example.heart_disease.serving;
+
+import com.example.heart_disease.classification.inference.BatchScorer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ Coalesces concurrent scoring requests into batches for one BatchScorer, so many
+ callers (typically one virtual thread per HTTP request) share each scorer call.
+
+ A request of one or more cleaned rows waits in a bounded queue. A scoring thread
+ takes the oldest request and every request already queued behind it, then waits
+ for more until the batch holds maxBatchRows rows or the oldest request has waited
+ maxDelayMicros (the latency budget). The whole batch is scored in one call and its
+ callers are woken. With maxDelayMicros 0 only requests already queued are joined:
+ batches then grow by themselves while the scorer is busy, and a lone request is
+ scored at once. With maxBatchRows 1 every request is scored on its own.
+
+ When the queue is full, score() throws RejectedExecutionException instead of
+ waiting.
+ */
+public class MicroBatcher implements AutoCloseable {
+
+    public static final int DEFAULT_MAX_BATCH_ROWS = 256;
+    public static final long DEFAULT_MAX_DELAY_MICROS = 500;
+
+    private final BatchScorer scorer;
+    private final int numClasses;
+    private int maxBatchRows = DEFAULT_MAX_BATCH_ROWS;
+    private long maxDelayNanos = DEFAULT_MAX_DELAY_MICROS * 1000;
+    private int numScorers = 1;
+    private int queueCapacity = 4096;
+
+    private BlockingQueue<Request> queue;
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running;
+
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final LatencyHistogram scoreTime = new LatencyHistogram();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedRows = new LongAdder();
+    private final AtomicLong largestBatch = new AtomicLong();
+
+    private static final class Request {
+        final double[][] rows;
+        final long enqueued = System.nanoTime();
+        final CompletableFuture<double[]> done = new CompletableFuture<>();
+
+        Request(double[][] rows) {
+            this.rows = rows;
+        }
+    }
+
+    public MicroBatcher(BatchScorer scorer) {
+        this.scorer = scorer;
+        this.numClasses = scorer.numClasses();
+    }
+
+    /**
+     Most rows scored in one call; a larger request is scored on its own
+     */
+    public void setMaxBatchRows(int maxBatchRows) {
+        this.maxBatchRows = Math.max(1, maxBatchRows);
+    }
+
+    /**
+     Longest a request waits for others to join its batch
+     */
+    public void setMaxDelayMicros(long maxDelayMicros) {
+        this.maxDelayNanos = Math.max(0, maxDelayMicros) * 1000;
+    }
+
+    /**
+     Scoring threads, each building its own batches; 0 for one per core
+     */
+    public void setNumScorers(int numScorers) {
+        this.numScorers = numScorers > 0 ? numScorers : Runtime.getRuntime().availableProcessors();
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getMaxBatchRows() {
+        return maxBatchRows;
+    }
+
+    public long getMaxDelayMicros() {
+        return maxDelayNanos / 1000;
+    }
+
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        for (int t = 0; t < numScorers; t++) {
+            Thread thread = new Thread(this::scoreLoop, "micro-batcher-" + t);
+            thread.setDaemon(true);
+            threads.add(thread);
+            thread.start();
+        }
+    }
+
+    /**
+     Class distributions of rows, numClasses values per row; blocks until its batch is
+     scored
+     */
+    public double[] score(double[][] rows) throws Exception {
+        if (!running) {
+            throw new IllegalStateException("Micro-batcher is not running");
+        }
+        Request request = new Request(rows);
+        if (!queue.offer(request)) {
+            throw new RejectedExecutionException("Scoring queue is full");
+        }
+        if (!running && queue.remove(request)) {
+            throw new RejectedExecutionException("Micro-batcher closed");
+        }
+        try {
+            return request.done.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : new RuntimeException(cause);
+        }
+    }
+
+    private void scoreLoop() {
+        List<Request> batch = new ArrayList<>();
+        double[][] rows = new double[maxBatchRows][];
+        double[] distributions = new double[maxBatchRows * numClasses];
+        Request carried = null;
+        while (running || carried != null) {
+            batch.clear();
+            try {
+                Request first = carried != null ? carried : queue.poll(50, TimeUnit.MILLISECONDS);
+                carried = null;
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                int count = first.rows.length;
+                long deadline = first.enqueued + maxDelayNanos;
+                while (count < maxBatchRows) {
+                    Request next = queue.poll();
+                    if (next == null) {
+                        long wait = deadline - System.nanoTime();
+                        if (wait <= 0 || (next = queue.poll(wait, TimeUnit.NANOSECONDS)) == null) {
+                            break;
+                        }
+                    }
+                    if (count + next.rows.length > maxBatchRows) {
+                        carried = next;
+                        break;
+                    }
+                    batch.add(next);
+                    count += next.rows.length;
+                }
+
+                if (count > rows.length) {
+                    rows = new double[count][];
+                    distributions = new double[count * numClasses];
+                }
+                scoreBatch(batch, count, rows, distributions);
+            } catch (InterruptedException e) {
+                fail(batch, new RejectedExecutionException("Micro-batcher closed"));
+                break;
+            } catch (Throwable e) {
+                // Keep the thread alive: its callers wait on the futures without a timeout
+                fail(batch, e);
+            }
+        }
+        if (carried != null) {
+            carried.done.completeExceptionally(new RejectedExecutionException("Micro-batcher closed"));
+        }
+    }
+
+    private static void fail(List<Request> batch, Throwable cause) {
+        for (Request request : batch) {
+            request.done.completeExceptionally(cause);
+        }
+    }
+
+    private void scoreBatch(List<Request> batch, int count, double[][] rows, double[] distributions) {
+        long start = System.nanoTime();
+        int offset = 0;
+        for (Request request : batch) {
+            queueWait.record(start - request.enqueued);
+            System.arraycopy(request.rows, 0, rows, offset, request.rows.length);
+            offset += request.rows.length;
+        }
+        try {
+            scorer.distributions(rows, count, distributions);
+            offset = 0;
+            for (Request request : batch) {
+                int length = request.rows.length * numClasses;
+                double[] result = new double[length];
+                System.arraycopy(distributions, offset, result, 0, length);
+                offset += length;
+                request.done.complete(result);
+            }
+        } catch (Throwable e) {
+            fail(batch, e);
+        }
+        Arrays.fill(rows, 0, count, null);
+        scoreTime.record(System.nanoTime() - start);
+        batches.increment();
+        batchedRows.add(count);
+        largestBatch.accumulateAndGet(count, Math::max);
+    }
+
+    /**
+     Time requests waited in the queue before their batch was scored
+     */
+    public LatencyHistogram getQueueWait() {
+        return queueWait;
+    }
+
+    /**
+     Time of each batch: scoring plus handing results back
+     */
+    public LatencyHistogram getScoreTime() {
+        return scoreTime;
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    public long getBatchedRows() {
+        return batchedRows.sum();
+    }
+
+    public double getMeanBatchRows() {
+        long n = batches.sum();
+        return n == 0 ? 0 : batchedRows.sum() / (double) n;
+    }
+
+    public long getLargestBatch() {
+        return largestBatch.get();
+    }
+
+    /**
+     Stop the scoring threads once the requests they hold are scored; requests still
+     queued fail. If the caller is interrupted while waiting, the threads are
+     interrupted too and the interrupt flag is kept.
+     */
+    @Override
+    public void close() {
+        running = false;
+        boolean interrupted = false;
+        for (Thread thread : threads) {
+            while (thread.isAlive()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    thread.interrupt();
+                }
+            }
+        }
+        threads.clear();
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        Request request;
+        while (queue != null && (request = queue.poll()) != null) {
+            request.done.completeExceptionally(new RejectedExecutionException("Micro-batcher closed"));
+        }
+    }
+}
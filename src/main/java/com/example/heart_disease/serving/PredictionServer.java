@@ -0,0 +1,285 @@
+package com.example.heart_disease.serving;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import weka.core.Attribute;
+import weka.core.Instances;
+import com.example.heart_disease.classification.inference.BatchScorer;
+import com.example.heart_disease.classification.inference.PredictionPipeline;
+import com.example.heart_disease.preprocessing.CleaningTransform;
+import com.example.heart_disease.preprocessing.StreamingCSVLoader;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ Serves predictions of a saved model over HTTP with the JDK's built-in HttpServer.
+ Every request is handled on its own virtual thread, and the rows of concurrent
+ /predict requests are scored together in micro-batches (see MicroBatcher).
+
+ POST /predict  CSV rows of patients laid out like heart_disease.csv, optionally
+                headed by a header line (columns then matched by name, in any order);
+                without one the class column may be left out. Each row is cleaned by
+                the saved preprocessing. Answers CSV as PredictionRunner writes it:
+                row, predicted class, one probability per class.
+ GET /metrics   Latency histogram of every endpoint, queue wait and batch scoring
+                time, and batch and status counts, in Prometheus text format.
+ GET /health    "ok"
+
+ Malformed rows give 400, a full scoring queue 503.
+
+ The JDK server only sets TCP_NODELAY when the system property
+ sun.net.httpserver.nodelay is true; without it small responses wait on the
+ client's delayed ACK (about 40 ms each). The property is JVM-wide, so the runners
+ set it (see enableNoDelay) rather than the server.
+ */
+public class PredictionServer {
+
+    public static final int MAX_REQUEST_ROWS = 10_000;
+
+    private final CleaningTransform transform;
+    private final BatchScorer scorer;
+    private final Attribute classAttribute;
+    private final int width;
+    private final int numInputs;
+    private final Instances input;
+    private final int[] allColumns;
+    private final int[] noClassColumns;
+    private final MicroBatcher batcher;
+    private final Map<String, LatencyHistogram> latencies = new LinkedHashMap<>();
+    private final Map<String, LongAdder> statusCounts = new ConcurrentHashMap<>();
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    private interface Handler {
+        Response handle(HttpExchange exchange) throws Exception;
+    }
+
+    private static final class Response {
+        final int status;
+        final String contentType;
+        final String body;
+
+        Response(int status, String contentType, String body) {
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        static Response text(int status, String body) {
+            return new Response(status, "text/plain; charset=utf-8", body);
+        }
+    }
+
+    public PredictionServer(CleaningTransform transform, BatchScorer scorer) {
+        Instances structure = transform.getTrainingStructure();
+        if (structure.numClasses() != scorer.numClasses()) {
+            throw new IllegalArgumentException("Preprocessing has " + structure.numClasses() + " classes, the model "
+                    + scorer.numClasses());
+        }
+        this.transform = transform;
+        this.scorer = scorer;
+        this.classAttribute = structure.classAttribute();
+        this.width = structure.numAttributes();
+        this.input = transform.getInputStructure();
+        this.numInputs = input.numAttributes();
+        this.batcher = new MicroBatcher(scorer);
+
+        // Rows without a header are in the training CSV order, with or without the class column
+        int classIndex = input.classIndex() >= 0 ? input.classIndex() : numInputs - 1;
+        List<String> names = new ArrayList<>();
+        for (int j = 0; j < numInputs; j++) {
+            if (j != classIndex) {
+                names.add(csvName(input.attribute(j).name()));
+            }
+        }
+        noClassColumns = transform.columnsOf(String.join(",", names));
+        names.add(classIndex, csvName(input.attribute(classIndex).name()));
+        allColumns = transform.columnsOf(String.join(",", names));
+    }
+
+    private static String csvName(String name) {
+        return name.indexOf(',') >= 0 ? '"' + name + '"' : name;
+    }
+
+    /**
+     Ask the JDK HttpServer for TCP_NODELAY sockets, unless sun.net.httpserver.nodelay
+     is already set. Takes effect for servers created afterwards in this JVM.
+     */
+    public static void enableNoDelay() {
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    /**
+     The micro-batcher, to set its batch size, latency budget and threads before start
+     */
+    public MicroBatcher getBatcher() {
+        return batcher;
+    }
+
+    public BatchScorer getScorer() {
+        return scorer;
+    }
+
+    /**
+     Listen on host:port (port 0 picks a free port)
+     */
+    public void start(String host, int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(host, port), 1024);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/predict", timed("/predict", this::predict));
+        server.createContext("/metrics", timed("/metrics", this::metrics));
+        server.createContext("/health", timed("/health", exchange -> Response.text(200, "ok\n")));
+        batcher.start();
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.close();
+            batcher.close();
+            server = null;
+        }
+    }
+
+    /**
+     Latency histogram of each endpoint, from request received to response sent
+     */
+    public Map<String, LatencyHistogram> getLatencies() {
+        return latencies;
+    }
+
+    private com.sun.net.httpserver.HttpHandler timed(String endpoint, Handler handler) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        latencies.put(endpoint, histogram);
+        return exchange -> {
+            long start = System.nanoTime();
+            Response response;
+            try {
+                response = handler.handle(exchange);
+            } catch (IllegalArgumentException e) {
+                response = Response.text(400, e.getMessage() + "\n");
+            } catch (RejectedExecutionException e) {
+                response = Response.text(503, e.getMessage() + "\n");
+            } catch (Exception e) {
+                response = Response.text(500, e.getClass().getSimpleName() + ": " + e.getMessage() + "\n");
+            }
+            try {
+                byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", response.contentType);
+                exchange.sendResponseHeaders(response.status, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } finally {
+                exchange.close();
+                histogram.record(System.nanoTime() - start);
+                statusCounts.computeIfAbsent(endpoint + " " + response.status, key -> new LongAdder()).increment();
+            }
+        };
+    }
+
+    private Response predict(HttpExchange exchange) throws Exception {
+        if (!exchange.getRequestMethod().equals("POST")) {
+            return Response.text(405, "Use POST with CSV rows\n");
+        }
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        String[] lines = body.split("\r?\n");
+        int first = 0;
+        while (first < lines.length && lines[first].isEmpty()) {
+            first++;
+        }
+        if (first == lines.length) {
+            throw new IllegalArgumentException("No rows");
+        }
+
+        int[] columns = null;
+        int numFields = -1;
+        String[] fields = StreamingCSVLoader.splitLine(lines[first]);
+        if (input.attribute(fields[0]) != null) {
+            columns = transform.columnsOf(lines[first]);
+            numFields = fields.length;
+            first++;
+        }
+        List<double[]> rows = new ArrayList<>();
+        for (int i = first; i < lines.length; i++) {
+            if (lines[i].isEmpty()) {
+                continue;
+            }
+            if (rows.size() == MAX_REQUEST_ROWS) {
+                throw new IllegalArgumentException("More than " + MAX_REQUEST_ROWS + " rows in one request");
+            }
+            int[] rowColumns = columns;
+            int rowFields = numFields;
+            if (rowColumns == null) {
+                boolean withoutClass = StreamingCSVLoader.splitLine(lines[i]).length == numInputs - 1;
+                rowColumns = withoutClass ? noClassColumns : allColumns;
+                rowFields = withoutClass ? numInputs - 1 : numInputs;
+            }
+            double[] row = new double[width];
+            try {
+                transform.applyLine(lines[i], rowColumns, rowFields, row);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Row " + (rows.size() + 1) + ": " + e.getMessage());
+            }
+            rows.add(row);
+        }
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("No rows");
+        }
+
+        double[] distributions = batcher.score(rows.toArray(new double[0][]));
+        StringBuilder out = new StringBuilder(PredictionPipeline.outputHeader(classAttribute));
+        int numClasses = scorer.numClasses();
+        for (int i = 0; i < rows.size(); i++) {
+            PredictionPipeline.appendRow(out, i + 1, distributions, i * numClasses, classAttribute);
+        }
+        return new Response(200, "text/csv; charset=utf-8", out.toString());
+    }
+
+    private Response metrics(HttpExchange exchange) {
+        StringBuilder out = new StringBuilder();
+        out.append("# TYPE http_request_duration_seconds histogram\n");
+        for (Map.Entry<String, LatencyHistogram> entry : latencies.entrySet()) {
+            entry.getValue().appendPrometheus(out, "http_request_duration_seconds",
+                    "endpoint=\"" + entry.getKey() + "\"");
+        }
+        out.append("# TYPE http_requests_total counter\n");
+        for (Map.Entry<String, LongAdder> entry : statusCounts.entrySet()) {
+            String[] key = entry.getKey().split(" ");
+            out.append("http_requests_total{endpoint=\"").append(key[0]).append("\",status=\"").append(key[1])
+                    .append("\"} ").append(entry.getValue().sum()).append('\n');
+        }
+        out.append("# TYPE prediction_queue_wait_seconds histogram\n");
+        batcher.getQueueWait().appendPrometheus(out, "prediction_queue_wait_seconds", "scorer=\"batch\"");
+        out.append("# TYPE prediction_batch_seconds histogram\n");
+        batcher.getScoreTime().appendPrometheus(out, "prediction_batch_seconds", "scorer=\"batch\"");
+        out.append("# TYPE prediction_batches_total counter\n");
+        out.append("prediction_batches_total ").append(batcher.getBatches()).append('\n');
+        out.append("# TYPE prediction_batched_rows_total counter\n");
+        out.append("prediction_batched_rows_total ").append(batcher.getBatchedRows()).append('\n');
+        out.append("# TYPE prediction_largest_batch_rows gauge\n");
+        out.append("prediction_largest_batch_rows ").append(batcher.getLargestBatch()).append('\n');
+        return new Response(200, "text/plain; version=0.0.4; charset=utf-8", out.toString());
+    }
+}
@@ -0,0 +1,340 @@
+package com.example.heart_disease.split;
+
+import weka.core.Instances;
+import weka.core.Utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ Train/test row indices for holdout splits and (repeated) k-fold cross-validation.
+
+ Folds reproduce Evaluation.crossValidateModel exactly: the rows are shuffled with
+ the seed, stratified when the class is nominal, cut into folds as testCV does and
+ each training set is shuffled again as trainCV(folds, fold, random) does. Training
+ a classifier on train(data, fold) therefore gives the same model as Weka's own
+ cross-validation, without copying the rows.
+
+ The indices only depend on the number of rows, the class values and the split
+ parameters, so single splits are computed once and cached: every classifier evaluated
+ on the same data with the same seed reuses them. The cache keeps the MAX_CACHED most
+ recently used splits; older ones, such as those of successive-halving samples, are
+ evicted. Repeated cross-validation does not go through the cache, since a run can
+ need more seeds than it holds: the caller keeps the list and hands the same one to
+ every classifier of the run. Splits are equal when their indices are, so a recomputed
+ split still counts as the same folds.
+ */
+public class FoldIndices {
+
+    public static final int MAX_CACHED = 16;
+
+    private static final Map<Key, FoldIndices> CACHE = Collections.synchronizedMap(
+            new LinkedHashMap<Key, FoldIndices>(MAX_CACHED + 1, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, FoldIndices> eldest) {
+                    return size() > MAX_CACHED;
+                }
+            });
+
+    private final int numInstances;
+    private final long seed;
+    private final int[][] trainIndices;
+    private final int[][] testIndices;
+
+    private FoldIndices(int numInstances, long seed, int[][] trainIndices, int[][] testIndices) {
+        this.numInstances = numInstances;
+        this.seed = seed;
+        this.trainIndices = trainIndices;
+        this.testIndices = testIndices;
+    }
+
+    /**
+     Folds of crossValidateModel(classifier, data, folds, new Random(seed)).
+     */
+    public static FoldIndices crossValidation(Instances data, int folds, long seed) {
+        checkFolds(data, folds);
+        return CACHE.computeIfAbsent(new Key(data, "cv", folds, seed), key -> computeFolds(data, folds, seed));
+    }
+
+    /**
+     One set of folds per repetition, repetition r using seed firstSeed + r. The folds
+     are computed here and not cached; keep the list and evaluate every classifier of
+     the run on it.
+     */
+    public static List<FoldIndices> repeatedCrossValidation(Instances data, int folds, int repetitions, long firstSeed) {
+        checkFolds(data, folds);
+        List<FoldIndices> runs = new ArrayList<>(repetitions);
+        for (int r = 0; r < repetitions; r++) {
+            runs.add(computeFolds(data, folds, firstSeed + r));
+        }
+        return Collections.unmodifiableList(runs);
+    }
+
+    private static void checkFolds(Instances data, int folds) {
+        if (folds < 2) {
+            throw new IllegalArgumentException("Number of folds must be at least 2!");
+        }
+        if (folds > data.numInstances()) {
+            throw new IllegalArgumentException("Can't have more folds than instances!");
+        }
+    }
+
+    /**
+     A single split with trainRatio of the rows for training. Without stratification the
+     rows are those of data.randomize(new Random(seed)) cut at round(n * trainRatio);
+     stratified, each class (missing class values counting as one more) contributes
+     round(count * trainRatio) rows, taken in the same shuffled order.
+     */
+    public static FoldIndices holdout(Instances data, double trainRatio, long seed, boolean stratified) {
+        if (trainRatio < 0 || trainRatio > 1) {
+            throw new IllegalArgumentException("Training ratio must be between 0 and 1: " + trainRatio);
+        }
+        boolean byClass = stratified && data.classIndex() >= 0 && data.classAttribute().isNominal();
+        String kind = byClass ? "stratified holdout" : "holdout";
+        long ratioBits = Double.doubleToLongBits(trainRatio);
+        return CACHE.computeIfAbsent(new Key(data, kind, ratioBits, seed),
+                key -> computeHoldout(data, trainRatio, seed, byClass));
+    }
+
+    public static void clearCache() {
+        CACHE.clear();
+    }
+
+    public int numFolds() {
+        return testIndices.length;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int[] getTrainIndices(int fold) {
+        return trainIndices[fold];
+    }
+
+    public int[] getTestIndices(int fold) {
+        return testIndices[fold];
+    }
+
+    /**
+     Training rows of a fold as a view over data, which must be the dataset (or one
+     with the same rows) the indices were computed for.
+     */
+    public InstancesView train(Instances data, int fold) {
+        checkSize(data);
+        return new InstancesView(data, trainIndices[fold]);
+    }
+
+    public InstancesView test(Instances data, int fold) {
+        checkSize(data);
+        return new InstancesView(data, testIndices[fold]);
+    }
+
+    /**
+     Same rows and seed, and the same training and test rows in every fold
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof FoldIndices)) {
+            return false;
+        }
+        FoldIndices folds = (FoldIndices) other;
+        return numInstances == folds.numInstances && seed == folds.seed
+                && Arrays.deepEquals(testIndices, folds.testIndices)
+                && Arrays.deepEquals(trainIndices, folds.trainIndices);
+    }
+
+    @Override
+    public int hashCode() {
+        return (numInstances * 31 + Long.hashCode(seed)) * 31 + Arrays.deepHashCode(testIndices);
+    }
+
+    private void checkSize(Instances data) {
+        if (data.numInstances() != numInstances) {
+            throw new IllegalArgumentException("Folds were computed for " + numInstances
+                    + " instances, dataset has " + data.numInstances());
+        }
+    }
+
+    private static FoldIndices computeFolds(Instances data, int folds, long seed) {
+        int n = data.numInstances();
+        Random random = new Random(seed);
+        int[] order = identity(n);
+        shuffle(order, random);
+        if (data.classIndex() >= 0 && data.classAttribute().isNominal()) {
+            order = stratify(order, classValues(data), folds);
+        }
+
+        int[][] train = new int[folds][];
+        int[][] test = new int[folds][];
+        for (int fold = 0; fold < folds; fold++) {
+            // Fold boundaries as in Instances.testCV / trainCV
+            int size = n / folds;
+            int offset;
+            if (fold < n % folds) {
+                size++;
+                offset = fold;
+            } else {
+                offset = n % folds;
+            }
+            int first = fold * (n / folds) + offset;
+            test[fold] = Arrays.copyOfRange(order, first, first + size);
+            train[fold] = new int[n - size];
+            System.arraycopy(order, 0, train[fold], 0, first);
+            System.arraycopy(order, first + size, train[fold], first, n - first - size);
+            shuffle(train[fold], random);
+        }
+        return new FoldIndices(n, seed, train, test);
+    }
+
+    private static FoldIndices computeHoldout(Instances data, double trainRatio, long seed, boolean byClass) {
+        int n = data.numInstances();
+        int[] order = identity(n);
+        shuffle(order, new Random(seed));
+        if (!byClass) {
+            int trainSize = (int) Math.round(n * trainRatio);
+            return new FoldIndices(n, seed, new int[][]{Arrays.copyOfRange(order, 0, trainSize)},
+                    new int[][]{Arrays.copyOfRange(order, trainSize, n)});
+        }
+
+        double[] classes = classValues(data);
+        int missingGroup = data.numClasses();
+        int[] counts = new int[missingGroup + 1];
+        for (double value : classes) {
+            counts[group(value, missingGroup)]++;
+        }
+        int[] quota = new int[counts.length];
+        int trainSize = 0;
+        for (int c = 0; c < counts.length; c++) {
+            quota[c] = (int) Math.round(counts[c] * trainRatio);
+            trainSize += quota[c];
+        }
+        int[] train = new int[trainSize];
+        int[] test = new int[n - trainSize];
+        int trainCount = 0;
+        int testCount = 0;
+        for (int row : order) {
+            int c = group(classes[row], missingGroup);
+            if (quota[c] > 0) {
+                quota[c]--;
+                train[trainCount++] = row;
+            } else {
+                test[testCount++] = row;
+            }
+        }
+        return new FoldIndices(n, seed, new int[][]{train}, new int[][]{test});
+    }
+
+    private static int group(double classValue, int missingGroup) {
+        return Utils.isMissingValue(classValue) ? missingGroup : (int) classValue;
+    }
+
+    private static double[] classValues(Instances data) {
+        double[] values = new double[data.numInstances()];
+        if (data.classIndex() >= 0) {
+            for (int row = 0; row < values.length; row++) {
+                values[row] = data.instance(row).classValue();
+            }
+        }
+        return values;
+    }
+
+    private static int[] identity(int n) {
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        return order;
+    }
+
+    /**
+     Same permutation as Instances.randomize(random).
+     */
+    private static void shuffle(int[] order, Random random) {
+        for (int j = order.length - 1; j > 0; j--) {
+            int k = random.nextInt(j + 1);
+            int tmp = order[j];
+            order[j] = order[k];
+            order[k] = tmp;
+        }
+    }
+
+    /**
+     Same order as Instances.stratify(folds): rows grouped by class with the same swaps,
+     then dealt out every folds-th row.
+     */
+    private static int[] stratify(int[] order, double[] classes, int folds) {
+        int n = order.length;
+        int index = 1;
+        while (index < n) {
+            double first = classes[order[index - 1]];
+            for (int j = index; j < n; j++) {
+                double other = classes[order[j]];
+                if (first == other || (Utils.isMissingValue(first) && Utils.isMissingValue(other))) {
+                    int tmp = order[index];
+                    order[index] = order[j];
+                    order[j] = tmp;
+                    index++;
+                }
+            }
+            index++;
+        }
+
+        int[] stratified = new int[n];
+        int size = 0;
+        for (int start = 0; size < n; start++) {
+            for (int j = start; j < n; j += folds) {
+                stratified[size++] = order[j];
+            }
+        }
+        return stratified;
+    }
+
+    /**
+     Cache key: the split parameters plus the class vector they depend on.
+     */
+    private static final class Key {
+        private final String kind;
+        private final long parameter;
+        private final long seed;
+        private final boolean nominalClass;
+        private final double[] classes;
+        private final int hash;
+
+        Key(Instances data, String kind, long parameter, long seed) {
+            this.kind = kind;
+            this.parameter = parameter;
+            this.seed = seed;
+            this.nominalClass = data.classIndex() >= 0 && data.classAttribute().isNominal();
+            this.classes = classValues(data);
+            this.hash = ((kind.hashCode() * 31 + Long.hashCode(parameter)) * 31 + Long.hashCode(seed)) * 31
+                    + Arrays.hashCode(classes);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return hash == key.hash && parameter == key.parameter && seed == key.seed
+                    && nominalClass == key.nominalClass && kind.equals(key.kind)
+                    && Arrays.equals(classes, key.classes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
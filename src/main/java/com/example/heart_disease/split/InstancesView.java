@@ -0,0 +1,49 @@
+package com.example.heart_disease.split;
+
+import weka.core.Instance;
+import weka.core.Instances;
+
+/**
+ Instances holding the rows of a backing dataset selected by an index array, without
+ copying them: the Instance objects are shared, only the list of references is new.
+
+ Rows keep the backing dataset as their dataset(), which has the same header. Weka
+ classifiers copy their training data before changing it, so a view can be passed
+ to buildClassifier and evaluateModel; code that modifies rows in place must use a
+ copy (new Instances(view)) instead.
+
+ A weighted view gives its rows new weights. It holds shallow copies of the rows
+ (Instance.copy() shares the attribute values), so the backing rows keep their own
+ weights and views over the same data can be used concurrently.
+ */
+public class InstancesView extends Instances {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int[] indices;
+
+    public InstancesView(Instances backing, int[] indices) {
+        super(backing, indices.length);
+        this.indices = indices;
+        for (int index : indices) {
+            m_Instances.add(backing.instance(index));
+        }
+    }
+
+    public InstancesView(Instances backing, int[] indices, double[] weights) {
+        super(backing, indices.length);
+        this.indices = indices;
+        for (int i = 0; i < indices.length; i++) {
+            Instance row = (Instance) backing.instance(indices[i]).copy();
+            row.setWeight(weights[i]);
+            m_Instances.add(row);
+        }
+    }
+
+    /**
+     Row indices into the backing dataset, in view order.
+     */
+    public int[] getIndices() {
+        return indices;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.heart_disease.utils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+public class BenchmarkUtils {
+
+    /**
+     Total bytes allocated so far by all live threads, or -1 when the JVM cannot tell.
+     Worker pool threads stay alive between calls, so deltas include their allocations.
+     */
+    public static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) threads;
+        if (!hotspot.isThreadAllocatedMemorySupported() || !hotspot.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        long total = 0;
+        for (long bytes : hotspot.getThreadAllocatedBytes(hotspot.getAllThreadIds())) {
+            if (bytes > 0) total += bytes;
+        }
+        return total;
+    }
+
+    /**
+     CPU time of the current thread in nanoseconds, or wall-clock nanoseconds when the
+     JVM does not measure thread CPU time. Unlike wall time it does not grow while the
+     thread waits for a core, so summed task times stay an honest serial estimate.
+     */
+    public static long threadCpuNanos() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads.isCurrentThreadCpuTimeSupported() && threads.isThreadCpuTimeEnabled()) {
+            return threads.getCurrentThreadCpuTime();
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     Nearest-rank percentile (0-100) of values sorted in ascending order
+     */
+    public static long percentile(long[] sorted, double percent) {
+        if (sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.min(sorted.length - 1, Math.max(0, rank - 1))];
+    }
+
+    public static String formatBytes(long bytes) {
+        if (bytes < 0) return "n/a";
+        if (bytes < 1 << 20) return String.format("%.1f KB", bytes / 1024.0);
+        return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+
+    public static String formatRate(long rows, long nanos) {
+        return String.format("%,.0f rows/sec", rows / (nanos / 1e9));
+    }
+}
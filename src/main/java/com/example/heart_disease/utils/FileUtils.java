@@ -6,6 +6,8 @@ import java.io.PrintWriter;
 
 public class FileUtils {
 
+    public static final String COLUMNAR_CACHE_EXTENSION = ".col";
+
     public static String resolveDataPath(String path) {
         File file = new File(path);
         if (file.exists()) {
@@ -34,5 +36,24 @@ public class FileUtils {
     public static String getResourcePath(String filename) {
         return "src/main/resources/" + filename;
     }
+
+    public static String getColumnarCachePath(String dataPath) {
+        String name = new File(dataPath).getName();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? dataPath.substring(0, dataPath.length() - (name.length() - dot)) : dataPath;
+        return base + COLUMNAR_CACHE_EXTENSION;
+    }
+
+    /**
+     Columnar cache next to the dataset if it exists and is at least as new, else null.
+     */
+    public static String getFreshCachePath(String dataPath) {
+        File data = new File(dataPath);
+        File cache = new File(getColumnarCachePath(dataPath));
+        if (cache.exists() && (!data.exists() || cache.lastModified() >= data.lastModified())) {
+            return cache.getPath();
+        }
+        return null;
+    }
 }
 
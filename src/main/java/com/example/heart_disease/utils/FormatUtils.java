@@ -0,0 +1,101 @@
+package com.example.heart_disease.utils;
+
+import weka.core.Utils;
+
+/**
+ Number formatting that produces exactly the text of Weka's Utils.doubleToString
+ (DecimalFormat, HALF_UP, no grouping, trailing zeros dropped) without going through
+ DecimalFormat for ordinary values.
+
+ The value is scaled to an integer number of units in the last printed decimal. When
+ the scaled value is well inside the long range and not close to a rounding tie, the
+ rounding cannot differ from DecimalFormat's exact-binary rounding and the digits are
+ written directly; every other value (ties, huge or tiny magnitudes, NaN, infinities,
+ negative values that round to zero) falls back to Utils.doubleToString.
+ */
+public class FormatUtils {
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L
+    };
+    /** Scaled values below 2^42 carry an error far below TIE_MARGIN. */
+    private static final double MAX_SCALED = 0x1p42;
+    private static final double TIE_MARGIN = 1e-2;
+
+    /**
+     Same text as Utils.doubleToString(value, decimals).
+     */
+    public static String doubleToString(double value, int decimals) {
+        StringBuilder text = new StringBuilder(24);
+        appendDouble(text, value, decimals);
+        return text.toString();
+    }
+
+    /**
+     Append the text of Utils.doubleToString(value, decimals).
+     */
+    public static void appendDouble(StringBuilder out, double value, int decimals) {
+        long units = scaledUnits(value, decimals);
+        if (units == Long.MIN_VALUE) {
+            out.append(Utils.doubleToString(value, decimals));
+            return;
+        }
+        if (units < 0) {
+            out.append('-');
+            units = -units;
+        }
+        long scale = POWERS_OF_TEN[decimals];
+        out.append(units / scale);
+        long fraction = units % scale;
+        if (fraction != 0) {
+            int digits = decimals;
+            while (fraction % 10 == 0) {
+                fraction /= 10;
+                digits--;
+            }
+            out.append('.');
+            for (long p = POWERS_OF_TEN[digits - 1]; p > fraction && p > 1; p /= 10) {
+                out.append('0');
+            }
+            out.append(fraction);
+        }
+    }
+
+    /**
+     The value as printed with the given number of decimals and parsed back, i.e.
+     Double.parseDouble(Utils.doubleToString(value, decimals)).
+     */
+    public static double roundTo(double value, int decimals) {
+        long units = scaledUnits(value, decimals);
+        if (units == Long.MIN_VALUE) {
+            return Double.parseDouble(Utils.doubleToString(value, decimals));
+        }
+        // units and 10^decimals are exact doubles, so this is the correctly rounded decimal
+        return units == 0 ? 0.0 : units / (double) POWERS_OF_TEN[decimals];
+    }
+
+    /**
+     Value rounded half-up to whole units of 10^-decimals, or Long.MIN_VALUE when the
+     fast path cannot guarantee DecimalFormat's result.
+     */
+    private static long scaledUnits(double value, int decimals) {
+        if (decimals < 0 || decimals >= POWERS_OF_TEN.length) {
+            return Long.MIN_VALUE;
+        }
+        double scaled = value * POWERS_OF_TEN[decimals];
+        double magnitude = Math.abs(scaled);
+        if (!(magnitude < MAX_SCALED)) {
+            return Long.MIN_VALUE; // also NaN
+        }
+        double floor = Math.floor(magnitude);
+        double fraction = magnitude - floor;
+        if (Math.abs(fraction - 0.5) < TIE_MARGIN) {
+            return Long.MIN_VALUE;
+        }
+        long units = (long) floor + (fraction > 0.5 ? 1 : 0);
+        if (units == 0 && (value < 0 || Double.doubleToRawLongBits(value) == Long.MIN_VALUE)) {
+            return Long.MIN_VALUE; // DecimalFormat keeps the sign: "-0"
+        }
+        return value < 0 ? -units : units;
+    }
+}